@@ -0,0 +1,62 @@
+package cn.jacksonz.pwa.twa.zhiweijz;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.webkit.RenderProcessGoneDetail;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.BridgeWebViewClient;
+
+import cn.jacksonz.pwa.twa.zhiweijz.assets.LocalAssetServer;
+import cn.jacksonz.pwa.twa.zhiweijz.imagecache.ThumbnailInterceptor;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+
+/**
+ * 在Capacitor默认WebViewClient之前拦截请求
+ * 应用本地的预压缩静态资源由LocalAssetServer提供，外部图片请求经由缩略图缓存；
+ * 其余请求（含注入桥接脚本的HTML）仍由Capacitor的本地服务器处理
+ */
+public class AppWebViewClient extends BridgeWebViewClient {
+    private final Bridge bridge;
+    private final ThumbnailInterceptor interceptor;
+    private final LocalAssetServer assetServer;
+
+    public AppWebViewClient(Bridge bridge, ThumbnailInterceptor interceptor, LocalAssetServer assetServer) {
+        super(bridge);
+        this.bridge = bridge;
+        this.interceptor = interceptor;
+        this.assetServer = assetServer;
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        String host = request.getUrl().getHost();
+        if (host != null && !host.equals(bridge.getHost())) {
+            WebResourceResponse response = interceptor.intercept(request);
+            if (response != null) {
+                return response;
+            }
+        } else if (host != null && bridge.getServerUrl() == null) {
+            // 配置了server.url（如开发时的实时刷新）时资源来自开发服务器，不经过包内资源
+            WebResourceResponse response = assetServer.intercept(request);
+            if (response != null) {
+                return response;
+            }
+        }
+        return super.shouldInterceptRequest(view, request);
+    }
+
+    /**
+     * 记录渲染进程退出，之后仍按Capacitor的默认方式处理；记录与内存回调放在一起，便于对照退出前的内存状况
+     */
+    @Override
+    @TargetApi(Build.VERSION_CODES.O)
+    public boolean onRenderProcessGone(WebView view, RenderProcessGoneDetail detail) {
+        MemoryPressureCoordinator.getInstance(view.getContext())
+            .recordRendererGone(detail.didCrash(), detail.rendererPriorityAtExit());
+        return super.onRenderProcessGone(view, detail);
+    }
+}
@@ -6,24 +6,57 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 import android.view.WindowManager;
+import android.webkit.WebView;
 import androidx.core.view.WindowCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.core.view.WindowInsetsControllerCompat;
 
 import com.getcapacitor.BridgeActivity;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
+import com.getcapacitor.WebViewListener;
 import com.capacitorjs.plugins.camera.CameraPlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.assets.LocalAssetServer;
+import cn.jacksonz.pwa.twa.zhiweijz.imagecache.ThumbnailCache;
+import cn.jacksonz.pwa.twa.zhiweijz.imagecache.ThumbnailInterceptor;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.DiagnosticsPlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.ImageCachePlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.LocalLedgerPlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.NativeHttpPlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.QuickEntryPlugin;
 import cn.jacksonz.pwa.twa.zhiweijz.plugins.ShareTargetPlugin;
 import cn.jacksonz.pwa.twa.zhiweijz.plugins.LogBridgePlugin;
 import cn.jacksonz.pwa.twa.zhiweijz.plugins.SSLConfigPlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.UploadQueuePlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.VoiceRecorderPlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.EventChannelBenchmark;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MediaCacheJanitor;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.NativeEventChannel;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.NetworkStateMonitor;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.StartupTrace;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.WebEventQueue;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class MainActivity extends BridgeActivity {
 
     private static final String TAG = "MainActivity";
     private Uri sharedImageUri = null;
+    private final List<Uri> sharedImageUris = new ArrayList<>();
+    private final WebEventQueue webEventQueue = new WebEventQueue(null);
+    private WebEventQueue.Dispatcher scriptDispatcher;
+    private NativeEventChannel eventChannel;
+    private EventChannelBenchmark eventChannelBenchmark;
+    private NetworkStateMonitor networkStateMonitor;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        StartupTrace startupTrace = StartupTrace.getInstance();
+        startupTrace.markWarmStart();
+        startupTrace.mark(StartupTrace.ACTIVITY_CREATE);
+
         // 注册Camera插件
         registerPlugin(CameraPlugin.class);
 
@@ -36,16 +69,95 @@ public class MainActivity extends BridgeActivity {
         // 注册SSL配置插件
         registerPlugin(SSLConfigPlugin.class);
 
+        // 注册上传队列插件
+        registerPlugin(UploadQueuePlugin.class);
+
+        // 注册诊断插件
+        registerPlugin(DiagnosticsPlugin.class);
+
+        // 注册原生HTTP插件
+        registerPlugin(NativeHttpPlugin.class);
+
+        // 注册本地账本插件
+        registerPlugin(LocalLedgerPlugin.class);
+
+        // 注册图片缓存插件
+        registerPlugin(ImageCachePlugin.class);
+
+        // 注册语音录音插件
+        registerPlugin(VoiceRecorderPlugin.class);
+
+        // 注册快速记账插件
+        registerPlugin(QuickEntryPlugin.class);
+
+        // Capacitor在创建Bridge时实例化已注册插件并调用load()，生成Web层插件代理，无法延后注册；
+        // 插件load()只做轻量初始化，耗时工作推迟到首次使用或后台线程，各插件耗时由TracedPlugin记录
         super.onCreate(savedInstanceState);
+        startupTrace.mark(StartupTrace.PLUGINS_LOADED);
 
         // 设置状态栏和导航栏透明
         setupSystemBars();
 
+        // 附件缩略图和头像请求经由原生两级缓存，<img>和fetch无需改动；
+        // 预压缩的JS/CSS解压一次后内存映射提供，并在后台预热上次启动用到的资源
+        LocalAssetServer assetServer = LocalAssetServer.getInstance(this);
+        assetServer.prewarmAsync();
+        getBridge().setWebViewClient(new AppWebViewClient(getBridge(),
+            new ThumbnailInterceptor(this, ThumbnailCache.getInstance(this)), assetServer));
+
+        // 原生事件在Web层声明就绪后经由消息端口派发，不支持通道的页面退回脚本注入；
+        // 页面重新加载后需要等待Web层再次声明就绪
+        WebView webView = getBridge().getWebView();
+        scriptDispatcher = WebEventQueue.evaluateJavascriptDispatcher(webView);
+        webEventQueue.setDispatcher(scriptDispatcher);
+        String pageUrl = getBridge().getServerUrl() != null ? getBridge().getServerUrl() : getBridge().getLocalUrl();
+        eventChannel = new NativeEventChannel(webView, Uri.parse(pageUrl), webEventQueue);
+        getBridge().addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageStarted(WebView webView) {
+                // 先恢复排队状态，通道关闭时交回的未送达事件才会留到新页面就绪
+                webEventQueue.markNotReady();
+                eventChannel.close();
+                webEventQueue.setDispatcher(scriptDispatcher);
+                startupTrace.mark(StartupTrace.PAGE_STARTED);
+            }
+
+            @Override
+            public void onPageCommitVisible(WebView view, String url) {
+                startupTrace.mark(StartupTrace.PAGE_VISIBLE);
+            }
+
+            @Override
+            public void onPageLoaded(WebView webView) {
+                startupTrace.mark(StartupTrace.PAGE_LOADED);
+                assetServer.onPageLoaded();
+            }
+        });
+        startupTrace.mark(StartupTrace.BRIDGE_READY);
+
+        networkStateMonitor = new NetworkStateMonitor(this, webEventQueue);
+        networkStateMonitor.start();
+
+        // 系统内存回调由应用级协调器分发给已登记的缓存和缓冲区，快速记账等其他入口同样生效
+        MemoryPressureCoordinator.getInstance(this);
+
+        // 启动时在后台清理过期和超出预算的分享图片缓存
+        MediaCacheJanitor.getInstance(this).trimAsync(MediaCacheJanitor.DEFAULT_MAX_BYTES);
+
         // 添加启动日志
         Log.d(TAG, "🚀 [MainActivity] 应用启动完成，已注册插件");
 
-        // 处理分享Intent
-        handleSharedIntent(getIntent());
+        // 处理分享Intent；Activity重建时恢复保存的积压事件（其中包含尚未送达的分享），
+        // 没有保存过队列状态时（首次启动或状态未能保存）重新投递，分享按图片地址去重
+        if (!webEventQueue.restoreState(savedInstanceState)) {
+            handleSharedIntent(getIntent());
+        }
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        webEventQueue.saveState(outState);
     }
 
     @Override
@@ -56,8 +168,15 @@ public class MainActivity extends BridgeActivity {
         handleSharedIntent(intent);
     }
 
+    @Override
+    public void onDestroy() {
+        networkStateMonitor.stop();
+        super.onDestroy();
+    }
+
     /**
      * 处理分享的Intent
+     * 事件进入原生事件队列，Web层就绪后立即派发，不再依赖固定延迟
      */
     private void handleSharedIntent(Intent intent) {
         if (intent == null) {
@@ -77,31 +196,81 @@ public class MainActivity extends BridgeActivity {
                 // 存储分享的图片URI供插件使用
                 sharedImageUri = imageUri;
 
-                // 将图片URI传递给Web层
-                String imageUriStr = imageUri.toString();
-                Log.d(TAG, "准备发送JavaScript事件，图片URI: " + imageUriStr);
-
-                // 延迟执行，确保Web层已经完全加载
-                getBridge().getWebView().postDelayed(() -> {
-                    String jsCode = "try { " +
-                        "console.log('📷 [Android] 准备触发分享图片事件'); " +
-                        "window.dispatchEvent(new CustomEvent('sharedImageReceived', { detail: { imageUri: '" +
-                        imageUriStr.replace("'", "\\'") + "', source: 'share' } })); " +
-                        "console.log('📷 [Android] 分享图片事件已触发'); " +
-                        "'SUCCESS'; " +
-                        "} catch(e) { " +
-                        "console.error('📷 [Android] JavaScript执行失败:', e); " +
-                        "'ERROR: ' + e.message; " +
-                        "}";
-                    Log.d(TAG, "📷 [MainActivity] 执行JavaScript代码触发分享事件");
-                    getBridge().getWebView().evaluateJavascript(jsCode, result -> {
-                        Log.d(TAG, "📷 [MainActivity] JavaScript执行完成，结果: " + result);
-                    });
-                }, 2000); // 延迟2秒执行
+                JSObject detail = new JSObject();
+                detail.put("imageUri", imageUri.toString());
+                detail.put("source", "share");
+                webEventQueue.post("sharedImageReceived", imageUri.toString(), detail);
+            }
+        } else if (Intent.ACTION_SEND_MULTIPLE.equals(action) && type != null && type.startsWith("image/")) {
+            ArrayList<Uri> imageUris = intent.getParcelableArrayListExtra(Intent.EXTRA_STREAM);
+            if (imageUris != null && !imageUris.isEmpty()) {
+                Log.d(TAG, "接收到分享的多张图片: " + imageUris.size());
+
+                // 存储分享的图片URI列表供插件批量导入
+                sharedImageUris.clear();
+                sharedImageUris.addAll(imageUris);
+
+                JSArray uriArray = new JSArray();
+                for (Uri uri : imageUris) {
+                    uriArray.put(uri.toString());
+                }
+                JSObject detail = new JSObject();
+                detail.put("imageUris", uriArray);
+                detail.put("source", "share");
+                webEventQueue.post("sharedImagesReceived", uriArray.toString(), detail);
             }
         }
     }
 
+    /**
+     * Web层就绪后调用
+     * useChannel为true时建立事件通道，积压事件经由通道按顺序派发，返回空列表；否则直接返回积压事件
+     */
+    public JSArray markWebReady(boolean useChannel) {
+        if (!useChannel) {
+            return webEventQueue.markReadyAndDrain();
+        }
+        // 端口只能在主线程创建；此前发送的事件仍在积压队列中，建立后统一派发
+        runOnUiThread(() -> {
+            eventChannel.open();
+            webEventQueue.setDispatcher(eventChannel);
+            webEventQueue.markReadyAndFlush();
+        });
+        return new JSArray();
+    }
+
+    public WebEventQueue getWebEventQueue() {
+        return webEventQueue;
+    }
+
+    public NativeEventChannel.Stats getEventChannelStats() {
+        return eventChannel.getStats();
+    }
+
+    /**
+     * 比较事件通道与脚本注入的吞吐量，需要事件通道已建立
+     */
+    public void runEventChannelBenchmark(int count, int payloadBytes, boolean binary, EventChannelBenchmark.Callback callback) {
+        runOnUiThread(() -> {
+            if (!eventChannel.isOpen()) {
+                JSObject result = new JSObject();
+                result.put("error", "事件通道未建立");
+                callback.onFinished(result);
+                return;
+            }
+            if (eventChannelBenchmark == null) {
+                eventChannelBenchmark = new EventChannelBenchmark(eventChannel, scriptDispatcher);
+            }
+            if (eventChannelBenchmark.isRunning()) {
+                JSObject result = new JSObject();
+                result.put("error", "基准测试正在进行");
+                callback.onFinished(result);
+                return;
+            }
+            eventChannelBenchmark.run(count, payloadBytes, binary, callback);
+        });
+    }
+
     private void setupSystemBars() {
         // 启用边到边显示
         WindowCompat.setDecorFitsSystemWindows(getWindow(), false);
@@ -133,5 +302,11 @@ public class MainActivity extends BridgeActivity {
 
     public void clearSharedImageUri() {
         sharedImageUri = null;
+        sharedImageUris.clear();
+    }
+
+    // 多图分享URI列表
+    public List<Uri> getSharedImageUris() {
+        return new ArrayList<>(sharedImageUris);
     }
 }
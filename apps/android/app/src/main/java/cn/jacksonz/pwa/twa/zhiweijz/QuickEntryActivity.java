@@ -0,0 +1,218 @@
+package cn.jacksonz.pwa.twa.zhiweijz;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.RadioGroup;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import cn.jacksonz.pwa.twa.zhiweijz.ledger.LedgerDatabase;
+import cn.jacksonz.pwa.twa.zhiweijz.quickentry.QuickEntry;
+import cn.jacksonz.pwa.twa.zhiweijz.quickentry.QuickEntryFlushJobService;
+import cn.jacksonz.pwa.twa.zhiweijz.quickentry.QuickEntryFlusher;
+import cn.jacksonz.pwa.twa.zhiweijz.quickentry.QuickEntrySession;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 快速记账
+ * 桌面快捷方式直接打开的原生界面，不启动WebView和Capacitor桥接；
+ * 分类来自本地账本缓存，记录写入待发送队列后立即关闭，由后台任务或下次打开应用时补发
+ */
+public class QuickEntryActivity extends Activity {
+    private static final String TAG = "QuickEntryActivity";
+
+    private static class CategoryOption {
+        final String id;
+        final String name;
+        final String type;
+
+        CategoryOption(String id, String name, String type) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final List<CategoryOption> categories = new ArrayList<>();
+
+    private QuickEntryFlusher flusher;
+    private QuickEntrySession session;
+    private RadioGroup typeGroup;
+    private EditText amountInput;
+    private EditText noteInput;
+    private Spinner categorySpinner;
+    private TextView statusText;
+    private Button saveButton;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_quick_entry);
+
+        flusher = QuickEntryFlusher.getInstance(this);
+        session = flusher.getSession();
+
+        TextView title = findViewById(R.id.quick_entry_title);
+        typeGroup = findViewById(R.id.quick_entry_type);
+        amountInput = findViewById(R.id.quick_entry_amount);
+        noteInput = findViewById(R.id.quick_entry_note);
+        categorySpinner = findViewById(R.id.quick_entry_category);
+        statusText = findViewById(R.id.quick_entry_status);
+        saveButton = findViewById(R.id.quick_entry_save);
+
+        String bookName = session.getAccountBookName();
+        if (bookName != null) {
+            title.setText(getString(R.string.quick_entry_title) + " · " + bookName);
+        }
+
+        findViewById(R.id.quick_entry_cancel).setOnClickListener(v -> finish());
+        findViewById(R.id.quick_entry_open_app).setOnClickListener(v -> {
+            startActivity(new Intent(this, MainActivity.class));
+            finish();
+        });
+        typeGroup.setOnCheckedChangeListener((group, checkedId) -> bindCategories());
+        saveButton.setOnClickListener(v -> save());
+
+        if (!session.isReady()) {
+            showStatus(getString(R.string.quick_entry_need_login));
+            saveButton.setEnabled(false);
+            return;
+        }
+        amountInput.requestFocus();
+        loadCategories(session.getAccountBookId());
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        executor.shutdown();
+    }
+
+    /**
+     * 在后台读取本地账本缓存的分类，首次打开数据库不阻塞界面显示
+     */
+    private void loadCategories(String accountBookId) {
+        executor.execute(() -> {
+            List<CategoryOption> loaded = new ArrayList<>();
+            String[] collection = LedgerDatabase.getInstance(this).getCollection(accountBookId, LedgerDatabase.KIND_CATEGORIES);
+            if (collection != null) {
+                try {
+                    JSONArray items = new JSONArray(collection[0]);
+                    for (int i = 0; i < items.length(); i++) {
+                        JSONObject item = items.optJSONObject(i);
+                        if (item == null || item.optBoolean("isHidden", false)) {
+                            continue;
+                        }
+                        loaded.add(new CategoryOption(item.optString("id"), item.optString("name"), item.optString("type")));
+                    }
+                } catch (JSONException e) {
+                    Log.w(TAG, "解析分类缓存失败", e);
+                }
+            }
+            runOnUiThread(() -> {
+                if (isFinishing()) {
+                    return;
+                }
+                categories.clear();
+                categories.addAll(loaded);
+                bindCategories();
+            });
+        });
+    }
+
+    private void bindCategories() {
+        String type = currentType();
+        List<CategoryOption> options = new ArrayList<>();
+        for (CategoryOption option : categories) {
+            if (type.equals(option.type)) {
+                options.add(option);
+            }
+        }
+        ArrayAdapter<CategoryOption> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, options);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        categorySpinner.setAdapter(adapter);
+
+        if (options.isEmpty()) {
+            showStatus(getString(R.string.quick_entry_no_categories));
+        } else {
+            statusText.setVisibility(View.GONE);
+        }
+        saveButton.setEnabled(!options.isEmpty());
+    }
+
+    private void save() {
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(amountInput.getText().toString().trim());
+        } catch (NumberFormatException e) {
+            amount = null;
+        }
+        if (amount == null || amount.signum() <= 0) {
+            amountInput.setError(getString(R.string.quick_entry_invalid_amount));
+            return;
+        }
+        CategoryOption category = (CategoryOption) categorySpinner.getSelectedItem();
+        if (category == null) {
+            return;
+        }
+
+        QuickEntry entry = new QuickEntry();
+        entry.userId = session.getUserId();
+        entry.accountBookId = session.getAccountBookId();
+        entry.amount = amount.toPlainString();
+        entry.type = currentType();
+        entry.categoryId = category.id;
+        entry.categoryName = category.name;
+        entry.description = noteInput.getText().toString().trim();
+
+        saveButton.setEnabled(false);
+        executor.execute(() -> {
+            boolean saved = flusher.enqueue(entry);
+            if (saved) {
+                // 有网络时立即发送；无网络或发送失败时由系统在联网后调度补发
+                flusher.flushAsync(null);
+                QuickEntryFlushJobService.schedule(this);
+            }
+            runOnUiThread(() -> {
+                if (saved) {
+                    Toast.makeText(this, R.string.quick_entry_saved, Toast.LENGTH_SHORT).show();
+                    finish();
+                } else {
+                    saveButton.setEnabled(true);
+                    showStatus(getString(R.string.quick_entry_save_failed));
+                }
+            });
+        });
+    }
+
+    private String currentType() {
+        return typeGroup.getCheckedRadioButtonId() == R.id.quick_entry_income ? QuickEntry.TYPE_INCOME : QuickEntry.TYPE_EXPENSE;
+    }
+
+    private void showStatus(String message) {
+        statusText.setText(message);
+        statusText.setVisibility(View.VISIBLE);
+    }
+}
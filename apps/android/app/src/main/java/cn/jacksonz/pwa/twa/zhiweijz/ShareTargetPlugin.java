@@ -13,9 +13,9 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import cn.jacksonz.pwa.twa.zhiweijz.utils.SharedImageStore;
+
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
 
 @CapacitorPlugin(name = "ShareTarget")
 public class ShareTargetPlugin extends Plugin {
@@ -59,33 +59,10 @@ public class ShareTargetPlugin extends Plugin {
 
     private String processSharedImage(Uri imageUri) {
         try {
-            Context context = getContext();
-            ContentResolver contentResolver = context.getContentResolver();
-            
-            // 创建临时文件
-            File tempDir = new File(context.getCacheDir(), "shared_images");
-            if (!tempDir.exists()) {
-                tempDir.mkdirs();
-            }
-            
-            String fileName = "shared_image_" + System.currentTimeMillis() + ".jpg";
-            File tempFile = new File(tempDir, fileName);
-            
-            // 复制图片到临时文件
-            try (InputStream inputStream = contentResolver.openInputStream(imageUri);
-                 FileOutputStream outputStream = new FileOutputStream(tempFile)) {
-                
-                if (inputStream != null) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                    }
-                    
-                    Log.d(TAG, "📷 [ShareTargetPlugin] 图片已复制到: " + tempFile.getAbsolutePath());
-                    return tempFile.getAbsolutePath();
-                }
-            }
+            // 复制到受管理的分享图片缓存目录，由MediaCacheJanitor统一清理
+            File tempFile = SharedImageStore.copyToCache(getContext(), imageUri, null);
+            Log.d(TAG, "📷 [ShareTargetPlugin] 图片已复制到: " + tempFile.getAbsolutePath());
+            return tempFile.getAbsolutePath();
         } catch (Exception e) {
             Log.e(TAG, "❌ [ShareTargetPlugin] 处理图片时发生错误: " + e.getMessage(), e);
         }
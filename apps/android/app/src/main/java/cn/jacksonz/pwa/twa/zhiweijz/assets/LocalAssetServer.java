@@ -0,0 +1,460 @@
+package cn.jacksonz.pwa.twa.zhiweijz.assets;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.AssetManager;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 预压缩静态资源服务
+ * 构建时Next.js的JS/CSS块被压缩为.gz打包（见scripts/precompress-android-assets.js），
+ * 首次请求时解压到应用私有目录，之后以内存映射提供，冷启动不再重复解压和复制；
+ * 上次冷启动期间请求过的资源记为热点，下次启动时在后台提前解压并映射。
+ * 带内容哈希的资源附加长期缓存头。不在清单中的请求返回null，仍由Capacitor处理
+ */
+public class LocalAssetServer implements MemoryPressureCoordinator.Trimmable {
+    private static final String TAG = "LocalAssetServer";
+
+    private static final String PREFS_NAME = "local_assets";
+    private static final String KEY_ENABLED = "enabled";
+
+    private static final String ASSET_ROOT = "public/";
+    private static final String MANIFEST_PATH = ASSET_ROOT + "precompressed-assets.json";
+    private static final String STATIC_PREFIX = "_next/static/";
+    private static final String DIRECTORY_NAME = "web-assets";
+    private static final String HOT_LIST_NAME = "hot-assets.txt";
+    private static final String GZIP_SUFFIX = ".gz";
+
+    /** 文件名含内容哈希，内容不会变化 */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static LocalAssetServer instance;
+
+    private final AssetManager assets;
+    private final SharedPreferences preferences;
+    private final File root;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /** 清单：资源路径 -> 解压后大小；null表示尚未加载，空表示包内没有预压缩资源 */
+    private volatile Map<String, Long> manifest;
+    private volatile File versionDirectory;
+    private volatile boolean enabled;
+
+    private final Map<String, MappedByteBuffer> mapped = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Object> extractLocks = new ConcurrentHashMap<>();
+    /** 页面加载完成前请求过的资源，作为下次启动的热点列表 */
+    private final Set<String> startupRequests = new LinkedHashSet<>();
+    private boolean recordingStartup = true;
+
+    private final AtomicLong mappedResponses = new AtomicLong();
+    private final AtomicLong streamedResponses = new AtomicLong();
+    private final AtomicLong extractions = new AtomicLong();
+    private final AtomicLong extractMs = new AtomicLong();
+    private final AtomicLong prewarmed = new AtomicLong();
+    private final AtomicLong servedBytes = new AtomicLong();
+
+    /**
+     * 服务统计
+     */
+    public static class Stats {
+        public boolean enabled;
+        public String version;
+        public int manifestEntries;
+        public int mappedEntries;
+        /** 由内存映射提供的响应数 */
+        public long mappedResponses;
+        /** 直接从.gz流式解压的响应数（关闭映射或解压失败时） */
+        public long streamedResponses;
+        public long extractions;
+        public long extractMs;
+        public long prewarmed;
+        public long servedBytes;
+    }
+
+    public static synchronized LocalAssetServer getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new LocalAssetServer(appContext, new File(appContext.getFilesDir(), DIRECTORY_NAME));
+            MemoryPressureCoordinator.getInstance(appContext).register(TAG, instance);
+        }
+        return instance;
+    }
+
+    private LocalAssetServer(Context context, File root) {
+        this.assets = context.getAssets();
+        this.preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.root = root;
+        this.enabled = preferences.getBoolean(KEY_ENABLED, true);
+    }
+
+    /**
+     * 启动时调用：在后台加载清单、清理旧版本的解压文件，并提前映射上次启动的热点资源
+     */
+    public void prewarmAsync() {
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            ensureManifest();
+            File directory = versionDirectory;
+            if (directory == null) {
+                return;
+            }
+            deleteOtherVersions(directory);
+            if (!enabled) {
+                return;
+            }
+            for (String path : readHotList(directory)) {
+                if (!manifest.containsKey(path)) {
+                    continue;
+                }
+                try {
+                    MappedByteBuffer buffer = map(path);
+                    // 预先读入页缓存，WebView请求时不再触发缺页读盘
+                    buffer.load();
+                    prewarmed.incrementAndGet();
+                } catch (IOException e) {
+                    Log.w(TAG, "预热资源失败: " + path, e);
+                }
+            }
+            Log.d(TAG, "🔥 热点资源预热完成: " + prewarmed.get() + " 个, 耗时: "
+                + (SystemClock.elapsedRealtime() - start) + "ms");
+        });
+    }
+
+    /**
+     * 首个页面加载完成，保存本次启动请求过的资源作为下次的热点列表
+     */
+    public void onPageLoaded() {
+        List<String> hot;
+        synchronized (startupRequests) {
+            if (!recordingStartup) {
+                return;
+            }
+            recordingStartup = false;
+            hot = new ArrayList<>(startupRequests);
+        }
+        executor.execute(() -> {
+            File directory = versionDirectory;
+            if (directory == null || hot.isEmpty()) {
+                return;
+            }
+            writeHotList(directory, hot);
+        });
+    }
+
+    /**
+     * 在WebView的IO线程上调用，可以阻塞
+     * @return 预压缩资源的响应；不在清单中的请求返回null
+     */
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            return null;
+        }
+        String path = toAssetPath(request.getUrl());
+        if (path == null) {
+            return null;
+        }
+        ensureManifest();
+        Long size = manifest.get(path);
+        if (size == null) {
+            return null;
+        }
+        synchronized (startupRequests) {
+            if (recordingStartup) {
+                startupRequests.add(path);
+            }
+        }
+
+        InputStream body = null;
+        if (enabled) {
+            try {
+                body = new ByteBufferInputStream(map(path).duplicate());
+                mappedResponses.incrementAndGet();
+            } catch (IOException e) {
+                Log.w(TAG, "⚠️ 映射资源失败，改为流式解压: " + path, e);
+            }
+        }
+        if (body == null) {
+            try {
+                body = new GZIPInputStream(assets.open(ASSET_ROOT + path + GZIP_SUFFIX), 16 * 1024);
+                streamedResponses.incrementAndGet();
+            } catch (IOException e) {
+                Log.e(TAG, "❌ 读取预压缩资源失败: " + path, e);
+                return null;
+            }
+        }
+        servedBytes.addAndGet(size);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+        headers.put("Content-Length", String.valueOf(size));
+        return new WebResourceResponse(mimeType(path), "UTF-8", 200, "OK", headers, body);
+    }
+
+    /**
+     * 开关内存映射，用于对比冷启动耗时；下次启动生效的预热也随之开关。
+     * 关闭后预压缩资源仍从.gz流式解压提供
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        preferences.edit().putBoolean(KEY_ENABLED, enabled).apply();
+        if (!enabled) {
+            mapped.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 内存严重不足时解除对映射的引用，映射随GC释放；之后的请求按需重新映射已解压的文件
+     */
+    @Override
+    public long onMemoryPressure(MemoryPressureCoordinator.Tier tier) {
+        if (tier != MemoryPressureCoordinator.Tier.EVICT) {
+            return 0;
+        }
+        long released = 0;
+        for (MappedByteBuffer buffer : mapped.values()) {
+            released += buffer.capacity();
+        }
+        mapped.clear();
+        return released;
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        Map<String, Long> files = manifest;
+        File directory = versionDirectory;
+        stats.enabled = enabled;
+        stats.version = directory != null ? directory.getName() : null;
+        stats.manifestEntries = files != null ? files.size() : 0;
+        stats.mappedEntries = mapped.size();
+        stats.mappedResponses = mappedResponses.get();
+        stats.streamedResponses = streamedResponses.get();
+        stats.extractions = extractions.get();
+        stats.extractMs = extractMs.get();
+        stats.prewarmed = prewarmed.get();
+        stats.servedBytes = servedBytes.get();
+        return stats;
+    }
+
+    /**
+     * 请求地址转为包内资源路径，只处理_next/static下的资源
+     */
+    static String toAssetPath(Uri url) {
+        String path = url.getPath();
+        if (path == null) {
+            return null;
+        }
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (!path.startsWith(STATIC_PREFIX) || path.contains("..")) {
+            return null;
+        }
+        return path;
+    }
+
+    static String mimeType(String path) {
+        if (path.endsWith(".css")) {
+            return "text/css";
+        }
+        return "application/javascript";
+    }
+
+    /**
+     * 返回资源的内存映射，未解压时先解压到版本目录
+     */
+    private MappedByteBuffer map(String path) throws IOException {
+        MappedByteBuffer buffer = mapped.get(path);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        Object lock = new Object();
+        Object existing = extractLocks.putIfAbsent(path, lock);
+        synchronized (existing != null ? existing : lock) {
+            buffer = mapped.get(path);
+            if (buffer != null) {
+                return buffer;
+            }
+            File file = new File(versionDirectory, path);
+            long expectedSize = manifest.get(path);
+            if (file.length() != expectedSize) {
+                extract(path, file, expectedSize);
+            }
+            try (FileInputStream inputStream = new FileInputStream(file);
+                 FileChannel channel = inputStream.getChannel()) {
+                // 映射在通道关闭后仍然有效
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (enabled) {
+                mapped.put(path, buffer);
+            }
+            return buffer;
+        }
+    }
+
+    private void extract(String path, File target, long expectedSize) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        File parent = target.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("创建资源目录失败: " + parent.getAbsolutePath());
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        long written = 0;
+        try (InputStream inputStream = new GZIPInputStream(assets.open(ASSET_ROOT + path + GZIP_SUFFIX), 16 * 1024);
+             OutputStream outputStream = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                written += read;
+            }
+        }
+        if (written != expectedSize) {
+            temp.delete();
+            throw new IOException("解压后大小不符: " + written + " != " + expectedSize);
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("替换资源文件失败: " + target.getAbsolutePath());
+        }
+        extractions.incrementAndGet();
+        extractMs.addAndGet(SystemClock.elapsedRealtime() - start);
+    }
+
+    private void ensureManifest() {
+        if (manifest != null) {
+            return;
+        }
+        synchronized (this) {
+            if (manifest != null) {
+                return;
+            }
+            Map<String, Long> files = new HashMap<>();
+            try (InputStream inputStream = assets.open(MANIFEST_PATH)) {
+                byte[] data = Streams.readAll(inputStream, -1);
+                JSONObject json = new JSONObject(new String(data, StandardCharsets.UTF_8));
+                JSONObject entries = json.getJSONObject("files");
+                Iterator<String> keys = entries.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    files.put(key, entries.getJSONObject(key).getLong("size"));
+                }
+                versionDirectory = new File(root, json.getString("version"));
+                Log.d(TAG, "📦 预压缩资源清单: " + files.size() + " 个, 版本: " + versionDirectory.getName());
+            } catch (IOException e) {
+                // 未运行预压缩脚本的构建（如开发调试）没有清单，全部交给Capacitor
+                Log.d(TAG, "未找到预压缩资源清单");
+                files.clear();
+            } catch (JSONException e) {
+                Log.w(TAG, "预压缩资源清单格式错误", e);
+                files.clear();
+                versionDirectory = null;
+            }
+            manifest = files;
+        }
+    }
+
+    private void deleteOtherVersions(File current) {
+        File[] versions = root.listFiles();
+        if (versions == null) {
+            return;
+        }
+        for (File version : versions) {
+            if (!version.equals(current)) {
+                deleteRecursively(version);
+                Log.d(TAG, "🧹 清理旧版本资源: " + version.getName());
+            }
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (!file.delete()) {
+            Log.w(TAG, "删除失败: " + file.getAbsolutePath());
+        }
+    }
+
+    private static List<String> readHotList(File directory) {
+        List<String> paths = new ArrayList<>();
+        File file = new File(directory, HOT_LIST_NAME);
+        if (!file.exists()) {
+            return paths;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    paths.add(line);
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "读取热点资源列表失败", e);
+        }
+        return paths;
+    }
+
+    private static void writeHotList(File directory, List<String> paths) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        File target = new File(directory, HOT_LIST_NAME);
+        File temp = new File(directory, HOT_LIST_NAME + ".tmp");
+        try (Writer writer = new FileWriter(temp)) {
+            for (String path : paths) {
+                writer.write(path);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "保存热点资源列表失败", e);
+            return;
+        }
+        if (!temp.renameTo(target)) {
+            Log.w(TAG, "替换热点资源列表失败");
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package cn.jacksonz.pwa.twa.zhiweijz.http;
+
+import android.util.Log;
+
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 原生HTTP客户端
+ * 所有请求共用一个OkHttpClient：连接池复用TCP/TLS连接（TLS会话缓存随之复用），
+ * 支持HTTP/2多路复用，未指定Accept-Encoding时由OkHttp透明处理gzip；
+ * 相同的GET请求在前一个未返回时合并为一次网络请求
+ */
+public class NativeHttpClient implements MemoryPressureCoordinator.Trimmable {
+    private static final String TAG = "NativeHttpClient";
+
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+
+    /**
+     * 请求参数
+     */
+    public static class RequestSpec {
+        public String method = "GET";
+        public String url;
+        public Map<String, String> headers = new LinkedHashMap<>();
+        public String body;
+        public String contentType;
+        /** 为0时使用客户端默认超时 */
+        public long timeoutMs;
+        /** 是否允许与相同的进行中GET请求合并 */
+        public boolean coalesce = true;
+    }
+
+    /**
+     * 请求结果，响应体已完整读取
+     */
+    public static class Result {
+        public int status;
+        public String statusText;
+        public Map<String, String> headers = new LinkedHashMap<>();
+        public String body;
+        public String url;
+        public String protocol;
+        public long elapsedMs;
+        public boolean coalesced;
+    }
+
+    public interface ResultCallback {
+        void onSuccess(Result result);
+
+        void onFailure(IOException error);
+    }
+
+    /**
+     * 进行中的合并请求，等待同一结果的回调
+     */
+    private static class InFlight {
+        final List<ResultCallback> waiters = new ArrayList<>();
+    }
+
+    private final Map<String, InFlight> inFlight = new LinkedHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong networkCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    private final OkHttpClient client;
+    private volatile HttpUrl baseUrl;
+
+    public NativeHttpClient(OkHttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * 默认客户端配置
+     */
+    public static OkHttpClient.Builder defaultBuilder() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .dispatcher(dispatcher)
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(15, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .writeTimeout(30, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(true);
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * 设置API基础地址，相对路径的请求基于此地址解析
+     */
+    public void setBaseUrl(String url) {
+        if (url == null || url.isEmpty()) {
+            baseUrl = null;
+            return;
+        }
+        HttpUrl parsed = HttpUrl.parse(url.endsWith("/") ? url : url + "/");
+        if (parsed == null) {
+            throw new IllegalArgumentException("无效的服务器地址: " + url);
+        }
+        baseUrl = parsed;
+    }
+
+    public String getBaseUrl() {
+        HttpUrl current = baseUrl;
+        return current != null ? current.toString() : null;
+    }
+
+    /**
+     * 解析请求地址：绝对地址直接使用，相对地址拼接到基础地址之后
+     */
+    public HttpUrl resolve(String url) {
+        HttpUrl absolute = HttpUrl.parse(url);
+        if (absolute != null) {
+            return absolute;
+        }
+        HttpUrl base = baseUrl;
+        if (base == null) {
+            throw new IllegalArgumentException("未设置服务器地址，无法解析相对路径: " + url);
+        }
+        HttpUrl resolved = base.resolve(url.startsWith("/") ? url.substring(1) : url);
+        if (resolved == null) {
+            throw new IllegalArgumentException("无效的请求地址: " + url);
+        }
+        return resolved;
+    }
+
+    /**
+     * 异步发送请求，回调在OkHttp工作线程中执行
+     */
+    public void enqueue(RequestSpec spec, ResultCallback callback) {
+        requestCount.incrementAndGet();
+        Request request;
+        try {
+            request = buildRequest(spec);
+        } catch (IllegalArgumentException e) {
+            errorCount.incrementAndGet();
+            callback.onFailure(new IOException(e.getMessage(), e));
+            return;
+        }
+
+        if (!"GET".equals(request.method()) || !spec.coalesce) {
+            execute(request, spec.timeoutMs, callback);
+            return;
+        }
+
+        String key = coalesceKey(request);
+        synchronized (inFlight) {
+            InFlight existing = inFlight.get(key);
+            if (existing != null) {
+                coalescedCount.incrementAndGet();
+                existing.waiters.add(callback);
+                return;
+            }
+            InFlight created = new InFlight();
+            created.waiters.add(callback);
+            inFlight.put(key, created);
+        }
+
+        execute(request, spec.timeoutMs, new ResultCallback() {
+            @Override
+            public void onSuccess(Result result) {
+                List<ResultCallback> waiters = drain(key);
+                for (int i = 0; i < waiters.size(); i++) {
+                    if (i == 0) {
+                        waiters.get(i).onSuccess(result);
+                    } else {
+                        waiters.get(i).onSuccess(copyAsCoalesced(result));
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(IOException error) {
+                for (ResultCallback waiter : drain(key)) {
+                    waiter.onFailure(error);
+                }
+            }
+        });
+    }
+
+    /**
+     * 同步发送请求，供已在后台线程中的原生模块使用（不参与合并）
+     */
+    public Result execute(RequestSpec spec) throws IOException {
+        requestCount.incrementAndGet();
+        networkCount.incrementAndGet();
+        Request request;
+        try {
+            request = buildRequest(spec);
+        } catch (IllegalArgumentException e) {
+            errorCount.incrementAndGet();
+            throw new IOException(e.getMessage(), e);
+        }
+        OkHttpClient current = client;
+        if (spec.timeoutMs > 0) {
+            current = current.newBuilder().callTimeout(spec.timeoutMs, TimeUnit.MILLISECONDS).build();
+        }
+        long start = System.nanoTime();
+        try (Response response = current.newCall(request).execute()) {
+            return toResult(response, start);
+        } catch (IOException e) {
+            errorCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private static Result copyAsCoalesced(Result source) {
+        Result copy = new Result();
+        copy.status = source.status;
+        copy.statusText = source.statusText;
+        copy.headers = source.headers;
+        copy.body = source.body;
+        copy.url = source.url;
+        copy.protocol = source.protocol;
+        copy.elapsedMs = source.elapsedMs;
+        copy.coalesced = true;
+        return copy;
+    }
+
+    private List<ResultCallback> drain(String key) {
+        synchronized (inFlight) {
+            InFlight finished = inFlight.remove(key);
+            return finished != null ? finished.waiters : new ArrayList<>();
+        }
+    }
+
+    private void execute(Request request, long timeoutMs, ResultCallback callback) {
+        networkCount.incrementAndGet();
+        OkHttpClient current = client;
+        if (timeoutMs > 0) {
+            current = current.newBuilder().callTimeout(timeoutMs, TimeUnit.MILLISECONDS).build();
+        }
+        long start = System.nanoTime();
+        current.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                errorCount.incrementAndGet();
+                Log.w(TAG, "⚠️ 请求失败: " + request.method() + " " + request.url().encodedPath() + ", " + e.getMessage());
+                callback.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                Result result;
+                try (Response closeable = response) {
+                    result = toResult(closeable, start);
+                } catch (IOException e) {
+                    onFailure(call, e);
+                    return;
+                }
+                callback.onSuccess(result);
+            }
+        });
+    }
+
+    private Result toResult(Response response, long startNanos) throws IOException {
+        Result result = new Result();
+        result.status = response.code();
+        result.statusText = response.message();
+        result.url = response.request().url().toString();
+        result.protocol = response.protocol().toString();
+        for (String name : response.headers().names()) {
+            result.headers.put(name.toLowerCase(Locale.ROOT), response.header(name));
+        }
+        ResponseBody body = response.body();
+        result.body = body != null ? body.string() : "";
+        result.elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        responseBytes.addAndGet(result.body.length());
+        return result;
+    }
+
+    private Request buildRequest(RequestSpec spec) {
+        String method = spec.method == null ? "GET" : spec.method.toUpperCase(Locale.ROOT);
+        Request.Builder builder = new Request.Builder().url(resolve(spec.url));
+
+        String contentType = spec.contentType;
+        for (Map.Entry<String, String> header : spec.headers.entrySet()) {
+            if ("content-type".equalsIgnoreCase(header.getKey())) {
+                contentType = header.getValue();
+                continue;
+            }
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        RequestBody requestBody = null;
+        if (spec.body != null) {
+            MediaType mediaType = MediaType.parse(contentType != null ? contentType : "application/json; charset=utf-8");
+            requestBody = RequestBody.create(spec.body, mediaType);
+        } else if ("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method)) {
+            requestBody = RequestBody.create(new byte[0], null);
+        }
+        return builder.method(method, requestBody).build();
+    }
+
+    /**
+     * 合并键：地址加全部请求头（按名称排序），认证信息不同的请求不会合并
+     */
+    private static String coalesceKey(Request request) {
+        StringBuilder key = new StringBuilder(request.url().toString());
+        Map<String, String> sorted = new TreeMap<>();
+        for (String name : request.headers().names()) {
+            sorted.put(name.toLowerCase(Locale.ROOT), request.header(name));
+        }
+        for (Map.Entry<String, String> header : sorted.entrySet()) {
+            key.append('\n').append(header.getKey()).append(':').append(header.getValue());
+        }
+        return key.toString();
+    }
+
+    /**
+     * 统计信息
+     */
+    public static class Stats {
+        public long requests;
+        public long networkRequests;
+        public long coalesced;
+        public long errors;
+        public long responseBytes;
+        public int connections;
+        public int idleConnections;
+        public int runningCalls;
+        public int queuedCalls;
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.requests = requestCount.get();
+        stats.networkRequests = networkCount.get();
+        stats.coalesced = coalescedCount.get();
+        stats.errors = errorCount.get();
+        stats.responseBytes = responseBytes.get();
+        stats.connections = client.connectionPool().connectionCount();
+        stats.idleConnections = client.connectionPool().idleConnectionCount();
+        stats.runningCalls = client.dispatcher().runningCallsCount();
+        stats.queuedCalls = client.dispatcher().queuedCallsCount();
+        return stats;
+    }
+
+    /**
+     * 关闭空闲连接（内存紧张或切换服务器时）
+     */
+    public void evictConnections() {
+        client.connectionPool().evictAll();
+    }
+
+    /**
+     * 在调度线程关闭空闲连接，关闭连接可能有网络IO，不在调用线程执行
+     */
+    public void evictConnectionsAsync() {
+        client.dispatcher().executorService().execute(this::evictConnections);
+    }
+
+    /**
+     * 主机的证书信任被撤销：取消发往该主机的进行中请求并关闭连接，之后的请求重新握手校验证书
+     * evictAll只关闭空闲连接，进行中请求占用的连接需先取消，释放后才会被关闭
+     * @param host 为null时针对所有主机
+     */
+    public void onTrustRevoked(String host) {
+        for (Call call : client.dispatcher().runningCalls()) {
+            if (host == null || host.equalsIgnoreCase(call.request().url().host())) {
+                call.cancel();
+            }
+        }
+        evictConnectionsAsync();
+    }
+
+    /**
+     * 内存严重不足时关闭空闲连接，释放套接字缓冲和TLS会话
+     */
+    @Override
+    public long onMemoryPressure(MemoryPressureCoordinator.Tier tier) {
+        if (tier == MemoryPressureCoordinator.Tier.EVICT) {
+            evictConnectionsAsync();
+        }
+        return 0;
+    }
+}
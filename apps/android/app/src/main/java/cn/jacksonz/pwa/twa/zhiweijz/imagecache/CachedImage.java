@@ -0,0 +1,20 @@
+package cn.jacksonz.pwa.twa.zhiweijz.imagecache;
+
+/**
+ * 缓存的图片：编码后的字节、MIME类型和过期时间（0表示不过期）
+ */
+public class CachedImage {
+    public final byte[] data;
+    public final String mimeType;
+    public final long expiresAt;
+
+    public CachedImage(byte[] data, String mimeType, long expiresAt) {
+        this.data = data;
+        this.mimeType = mimeType;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt > 0 && now >= expiresAt;
+    }
+}
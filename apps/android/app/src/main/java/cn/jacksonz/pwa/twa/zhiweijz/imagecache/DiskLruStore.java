@@ -0,0 +1,218 @@
+package cn.jacksonz.pwa.twa.zhiweijz.imagecache;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 磁盘LRU存储
+ * 每个条目一个文件，文件头记录原始键、MIME类型和过期时间；内存中按访问顺序维护索引，
+ * 命中时刷新文件修改时间，重启后按修改时间恢复顺序。索引在首次访问时才加载
+ */
+public class DiskLruStore {
+    private static final String TAG = "DiskLruStore";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".img";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    /** 文件名 -> 文件大小，按访问顺序排列 */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(64, 0.75f, true);
+    private boolean loaded;
+    private long size;
+    private long maxBytes;
+    private long evictions;
+
+    public DiskLruStore(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public CachedImage get(String key) {
+        String name = fileName(key);
+        synchronized (this) {
+            ensureLoaded();
+            if (index.get(name) == null) {
+                return null;
+            }
+        }
+
+        File file = new File(directory, name);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                remove(key);
+                return null;
+            }
+            String mimeType = in.readUTF();
+            long expiresAt = in.readLong();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                Log.w(TAG, "更新文件访问时间失败: " + name);
+            }
+            return new CachedImage(data, mimeType, expiresAt);
+        } catch (IOException e) {
+            Log.w(TAG, "读取缓存文件失败: " + name + ", " + e.getMessage());
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * 先写临时文件再重命名，进程被杀时不会留下半个条目
+     */
+    public void put(String key, CachedImage image) {
+        String name = fileName(key);
+        synchronized (this) {
+            ensureLoaded();
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "创建缓存目录失败: " + directory);
+            return;
+        }
+
+        // 同一键可能被并发写入，临时文件按线程区分
+        File temp = new File(directory, name + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+            out.writeUTF(image.mimeType);
+            out.writeLong(image.expiresAt);
+            out.writeInt(image.data.length);
+            out.write(image.data);
+        } catch (IOException e) {
+            Log.w(TAG, "写入缓存文件失败: " + name + ", " + e.getMessage());
+            temp.delete();
+            return;
+        }
+
+        File file = new File(directory, name);
+        synchronized (this) {
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return;
+            }
+            Long previous = index.put(name, file.length());
+            size += file.length() - (previous != null ? previous : 0);
+            trimTo(maxBytes);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        ensureLoaded();
+        String name = fileName(key);
+        Long length = index.remove(name);
+        if (length != null) {
+            size -= length;
+        }
+        new File(directory, name).delete();
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        ensureLoaded();
+        trimTo(this.maxBytes);
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 按最近使用顺序从旧到新淘汰，直到总大小不超过预算
+     */
+    public synchronized void trimTo(long budget) {
+        ensureLoaded();
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (size > budget && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(directory, eldest.getKey()).delete();
+            size -= eldest.getValue();
+            evictions++;
+            iterator.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        ensureLoaded();
+        for (String name : index.keySet()) {
+            new File(directory, name).delete();
+        }
+        index.clear();
+        size = 0;
+    }
+
+    public synchronized long size() {
+        ensureLoaded();
+        return size;
+    }
+
+    public synchronized int count() {
+        ensureLoaded();
+        return index.size();
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+
+        long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+        for (int i : order) {
+            File file = files[i];
+            if (file.getName().endsWith(SUFFIX)) {
+                index.put(file.getName(), file.length());
+                size += file.length();
+            } else {
+                // 上次写入中断留下的临时文件
+                file.delete();
+            }
+        }
+        Log.d(TAG, "已加载磁盘缓存索引: " + index.size() + " 个文件, " + size + " 字节");
+        trimTo(maxBytes);
+    }
+
+    static String fileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(hash.length * 2 + SUFFIX.length());
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return builder.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package cn.jacksonz.pwa.twa.zhiweijz.imagecache;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+
+/**
+ * 附件缩略图和头像的两级缓存
+ * 内存LRU保存最近显示的图片，磁盘LRU跨进程保留；两级都按字节预算淘汰。
+ * 键由对象键和尺寸规格组成（如 bucket/key@w96h96q80.jpeg），同一对象的不同缩略图互不覆盖
+ */
+public class ThumbnailCache implements MemoryPressureCoordinator.Trimmable {
+    private static final String TAG = "ThumbnailCache";
+
+    private static final String PREFS_NAME = "image_cache";
+    private static final String KEY_MEMORY_BYTES = "memory_bytes";
+    private static final String KEY_DISK_BYTES = "disk_bytes";
+
+    /** 默认磁盘预算 */
+    public static final long DEFAULT_DISK_BYTES = 48L * 1024 * 1024;
+    /** 默认内存预算：可用堆的1/16，最多16MB */
+    public static final int DEFAULT_MEMORY_BYTES =
+        (int) Math.min(Runtime.getRuntime().maxMemory() / 16, 16L * 1024 * 1024);
+
+    private static ThumbnailCache instance;
+
+    private final SharedPreferences preferences;
+    private final LruCache<String, CachedImage> memory;
+    private final DiskLruStore disk;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong servedBytes = new AtomicLong();
+    private final AtomicLong downloadedBytes = new AtomicLong();
+
+    /**
+     * 缓存统计
+     */
+    public static class Stats {
+        public int memoryEntries;
+        public long memoryBytes;
+        public long memoryMaxBytes;
+        public long memoryEvictions;
+        public int diskEntries;
+        public long diskBytes;
+        public long diskMaxBytes;
+        public long diskEvictions;
+        public long memoryHits;
+        public long diskHits;
+        public long misses;
+        public long expirations;
+        /** 从缓存提供给WebView的字节数 */
+        public long servedBytes;
+        /** 未命中时从网络下载的字节数 */
+        public long downloadedBytes;
+
+        public double hitRate() {
+            long requests = memoryHits + diskHits + misses;
+            return requests == 0 ? 0 : (double) (memoryHits + diskHits) / requests;
+        }
+    }
+
+    public static synchronized ThumbnailCache getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new ThumbnailCache(appContext, new File(appContext.getCacheDir(), "thumbnails"));
+            MemoryPressureCoordinator.getInstance(appContext).register(TAG, instance);
+        }
+        return instance;
+    }
+
+    private ThumbnailCache(Context context, File directory) {
+        preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int memoryBytes = Math.max(1, preferences.getInt(KEY_MEMORY_BYTES, DEFAULT_MEMORY_BYTES));
+        memory = new LruCache<String, CachedImage>(memoryBytes) {
+            @Override
+            protected int sizeOf(String key, CachedImage value) {
+                return value.data.length;
+            }
+        };
+        disk = new DiskLruStore(directory, preferences.getLong(KEY_DISK_BYTES, DEFAULT_DISK_BYTES));
+    }
+
+    /**
+     * 依次查找内存和磁盘，磁盘命中后提升到内存；过期条目视为未命中
+     */
+    public CachedImage get(String key) {
+        long now = System.currentTimeMillis();
+        CachedImage image = memory.get(key);
+        if (image != null && !image.isExpired(now)) {
+            memoryHits.incrementAndGet();
+            servedBytes.addAndGet(image.data.length);
+            return image;
+        }
+
+        if (image == null) {
+            image = disk.get(key);
+            if (image != null && !image.isExpired(now)) {
+                memory.put(key, image);
+                diskHits.incrementAndGet();
+                servedBytes.addAndGet(image.data.length);
+                return image;
+            }
+        }
+
+        if (image != null) {
+            expirations.incrementAndGet();
+            memory.remove(key);
+            disk.remove(key);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入两级缓存，需在后台线程调用
+     */
+    public void put(String key, CachedImage image) {
+        downloadedBytes.addAndGet(image.data.length);
+        memory.put(key, image);
+        disk.put(key, image);
+    }
+
+    /**
+     * 调整预算并持久化，超出部分立即淘汰
+     */
+    public void configure(int memoryBytes, long diskBytes) {
+        memory.resize(Math.max(1, memoryBytes));
+        disk.setMaxBytes(diskBytes);
+        preferences.edit()
+            .putInt(KEY_MEMORY_BYTES, memory.maxSize())
+            .putLong(KEY_DISK_BYTES, disk.getMaxBytes())
+            .apply();
+        Log.i(TAG, "🖼️ 图片缓存预算: 内存 " + memory.maxSize() + " 字节, 磁盘 " + disk.getMaxBytes() + " 字节");
+    }
+
+    /**
+     * 清除两级缓存（退出登录时），统计不清零
+     */
+    public void clear() {
+        memory.evictAll();
+        disk.clear();
+        Log.i(TAG, "🧹 图片缓存已清除");
+    }
+
+    /**
+     * 内存紧张时只缩小内存层，磁盘层不受影响
+     */
+    @Override
+    public long onMemoryPressure(MemoryPressureCoordinator.Tier tier) {
+        long before = memory.size();
+        if (tier == MemoryPressureCoordinator.Tier.EVICT) {
+            memory.evictAll();
+        } else if (tier == MemoryPressureCoordinator.Tier.SHRINK) {
+            memory.trimToSize(memory.maxSize() / 2);
+        } else {
+            memory.trimToSize(memory.maxSize() * 3 / 4);
+        }
+        return before - memory.size();
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.memoryEntries = memory.snapshot().size();
+        stats.memoryBytes = memory.size();
+        stats.memoryMaxBytes = memory.maxSize();
+        stats.memoryEvictions = memory.evictionCount();
+        stats.diskEntries = disk.count();
+        stats.diskBytes = disk.size();
+        stats.diskMaxBytes = disk.getMaxBytes();
+        stats.diskEvictions = disk.evictionCount();
+        stats.memoryHits = memoryHits.get();
+        stats.diskHits = diskHits.get();
+        stats.misses = misses.get();
+        stats.expirations = expirations.get();
+        stats.servedBytes = servedBytes.get();
+        stats.downloadedBytes = downloadedBytes.get();
+        return stats;
+    }
+}
@@ -0,0 +1,213 @@
+package cn.jacksonz.pwa.twa.zhiweijz.imagecache;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.NativeHttpPlugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * WebView图片请求拦截
+ * 识别图片代理（缩略图、原图、头像）和S3直链/预签名URL，命中缓存时直接返回，
+ * 未命中时由原生HTTP客户端下载并写入缓存；其他请求返回null，交给WebView自行处理。
+ * 在WebView的IO线程上调用，可以阻塞
+ */
+public class ThumbnailInterceptor {
+    private static final String TAG = "ThumbnailInterceptor";
+
+    private static final String THUMBNAIL_PREFIX = "/image-proxy/thumbnail/s3/";
+    private static final String PROXY_PREFIX = "/image-proxy/s3/";
+    private static final String AVATAR_PREFIX = "/image-proxy/avatar/";
+
+    /** 单个条目上限，更大的原图直接透传不缓存 */
+    private static final long MAX_ENTRY_BYTES = 2L * 1024 * 1024;
+    /** 头像代理按用户ID访问，内容会变化；与服务器Cache-Control一致 */
+    private static final long AVATAR_TTL_MS = 60 * 60 * 1000L;
+
+    /**
+     * 可缓存的图片请求
+     */
+    static class Target {
+        final String key;
+        /** 服务器代理路由需要登录，没有Authorization的请求不从缓存返回 */
+        final boolean authenticated;
+        final long ttlMs;
+
+        Target(String key, boolean authenticated, long ttlMs) {
+            this.key = key;
+            this.authenticated = authenticated;
+            this.ttlMs = ttlMs;
+        }
+    }
+
+    private final Context context;
+    private final ThumbnailCache cache;
+
+    public ThumbnailInterceptor(Context context, ThumbnailCache cache) {
+        this.context = context.getApplicationContext();
+        this.cache = cache;
+    }
+
+    /**
+     * @return 图片响应；不是可缓存的图片请求或下载失败时返回null
+     */
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            return null;
+        }
+        Map<String, String> requestHeaders = request.getRequestHeaders();
+        if (header(requestHeaders, "Range") != null) {
+            return null;
+        }
+        Target target = resolveTarget(request.getUrl());
+        if (target == null || (target.authenticated && header(requestHeaders, "Authorization") == null)) {
+            return null;
+        }
+
+        CachedImage cached = cache.get(target.key);
+        if (cached != null) {
+            return toResponse(cached, "OK", cacheHeaders("HIT"));
+        }
+        return fetch(request, target);
+    }
+
+    private WebResourceResponse fetch(WebResourceRequest request, Target target) {
+        Request.Builder builder = new Request.Builder().url(request.getUrl().toString());
+        for (Map.Entry<String, String> entry : request.getRequestHeaders().entrySet()) {
+            String name = entry.getKey().toLowerCase(Locale.ROOT);
+            // 条件请求会得到304空响应；压缩由OkHttp处理
+            if (!name.startsWith("if-") && !name.equals("accept-encoding")) {
+                builder.header(entry.getKey(), entry.getValue());
+            }
+        }
+
+        OkHttpClient client = NativeHttpPlugin.getSharedClient(context).getClient();
+        Response response;
+        try {
+            response = client.newCall(builder.build()).execute();
+        } catch (IOException e) {
+            // 交给WebView重新请求，由其按原有逻辑报告错误
+            Log.w(TAG, "⚠️ 图片下载失败: " + e.getMessage());
+            return null;
+        }
+
+        ResponseBody body = response.body();
+        MediaType mediaType = body.contentType();
+        String mimeType = mediaType != null ? mediaType.type() + "/" + mediaType.subtype() : "application/octet-stream";
+        String reason = response.message().isEmpty() ? (response.isSuccessful() ? "OK" : "Error") : response.message();
+        Map<String, String> headers = responseHeaders(response);
+
+        try {
+            BufferedSource source = body.source();
+            boolean cacheable = response.code() == 200 && mimeType.startsWith("image/")
+                && body.contentLength() <= MAX_ENTRY_BYTES && !source.request(MAX_ENTRY_BYTES + 1);
+            if (cacheable) {
+                byte[] data = source.readByteArray();
+                response.close();
+                long expiresAt = target.ttlMs > 0 ? System.currentTimeMillis() + target.ttlMs : 0;
+                CachedImage image = new CachedImage(data, mimeType, expiresAt);
+                cache.put(target.key, image);
+                headers.put("X-Native-Cache", "MISS");
+                return toResponse(image, reason, headers);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ 读取图片失败: " + e.getMessage());
+            response.close();
+            return null;
+        }
+
+        // 错误响应和过大的图片原样透传，已读入缓冲区的部分会先被读出
+        headers.put("X-Native-Cache", "BYPASS");
+        return new WebResourceResponse(mimeType, null, response.code(), reason, headers, body.byteStream());
+    }
+
+    /**
+     * 从URL解析缓存键，不可缓存时返回null
+     */
+    static Target resolveTarget(Uri url) {
+        String path = url.getPath();
+        if (path == null) {
+            return null;
+        }
+
+        int index = path.indexOf(THUMBNAIL_PREFIX);
+        if (index >= 0) {
+            String variant = "w" + param(url, "width", "200")
+                + "h" + param(url, "height", "200")
+                + "q" + param(url, "quality", "80")
+                + "." + param(url, "format", "jpeg");
+            return new Target(path.substring(index + THUMBNAIL_PREFIX.length()) + "@" + variant, true, 0);
+        }
+        index = path.indexOf(PROXY_PREFIX);
+        if (index >= 0) {
+            return new Target(path.substring(index + PROXY_PREFIX.length()) + "@original", true, 0);
+        }
+        index = path.indexOf(AVATAR_PREFIX);
+        if (index >= 0) {
+            return new Target("avatar/" + path.substring(index + AVATAR_PREFIX.length()) + "@original", true, AVATAR_TTL_MS);
+        }
+        // S3直链和预签名URL（路径形式bucket/key），忽略签名参数，与代理原图共用条目
+        if (path.contains("/transaction-attachments/")) {
+            return new Target(path.substring(1) + "@original", false, 0);
+        }
+        if (path.contains("/avatars/")) {
+            return new Target(path.substring(1) + "@original", false, AVATAR_TTL_MS);
+        }
+        return null;
+    }
+
+    private static String param(Uri url, String name, String defaultValue) {
+        String value = url.getQueryParameter(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> responseHeaders(Response response) {
+        Map<String, String> headers = new HashMap<>();
+        for (String name : response.headers().names()) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!lower.equals("content-length") && !lower.equals("content-encoding") && !lower.equals("content-type")) {
+                headers.put(name, response.header(name));
+            }
+        }
+        if (header(headers, "Access-Control-Allow-Origin") == null) {
+            headers.put("Access-Control-Allow-Origin", "*");
+        }
+        return headers;
+    }
+
+    private static Map<String, String> cacheHeaders(String status) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Access-Control-Allow-Origin", "*");
+        headers.put("Cache-Control", "private, max-age=3600");
+        headers.put("X-Native-Cache", status);
+        return headers;
+    }
+
+    private static WebResourceResponse toResponse(CachedImage image, String reason, Map<String, String> headers) {
+        return new WebResourceResponse(image.mimeType, null, 200, reason, headers, new ByteArrayInputStream(image.data));
+    }
+}
@@ -0,0 +1,429 @@
+package cn.jacksonz.pwa.twa.zhiweijz.ledger;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * 本地账本数据库
+ * 按账本保存记账记录（原始JSON加索引列）、预算和分类列表以及同步状态；
+ * 日期按设备时区换算为day列（YYYY-MM-DD），与Web层dayjs的分组口径一致
+ */
+public class LedgerDatabase extends SQLiteOpenHelper {
+    private static final String TAG = "LedgerDatabase";
+    private static final String DB_NAME = "local_ledger.db";
+    private static final int DB_VERSION = 1;
+
+    public static final String KIND_BUDGETS = "budgets";
+    public static final String KIND_CATEGORIES = "categories";
+
+    /**
+     * 同步状态
+     * watermark: 已同步记录中最大的updatedAt；oldestDay: 本地覆盖的最早日期，complete时为全部历史
+     */
+    public static class SyncState {
+        public String accountBookId;
+        public long watermark;
+        public String oldestDay;
+        public boolean complete;
+        public long seededAt;
+        public long syncedAt;
+    }
+
+    /**
+     * 记账查询条件，startDate/endDate为YYYY-MM-DD（含）
+     */
+    public static class Query {
+        public String accountBookId;
+        public String startDate;
+        public String endDate;
+        public List<String> categoryIds = new ArrayList<>();
+        public String type;
+        public int limit = 20;
+        public int offset = 0;
+    }
+
+    public static class Page {
+        /** 按日期倒序的原始记录JSON数组文本 */
+        public String itemsJson;
+        public int count;
+        public int total;
+    }
+
+    public static class DailyStats {
+        public String day;
+        public double income;
+        public double expense;
+        public int count;
+    }
+
+    private static LedgerDatabase instance;
+
+    /**
+     * 进程内共享同一个helper，插件与快速记账补发的写入经由同一连接串行，避免互相锁库
+     */
+    public static synchronized LedgerDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new LedgerDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private LedgerDatabase(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // 后台同步写入时Web层的查询不被阻塞
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE transactions ("
+            + "id TEXT PRIMARY KEY, "
+            + "account_book_id TEXT NOT NULL, "
+            + "date INTEGER NOT NULL, "
+            + "day TEXT NOT NULL, "
+            + "type TEXT, "
+            + "amount REAL NOT NULL DEFAULT 0, "
+            + "category_id TEXT, "
+            + "updated_at INTEGER NOT NULL, "
+            + "json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_tx_book_day ON transactions(account_book_id, day, date)");
+        db.execSQL("CREATE INDEX idx_tx_book_category_day ON transactions(account_book_id, category_id, day, date)");
+        db.execSQL("CREATE TABLE collections ("
+            + "account_book_id TEXT NOT NULL, "
+            + "kind TEXT NOT NULL, "
+            + "json TEXT NOT NULL, "
+            + "synced_at INTEGER NOT NULL, "
+            + "PRIMARY KEY (account_book_id, kind))");
+        db.execSQL("CREATE TABLE sync_state ("
+            + "account_book_id TEXT PRIMARY KEY, "
+            + "watermark INTEGER NOT NULL DEFAULT 0, "
+            + "oldest_day TEXT, "
+            + "complete INTEGER NOT NULL DEFAULT 0, "
+            + "seeded_at INTEGER NOT NULL DEFAULT 0, "
+            + "synced_at INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 本地数据可随时从服务器重建，升级时直接重建表
+        db.execSQL("DROP TABLE IF EXISTS transactions");
+        db.execSQL("DROP TABLE IF EXISTS collections");
+        db.execSQL("DROP TABLE IF EXISTS sync_state");
+        onCreate(db);
+    }
+
+    /**
+     * 批量写入服务器返回的记录（已存在则覆盖）
+     * @return 写入的记录中最大的updatedAt
+     */
+    public long upsertTransactions(String accountBookId, JSONArray transactions) {
+        if (transactions == null || transactions.length() == 0) {
+            return 0;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        SimpleDateFormat dayFormat = newDayFormat();
+        long maxUpdatedAt = 0;
+        db.beginTransaction();
+        try (SQLiteStatement statement = db.compileStatement("INSERT OR REPLACE INTO transactions "
+            + "(id, account_book_id, date, day, type, amount, category_id, updated_at, json) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < transactions.length(); i++) {
+                JSONObject transaction = transactions.optJSONObject(i);
+                if (transaction == null || transaction.optString("id", "").isEmpty()) {
+                    continue;
+                }
+                long date = parseTimestamp(transaction.optString("date", null));
+                long updatedAt = parseTimestamp(transaction.optString("updatedAt", null));
+                maxUpdatedAt = Math.max(maxUpdatedAt, updatedAt);
+
+                statement.clearBindings();
+                statement.bindString(1, transaction.optString("id"));
+                statement.bindString(2, accountBookId);
+                statement.bindLong(3, date);
+                statement.bindString(4, dayFormat.format(new Date(date)));
+                bindNullable(statement, 5, transaction.optString("type", null));
+                statement.bindDouble(6, transaction.optDouble("amount", 0));
+                bindNullable(statement, 7, transaction.isNull("categoryId") ? null : transaction.optString("categoryId", null));
+                statement.bindLong(8, updatedAt);
+                statement.bindString(9, transaction.toString());
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return maxUpdatedAt;
+    }
+
+    public int deleteTransactions(List<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        int deleted = 0;
+        db.beginTransaction();
+        try {
+            for (String id : ids) {
+                deleted += db.delete("transactions", "id = ?", new String[]{id});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return deleted;
+    }
+
+    /**
+     * 按日期倒序分页查询，走(account_book_id, day, date)或分类索引
+     */
+    public Page queryTransactions(Query query) {
+        List<String> args = new ArrayList<>();
+        String where = buildWhere(query, args);
+        SQLiteDatabase db = getReadableDatabase();
+
+        Page page = new Page();
+        try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM transactions WHERE " + where, args.toArray(new String[0]))) {
+            page.total = cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+
+        List<String> pageArgs = new ArrayList<>(args);
+        pageArgs.add(String.valueOf(query.limit));
+        pageArgs.add(String.valueOf(query.offset));
+        StringBuilder items = new StringBuilder("[");
+        try (Cursor cursor = db.rawQuery("SELECT json FROM transactions WHERE " + where
+            + " ORDER BY day DESC, date DESC LIMIT ? OFFSET ?", pageArgs.toArray(new String[0]))) {
+            while (cursor.moveToNext()) {
+                if (page.count > 0) {
+                    items.append(',');
+                }
+                items.append(cursor.getString(0));
+                page.count++;
+            }
+        }
+        page.itemsJson = items.append(']').toString();
+        return page;
+    }
+
+    /**
+     * 按天汇总收支
+     */
+    public List<DailyStats> dailyStats(Query query) {
+        List<String> args = new ArrayList<>();
+        String where = buildWhere(query, args);
+        Map<String, DailyStats> byDay = new LinkedHashMap<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT day, type, SUM(amount), COUNT(*) FROM transactions WHERE "
+            + where + " GROUP BY day, type ORDER BY day", args.toArray(new String[0]))) {
+            while (cursor.moveToNext()) {
+                String day = cursor.getString(0);
+                DailyStats stats = byDay.get(day);
+                if (stats == null) {
+                    stats = new DailyStats();
+                    stats.day = day;
+                    byDay.put(day, stats);
+                }
+                if ("INCOME".equals(cursor.getString(1))) {
+                    stats.income += cursor.getDouble(2);
+                } else {
+                    stats.expense += cursor.getDouble(2);
+                }
+                stats.count += cursor.getInt(3);
+            }
+        }
+        return new ArrayList<>(byDay.values());
+    }
+
+    /**
+     * 账本中的记录ID
+     * @param fromDay 只返回该日（含）之后的记录，为null时返回全部
+     */
+    public List<String> listTransactionIds(String accountBookId, String fromDay) {
+        List<String> ids = new ArrayList<>();
+        String sql = fromDay == null
+            ? "SELECT id FROM transactions WHERE account_book_id = ?"
+            : "SELECT id FROM transactions WHERE account_book_id = ? AND day >= ?";
+        String[] args = fromDay == null ? new String[]{accountBookId} : new String[]{accountBookId, fromDay};
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        }
+        return ids;
+    }
+
+    public int countTransactions(String accountBookId) {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM transactions WHERE account_book_id = ?",
+            new String[]{accountBookId})) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    public void putCollection(String accountBookId, String kind, String json) {
+        ContentValues values = new ContentValues();
+        values.put("account_book_id", accountBookId);
+        values.put("kind", kind);
+        values.put("json", json);
+        values.put("synced_at", System.currentTimeMillis());
+        getWritableDatabase().insertWithOnConflict("collections", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * @return {json, syncedAt}，不存在时返回null
+     */
+    public String[] getCollection(String accountBookId, String kind) {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT json, synced_at FROM collections WHERE account_book_id = ? AND kind = ?",
+            new String[]{accountBookId, kind})) {
+            return cursor.moveToFirst() ? new String[]{cursor.getString(0), String.valueOf(cursor.getLong(1))} : null;
+        }
+    }
+
+    public SyncState getSyncState(String accountBookId) {
+        SyncState state = new SyncState();
+        state.accountBookId = accountBookId;
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT watermark, oldest_day, complete, seeded_at, synced_at "
+            + "FROM sync_state WHERE account_book_id = ?", new String[]{accountBookId})) {
+            if (cursor.moveToFirst()) {
+                state.watermark = cursor.getLong(0);
+                state.oldestDay = cursor.getString(1);
+                state.complete = cursor.getInt(2) != 0;
+                state.seededAt = cursor.getLong(3);
+                state.syncedAt = cursor.getLong(4);
+            }
+        }
+        return state;
+    }
+
+    public void saveSyncState(SyncState state) {
+        ContentValues values = new ContentValues();
+        values.put("account_book_id", state.accountBookId);
+        values.put("watermark", state.watermark);
+        values.put("oldest_day", state.oldestDay);
+        values.put("complete", state.complete ? 1 : 0);
+        values.put("seeded_at", state.seededAt);
+        values.put("synced_at", state.syncedAt);
+        getWritableDatabase().insertWithOnConflict("sync_state", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * 清除账本的本地数据；accountBookId为null时清除全部
+     */
+    public void clear(String accountBookId) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (accountBookId == null) {
+                db.delete("transactions", null, null);
+                db.delete("collections", null, null);
+                db.delete("sync_state", null, null);
+            } else {
+                String[] args = new String[]{accountBookId};
+                db.delete("transactions", "account_book_id = ?", args);
+                db.delete("collections", "account_book_id = ?", args);
+                db.delete("sync_state", "account_book_id = ?", args);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 本地数据是否覆盖查询的日期范围
+     */
+    public static boolean covers(SyncState state, String startDate) {
+        if (state.syncedAt == 0) {
+            return false;
+        }
+        if (state.complete) {
+            return true;
+        }
+        return startDate != null && state.oldestDay != null && startDate.compareTo(state.oldestDay) >= 0;
+    }
+
+    private static String buildWhere(Query query, List<String> args) {
+        StringBuilder where = new StringBuilder("account_book_id = ?");
+        args.add(query.accountBookId);
+        if (query.startDate != null) {
+            where.append(" AND day >= ?");
+            args.add(query.startDate);
+        }
+        if (query.endDate != null) {
+            where.append(" AND day <= ?");
+            args.add(query.endDate);
+        }
+        if (!query.categoryIds.isEmpty()) {
+            where.append(" AND category_id IN (");
+            for (int i = 0; i < query.categoryIds.size(); i++) {
+                where.append(i == 0 ? "?" : ", ?");
+                args.add(query.categoryIds.get(i));
+            }
+            where.append(')');
+        }
+        if (query.type != null) {
+            where.append(" AND type = ?");
+            args.add(query.type);
+        }
+        return where.toString();
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    static SimpleDateFormat newDayFormat() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        format.setTimeZone(TimeZone.getDefault());
+        return format;
+    }
+
+    /**
+     * 解析服务器返回的ISO时间（UTC，如2025-06-01T08:00:00.000Z），无法解析时返回0
+     */
+    static long parseTimestamp(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        String[] patterns = {"yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", "yyyy-MM-dd'T'HH:mm:ss'Z'", "yyyy-MM-dd"};
+        for (String pattern : patterns) {
+            SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            try {
+                return format.parse(value).getTime();
+            } catch (ParseException ignored) {
+                // 尝试下一种格式
+            }
+        }
+        Log.w(TAG, "无法解析时间: " + value);
+        return 0;
+    }
+
+    static String formatTimestamp(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+}
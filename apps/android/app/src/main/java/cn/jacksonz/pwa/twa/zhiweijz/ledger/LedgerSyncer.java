@@ -0,0 +1,289 @@
+package cn.jacksonz.pwa.twa.zhiweijz.ledger;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import cn.jacksonz.pwa.twa.zhiweijz.http.NativeHttpClient;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 本地账本增量同步
+ * 首次同步按日期倒序拉取最近的记录；之后按updatedAt倒序只拉取水位之后更新的记录，遇到不晚于水位的记录即停止。
+ * 服务器不返回删除记录，增量同步后取本地覆盖日期范围内的服务器记录ID比对，删除服务器上已不存在的记录；
+ * 服务器不支持ID查询时，本地已覆盖全部历史的用总数比对发现删除，否则定期重新拉取
+ */
+public class LedgerSyncer {
+    private static final String TAG = "LedgerSyncer";
+
+    private static final int PAGE_SIZE = 100;
+    /** 首次同步最多拉取的页数，更早的记录由Web层按需从服务器加载 */
+    private static final int MAX_SEED_PAGES = 10;
+    /** 增量同步的页数上限，超过说明变化太多，直接重新拉取 */
+    private static final int MAX_DELTA_PAGES = 20;
+    /** 未覆盖全部历史时无法发现删除，超过该时间重新拉取 */
+    private static final long RESEED_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    public static class SyncResult {
+        public int upserted;
+        public int deleted;
+        public boolean reseeded;
+        public boolean complete;
+        public int localCount;
+        public long elapsedMs;
+    }
+
+    private final LedgerDatabase database;
+    private final NativeHttpClient client;
+
+    public LedgerSyncer(LedgerDatabase database, NativeHttpClient client) {
+        this.database = database;
+        this.client = client;
+    }
+
+    /**
+     * 同步账本，需在后台线程调用
+     * @param authorization Authorization请求头
+     */
+    public SyncResult sync(String accountBookId, String authorization) throws IOException {
+        long start = System.nanoTime();
+        SyncResult result = new SyncResult();
+        LedgerDatabase.SyncState state = database.getSyncState(accountBookId);
+        long now = System.currentTimeMillis();
+
+        boolean reseed = state.syncedAt == 0
+            || (!state.complete && now - state.seededAt > RESEED_INTERVAL_MS);
+        if (!reseed) {
+            int delta = syncDelta(accountBookId, authorization, state, result);
+            if (delta < 0) {
+                reseed = true;
+            } else if (!reconcileDeletions(accountBookId, authorization, state, result)
+                && state.complete
+                && fetchServerTotal(accountBookId, authorization) < database.countTransactions(accountBookId)) {
+                // 服务器不支持ID查询，只能从总数判断有记录被删除
+                Log.i(TAG, "🔄 检测到服务器删除记录，重新同步账本: " + accountBookId);
+                reseed = true;
+            }
+        }
+        if (reseed) {
+            state = new LedgerDatabase.SyncState();
+            state.accountBookId = accountBookId;
+            result.upserted = 0;
+            seed(accountBookId, authorization, state, result);
+            state.seededAt = now;
+            result.reseeded = true;
+        }
+
+        syncCollections(accountBookId, authorization);
+
+        state.syncedAt = now;
+        database.saveSyncState(state);
+        result.complete = state.complete;
+        result.localCount = database.countTransactions(accountBookId);
+        result.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        Log.i(TAG, "✅ 账本同步完成: " + accountBookId + ", 写入 " + result.upserted + " 条"
+            + (result.reseeded ? "（重新拉取）" : "") + ", 删除 " + result.deleted + " 条, 本地共 " + result.localCount + " 条, 耗时 " + result.elapsedMs + "ms");
+        return result;
+    }
+
+    private void seed(String accountBookId, String authorization, LedgerDatabase.SyncState state, SyncResult result) throws IOException {
+        String oldestDay = null;
+        for (int page = 1; page <= MAX_SEED_PAGES; page++) {
+            JSONObject response = fetchPage(accountBookId, authorization, page, "date", null);
+            if (page == 1) {
+                // 拿到首页后再清除旧数据，网络失败时保留原有本地数据
+                database.clear(accountBookId);
+            }
+            JSONArray data = response.optJSONArray("data");
+            int size = data != null ? data.length() : 0;
+            if (size > 0) {
+                state.watermark = Math.max(state.watermark, database.upsertTransactions(accountBookId, data));
+                result.upserted += size;
+                JSONObject last = data.optJSONObject(size - 1);
+                long lastDate = LedgerDatabase.parseTimestamp(last != null ? last.optString("date", null) : null);
+                oldestDay = LedgerDatabase.newDayFormat().format(new Date(lastDate));
+            }
+            if (size < PAGE_SIZE || page * PAGE_SIZE >= response.optInt("total", 0)) {
+                state.complete = true;
+                break;
+            }
+        }
+        // 最早一天的记录可能未拉全，覆盖范围从次日算起
+        state.oldestDay = state.complete ? null : nextDay(oldestDay);
+    }
+
+    /**
+     * @return 写入的记录数，变化过多需要重新拉取时返回-1
+     */
+    private int syncDelta(String accountBookId, String authorization, LedgerDatabase.SyncState state, SyncResult result) throws IOException {
+        long watermark = state.watermark;
+        String since = watermark > 0 ? LedgerDatabase.formatTimestamp(watermark) : null;
+        int upserted = 0;
+        for (int page = 1; page <= MAX_DELTA_PAGES; page++) {
+            JSONObject response = fetchPage(accountBookId, authorization, page, "updatedAt", since);
+            JSONArray data = response.optJSONArray("data");
+            int size = data != null ? data.length() : 0;
+
+            // 不支持updatedSince的服务器会返回全部记录，只保留水位之后的部分
+            JSONArray changed = new JSONArray();
+            boolean reachedWatermark = false;
+            for (int i = 0; i < size; i++) {
+                JSONObject transaction = data.optJSONObject(i);
+                if (transaction == null) {
+                    continue;
+                }
+                if (LedgerDatabase.parseTimestamp(transaction.optString("updatedAt", null)) <= watermark) {
+                    reachedWatermark = true;
+                    break;
+                }
+                changed.put(transaction);
+            }
+            if (changed.length() > 0) {
+                state.watermark = Math.max(state.watermark, database.upsertTransactions(accountBookId, changed));
+                upserted += changed.length();
+            }
+            if (reachedWatermark || size < PAGE_SIZE) {
+                result.upserted += upserted;
+                return upserted;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 比对本地覆盖范围内的记录ID与服务器的ID，删除服务器上已不存在的本地记录
+     * 同时有删除和新增（如家庭账本其他成员操作）时总数不变，只有ID比对能发现
+     * @return 服务器不支持ID查询时返回false
+     */
+    private boolean reconcileDeletions(String accountBookId, String authorization, LedgerDatabase.SyncState state,
+                                       SyncResult result) throws IOException {
+        String fromDay = state.complete ? null : state.oldestDay;
+        if (!state.complete && fromDay == null) {
+            return true;
+        }
+        // 先取本地ID：比对期间Web层新写入的记录不在候选范围内，不会被误删
+        List<String> localIds = database.listTransactionIds(accountBookId, fromDay);
+        if (localIds.isEmpty()) {
+            return true;
+        }
+
+        // 服务器按其时区划分日期，多取两天，保证服务器集合覆盖本地范围
+        StringBuilder path = new StringBuilder("/transactions/ids?accountBookId=").append(encode(accountBookId));
+        String startDate = fromDay != null ? shiftDays(fromDay, -2) : null;
+        if (startDate != null) {
+            path.append("&startDate=").append(encode(startDate));
+        }
+        NativeHttpClient.Result response = client.execute(request(authorization, path.toString()));
+        if (response.status == 404) {
+            return false;
+        }
+        JSONArray ids = parse(response).optJSONArray("ids");
+        if (ids == null) {
+            return false;
+        }
+        Set<String> serverIds = new HashSet<>();
+        for (int i = 0; i < ids.length(); i++) {
+            serverIds.add(ids.optString(i));
+        }
+
+        List<String> deleted = new ArrayList<>();
+        for (String id : localIds) {
+            if (!serverIds.contains(id)) {
+                deleted.add(id);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            result.deleted = database.deleteTransactions(deleted);
+            Log.i(TAG, "🗑️ 删除服务器上已不存在的记录: " + accountBookId + ", " + result.deleted + " 条");
+        }
+        return true;
+    }
+
+    private int fetchServerTotal(String accountBookId, String authorization) throws IOException {
+        NativeHttpClient.RequestSpec spec = request(authorization,
+            "/transactions?accountBookId=" + encode(accountBookId) + "&page=1&limit=1");
+        return parse(client.execute(spec)).optInt("total", 0);
+    }
+
+    private void syncCollections(String accountBookId, String authorization) {
+        String[][] collections = {
+            {LedgerDatabase.KIND_BUDGETS, "/budgets?accountBookId=" + encode(accountBookId)},
+            {LedgerDatabase.KIND_CATEGORIES, "/categories?accountBookId=" + encode(accountBookId)},
+        };
+        for (String[] collection : collections) {
+            try {
+                NativeHttpClient.Result response = client.execute(request(authorization, collection[1]));
+                if (response.status >= 200 && response.status < 300) {
+                    database.putCollection(accountBookId, collection[0], response.body);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "⚠️ 同步" + collection[0] + "失败: " + e.getMessage());
+            }
+        }
+    }
+
+    private JSONObject fetchPage(String accountBookId, String authorization, int page, String sortBy, String updatedSince) throws IOException {
+        StringBuilder path = new StringBuilder("/transactions?accountBookId=").append(encode(accountBookId))
+            .append("&page=").append(page)
+            .append("&limit=").append(PAGE_SIZE)
+            .append("&sortBy=").append(sortBy)
+            .append("&sortOrder=desc");
+        if (updatedSince != null) {
+            path.append("&updatedSince=").append(encode(updatedSince));
+        }
+        return parse(client.execute(request(authorization, path.toString())));
+    }
+
+    private static NativeHttpClient.RequestSpec request(String authorization, String path) {
+        NativeHttpClient.RequestSpec spec = new NativeHttpClient.RequestSpec();
+        spec.url = path;
+        spec.coalesce = false;
+        if (authorization != null) {
+            spec.headers.put("Authorization", authorization);
+        }
+        return spec;
+    }
+
+    private static JSONObject parse(NativeHttpClient.Result result) throws IOException {
+        if (result.status < 200 || result.status >= 300) {
+            throw new IOException("服务器返回 " + result.status);
+        }
+        try {
+            return new JSONObject(result.body);
+        } catch (JSONException e) {
+            throw new IOException("无法解析服务器响应", e);
+        }
+    }
+
+    private static String nextDay(String day) {
+        return day != null ? shiftDays(day, 1) : null;
+    }
+
+    private static String shiftDays(String day, int days) {
+        try {
+            // 从当日中午起算，避开夏令时切换造成的整点偏差
+            Date date = LedgerDatabase.newDayFormat().parse(day);
+            long noon = date.getTime() + 12 * 60 * 60 * 1000L;
+            return LedgerDatabase.newDayFormat().format(new Date(noon + days * 24 * 60 * 60 * 1000L));
+        } catch (java.text.ParseException e) {
+            return null;
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
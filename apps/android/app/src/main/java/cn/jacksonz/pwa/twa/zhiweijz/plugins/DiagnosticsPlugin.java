@@ -0,0 +1,181 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import cn.jacksonz.pwa.twa.zhiweijz.MainActivity;
+import cn.jacksonz.pwa.twa.zhiweijz.assets.LocalAssetServer;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.NativeEventChannel;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.StartupTrace;
+
+/**
+ * 诊断插件
+ * 向Web层提供原生侧的运行统计，用于在真机上定位桥接调用热点和启动耗时
+ */
+@CapacitorPlugin(name = "Diagnostics")
+public class DiagnosticsPlugin extends TracedPlugin {
+
+    private static final String TAG = "DiagnosticsPlugin";
+
+    @Override
+    protected void onLoad() {
+        BridgeMetrics.getInstance().startPeriodicSummary();
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        BridgeMetrics.getInstance().stopPeriodicSummary();
+    }
+
+    /**
+     * 获取各插件方法的调用次数、排队/执行耗时直方图、数据大小和失败率
+     * reset: 读取后是否清零
+     */
+    @PluginMethod
+    public void getBridgeMetrics(PluginCall call) {
+        BridgeMetrics metrics = BridgeMetrics.getInstance();
+        JSObject result = metrics.snapshot();
+        if (Boolean.TRUE.equals(call.getBoolean("reset", false))) {
+            metrics.reset();
+        }
+        call.resolve(result);
+    }
+
+    /**
+     * 开启或关闭桥接调用统计
+     */
+    @PluginMethod
+    public void setBridgeMetricsEnabled(PluginCall call) {
+        boolean enabled = Boolean.TRUE.equals(call.getBoolean("enabled", true));
+        BridgeMetrics.getInstance().setEnabled(enabled);
+        Log.i(TAG, "📊 桥接调用统计已" + (enabled ? "开启" : "关闭"));
+
+        JSObject result = new JSObject();
+        result.put("enabled", enabled);
+        call.resolve(result);
+    }
+
+    /**
+     * 立即在logcat输出一次汇总
+     */
+    @PluginMethod
+    public void logBridgeSummary(PluginCall call) {
+        BridgeMetrics.getInstance().logSummary();
+        call.resolve();
+    }
+
+    /**
+     * Web层完成首屏渲染、可以交互时调用
+     */
+    @PluginMethod
+    public void markInteractive(PluginCall call) {
+        StartupTrace.getInstance().mark(StartupTrace.WEB_INTERACTIVE);
+        call.resolve();
+    }
+
+    /**
+     * 获取启动各阶段耗时（相对进程启动）、插件load()耗时和本地静态资源服务统计
+     */
+    @PluginMethod
+    public void getStartupTrace(PluginCall call) {
+        JSObject result = StartupTrace.getInstance().toJson();
+        LocalAssetServer.Stats stats = LocalAssetServer.getInstance(getContext()).getStats();
+        JSObject assets = new JSObject();
+        assets.put("enabled", stats.enabled);
+        assets.put("version", stats.version);
+        assets.put("manifestEntries", stats.manifestEntries);
+        assets.put("mappedEntries", stats.mappedEntries);
+        assets.put("mappedResponses", stats.mappedResponses);
+        assets.put("streamedResponses", stats.streamedResponses);
+        assets.put("extractions", stats.extractions);
+        assets.put("extractMs", stats.extractMs);
+        assets.put("prewarmed", stats.prewarmed);
+        assets.put("servedBytes", stats.servedBytes);
+        result.put("assets", assets);
+        call.resolve(result);
+    }
+
+    /**
+     * 开关静态资源的内存映射，下次冷启动生效，用于对比开关前后的可交互时间
+     * enabled: 默认true
+     */
+    @PluginMethod
+    public void setLocalAssetsMapped(PluginCall call) {
+        boolean enabled = Boolean.TRUE.equals(call.getBoolean("enabled", true));
+        LocalAssetServer.getInstance(getContext()).setEnabled(enabled);
+        Log.i(TAG, "📦 静态资源内存映射已" + (enabled ? "开启" : "关闭"));
+
+        JSObject result = new JSObject();
+        result.put("enabled", enabled);
+        call.resolve(result);
+    }
+
+    /**
+     * 获取最近的内存回调、WebView渲染进程退出和上次进程退出原因（含之前进程的记录），以及当前内存状况
+     * clear: 读取后是否清空记录
+     */
+    @PluginMethod
+    public void getMemoryPressureEvents(PluginCall call) {
+        MemoryPressureCoordinator coordinator = MemoryPressureCoordinator.getInstance(getContext());
+        JSObject result = new JSObject();
+        result.put("events", coordinator.getEvents());
+        result.put("current", coordinator.getMemoryState());
+        result.put("registered", new JSArray(coordinator.getRegisteredNames()));
+        if (Boolean.TRUE.equals(call.getBoolean("clear", false))) {
+            coordinator.clearEvents();
+        }
+        call.resolve(result);
+    }
+
+    /**
+     * 获取原生事件通道的发送、确认、排队和丢弃统计
+     */
+    @PluginMethod
+    public void getEventChannelStats(PluginCall call) {
+        if (!(getActivity() instanceof MainActivity)) {
+            call.reject("事件通道不可用");
+            return;
+        }
+        NativeEventChannel.Stats stats = ((MainActivity) getActivity()).getEventChannelStats();
+        JSObject result = new JSObject();
+        result.put("open", stats.open);
+        result.put("sent", stats.sent);
+        result.put("acked", stats.acked);
+        result.put("queued", stats.queued);
+        result.put("maxQueued", stats.maxQueued);
+        result.put("coalesced", stats.coalesced);
+        result.put("dropped", stats.dropped);
+        result.put("sentBytes", stats.sentBytes);
+        result.put("reconnects", stats.reconnects);
+        call.resolve(result);
+    }
+
+    /**
+     * 比较事件通道与evaluateJavascript的端到端吞吐量
+     * count(默认1000), payloadBytes(默认256), binary: 是否发送二进制负载
+     */
+    @PluginMethod
+    public void benchmarkEventChannel(PluginCall call) {
+        if (!(getActivity() instanceof MainActivity)) {
+            call.reject("事件通道不可用");
+            return;
+        }
+        int count = Math.max(1, Math.min(call.getInt("count", 1000), 100000));
+        int payloadBytes = Math.max(0, Math.min(call.getInt("payloadBytes", 256), 1024 * 1024));
+        boolean binary = Boolean.TRUE.equals(call.getBoolean("binary", false));
+        ((MainActivity) getActivity()).runEventChannelBenchmark(count, payloadBytes, binary, result -> {
+            if (result.has("error") && !result.has("channel")) {
+                call.reject(result.getString("error"));
+            } else {
+                call.resolve(result);
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+import cn.jacksonz.pwa.twa.zhiweijz.imagecache.ThumbnailCache;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+
+/**
+ * 图片缓存插件
+ * 缓存本身在WebView请求拦截中透明生效，插件只提供统计、预算调整和清除
+ */
+@CapacitorPlugin(name = "ImageCache")
+public class ImageCachePlugin extends TracedPlugin {
+    private static final String TAG = "ImageCachePlugin";
+
+    /**
+     * 获取两级缓存的命中率、大小和淘汰统计
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        ThumbnailCache.Stats stats = ThumbnailCache.getInstance(getContext()).getStats();
+
+        JSObject memory = new JSObject();
+        memory.put("entries", stats.memoryEntries);
+        memory.put("bytes", stats.memoryBytes);
+        memory.put("maxBytes", stats.memoryMaxBytes);
+        memory.put("hits", stats.memoryHits);
+        memory.put("evictions", stats.memoryEvictions);
+
+        JSObject disk = new JSObject();
+        disk.put("entries", stats.diskEntries);
+        disk.put("bytes", stats.diskBytes);
+        disk.put("maxBytes", stats.diskMaxBytes);
+        disk.put("hits", stats.diskHits);
+        disk.put("evictions", stats.diskEvictions);
+
+        JSObject result = new JSObject();
+        result.put("memory", memory);
+        result.put("disk", disk);
+        result.put("misses", stats.misses);
+        result.put("expirations", stats.expirations);
+        result.put("servedBytes", stats.servedBytes);
+        result.put("downloadedBytes", stats.downloadedBytes);
+        try {
+            result.put("hitRate", stats.hitRate());
+        } catch (JSONException e) {
+            Log.w(TAG, "写入命中率失败");
+        }
+        span.resolve(result);
+    }
+
+    /**
+     * 调整缓存预算
+     * memoryBytes, diskBytes（未指定的保持不变）
+     */
+    @PluginMethod
+    public void configure(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        ThumbnailCache cache = ThumbnailCache.getInstance(getContext());
+        ThumbnailCache.Stats current = cache.getStats();
+        Integer memoryBytes = call.getInt("memoryBytes");
+        Long diskBytes = call.getLong("diskBytes");
+        if ((memoryBytes != null && memoryBytes < 0) || (diskBytes != null && diskBytes < 0)) {
+            span.reject("缓存预算不能为负数");
+            return;
+        }
+        cache.configure(
+            memoryBytes != null ? memoryBytes : (int) current.memoryMaxBytes,
+            diskBytes != null ? diskBytes : current.diskMaxBytes);
+        span.resolve();
+    }
+
+    /**
+     * 清除缓存的图片（退出登录时）
+     */
+    @PluginMethod
+    public void clear(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        ThumbnailCache.getInstance(getContext()).clear();
+        span.resolve();
+    }
+}
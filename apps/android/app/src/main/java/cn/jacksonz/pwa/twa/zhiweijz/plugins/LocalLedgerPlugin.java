@@ -0,0 +1,247 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import cn.jacksonz.pwa.twa.zhiweijz.ledger.LedgerDatabase;
+import cn.jacksonz.pwa.twa.zhiweijz.ledger.LedgerSyncer;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地账本插件
+ * 在原生SQLite中缓存当前账本的记账记录、预算和分类，Web层先从本地渲染，再在后台增量同步；
+ * 记录以原始JSON返回（itemsJson），避免原生侧逐条转换
+ */
+@CapacitorPlugin(name = "LocalLedger")
+public class LocalLedgerPlugin extends TracedPlugin {
+    private static final String TAG = "LocalLedgerPlugin";
+
+    private static final String EVENT_SYNCED = "ledgerSynced";
+
+    private LedgerDatabase database;
+    /** 同步串行执行，同一账本不会并发同步 */
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+
+    @Override
+    protected void onLoad() {
+        // 只创建helper，数据库文件在首次查询时才打开
+        database = LedgerDatabase.getInstance(getContext());
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        // 数据库由进程内共享，不随插件关闭
+        syncExecutor.shutdown();
+    }
+
+    /**
+     * 与服务器增量同步
+     * accountBookId, token(登录令牌)
+     */
+    @PluginMethod
+    public void sync(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String accountBookId = call.getString("accountBookId");
+        String token = call.getString("token");
+        if (accountBookId == null) {
+            span.reject("账本ID不能为空");
+            return;
+        }
+
+        LedgerSyncer syncer = new LedgerSyncer(database, NativeHttpPlugin.getSharedClient(getContext()));
+        String authorization = token != null ? "Bearer " + token : null;
+        syncExecutor.execute(() -> {
+            try {
+                LedgerSyncer.SyncResult sync = syncer.sync(accountBookId, authorization);
+                JSObject result = new JSObject();
+                result.put("accountBookId", accountBookId);
+                result.put("upserted", sync.upserted);
+                result.put("reseeded", sync.reseeded);
+                result.put("complete", sync.complete);
+                result.put("localCount", sync.localCount);
+                result.put("elapsedMs", sync.elapsedMs);
+                notifyListeners(EVENT_SYNCED, result);
+                span.resolve(result);
+            } catch (IOException e) {
+                Log.w(TAG, "⚠️ 账本同步失败: " + e.getMessage());
+                span.reject("账本同步失败: " + e.getMessage(), e);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "❌ 账本同步异常", e);
+                span.reject("账本同步异常: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 查询记账记录，按日期倒序
+     * accountBookId, startDate/endDate(YYYY-MM-DD), categoryIds, type, limit, offset
+     * complete为false时本地数据未覆盖查询范围，调用方应以服务器数据为准
+     */
+    @PluginMethod
+    public void queryTransactions(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        LedgerDatabase.Query query = toQuery(call);
+        if (query == null) {
+            span.reject("账本ID不能为空");
+            return;
+        }
+        query.limit = call.getInt("limit", 20);
+        query.offset = call.getInt("offset", 0);
+
+        long start = System.nanoTime();
+        LedgerDatabase.Page page = database.queryTransactions(query);
+        LedgerDatabase.SyncState state = database.getSyncState(query.accountBookId);
+
+        JSObject result = new JSObject();
+        result.put("itemsJson", page.itemsJson);
+        result.put("count", page.count);
+        result.put("total", page.total);
+        // 未指定起始日期的分页查询，只要本页在已同步范围内就视为完整
+        boolean covered = LedgerDatabase.covers(state, query.startDate)
+            || (state.syncedAt > 0 && query.startDate == null && page.count == query.limit);
+        result.put("complete", covered);
+        result.put("syncedAt", state.syncedAt);
+        result.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+        span.resolve(result);
+    }
+
+    /**
+     * 按天汇总收支（日历视图）
+     */
+    @PluginMethod
+    public void getDailyStats(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        LedgerDatabase.Query query = toQuery(call);
+        if (query == null) {
+            span.reject("账本ID不能为空");
+            return;
+        }
+
+        JSArray days = new JSArray();
+        for (LedgerDatabase.DailyStats stats : database.dailyStats(query)) {
+            JSObject day = new JSObject();
+            day.put("date", stats.day);
+            try {
+                day.put("income", stats.income);
+                day.put("expense", stats.expense);
+            } catch (JSONException e) {
+                Log.w(TAG, "写入统计金额失败: " + stats.day);
+            }
+            day.put("count", stats.count);
+            days.put(day);
+        }
+
+        LedgerDatabase.SyncState state = database.getSyncState(query.accountBookId);
+        JSObject result = new JSObject();
+        result.put("days", days);
+        result.put("complete", LedgerDatabase.covers(state, query.startDate));
+        result.put("syncedAt", state.syncedAt);
+        span.resolve(result);
+    }
+
+    /**
+     * 获取本地保存的预算或分类列表
+     * accountBookId, kind(budgets | categories)
+     */
+    @PluginMethod
+    public void getCollection(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String accountBookId = call.getString("accountBookId");
+        String kind = call.getString("kind");
+        if (accountBookId == null || !(LedgerDatabase.KIND_BUDGETS.equals(kind) || LedgerDatabase.KIND_CATEGORIES.equals(kind))) {
+            span.reject("参数无效");
+            return;
+        }
+        String[] collection = database.getCollection(accountBookId, kind);
+        JSObject result = new JSObject();
+        result.put("json", collection != null ? collection[0] : null);
+        result.put("syncedAt", collection != null ? Long.parseLong(collection[1]) : 0L);
+        span.resolve(result);
+    }
+
+    /**
+     * 写入Web层已获取的记录（新建、编辑后），不必等待下次同步
+     */
+    @PluginMethod
+    public void upsertTransactions(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String accountBookId = call.getString("accountBookId");
+        JSArray transactions = call.getArray("transactions");
+        if (accountBookId == null || transactions == null) {
+            span.reject("参数无效");
+            return;
+        }
+        database.upsertTransactions(accountBookId, transactions);
+        JSObject result = new JSObject();
+        result.put("count", transactions.length());
+        span.resolve(result);
+    }
+
+    /**
+     * 删除本地记录（Web层删除记账后调用，服务器不返回删除记录）
+     */
+    @PluginMethod
+    public void removeTransactions(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        JSArray ids = call.getArray("ids");
+        if (ids == null) {
+            span.reject("参数无效");
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("removed", database.deleteTransactions(toStringList(ids)));
+        span.resolve(result);
+    }
+
+    /**
+     * 清除本地数据（退出登录、切换服务器时）
+     */
+    @PluginMethod
+    public void clear(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        database.clear(call.getString("accountBookId"));
+        span.resolve();
+    }
+
+    private static LedgerDatabase.Query toQuery(PluginCall call) {
+        String accountBookId = call.getString("accountBookId");
+        if (accountBookId == null) {
+            return null;
+        }
+        LedgerDatabase.Query query = new LedgerDatabase.Query();
+        query.accountBookId = accountBookId;
+        query.startDate = call.getString("startDate");
+        query.endDate = call.getString("endDate");
+        query.type = call.getString("type");
+        JSArray categoryIds = call.getArray("categoryIds");
+        if (categoryIds != null) {
+            query.categoryIds.addAll(toStringList(categoryIds));
+        }
+        return query;
+    }
+
+    private static List<String> toStringList(JSONArray array) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            String value = array.optString(i, null);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+}
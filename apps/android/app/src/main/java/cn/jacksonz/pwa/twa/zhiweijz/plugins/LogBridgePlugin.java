@@ -1,31 +1,68 @@
 package cn.jacksonz.pwa.twa.zhiweijz.plugins;
 
+import android.content.pm.ApplicationInfo;
 import android.util.Log;
 
-import com.getcapacitor.Plugin;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import cn.jacksonz.pwa.twa.zhiweijz.core.log.LogPolicy;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.RotatingLogWriter;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.SharedImageStore;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 日志桥接插件
- * 将Web层的关键日志桥接到Android logcat
+ * 将Web层的关键日志桥接到Android logcat，并异步写入可导出的轮转日志文件；
+ * 输出前按日志策略（级别、限流、采样）过滤
  */
 @CapacitorPlugin(name = "LogBridge")
-public class LogBridgePlugin extends Plugin {
+public class LogBridgePlugin extends TracedPlugin {
 
     private static final String TAG = "LogBridge";
 
+    private RotatingLogWriter logWriter;
+    private LogPolicy logPolicy;
+
+    @Override
+    protected void onLoad() {
+        boolean debuggable = (getContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        logPolicy = LogPolicy.createDefault(debuggable);
+        // 写入线程在首条日志到达时才启动，不占用启动时间
+        logWriter = new RotatingLogWriter(new File(getContext().getFilesDir(), "logs"));
+        MemoryPressureCoordinator.getInstance(getContext()).register(TAG, logWriter);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (logWriter != null) {
+            MemoryPressureCoordinator.getInstance(getContext()).unregister(TAG);
+            logWriter.stop();
+        }
+    }
+
     /**
      * 输出调试日志到logcat
      */
     @PluginMethod
     public void logDebug(PluginCall call) {
-        String message = call.getString("message", "");
-        String tag = call.getString("tag", "WebView");
-        
-        Log.d(tag, "🌐 [Web] " + message);
-        call.resolve();
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        log(LogPolicy.DEBUG, call.getString("tag", "WebView"), call.getString("message", ""), System.currentTimeMillis());
+        span.resolve();
     }
 
     /**
@@ -33,11 +70,9 @@ public class LogBridgePlugin extends Plugin {
      */
     @PluginMethod
     public void logInfo(PluginCall call) {
-        String message = call.getString("message", "");
-        String tag = call.getString("tag", "WebView");
-        
-        Log.i(tag, "🌐 [Web] " + message);
-        call.resolve();
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        log(LogPolicy.INFO, call.getString("tag", "WebView"), call.getString("message", ""), System.currentTimeMillis());
+        span.resolve();
     }
 
     /**
@@ -45,11 +80,9 @@ public class LogBridgePlugin extends Plugin {
      */
     @PluginMethod
     public void logWarn(PluginCall call) {
-        String message = call.getString("message", "");
-        String tag = call.getString("tag", "WebView");
-        
-        Log.w(tag, "🌐 [Web] " + message);
-        call.resolve();
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        log(LogPolicy.WARN, call.getString("tag", "WebView"), call.getString("message", ""), System.currentTimeMillis());
+        span.resolve();
     }
 
     /**
@@ -57,10 +90,204 @@ public class LogBridgePlugin extends Plugin {
      */
     @PluginMethod
     public void logError(PluginCall call) {
-        String message = call.getString("message", "");
-        String tag = call.getString("tag", "WebView");
-        
-        Log.e(tag, "🌐 [Web] " + message);
-        call.resolve();
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        log(LogPolicy.ERROR, call.getString("tag", "WebView"), call.getString("message", ""), System.currentTimeMillis());
+        span.resolve();
+    }
+
+    /**
+     * 批量输出日志，一次桥接调用处理多条日志
+     * entries: [{ level, tag, message, timestamp }]
+     */
+    @PluginMethod
+    public void logBatch(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        JSArray entries = call.getArray("entries");
+        if (entries == null) {
+            span.reject("entries不能为空");
+            return;
+        }
+
+        List<RotatingLogWriter.Entry> batch = new ArrayList<>(entries.length());
+        int dropped = 0;
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                continue;
+            }
+            int level = LogPolicy.parseLevel(entry.optString("level", "info"));
+            String tag = entry.optString("tag", "WebView");
+            if (!logPolicy.shouldLog(level, tag)) {
+                dropped++;
+                continue;
+            }
+            String message = entry.optString("message", "");
+            long timestamp = entry.optLong("timestamp", System.currentTimeMillis());
+            printToLogcat(level, tag, message);
+            batch.add(new RotatingLogWriter.Entry(timestamp, LogPolicy.levelName(level), tag, message));
+        }
+        logWriter.appendAll(batch);
+
+        JSObject result = new JSObject();
+        result.put("accepted", batch.size());
+        result.put("dropped", dropped);
+        span.resolve(result);
+    }
+
+    /**
+     * 导出日志文件，返回可分享的文件地址
+     */
+    @PluginMethod
+    public void exportLogs(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        try {
+            File exportDir = new File(getContext().getCacheDir(), "log_export");
+            if (!exportDir.exists() && !exportDir.mkdirs()) {
+                span.reject("创建导出目录失败");
+                return;
+            }
+            File target = logWriter.exportTo(new File(exportDir, "zhiweijz-logs-" + System.currentTimeMillis() + ".txt"));
+
+            JSObject result = new JSObject();
+            result.put("path", target.getAbsolutePath());
+            result.put("webPath", SharedImageStore.toWebPath(getBridge(), target));
+            result.put("contentUri", SharedImageStore.toContentUri(getContext(), target).toString());
+            result.put("fileSize", target.length());
+            result.put("droppedCount", logWriter.getDroppedCount());
+            span.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ 导出日志失败", e);
+            span.reject("导出日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 清除日志文件
+     */
+    @PluginMethod
+    public void clearLogs(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        logWriter.clear();
+        span.resolve();
+    }
+
+    /**
+     * 获取当前日志策略和各标签的丢弃计数，Web层据此跳过不会输出的日志调用
+     */
+    @PluginMethod
+    public void getLogPolicy(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        span.resolve(buildPolicyResult());
+    }
+
+    /**
+     * 更新日志策略
+     * defaultRule: { minLevel, ratePerSecond, burst, sampleRate }
+     * rules: { [tag]: { minLevel, ratePerSecond, burst, sampleRate } }
+     * resetStats: 是否清零丢弃计数
+     */
+    @PluginMethod
+    public void setLogPolicy(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        LogPolicy.Rule defaultRule = parseRule(call.getObject("defaultRule"), logPolicy.getDefaultRule());
+        Map<String, LogPolicy.Rule> tagRules = new HashMap<>();
+        JSObject rules = call.getObject("rules");
+        if (rules != null) {
+            Iterator<String> tags = rules.keys();
+            while (tags.hasNext()) {
+                String tag = tags.next();
+                tagRules.put(tag, parseRule(rules.optJSONObject(tag), defaultRule));
+            }
+        } else {
+            tagRules.putAll(logPolicy.getTagRules());
+        }
+        logPolicy.setRules(defaultRule, tagRules);
+        if (Boolean.TRUE.equals(call.getBoolean("resetStats", false))) {
+            logPolicy.resetStats();
+        }
+        Log.i(TAG, "🪵 日志策略已更新: 默认级别 " + LogPolicy.levelName(defaultRule.minLevel) + ", 标签规则 " + tagRules.size() + " 条");
+        span.resolve(buildPolicyResult());
+    }
+
+    private JSObject buildPolicyResult() {
+        JSObject result = new JSObject();
+        result.put("defaultRule", ruleToJson(logPolicy.getDefaultRule()));
+
+        JSObject rules = new JSObject();
+        for (Map.Entry<String, LogPolicy.Rule> entry : logPolicy.getTagRules().entrySet()) {
+            rules.put(entry.getKey(), ruleToJson(entry.getValue()));
+        }
+        result.put("rules", rules);
+
+        JSObject stats = new JSObject();
+        for (Map.Entry<String, LogPolicy.TagStats> entry : logPolicy.getStats().entrySet()) {
+            LogPolicy.TagStats tagStats = entry.getValue();
+            JSObject item = new JSObject();
+            synchronized (tagStats) {
+                item.put("passed", tagStats.passed);
+                item.put("droppedByLevel", tagStats.droppedByLevel);
+                item.put("droppedByRate", tagStats.droppedByRate);
+                item.put("droppedBySample", tagStats.droppedBySample);
+            }
+            stats.put(entry.getKey(), item);
+        }
+        result.put("stats", stats);
+        result.put("totalDropped", logPolicy.getTotalDropped());
+        result.put("fileDropped", logWriter.getDroppedCount());
+        return result;
+    }
+
+    private static JSObject ruleToJson(LogPolicy.Rule rule) {
+        JSObject json = new JSObject();
+        json.put("minLevel", LogPolicy.levelName(rule.minLevel));
+        try {
+            json.put("ratePerSecond", rule.ratePerSecond);
+            json.put("sampleRate", rule.sampleRate);
+        } catch (JSONException e) {
+            Log.w(TAG, "序列化日志规则失败", e);
+        }
+        json.put("burst", rule.burst);
+        return json;
+    }
+
+    private static LogPolicy.Rule parseRule(JSONObject json, LogPolicy.Rule fallback) {
+        if (json == null) {
+            return fallback;
+        }
+        int minLevel = json.has("minLevel") ? LogPolicy.parseLevel(json.optString("minLevel")) : fallback.minLevel;
+        return new LogPolicy.Rule(
+            minLevel,
+            json.optDouble("ratePerSecond", fallback.ratePerSecond),
+            json.optInt("burst", fallback.burst),
+            json.optDouble("sampleRate", fallback.sampleRate)
+        );
+    }
+
+    /**
+     * 先按策略判断，通过后才拼接日志字符串和写入文件
+     */
+    private void log(int level, String tag, String message, long timestamp) {
+        if (!logPolicy.shouldLog(level, tag)) {
+            return;
+        }
+        printToLogcat(level, tag, message);
+        logWriter.append(new RotatingLogWriter.Entry(timestamp, LogPolicy.levelName(level), tag, message));
+    }
+
+    private static void printToLogcat(int level, String tag, String message) {
+        switch (level) {
+            case LogPolicy.DEBUG:
+                Log.d(tag, "🌐 [Web] " + message);
+                break;
+            case LogPolicy.WARN:
+                Log.w(tag, "🌐 [Web] " + message);
+                break;
+            case LogPolicy.ERROR:
+                Log.e(tag, "🌐 [Web] " + message);
+                break;
+            default:
+                Log.i(tag, "🌐 [Web] " + message);
+                break;
+        }
     }
 }
@@ -0,0 +1,215 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import cn.jacksonz.pwa.twa.zhiweijz.http.NativeHttpClient;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.CertificateDecisionCoordinator;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.NetworkConfigHelper;
+
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocketFactory;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * 原生HTTP插件
+ * API请求通过共享连接池的原生客户端发送，服务器地址与Web层服务器设置保持一致并持久化，
+ * 供原生侧在Web层加载前发起请求
+ */
+@CapacitorPlugin(name = "NativeHttp")
+public class NativeHttpPlugin extends TracedPlugin {
+    private static final String TAG = "NativeHttpPlugin";
+
+    private static final String PREFS_NAME = "native_http";
+    private static final String KEY_BASE_URL = "base_url";
+
+    private static NativeHttpClient sharedClient;
+
+    private SharedPreferences preferences;
+
+    /**
+     * 进程内共享的客户端，其他原生模块（如离线记账同步）也使用同一个连接池
+     * 使用按主机划分的SSL信任配置：已信任服务器的固定证书在首次握手即可通过，
+     * 同一主机的连接共享TLS会话缓存
+     */
+    public static synchronized NativeHttpClient getSharedClient(Context context) {
+        if (sharedClient == null) {
+            OkHttpClient.Builder builder = NativeHttpClient.defaultBuilder();
+            SSLSocketFactory socketFactory = NetworkConfigHelper.getSocketFactory(context);
+            if (socketFactory != null) {
+                builder.sslSocketFactory(socketFactory, NetworkConfigHelper.getSystemTrustManager(context))
+                    .hostnameVerifier(NetworkConfigHelper.getHostnameVerifier(context));
+            } else {
+                Log.w(TAG, "⚠️ SSL配置初始化失败，使用系统默认配置");
+            }
+            NativeHttpClient client = new NativeHttpClient(builder.build());
+            sharedClient = client;
+            MemoryPressureCoordinator.getInstance(context).register(TAG, client);
+            // 撤销信任后连接池中的连接不会再次校验证书，需关闭后重新握手
+            NetworkConfigHelper.addRevocationListener(client::onTrustRevoked);
+            // 快速记账等不经过WebView的入口也需要服务器地址，创建时即恢复上次保存的地址
+            String savedBaseUrl = context.getSharedPreferences(PREFS_NAME, 0).getString(KEY_BASE_URL, null);
+            if (savedBaseUrl != null) {
+                try {
+                    sharedClient.setBaseUrl(savedBaseUrl);
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "已保存的服务器地址无效: " + savedBaseUrl);
+                }
+            }
+        }
+        return sharedClient;
+    }
+
+    @Override
+    protected void onLoad() {
+        preferences = getContext().getSharedPreferences(PREFS_NAME, 0);
+        getSharedClient(getContext());
+    }
+
+    /**
+     * 设置API服务器地址（来自Web层服务器设置）
+     */
+    @PluginMethod
+    public void setBaseUrl(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String baseUrl = call.getString("baseUrl");
+        NativeHttpClient client = getSharedClient(getContext());
+        String previous = client.getBaseUrl();
+        try {
+            client.setBaseUrl(baseUrl);
+        } catch (IllegalArgumentException e) {
+            span.reject(e.getMessage());
+            return;
+        }
+
+        String current = client.getBaseUrl();
+        if (current != null && !current.equals(previous)) {
+            // 切换服务器后旧服务器的空闲连接不再需要
+            client.evictConnections();
+            Log.i(TAG, "🌐 服务器地址已更新: " + current);
+        }
+        preferences.edit().putString(KEY_BASE_URL, current).apply();
+
+        JSObject result = new JSObject();
+        result.put("baseUrl", current);
+        span.resolve(result);
+    }
+
+    /**
+     * 发送请求
+     * url: 绝对地址或相对服务器地址的路径
+     * method, headers, data(字符串请求体), contentType, timeout(毫秒), coalesce(默认true，仅GET)
+     */
+    @PluginMethod
+    public void request(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String url = call.getString("url");
+        if (url == null || url.isEmpty()) {
+            span.reject("请求地址不能为空");
+            return;
+        }
+
+        NativeHttpClient.RequestSpec spec = new NativeHttpClient.RequestSpec();
+        spec.url = url;
+        spec.method = call.getString("method", "GET");
+        spec.body = call.getString("data");
+        spec.contentType = call.getString("contentType");
+        spec.timeoutMs = call.getLong("timeout", 0L);
+        spec.coalesce = Boolean.TRUE.equals(call.getBoolean("coalesce", true));
+        JSObject headers = call.getObject("headers");
+        if (headers != null) {
+            Iterator<String> names = headers.keys();
+            while (names.hasNext()) {
+                String name = names.next();
+                String value = headers.optString(name, null);
+                if (value != null) {
+                    spec.headers.put(name, value);
+                }
+            }
+        }
+
+        getSharedClient(getContext()).enqueue(spec, new NativeHttpClient.ResultCallback() {
+            @Override
+            public void onSuccess(NativeHttpClient.Result result) {
+                JSObject response = new JSObject();
+                response.put("status", result.status);
+                response.put("statusText", result.statusText);
+                response.put("url", result.url);
+                response.put("protocol", result.protocol);
+                response.put("elapsedMs", result.elapsedMs);
+                response.put("coalesced", result.coalesced);
+                JSObject responseHeaders = new JSObject();
+                for (Map.Entry<String, String> header : result.headers.entrySet()) {
+                    responseHeaders.put(header.getKey(), header.getValue());
+                }
+                response.put("headers", responseHeaders);
+                response.put("data", result.body);
+                span.resolve(response);
+            }
+
+            @Override
+            public void onFailure(IOException error) {
+                String code = certificateErrorCode(error);
+                if (code != null) {
+                    span.reject("服务器证书未被信任: " + error.getMessage(), code, error);
+                } else {
+                    span.reject("网络请求失败: " + error.getMessage(), error);
+                }
+            }
+        });
+    }
+
+    /**
+     * 证书问题的错误码：CERT_REJECTED为用户已拒绝，CERT_UNTRUSTED为未决定或等待超时（提示仍在显示），
+     * Web层据此不再重复弹出SSL警告
+     */
+    private static String certificateErrorCode(IOException error) {
+        if (!(error instanceof SSLException)) {
+            return null;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CertificateDecisionCoordinator.UserRejectedException) {
+                return "CERT_REJECTED";
+            }
+            if (cause instanceof CertificateException) {
+                return "CERT_UNTRUSTED";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取连接池和请求统计
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        NativeHttpClient.Stats stats = getSharedClient(getContext()).getStats();
+        JSObject result = new JSObject();
+        result.put("baseUrl", getSharedClient(getContext()).getBaseUrl());
+        result.put("requests", stats.requests);
+        result.put("networkRequests", stats.networkRequests);
+        result.put("coalesced", stats.coalesced);
+        result.put("errors", stats.errors);
+        result.put("responseBytes", stats.responseBytes);
+        result.put("connections", stats.connections);
+        result.put("idleConnections", stats.idleConnections);
+        result.put("runningCalls", stats.runningCalls);
+        result.put("queuedCalls", stats.queuedCalls);
+        span.resolve(result);
+    }
+}
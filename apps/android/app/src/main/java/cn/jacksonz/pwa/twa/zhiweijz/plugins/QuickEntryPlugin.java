@@ -0,0 +1,127 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import cn.jacksonz.pwa.twa.zhiweijz.quickentry.QuickEntry;
+import cn.jacksonz.pwa.twa.zhiweijz.quickentry.QuickEntryFlusher;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+
+/**
+ * 快速记账插件
+ * Web层写入登录令牌和当前账本供原生快速记账使用；应用启动时补发离线录入的记录，
+ * 补发成功后通过quickEntryFlushed事件通知Web层刷新
+ */
+@CapacitorPlugin(name = "QuickEntry")
+public class QuickEntryPlugin extends TracedPlugin {
+    private static final String EVENT_FLUSHED = "quickEntryFlushed";
+
+    private QuickEntryFlusher flusher;
+
+    @Override
+    protected void onLoad() {
+        flusher = QuickEntryFlusher.getInstance(getContext());
+        flusher.setListener(result -> notifyListeners(EVENT_FLUSHED, toJson(result)));
+        // 打开完整应用时补发上次未发送的记录，队列为空时不产生请求
+        flusher.flushAsync(null);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        flusher.setListener(null);
+    }
+
+    /**
+     * 更新快速记账的登录信息
+     * token, userId, accountBookId, accountBookName
+     */
+    @PluginMethod
+    public void setSession(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String token = call.getString("token");
+        String accountBookId = call.getString("accountBookId");
+        if (token == null || accountBookId == null) {
+            span.reject("登录令牌和账本ID不能为空");
+            return;
+        }
+        flusher.getSession().save(token, call.getString("userId"), accountBookId, call.getString("accountBookName"));
+        // 令牌更新后可能有因登录失效而暂停的记录
+        if (flusher.pendingCount() > 0) {
+            flusher.flushAsync(null);
+        }
+        span.resolve();
+    }
+
+    /**
+     * 清除登录信息（退出登录时），未发送的记录保留到下次登录后补发
+     */
+    @PluginMethod
+    public void clearSession(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        flusher.getSession().clear();
+        span.resolve();
+    }
+
+    /**
+     * 立即补发待发送的记录
+     */
+    @PluginMethod
+    public void flush(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        flusher.flushAsync(result -> span.resolve(toJson(result)));
+    }
+
+    /**
+     * 获取待发送的记录，包括被服务器拒绝、需要用户处理的记录
+     */
+    @PluginMethod
+    public void getPending(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        JSArray entries = new JSArray();
+        for (QuickEntry entry : flusher.getPending()) {
+            JSObject item = new JSObject();
+            item.put("id", entry.id);
+            item.put("accountBookId", entry.accountBookId);
+            item.put("amount", entry.amount);
+            item.put("type", entry.type);
+            item.put("categoryId", entry.categoryId);
+            item.put("categoryName", entry.categoryName);
+            item.put("description", entry.description);
+            item.put("createdAt", entry.createdAt);
+            item.put("attempts", entry.attempts);
+            item.put("lastError", entry.lastError);
+            entries.put(item);
+        }
+        JSObject result = new JSObject();
+        result.put("entries", entries);
+        span.resolve(result);
+    }
+
+    /**
+     * 放弃一条待发送的记录
+     * id
+     */
+    @PluginMethod
+    public void discard(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String id = call.getString("id");
+        if (id == null) {
+            span.reject("记录ID不能为空");
+            return;
+        }
+        flusher.discard(id);
+        span.resolve();
+    }
+
+    private static JSObject toJson(QuickEntryFlusher.FlushResult result) {
+        JSObject json = new JSObject();
+        json.put("sent", result.sent);
+        json.put("remaining", result.remaining);
+        json.put("retry", result.retry);
+        json.put("accountBookIds", new JSArray(result.accountBookIds));
+        return json;
+    }
+}
@@ -1,35 +1,85 @@
 package cn.jacksonz.pwa.twa.zhiweijz.plugins;
 
+import android.app.Activity;
 import android.app.AlertDialog;
+import android.net.Uri;
 import android.util.Log;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
-import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.CertificateDecisionCoordinator;
 import cn.jacksonz.pwa.twa.zhiweijz.utils.NetworkConfigHelper;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * SSL配置插件
- * 允许Web层控制SSL证书验证行为
+ * 允许Web层控制SSL证书验证行为；信任按主机生效，证书指纹持久化
  */
 @CapacitorPlugin(name = "SSLConfig")
-public class SSLConfigPlugin extends Plugin {
+public class SSLConfigPlugin extends TracedPlugin {
     private static final String TAG = "SSLConfigPlugin";
 
+    @Override
+    protected void onLoad() {
+        // 原生请求握手时遇到不受信任的证书，由本插件所在的Activity询问用户
+        CertificateDecisionCoordinator.getInstance().setPrompt(this::showCertificatePrompt);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        CertificateDecisionCoordinator coordinator = CertificateDecisionCoordinator.getInstance();
+        coordinator.setPrompt(null);
+        coordinator.cancelAll();
+    }
+
+    /**
+     * 握手线程中调用，对话框在主线程显示，选择结果交回协调器
+     */
+    private void showCertificatePrompt(CertificateDecisionCoordinator.PendingDecision pending) {
+        CertificateDecisionCoordinator coordinator = CertificateDecisionCoordinator.getInstance();
+        Activity activity = getActivity();
+        if (activity == null || activity.isFinishing()) {
+            coordinator.resolve(pending.id, false);
+            return;
+        }
+        activity.runOnUiThread(() -> new AlertDialog.Builder(activity)
+            .setTitle("⚠️ 安全警告")
+            .setMessage("无法验证服务器证书的安全性。\n\n" +
+                       "服务器: " + pending.host + "\n" +
+                       "证书指纹: " + pending.fingerprint.substring(0, 16) + "...\n\n" +
+                       "这可能是因为：\n" +
+                       "• 服务器使用自签名证书\n" +
+                       "• 证书已过期或无效\n" +
+                       "• 连接可能不安全\n\n" +
+                       "是否信任该服务器的证书？")
+            .setPositiveButton("信任并继续", (dialog, which) -> coordinator.resolve(pending.id, true))
+            .setNegativeButton("取消连接", (dialog, which) -> coordinator.resolve(pending.id, false))
+            .setCancelable(false)
+            .show());
+    }
+
     /**
      * 显示SSL安全警告对话框
      */
     @PluginMethod
     public void showSSLWarning(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
         String url = call.getString("url", "未知服务器");
+        String host = resolveHost(url);
         String message = call.getString("message", "SSL证书验证失败");
+        // 只有显示给用户的指纹会被固定；尚未遇到该主机的证书时，下一次握手再显示指纹询问
+        String fingerprint = NetworkConfigHelper.getRejectedFingerprint(getContext(), host);
 
         getActivity().runOnUiThread(() -> {
             new AlertDialog.Builder(getContext())
                 .setTitle("⚠️ SSL安全警告")
                 .setMessage("无法验证服务器证书的安全性。\n\n" +
                            "服务器: " + url + "\n" +
+                           (fingerprint != null ? "证书指纹: " + fingerprint.substring(0, 16) + "...\n" : "") +
                            "错误: " + message + "\n\n" +
                            "这可能是因为：\n" +
                            "• 服务器使用自签名证书\n" +
@@ -37,13 +87,16 @@ public class SSLConfigPlugin extends Plugin {
                            "• 连接可能不安全\n\n" +
                            "是否仍要继续连接？")
                 .setPositiveButton("继续连接", (dialog, which) -> {
-                    // 配置宽松的SSL设置
-                    NetworkConfigHelper.configurePermissiveSSL(getContext());
-                    
+                    // 只信任该服务器
+                    if (host != null) {
+                        NetworkConfigHelper.trustHost(getContext(), host, fingerprint);
+                    }
+
                     JSObject result = new JSObject();
                     result.put("allowed", true);
+                    result.put("host", host);
                     result.put("message", "用户选择继续连接");
-                    call.resolve(result);
+                    span.resolve(result);
                     
                     Log.i(TAG, "用户选择信任不安全的SSL连接: " + url);
                 })
@@ -51,7 +104,7 @@ public class SSLConfigPlugin extends Plugin {
                     JSObject result = new JSObject();
                     result.put("allowed", false);
                     result.put("message", "用户取消连接");
-                    call.resolve(result);
+                    span.resolve(result);
                     
                     Log.i(TAG, "用户拒绝不安全的SSL连接: " + url);
                 })
@@ -61,48 +114,58 @@ public class SSLConfigPlugin extends Plugin {
     }
 
     /**
-     * 配置宽松的SSL设置
+     * 信任服务器证书
+     * url: 要信任的服务器地址，未指定时使用当前API服务器地址
      */
     @PluginMethod
     public void configurePermissiveSSL(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String url = call.getString("url");
+        String host = resolveHost(url != null ? url : NativeHttpPlugin.getSharedClient(getContext()).getBaseUrl());
+        if (host == null) {
+            span.reject("未指定服务器地址");
+            return;
+        }
         try {
-            NetworkConfigHelper.configurePermissiveSSL(getContext());
+            NetworkConfigHelper.trustHost(getContext(), host);
             
             JSObject result = new JSObject();
             result.put("success", true);
-            result.put("message", "SSL配置已更新为宽松模式");
-            call.resolve(result);
+            result.put("host", host);
+            result.put("message", "已信任服务器证书: " + host);
+            span.resolve(result);
             
-            Log.i(TAG, "✅ SSL配置已更新为宽松模式");
+            Log.i(TAG, "✅ 已信任服务器证书: " + host);
         } catch (Exception e) {
             JSObject result = new JSObject();
             result.put("success", false);
             result.put("message", "SSL配置失败: " + e.getMessage());
-            call.reject("SSL配置失败", e);
+            span.reject("SSL配置失败", e);
             
             Log.e(TAG, "❌ SSL配置失败", e);
         }
     }
 
     /**
-     * 恢复默认SSL设置
+     * 恢复默认SSL设置（撤销所有服务器的信任）
      */
     @PluginMethod
     public void restoreDefaultSSL(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
         try {
-            NetworkConfigHelper.restoreDefaultSSL();
+            NetworkConfigHelper.restoreDefaultSSL(getContext());
             
             JSObject result = new JSObject();
             result.put("success", true);
             result.put("message", "SSL配置已恢复为默认模式");
-            call.resolve(result);
+            span.resolve(result);
             
             Log.i(TAG, "✅ SSL配置已恢复为默认模式");
         } catch (Exception e) {
             JSObject result = new JSObject();
             result.put("success", false);
             result.put("message", "SSL配置恢复失败: " + e.getMessage());
-            call.reject("SSL配置恢复失败", e);
+            span.reject("SSL配置恢复失败", e);
             
             Log.e(TAG, "❌ SSL配置恢复失败", e);
         }
@@ -113,10 +176,51 @@ public class SSLConfigPlugin extends Plugin {
      */
     @PluginMethod
     public void getSSLStatus(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        Map<String, Set<String>> trusted = NetworkConfigHelper.getTrustedHosts(getContext());
+        JSArray hosts = new JSArray();
+        for (Map.Entry<String, Set<String>> entry : trusted.entrySet()) {
+            JSObject host = new JSObject();
+            host.put("host", entry.getKey());
+            host.put("fingerprints", new JSArray(entry.getValue()));
+            hosts.put(host);
+        }
+
+        JSObject result = new JSObject();
+        result.put("isPermissive", !trusted.isEmpty());
+        result.put("hosts", hosts);
+        result.put("pendingDecisions", CertificateDecisionCoordinator.getInstance().getPendingCount());
+        result.put("message", !trusted.isEmpty() ?
+                   "已信任 " + trusted.size() + " 个服务器的证书" : "当前使用默认SSL配置");
+        span.resolve(result);
+    }
+
+    /**
+     * 撤销单个服务器的信任
+     */
+    @PluginMethod
+    public void revokeHost(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String host = call.getString("host");
+        if (host == null) {
+            host = resolveHost(call.getString("url"));
+        }
+        if (host == null) {
+            span.reject("未指定服务器地址");
+            return;
+        }
+        NetworkConfigHelper.revokeHost(getContext(), host);
         JSObject result = new JSObject();
-        result.put("isPermissive", NetworkConfigHelper.isPermissiveSSLConfigured());
-        result.put("message", NetworkConfigHelper.isPermissiveSSLConfigured() ? 
-                   "当前使用宽松SSL配置" : "当前使用默认SSL配置");
-        call.resolve(result);
+        result.put("success", true);
+        result.put("host", host);
+        span.resolve(result);
+    }
+
+    private static String resolveHost(String url) {
+        if (url == null) {
+            return null;
+        }
+        String host = Uri.parse(url).getHost();
+        return host != null && !host.isEmpty() ? host : null;
     }
 }
\ No newline at end of file
@@ -2,38 +2,88 @@ package cn.jacksonz.pwa.twa.zhiweijz.plugins;
 
 import android.content.ContentResolver;
 import android.content.Context;
+import android.content.res.Resources;
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.MediaStore;
 import android.provider.OpenableColumns;
-import android.util.Base64;
+import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.WindowManager;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
-import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
-import java.io.ByteArrayOutputStream;
+import org.json.JSONException;
+
+import cn.jacksonz.pwa.twa.zhiweijz.MainActivity;
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Base64Encoder;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.ImagePreparer;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MediaCacheJanitor;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.MemoryPressureCoordinator;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.PerceptualHash;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.ReceiptPreprocessor;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.RecognitionResultCache;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.SharedImageBatchProcessor;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.SharedImageStore;
+
+import java.io.Closeable;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 分享目标插件
  * 处理从其他应用分享到本应用的图片数据
  */
 @CapacitorPlugin(name = "ShareTarget")
-public class ShareTargetPlugin extends Plugin {
+public class ShareTargetPlugin extends TracedPlugin {
 
     private static final String TAG = "ShareTargetPlugin";
 
+    /** 返回Base64数据（默认，兼容旧版Web层） */
+    private static final String MODE_BASE64 = "base64";
+    /** 复制到应用缓存并返回WebView可加载的地址，不经过Base64 */
+    private static final String MODE_FILE = "file";
+
+    /** 图片预处理使用独立线程，避免阻塞插件调用队列 */
+    private ExecutorService imageExecutor;
+
+    /** 批量导入处理器，首次批量分享时创建 */
+    private SharedImageBatchProcessor batchProcessor;
+
+    @Override
+    protected void onLoad() {
+        imageExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (imageExecutor != null) {
+            imageExecutor.shutdownNow();
+        }
+        if (batchProcessor != null) {
+            MemoryPressureCoordinator.getInstance(getContext()).unregister(TAG);
+            batchProcessor.shutdown();
+        }
+    }
+
     /**
      * 获取分享的图片数据
+     * mode为file时返回本地文件地址（webPath），Web层可直接fetch或上传
      */
     @PluginMethod
     public void getSharedImage(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
         Log.d(TAG, "📷 [ShareTargetPlugin] getSharedImage方法被调用");
 
         String imageUri = call.getString("imageUri");
@@ -41,7 +91,7 @@ public class ShareTargetPlugin extends Plugin {
 
         if (imageUri == null || imageUri.isEmpty()) {
             Log.e(TAG, "❌ [ShareTargetPlugin] 图片URI为空");
-            call.reject("图片URI不能为空");
+            span.reject("图片URI不能为空");
             return;
         }
 
@@ -57,16 +107,22 @@ public class ShareTargetPlugin extends Plugin {
 
             Log.d(TAG, "📷 [ShareTargetPlugin] 处理分享图片 - 文件名: " + fileName + ", 类型: " + mimeType + ", 大小: " + fileSize);
 
-            // 读取图片数据并转换为Base64
-            InputStream inputStream = contentResolver.openInputStream(uri);
-            if (inputStream == null) {
-                Log.e(TAG, "❌ [ShareTargetPlugin] 无法读取图片数据");
-                call.reject("无法读取图片数据");
+            String mode = call.getString("mode", MODE_BASE64);
+            if (MODE_FILE.equals(mode)) {
+                resolveAsFile(span, uri, fileName, mimeType);
                 return;
             }
 
-            byte[] imageBytes = readInputStream(inputStream);
-            String base64Data = Base64.encodeToString(imageBytes, Base64.DEFAULT);
+            // 边读取边编码为Base64，不在内存中保留完整的原始字节；保持按行换行的输出格式
+            String base64Data;
+            try (InputStream inputStream = contentResolver.openInputStream(uri)) {
+                if (inputStream == null) {
+                    Log.e(TAG, "❌ [ShareTargetPlugin] 无法读取图片数据");
+                    span.reject("无法读取图片数据");
+                    return;
+                }
+                base64Data = Base64Encoder.encodeToString(inputStream, fileSize > 0 ? fileSize : -1, true);
+            }
 
             // 构建返回数据
             JSObject result = new JSObject();
@@ -77,12 +133,551 @@ public class ShareTargetPlugin extends Plugin {
             result.put("source", "share");
 
             Log.d(TAG, "✅ [ShareTargetPlugin] 图片处理成功 - Base64长度: " + base64Data.length());
-            call.resolve(result);
+            span.resolve(result);
 
         } catch (Exception e) {
             Log.e(TAG, "❌ [ShareTargetPlugin] 处理分享图片失败", e);
-            call.reject("处理图片失败: " + e.getMessage());
+            span.reject("处理图片失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 校验调用参数中的图片来源（imageUri或path），都未指定时拒绝调用
+     */
+    private static boolean hasImageSource(PluginCall call, BridgeMetrics.Span span) {
+        String imageUri = call.getString("imageUri");
+        String path = call.getString("path");
+        if ((imageUri == null || imageUri.isEmpty()) && (path == null || path.isEmpty())) {
+            span.reject("图片URI或路径不能为空");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 待处理的源图片：path指定的分享缓存文件，或由imageUri复制出的临时文件（关闭时删除）
+     */
+    private static class ImageSource implements Closeable {
+        final File file;
+        private final boolean temporary;
+
+        ImageSource(File file, boolean temporary) {
+            this.file = file;
+            this.temporary = temporary;
+        }
+
+        @Override
+        public void close() {
+            if (temporary && !file.delete()) {
+                Log.w(TAG, "删除临时文件失败: " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * 打开调用参数指定的源图片，在imageExecutor中调用
+     * path只接受分享缓存目录中尚未被清理的文件，否则拒绝调用并返回null；imageUri的内容复制为临时文件
+     */
+    private ImageSource openImageSource(PluginCall call, BridgeMetrics.Span span) throws IOException {
+        Context context = getContext();
+        String path = call.getString("path");
+        if (path != null && !path.isEmpty()) {
+            File file = new File(path);
+            if (!SharedImageStore.isManagedFile(context, file)) {
+                span.reject("只能处理分享图片缓存文件");
+                return null;
+            }
+            if (!MediaCacheJanitor.getInstance(context).recordAccess(file)) {
+                span.reject("缓存文件已被清理，请重新获取分享图片");
+                return null;
+            }
+            return new ImageSource(file, false);
+        }
+        Uri uri = Uri.parse(call.getString("imageUri"));
+        return new ImageSource(SharedImageStore.copyToCache(context, uri, getFileName(context.getContentResolver(), uri)), true);
+    }
+
+    /**
+     * 预处理图片：按最大边长采样缩放、校正EXIF方向并重新编码
+     * 支持imageUri（内容URI）或path（file模式返回的本地路径）
+     */
+    @PluginMethod
+    public void prepareImage(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        if (!hasImageSource(call, span)) {
+            return;
+        }
+
+        ImagePreparer.Options options = new ImagePreparer.Options();
+        options.maxDimension = call.getInt("maxDimension", ImagePreparer.DEFAULT_MAX_DIMENSION);
+        options.quality = call.getInt("quality", ImagePreparer.DEFAULT_QUALITY);
+        options.maxBytes = call.getLong("maxBytes", 0L);
+        options.format = call.getString("format", "jpeg");
+
+        imageExecutor.execute(() -> {
+            try (ImageSource image = openImageSource(call, span)) {
+                if (image == null) {
+                    return;
+                }
+                Context context = getContext();
+                File source = image.file;
+
+                String extension = "webp".equals(options.format) ? ".webp" : ".jpg";
+                File target = new File(SharedImageStore.getDirectory(context),
+                    "prepared_" + System.currentTimeMillis() + extension);
+                ImagePreparer.Result prepared = ImagePreparer.prepare(source, target, options);
+                MediaCacheJanitor.getInstance(context).onFileAdded(target);
+
+                JSObject result = new JSObject();
+                result.put("path", target.getAbsolutePath());
+                result.put("webPath", SharedImageStore.toWebPath(getBridge(), target));
+                result.put("mimeType", prepared.mimeType);
+                result.put("fileSize", target.length());
+                result.put("originalFileSize", source.length());
+                result.put("width", prepared.width);
+                result.put("height", prepared.height);
+                result.put("originalWidth", prepared.originalWidth);
+                result.put("originalHeight", prepared.originalHeight);
+                result.put("rotation", prepared.rotation);
+                result.put("quality", prepared.quality);
+                span.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ [ShareTargetPlugin] 图片预处理失败", e);
+                span.reject("图片预处理失败: " + e.getMessage());
+            } catch (OutOfMemoryError e) {
+                Log.e(TAG, "❌ [ShareTargetPlugin] 图片预处理内存不足", e);
+                span.reject("图片过大，预处理内存不足");
+            }
+        });
+    }
+
+    /**
+     * 票据预处理：裁掉截图的状态栏/导航栏和纯色边距，可选灰度与对比度拉伸，超长截图切分为多张
+     * 支持imageUri（内容URI）或path（file模式返回的本地路径）
+     * maxWidth, grayscale(默认false), tile(默认true), cropBorders(默认true), cropSystemBars(默认true), quality, format
+     * 返回tiles数组（每张的path/webPath/宽高）及transforms等变换信息
+     */
+    @PluginMethod
+    public void preprocessReceipt(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        if (!hasImageSource(call, span)) {
+            return;
+        }
+
+        ReceiptPreprocessor.Options options = new ReceiptPreprocessor.Options();
+        options.maxWidth = call.getInt("maxWidth", ReceiptPreprocessor.DEFAULT_MAX_WIDTH);
+        options.grayscale = call.getBoolean("grayscale", false);
+        options.tile = call.getBoolean("tile", true);
+        options.cropBorders = call.getBoolean("cropBorders", true);
+        options.cropSystemBars = call.getBoolean("cropSystemBars", true);
+        options.quality = call.getInt("quality", ImagePreparer.DEFAULT_QUALITY);
+        options.format = call.getString("format", "jpeg");
+        applyScreenMetrics(options);
+
+        imageExecutor.execute(() -> {
+            try (ImageSource image = openImageSource(call, span)) {
+                if (image == null) {
+                    return;
+                }
+                Context context = getContext();
+                File source = image.file;
+
+                ReceiptPreprocessor.Result processed = ReceiptPreprocessor.process(source,
+                    SharedImageStore.getDirectory(context), "receipt_" + System.currentTimeMillis(), options);
+
+                JSArray tiles = new JSArray();
+                for (ReceiptPreprocessor.Tile tile : processed.tiles) {
+                    MediaCacheJanitor.getInstance(context).onFileAdded(tile.file);
+                    JSObject item = new JSObject();
+                    item.put("path", tile.file.getAbsolutePath());
+                    item.put("webPath", SharedImageStore.toWebPath(getBridge(), tile.file));
+                    item.put("width", tile.width);
+                    item.put("height", tile.height);
+                    item.put("top", tile.top);
+                    item.put("fileSize", tile.file.length());
+                    tiles.put(item);
+                }
+                JSObject crop = new JSObject();
+                crop.put("left", processed.cropLeft);
+                crop.put("top", processed.cropTop);
+                crop.put("right", processed.cropRight);
+                crop.put("bottom", processed.cropBottom);
+
+                JSObject result = new JSObject();
+                result.put("tiles", tiles);
+                result.put("mimeType", processed.mimeType);
+                result.put("transforms", new JSArray(processed.transforms));
+                result.put("crop", crop);
+                result.put("screenshot", processed.screenshot);
+                result.put("rotation", processed.rotation);
+                result.put("contrastLow", processed.contrastLow);
+                result.put("contrastHigh", processed.contrastHigh);
+                result.put("originalWidth", processed.originalWidth);
+                result.put("originalHeight", processed.originalHeight);
+                result.put("originalFileSize", source.length());
+                result.put("fileSize", processed.outputBytes);
+                span.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ [ShareTargetPlugin] 票据预处理失败", e);
+                span.reject("票据预处理失败: " + e.getMessage());
+            } catch (OutOfMemoryError e) {
+                Log.e(TAG, "❌ [ShareTargetPlugin] 票据预处理内存不足", e);
+                span.reject("图片过大，预处理内存不足");
+            }
+        });
+    }
+
+    /**
+     * 计算图片的感知哈希（dHash），用于识别重复分享的截图
+     * 支持imageUri（内容URI）或path（file模式返回的本地路径），
+     * 返回16位十六进制的hash、文件内容的contentHash（SHA-256）和校正方向后的width、height
+     */
+    @PluginMethod
+    public void computeImageHash(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        if (!hasImageSource(call, span)) {
+            return;
+        }
+
+        imageExecutor.execute(() -> {
+            try (ImageSource image = openImageSource(call, span)) {
+                if (image == null) {
+                    return;
+                }
+
+                long start = System.currentTimeMillis();
+                PerceptualHash.Fingerprint fingerprint = PerceptualHash.fingerprint(image.file);
+                JSObject result = new JSObject();
+                result.put("hash", PerceptualHash.toHex(fingerprint.hash));
+                result.put("contentHash", fingerprint.contentHash);
+                result.put("width", fingerprint.width);
+                result.put("height", fingerprint.height);
+                result.put("algorithm", "dhash");
+                result.put("elapsedMs", System.currentTimeMillis() - start);
+                span.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ [ShareTargetPlugin] 计算图片哈希失败", e);
+                span.reject("计算图片哈希失败: " + e.getMessage());
+            } catch (OutOfMemoryError e) {
+                Log.e(TAG, "❌ [ShareTargetPlugin] 计算图片哈希内存不足", e);
+                span.reject("图片过大，计算哈希内存不足");
+            }
+        });
+    }
+
+    /**
+     * 按感知哈希查找近期识别过的近似图片
+     * hash、contentHash、width、height（computeImageHash的返回值）, threshold（汉明距离阈值，默认4）,
+     * accountBookId（只匹配该账本的记录）；内容不同时只匹配尺寸一致的图片
+     * 找到时返回match（hash、distance、exact、result、createdAt），否则不含match
+     */
+    @PluginMethod
+    public void findSimilarRecognition(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        PerceptualHash.Fingerprint fingerprint;
+        try {
+            fingerprint = readFingerprint(call);
+        } catch (NumberFormatException e) {
+            span.reject("图片哈希格式错误");
+            return;
+        }
+        int threshold = Math.max(0, Math.min(PerceptualHash.MAX_THRESHOLD,
+            call.getInt("threshold", PerceptualHash.DEFAULT_THRESHOLD)));
+        String accountBookId = call.getString("accountBookId");
+
+        imageExecutor.execute(() -> {
+            RecognitionResultCache.Match match = RecognitionResultCache.getInstance(getContext())
+                .findNearest(fingerprint, threshold, accountBookId);
+            JSObject result = new JSObject();
+            result.put("hash", PerceptualHash.toHex(fingerprint.hash));
+            if (match != null) {
+                try {
+                    JSObject item = new JSObject();
+                    item.put("hash", PerceptualHash.toHex(match.entry.hash));
+                    item.put("distance", match.distance);
+                    item.put("exact", match.exact);
+                    item.put("result", new JSObject(match.entry.result));
+                    item.put("accountBookId", match.entry.accountBookId);
+                    item.put("createdAt", match.entry.createdAt);
+                    result.put("match", item);
+                    Log.d(TAG, "🔁 [ShareTargetPlugin] 发现近似图片的识别记录, 距离: " + match.distance);
+                } catch (JSONException e) {
+                    Log.w(TAG, "识别记录格式错误，忽略", e);
+                }
+            }
+            span.resolve(result);
+        });
+    }
+
+    /**
+     * 保存图片的识别结果，供之后近似图片复用
+     * hash、contentHash、width、height, result（识别结果对象）, accountBookId
+     */
+    @PluginMethod
+    public void storeRecognition(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        PerceptualHash.Fingerprint fingerprint;
+        try {
+            fingerprint = readFingerprint(call);
+        } catch (NumberFormatException e) {
+            span.reject("图片哈希格式错误");
+            return;
+        }
+        JSObject recognition = call.getObject("result");
+        if (recognition == null) {
+            span.reject("识别结果不能为空");
+            return;
+        }
+        String accountBookId = call.getString("accountBookId");
+
+        imageExecutor.execute(() -> {
+            RecognitionResultCache cache = RecognitionResultCache.getInstance(getContext());
+            cache.put(fingerprint, recognition.toString(), accountBookId);
+            JSObject result = new JSObject();
+            result.put("entries", cache.size());
+            span.resolve(result);
+        });
+    }
+
+    /**
+     * 读取computeImageHash返回的指纹，缺少内容哈希时抛出NumberFormatException
+     */
+    private static PerceptualHash.Fingerprint readFingerprint(PluginCall call) {
+        PerceptualHash.Fingerprint fingerprint = new PerceptualHash.Fingerprint();
+        fingerprint.hash = PerceptualHash.fromHex(call.getString("hash"));
+        fingerprint.contentHash = call.getString("contentHash");
+        if (fingerprint.contentHash == null || fingerprint.contentHash.isEmpty()) {
+            throw new NumberFormatException("缺少内容哈希");
         }
+        fingerprint.width = call.getInt("width", 0);
+        fingerprint.height = call.getInt("height", 0);
+        return fingerprint;
+    }
+
+    /**
+     * 清空识别结果缓存（如退出登录时）
+     */
+    @PluginMethod
+    public void clearRecognitionCache(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        imageExecutor.execute(() -> {
+            RecognitionResultCache.getInstance(getContext()).clear();
+            span.resolve(new JSObject());
+        });
+    }
+
+    /**
+     * 批量导入分享的图片
+     * 立即返回批次ID，每张图片处理完成后触发sharedImageProgress事件，全部完成后触发sharedImageBatchComplete事件
+     * 未传入imageUris时使用MainActivity收到的多图分享
+     */
+    @PluginMethod
+    public void importSharedImages(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        List<Uri> uris = new ArrayList<>();
+        try {
+            JSArray imageUris = call.getArray("imageUris");
+            if (imageUris != null) {
+                for (String imageUri : imageUris.<String>toList()) {
+                    uris.add(Uri.parse(imageUri));
+                }
+            } else if (getActivity() instanceof MainActivity) {
+                uris.addAll(((MainActivity) getActivity()).getSharedImageUris());
+            }
+        } catch (Exception e) {
+            span.reject("图片URI列表格式错误: " + e.getMessage());
+            return;
+        }
+
+        if (uris.isEmpty()) {
+            span.reject("没有需要导入的图片");
+            return;
+        }
+
+        ImagePreparer.Options options = null;
+        if (call.getBoolean("prepare", true)) {
+            options = new ImagePreparer.Options();
+            options.maxDimension = call.getInt("maxDimension", ImagePreparer.DEFAULT_MAX_DIMENSION);
+            options.quality = call.getInt("quality", ImagePreparer.DEFAULT_QUALITY);
+            options.maxBytes = call.getLong("maxBytes", 0L);
+            options.format = call.getString("format", "jpeg");
+        }
+
+        if (batchProcessor == null) {
+            batchProcessor = new SharedImageBatchProcessor(getContext(), SharedImageBatchProcessor.MAX_CONCURRENCY);
+            MemoryPressureCoordinator.getInstance(getContext()).register(TAG, batchProcessor);
+        }
+
+        ContentResolver contentResolver = getContext().getContentResolver();
+        String batchId = batchProcessor.submit(uris, options, new SharedImageBatchProcessor.MetadataResolver() {
+            @Override
+            public String getFileName(Uri uri) {
+                return ShareTargetPlugin.this.getFileName(contentResolver, uri);
+            }
+
+            @Override
+            public String getMimeType(Uri uri) {
+                return contentResolver.getType(uri);
+            }
+        }, new SharedImageBatchProcessor.Listener() {
+            @Override
+            public void onItemFinished(String batchId, SharedImageBatchProcessor.Item item, int completed, int total) {
+                JSObject event = new JSObject();
+                event.put("batchId", batchId);
+                event.put("index", item.index);
+                event.put("completed", completed);
+                event.put("total", total);
+                event.put("success", item.isSuccess());
+                event.put("originalUri", item.sourceUri.toString());
+                event.put("fileName", item.fileName != null ? item.fileName : "shared_image_" + item.index + ".jpg");
+                if (item.isSuccess()) {
+                    event.put("mimeType", item.mimeType != null ? item.mimeType : "image/jpeg");
+                    event.put("fileSize", item.file.length());
+                    event.put("path", item.file.getAbsolutePath());
+                    event.put("webPath", SharedImageStore.toWebPath(getBridge(), item.file));
+                    if (item.prepared != null) {
+                        event.put("width", item.prepared.width);
+                        event.put("height", item.prepared.height);
+                    }
+                } else {
+                    event.put("error", item.error);
+                }
+                postWebEvent("sharedImageProgress", null, event);
+            }
+
+            @Override
+            public void onBatchFinished(String batchId, int succeeded, int failed, long elapsedMs) {
+                JSObject event = new JSObject();
+                event.put("batchId", batchId);
+                event.put("succeeded", succeeded);
+                event.put("failed", failed);
+                event.put("elapsedMs", elapsedMs);
+                postWebEvent("sharedImageBatchComplete", null, event);
+            }
+        });
+
+        JSObject result = new JSObject();
+        result.put("batchId", batchId);
+        result.put("total", uris.size());
+        span.resolve(result);
+    }
+
+    /**
+     * Web层监听器注册完成后调用，声明就绪并取走启动期间积压的原生事件
+     * channel: Web层已准备好接收事件通道端口，积压和之后的事件都经由通道派发
+     */
+    @PluginMethod
+    public void notifyWebReady(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        boolean useChannel = Boolean.TRUE.equals(call.getBoolean("channel", false));
+        JSObject result = new JSObject();
+        if (getActivity() instanceof MainActivity) {
+            result.put("events", ((MainActivity) getActivity()).markWebReady(useChannel));
+            result.put("channel", useChannel);
+        } else {
+            result.put("events", new JSArray());
+            result.put("channel", false);
+        }
+        span.resolve(result);
+    }
+
+    /**
+     * 获取分享图片缓存统计
+     */
+    @PluginMethod
+    public void getCacheStats(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        MediaCacheJanitor.Stats stats = MediaCacheJanitor.getInstance(getContext()).getStats();
+        JSObject result = new JSObject();
+        result.put("entries", stats.entries);
+        result.put("bytes", stats.bytes);
+        result.put("maxBytes", stats.maxBytes);
+        result.put("maxAgeMs", stats.maxAgeMs);
+        result.put("hits", stats.hits);
+        result.put("misses", stats.misses);
+        result.put("evictions", stats.evictions);
+        result.put("evictedBytes", stats.evictedBytes);
+        result.put("expirations", stats.expirations);
+        span.resolve(result);
+    }
+
+    /**
+     * 释放通过file模式生成的缓存文件
+     */
+    @PluginMethod
+    public void releaseSharedImage(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String path = call.getString("path");
+        if (path == null || path.isEmpty()) {
+            span.reject("文件路径不能为空");
+            return;
+        }
+
+        File file = new File(path);
+        if (!SharedImageStore.isManagedFile(getContext(), file)) {
+            Log.w(TAG, "⚠️ [ShareTargetPlugin] 拒绝删除非分享目录文件: " + path);
+            span.reject("只能释放分享图片缓存文件");
+            return;
+        }
+
+        boolean deleted = !file.exists() || file.delete();
+        JSObject result = new JSObject();
+        result.put("success", deleted);
+        Log.d(TAG, "🧹 [ShareTargetPlugin] 释放分享图片缓存: " + path + ", 结果: " + deleted);
+        span.resolve(result);
+    }
+
+    /**
+     * 经由原生事件队列（及事件通道）派发到Web层的window事件，非主界面时退回插件监听器
+     */
+    private void postWebEvent(String name, String key, JSObject detail) {
+        if (getActivity() instanceof MainActivity) {
+            ((MainActivity) getActivity()).getWebEventQueue().post(name, key, detail);
+        } else {
+            notifyListeners(name, detail);
+        }
+    }
+
+    /**
+     * 将分享图片流式复制到缓存目录，返回文件地址而非Base64数据
+     */
+    private void resolveAsFile(BridgeMetrics.Span span, Uri uri, String fileName, String mimeType) throws IOException {
+        File file = SharedImageStore.copyToCache(getContext(), uri, fileName);
+
+        JSObject result = new JSObject();
+        result.put("fileName", fileName != null ? fileName : "shared_image.jpg");
+        result.put("mimeType", mimeType != null ? mimeType : "image/jpeg");
+        result.put("fileSize", file.length());
+        result.put("path", file.getAbsolutePath());
+        result.put("webPath", SharedImageStore.toWebPath(getBridge(), file));
+        result.put("contentUri", SharedImageStore.toContentUri(getContext(), file).toString());
+        result.put("source", "share");
+
+        Log.d(TAG, "✅ [ShareTargetPlugin] 图片已复制到本地缓存: " + file.getAbsolutePath());
+        span.resolve(result);
+    }
+
+    /**
+     * 读取屏幕尺寸和系统栏高度，用于识别并裁剪本机截图
+     */
+    @SuppressWarnings("deprecation")
+    private void applyScreenMetrics(ReceiptPreprocessor.Options options) {
+        Context context = getContext();
+        DisplayMetrics metrics = new DisplayMetrics();
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager != null) {
+            windowManager.getDefaultDisplay().getRealMetrics(metrics);
+            options.screenWidth = metrics.widthPixels;
+            options.screenHeight = metrics.heightPixels;
+        }
+        Resources resources = context.getResources();
+        options.statusBarHeight = getSystemDimension(resources, "status_bar_height");
+        options.navigationBarHeight = getSystemDimension(resources, "navigation_bar_height");
+    }
+
+    private static int getSystemDimension(Resources resources, String name) {
+        int id = resources.getIdentifier(name, "dimen", "android");
+        return id > 0 ? resources.getDimensionPixelSize(id) : 0;
     }
 
     /**
@@ -132,20 +727,4 @@ public class ShareTargetPlugin extends Plugin {
         
         return fileSize;
     }
-
-    /**
-     * 读取InputStream到字节数组
-     */
-    private byte[] readInputStream(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        byte[] data = new byte[1024];
-        int nRead;
-        
-        while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
-        }
-        
-        inputStream.close();
-        return buffer.toByteArray();
-    }
 }
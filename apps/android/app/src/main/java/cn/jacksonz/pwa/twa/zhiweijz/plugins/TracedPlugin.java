@@ -0,0 +1,37 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import android.os.SystemClock;
+
+import com.getcapacitor.Plugin;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import cn.jacksonz.pwa.twa.zhiweijz.utils.StartupTrace;
+
+/**
+ * 记录load()耗时的插件基类
+ * Capacitor在BridgeActivity.onCreate中逐个实例化插件并调用load()，
+ * 子类在onLoad()中初始化，耗时计入启动记录的插件加载部分
+ */
+public abstract class TracedPlugin extends Plugin {
+
+    @Override
+    public final void load() {
+        long loadStart = SystemClock.elapsedRealtime();
+        try {
+            onLoad();
+        } finally {
+            StartupTrace.getInstance().recordPluginLoad(pluginName(), loadStart);
+        }
+    }
+
+    /**
+     * 插件初始化，只做轻量工作，耗时操作推迟到首次使用或后台线程
+     */
+    protected void onLoad() {
+    }
+
+    private String pluginName() {
+        CapacitorPlugin annotation = getClass().getAnnotation(CapacitorPlugin.class);
+        return annotation != null && !annotation.name().isEmpty() ? annotation.name() : getClass().getSimpleName();
+    }
+}
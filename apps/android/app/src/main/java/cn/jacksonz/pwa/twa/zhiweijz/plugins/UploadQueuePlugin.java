@@ -0,0 +1,297 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import cn.jacksonz.pwa.twa.zhiweijz.MainActivity;
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+import cn.jacksonz.pwa.twa.zhiweijz.quickentry.QuickEntrySession;
+import cn.jacksonz.pwa.twa.zhiweijz.upload.ChunkedUploader;
+import cn.jacksonz.pwa.twa.zhiweijz.upload.UploadJob;
+import cn.jacksonz.pwa.twa.zhiweijz.upload.UploadJobStore;
+import cn.jacksonz.pwa.twa.zhiweijz.upload.UploadManager;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.SharedImageStore;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.WebEventQueue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 上传队列插件
+ * 在原生层持久化上传任务，支持分片断点续传与失败重试，应用切后台或进程被杀后仍可继续上传
+ * 服务端分片接口上线前默认使用表单协议，分片协议需调用方显式指定
+ */
+@CapacitorPlugin(name = "UploadQueue")
+public class UploadQueuePlugin extends TracedPlugin {
+    private static final String TAG = "UploadQueuePlugin";
+
+    private static final String EVENT_PROGRESS = "uploadProgress";
+    private static final String EVENT_STATUS = "uploadStatusChanged";
+    private static final int CONCURRENCY = 2;
+    /** 插件调用等待任务恢复的最长时间 */
+    private static final long RESTORE_WAIT_MS = 5000;
+
+    /** 不随任务持久化的请求头，发送时从当前登录会话读取 */
+    private static final String HEADER_AUTHORIZATION = "Authorization";
+
+    private UploadManager uploadManager;
+    private File stagingDir;
+    /** 本进程内Web层最近一次提供的认证头，只保存在内存中 */
+    private volatile String authorization;
+    private QuickEntrySession session;
+
+    @Override
+    protected void onLoad() {
+        File rootDir = new File(getContext().getFilesDir(), "uploads");
+        stagingDir = new File(rootDir, "files");
+        if (!stagingDir.exists() && !stagingDir.mkdirs()) {
+            Log.w(TAG, "创建上传暂存目录失败: " + stagingDir.getAbsolutePath());
+        }
+
+        // 认证头优先使用本进程内Web层提供的值，进程重启后恢复的任务使用已保存的登录会话
+        session = new QuickEntrySession(getContext());
+        ChunkedUploader uploader = new ChunkedUploader(() -> {
+            String current = authorization;
+            if (current != null) {
+                return current;
+            }
+            String token = session.getToken();
+            return token != null ? "Bearer " + token : null;
+        });
+        uploadManager = new UploadManager(new UploadJobStore(new File(rootDir, "jobs")), uploader, CONCURRENCY);
+        uploadManager.setListener(new UploadManager.Listener() {
+            @Override
+            public void onProgress(UploadJob job) {
+                // 进度只需最新值，排队时按任务合并
+                postWebEvent(EVENT_PROGRESS, job.id, toJSObject(job), true);
+            }
+
+            @Override
+            public void onStatusChanged(UploadJob job) {
+                if (UploadJob.STATUS_COMPLETED.equals(job.status) || UploadJob.STATUS_CANCELLED.equals(job.status)) {
+                    deleteStagedFile(job);
+                }
+                postWebEvent(EVENT_STATUS, null, toJSObject(job), false);
+            }
+        });
+        // 任务在后台恢复，插件方法首次访问任务列表前等待恢复完成
+        uploadManager.restoreAsync();
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (uploadManager != null) {
+            uploadManager.shutdown();
+        }
+    }
+
+    private UploadManager manager() {
+        if (!uploadManager.awaitRestored(RESTORE_WAIT_MS)) {
+            Log.w(TAG, "⚠️ 等待上传任务恢复超时");
+        }
+        return uploadManager;
+    }
+
+    /**
+     * 添加上传任务
+     * 文件先复制到应用私有目录，避免源文件被清理导致无法续传
+     */
+    @PluginMethod
+    public void enqueue(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String path = call.getString("path");
+        String url = call.getString("url");
+        if (path == null || path.isEmpty() || url == null || url.isEmpty()) {
+            span.reject("文件路径和上传地址不能为空");
+            return;
+        }
+
+        File source = new File(path);
+        if (!SharedImageStore.isCacheFile(getContext(), source)) {
+            span.reject("只能上传缓存目录中的文件");
+            return;
+        }
+        if (!source.exists()) {
+            span.reject("文件不存在: " + path);
+            return;
+        }
+
+        UploadJob job = new UploadJob();
+        job.id = UUID.randomUUID().toString();
+        job.url = url;
+        job.protocol = call.getString("protocol", UploadJob.PROTOCOL_MULTIPART);
+        job.fileField = call.getString("fileField", "file");
+        job.fileName = call.getString("fileName", source.getName());
+        job.mimeType = call.getString("mimeType", "application/octet-stream");
+        job.chunkSize = call.getInt("chunkSize", job.chunkSize);
+        job.maxAttempts = call.getInt("maxAttempts", job.maxAttempts);
+        copyStrings(call.getObject("headers"), job.headers);
+        takeAuthorization(job.headers);
+        copyStrings(call.getObject("fields"), job.formFields);
+
+        try {
+            File staged = new File(stagingDir, job.id);
+            try (InputStream inputStream = new FileInputStream(source);
+                 OutputStream outputStream = new FileOutputStream(staged)) {
+                Streams.copy(inputStream, outputStream);
+            }
+            job.filePath = staged.getAbsolutePath();
+            job.totalBytes = staged.length();
+        } catch (IOException e) {
+            Log.e(TAG, "❌ 暂存上传文件失败", e);
+            span.reject("暂存上传文件失败: " + e.getMessage());
+            return;
+        }
+
+        span.resolve(toJSObject(manager().enqueue(job)));
+    }
+
+    /**
+     * 查询单个任务状态
+     */
+    @PluginMethod
+    public void getJob(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        UploadJob job = manager().get(call.getString("id", ""));
+        if (job == null) {
+            span.reject("上传任务不存在");
+            return;
+        }
+        span.resolve(toJSObject(job));
+    }
+
+    /**
+     * 列出所有任务
+     */
+    @PluginMethod
+    public void listJobs(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        JSArray jobs = new JSArray();
+        for (UploadJob job : manager().list()) {
+            jobs.put(toJSObject(job));
+        }
+        JSObject result = new JSObject();
+        result.put("jobs", jobs);
+        span.resolve(result);
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        JSObject result = new JSObject();
+        result.put("success", manager().cancel(call.getString("id", "")));
+        span.resolve(result);
+    }
+
+    @PluginMethod
+    public void retry(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        JSObject result = new JSObject();
+        result.put("success", manager().retry(call.getString("id", "")));
+        span.resolve(result);
+    }
+
+    /**
+     * 移除已结束的任务，同时删除暂存文件
+     */
+    @PluginMethod
+    public void remove(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String id = call.getString("id", "");
+        UploadJob job = manager().get(id);
+        boolean removed = manager().remove(id);
+        if (removed) {
+            deleteStagedFile(job);
+        }
+        JSObject result = new JSObject();
+        result.put("success", removed);
+        span.resolve(result);
+    }
+
+    /**
+     * 经由原生事件队列（及事件通道）派发到Web层的window事件，非主界面时退回插件监听器
+     * latestOnly为true的进度事件按key合并，积压过多时可被丢弃；状态事件不会丢弃
+     */
+    private void postWebEvent(String name, String key, JSObject detail, boolean latestOnly) {
+        if (getActivity() instanceof MainActivity) {
+            WebEventQueue queue = ((MainActivity) getActivity()).getWebEventQueue();
+            if (latestOnly) {
+                queue.postLatest(name, key, detail);
+            } else {
+                queue.post(name, key, detail);
+            }
+        } else {
+            notifyListeners(name, detail);
+        }
+    }
+
+    private void deleteStagedFile(UploadJob job) {
+        File file = new File(job.filePath);
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "删除暂存文件失败: " + job.filePath);
+        }
+    }
+
+    /**
+     * 从任务请求头中移除认证头，避免明文写入任务存储；其值只在内存中保留供发送时使用
+     */
+    private void takeAuthorization(Map<String, String> headers) {
+        Iterator<Map.Entry<String, String>> entries = headers.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, String> header = entries.next();
+            if (HEADER_AUTHORIZATION.equalsIgnoreCase(header.getKey())) {
+                authorization = header.getValue();
+                entries.remove();
+            }
+        }
+    }
+
+    private static void copyStrings(JSObject source, Map<String, String> target) {
+        if (source == null) {
+            return;
+        }
+        Iterator<String> keys = source.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            String value = source.getString(key);
+            if (value != null) {
+                target.put(key, value);
+            }
+        }
+    }
+
+    private static JSObject toJSObject(UploadJob job) {
+        JSObject result = new JSObject();
+        result.put("id", job.id);
+        result.put("url", job.url);
+        result.put("protocol", job.protocol);
+        result.put("fileName", job.fileName);
+        result.put("status", job.status);
+        result.put("uploadedBytes", job.uploadedBytes);
+        result.put("totalBytes", job.totalBytes);
+        result.put("attempts", job.attempts);
+        result.put("responseCode", job.responseCode);
+        if (job.lastError != null) {
+            result.put("error", job.lastError);
+        }
+        if (job.responseBody != null) {
+            result.put("responseBody", job.responseBody);
+        }
+        result.put("createdAt", job.createdAt);
+        result.put("updatedAt", job.updatedAt);
+        return result;
+    }
+}
@@ -0,0 +1,306 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import cn.jacksonz.pwa.twa.zhiweijz.http.NativeHttpClient;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+import cn.jacksonz.pwa.twa.zhiweijz.voice.SpeechEncoder;
+import cn.jacksonz.pwa.twa.zhiweijz.voice.VoiceRecorder;
+import cn.jacksonz.pwa.twa.zhiweijz.voice.VoiceStreamUploader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 语音录音插件
+ * 原生采集并编码为AAC(m4a)或Opus(ogg)，裁剪首尾静音，返回文件路径而不是音频数据；
+ * Web层通过Capacitor.convertFileSrc读取文件上传。
+ * 开启流式上传时录音过程中同步把AAC帧发送给服务器，停止后调用finalizeStream即可取得识别结果，文件作为失败时的备用
+ */
+@CapacitorPlugin(name = "VoiceRecorder")
+public class VoiceRecorderPlugin extends TracedPlugin {
+    private static final String TAG = "VoiceRecorderPlugin";
+
+    private static final String EVENT_LEVEL = "voiceLevel";
+    private static final String EVENT_AUTO_STOPPED = "voiceAutoStopped";
+
+    /** 录音文件保留时间，上传后Web层会主动删除 */
+    private static final long STALE_RECORDING_MS = 60 * 60 * 1000L;
+
+    private final ExecutorService streamExecutor = Executors.newSingleThreadExecutor();
+
+    private VoiceRecorder recorder;
+    /** 当前录音的流式上传，stop之后保留到finalizeStream */
+    private VoiceStreamUploader streamUploader;
+
+    @Override
+    protected void handleOnDestroy() {
+        synchronized (this) {
+            if (recorder != null) {
+                recorder.cancel();
+                recorder = null;
+            }
+            cancelStream();
+        }
+        streamExecutor.shutdown();
+    }
+
+    /**
+     * 开始录音
+     * codec(aac | opus，默认aac), bitrate, maxDurationMs(默认60秒)
+     * stream: { token } 边录边传到服务器（仅AAC，需已通过NativeHttp设置服务器地址）
+     */
+    @PluginMethod
+    public void start(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        if (getContext().checkSelfPermission(Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
+            span.reject("没有麦克风权限", "PERMISSION_DENIED", null);
+            return;
+        }
+
+        VoiceRecorder.Options options = new VoiceRecorder.Options();
+        String codec = call.getString("codec", SpeechEncoder.CODEC_AAC);
+        if (!SpeechEncoder.isSupported(codec)) {
+            Log.w(TAG, "当前系统不支持" + codec + "编码，改用AAC");
+            codec = SpeechEncoder.CODEC_AAC;
+        }
+        options.codec = codec;
+        int defaultBitrate = SpeechEncoder.CODEC_OPUS.equals(codec) ? SpeechEncoder.DEFAULT_OPUS_BITRATE : SpeechEncoder.DEFAULT_AAC_BITRATE;
+        options.bitrate = call.getInt("bitrate", defaultBitrate);
+        options.maxDurationMs = call.getInt("maxDurationMs", (int) options.maxDurationMs);
+
+        synchronized (this) {
+            if (recorder != null) {
+                span.reject("正在录音", "BUSY", null);
+                return;
+            }
+
+            File directory = getRecordingDirectory();
+            removeStaleRecordings(directory);
+            File output = new File(directory, "voice_" + System.currentTimeMillis() + "." + SpeechEncoder.extensionOf(codec));
+            cancelStream();
+            VoiceStreamUploader uploader = createStreamUploader(call.getObject("stream"), codec);
+            if (uploader != null) {
+                options.encodedFrameListener = uploader::write;
+            }
+            VoiceRecorder candidate = new VoiceRecorder(output, options, new VoiceRecorder.Listener() {
+                @Override
+                public void onLevel(int level, boolean speech) {
+                    JSObject event = new JSObject();
+                    event.put("level", level);
+                    event.put("speech", speech);
+                    notifyListeners(EVENT_LEVEL, event);
+                }
+
+                @Override
+                public void onMaxDurationReached() {
+                    notifyListeners(EVENT_AUTO_STOPPED, new JSObject());
+                }
+            });
+            try {
+                candidate.start();
+            } catch (IOException e) {
+                Log.e(TAG, "❌ 启动录音失败", e);
+                span.reject(e.getMessage(), "RECORDER_UNAVAILABLE", e);
+                return;
+            }
+            recorder = candidate;
+            if (uploader != null) {
+                uploader.start();
+                streamUploader = uploader;
+            }
+        }
+
+        JSObject result = new JSObject();
+        result.put("codec", codec);
+        result.put("streaming", streamUploader != null);
+        result.put("mimeType", SpeechEncoder.mimeTypeOf(codec));
+        result.put("sampleRate", SpeechEncoder.SAMPLE_RATE);
+        span.resolve(result);
+    }
+
+    /**
+     * 停止录音，返回文件路径和裁剪信息；未检测到语音时以NO_SPEECH拒绝
+     */
+    @PluginMethod
+    public void stop(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        VoiceRecorder current = takeRecorder();
+        if (current == null) {
+            span.reject("没有正在进行的录音", "NOT_RECORDING", null);
+            return;
+        }
+
+        VoiceRecorder.Result recording;
+        try {
+            recording = current.stop();
+        } catch (IOException e) {
+            cancelStream();
+            span.reject("录音失败: " + e.getMessage(), "RECORDING_FAILED", e);
+            return;
+        }
+        if (recording.file == null) {
+            cancelStream();
+            span.reject("未检测到语音", "NO_SPEECH", null);
+            return;
+        }
+
+        JSObject result = new JSObject();
+        result.put("path", recording.file.getAbsolutePath());
+        result.put("mimeType", SpeechEncoder.mimeTypeOf(recording.codec));
+        result.put("format", SpeechEncoder.extensionOf(recording.codec));
+        result.put("size", recording.size);
+        result.put("durationMs", recording.durationMs);
+        result.put("recordedMs", recording.recordedMs);
+        result.put("trimmedLeadingMs", recording.trimmedLeadingMs);
+        result.put("trimmedTrailingMs", recording.trimmedTrailingMs);
+        result.put("compressedPauseMs", recording.compressedPauseMs);
+        result.put("finalizeMs", recording.finalizeMs);
+        synchronized (this) {
+            if (streamUploader != null) {
+                // 编码器已冲刷完毕，剩余数据发完后结束流
+                streamUploader.complete();
+                result.put("streamSessionId", streamUploader.getSessionId());
+            }
+        }
+        span.resolve(result);
+    }
+
+    /**
+     * 等待流式上传完成并请求服务器识别
+     * accountBookId
+     * 返回服务器的HTTP状态和响应体(body，JSON字符串)；流式上传失败时以STREAM_FAILED拒绝，Web层应改用文件上传
+     */
+    @PluginMethod
+    public void finalizeStream(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String accountBookId = call.getString("accountBookId");
+        VoiceStreamUploader uploader;
+        synchronized (this) {
+            uploader = streamUploader;
+            streamUploader = null;
+        }
+        if (uploader == null) {
+            span.reject("没有可提交的语音流", "NOT_STREAMING", null);
+            return;
+        }
+
+        streamExecutor.execute(() -> {
+            try {
+                VoiceStreamUploader.FinalizeResult finalized = uploader.finish(accountBookId);
+                JSObject result = new JSObject();
+                result.put("status", finalized.status);
+                result.put("body", finalized.body);
+                result.put("totalBytes", finalized.totalBytes);
+                result.put("reconnects", finalized.reconnects);
+                result.put("elapsedMs", finalized.elapsedMs);
+                span.resolve(result);
+            } catch (IOException e) {
+                Log.w(TAG, "⚠️ 语音流提交失败: " + e.getMessage());
+                span.reject("语音流提交失败: " + e.getMessage(), "STREAM_FAILED", e);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "❌ 语音流提交异常", e);
+                span.reject("语音流提交异常: " + e.getMessage(), "STREAM_FAILED", e);
+            }
+        });
+    }
+
+    /**
+     * 取消录音
+     */
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        VoiceRecorder current = takeRecorder();
+        if (current != null) {
+            current.cancel();
+        }
+        synchronized (this) {
+            cancelStream();
+        }
+        span.resolve();
+    }
+
+    /**
+     * 上传完成后删除录音文件
+     * path: stop返回的路径
+     */
+    @PluginMethod
+    public void deleteRecording(PluginCall call) {
+        BridgeMetrics.Span span = BridgeMetrics.getInstance().begin(call);
+        String path = call.getString("path");
+        File directory = getRecordingDirectory();
+        File file = path != null ? new File(path) : null;
+        // 只允许删除录音目录下的文件
+        if (file == null || !directory.equals(file.getParentFile())) {
+            span.reject("无效的录音路径");
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("deleted", file.delete());
+        span.resolve(result);
+    }
+
+    /**
+     * 创建流式上传，未请求或条件不满足时返回null（仍然正常录音）
+     */
+    private VoiceStreamUploader createStreamUploader(JSObject stream, String codec) {
+        if (stream == null) {
+            return null;
+        }
+        if (!SpeechEncoder.CODEC_AAC.equals(codec)) {
+            Log.w(TAG, "流式上传仅支持AAC，本次只录制文件");
+            return null;
+        }
+        NativeHttpClient http = NativeHttpPlugin.getSharedClient(getContext());
+        if (http.getBaseUrl() == null) {
+            Log.w(TAG, "未设置服务器地址，本次只录制文件");
+            return null;
+        }
+        String token = stream.getString("token");
+        return new VoiceStreamUploader(http, token != null ? "Bearer " + token : null);
+    }
+
+    private void cancelStream() {
+        if (streamUploader != null) {
+            streamUploader.cancel();
+            streamUploader = null;
+        }
+    }
+
+    private synchronized VoiceRecorder takeRecorder() {
+        VoiceRecorder current = recorder;
+        recorder = null;
+        return current;
+    }
+
+    private File getRecordingDirectory() {
+        File directory = new File(getContext().getCacheDir(), "voice");
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "创建录音目录失败: " + directory);
+        }
+        return directory;
+    }
+
+    private static void removeStaleRecordings(File directory) {
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (now - file.lastModified() > STALE_RECORDING_MS) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package cn.jacksonz.pwa.twa.zhiweijz.quickentry;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TimeZone;
+
+/**
+ * 快速记账条目
+ * id在录入时生成，作为clientEntryId随请求发送，补发时服务器据此去重
+ */
+public class QuickEntry {
+
+    public static final String TYPE_EXPENSE = "EXPENSE";
+    public static final String TYPE_INCOME = "INCOME";
+
+    public String id;
+    /** 录入时登录的用户，只用该用户的令牌发送 */
+    public String userId;
+    public String accountBookId;
+    public String amount;
+    public String type = TYPE_EXPENSE;
+    public String categoryId;
+    public String categoryName;
+    public String description;
+    /** 录入时间，同时作为记账日期 */
+    public long createdAt;
+    public int attempts;
+    public String lastError;
+
+    /**
+     * 创建记账的请求体，与Web层新建记账的字段一致
+     */
+    public JSONObject toRequestBody() throws JSONException {
+        JSONObject body = new JSONObject();
+        body.put("amount", Double.parseDouble(amount));
+        body.put("type", type);
+        body.put("categoryId", categoryId);
+        if (description != null && !description.isEmpty()) {
+            body.put("description", description);
+        }
+        body.put("date", formatIsoTime(createdAt));
+        body.put("accountBookId", accountBookId);
+        body.put("clientEntryId", id);
+        return body;
+    }
+
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("id", id);
+        if (userId != null) {
+            properties.setProperty("userId", userId);
+        }
+        properties.setProperty("accountBookId", accountBookId);
+        properties.setProperty("amount", amount);
+        properties.setProperty("type", type);
+        properties.setProperty("categoryId", categoryId);
+        if (categoryName != null) {
+            properties.setProperty("categoryName", categoryName);
+        }
+        if (description != null) {
+            properties.setProperty("description", description);
+        }
+        properties.setProperty("createdAt", String.valueOf(createdAt));
+        properties.setProperty("attempts", String.valueOf(attempts));
+        if (lastError != null) {
+            properties.setProperty("lastError", lastError);
+        }
+        return properties;
+    }
+
+    public static QuickEntry fromProperties(Properties properties) {
+        QuickEntry entry = new QuickEntry();
+        entry.id = properties.getProperty("id");
+        entry.userId = properties.getProperty("userId");
+        entry.accountBookId = properties.getProperty("accountBookId");
+        entry.amount = properties.getProperty("amount");
+        entry.type = properties.getProperty("type", TYPE_EXPENSE);
+        entry.categoryId = properties.getProperty("categoryId");
+        entry.categoryName = properties.getProperty("categoryName");
+        entry.description = properties.getProperty("description");
+        entry.createdAt = parseLong(properties.getProperty("createdAt"));
+        entry.attempts = (int) parseLong(properties.getProperty("attempts"));
+        entry.lastError = properties.getProperty("lastError");
+        return entry;
+    }
+
+    boolean isValid() {
+        return id != null && accountBookId != null && amount != null && categoryId != null;
+    }
+
+    static String formatIsoTime(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package cn.jacksonz.pwa.twa.zhiweijz.quickentry;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * 快速记账后台补发任务
+ * 录入后以联网为条件调度；无网络时由系统在恢复联网后执行，应用无需在前台
+ */
+public class QuickEntryFlushJobService extends JobService {
+    private static final String TAG = "QuickEntryFlushJob";
+    private static final int JOB_ID = 4201;
+    private static final long INITIAL_BACKOFF_MS = 30000;
+
+    /**
+     * 调度补发任务；已有相同任务时替换
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, QuickEntryFlushJobService.class))
+            .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+            .setBackoffCriteria(INITIAL_BACKOFF_MS, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+            .build();
+        if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) {
+            Log.w(TAG, "⚠️ 调度快速记账补发任务失败");
+        }
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        QuickEntryFlusher.getInstance(this).flushAsync(result -> jobFinished(params, result.retry));
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // 补发中途被系统停止，未发送的记录仍在队列中
+        return true;
+    }
+}
@@ -0,0 +1,229 @@
+package cn.jacksonz.pwa.twa.zhiweijz.quickentry;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import cn.jacksonz.pwa.twa.zhiweijz.http.NativeHttpClient;
+import cn.jacksonz.pwa.twa.zhiweijz.ledger.LedgerDatabase;
+import cn.jacksonz.pwa.twa.zhiweijz.plugins.NativeHttpPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 快速记账补发
+ * 按录入顺序串行发送待发送队列中的记录；发送成功后把服务器返回的记录写入本地账本再删除队列文件，
+ * Web层从本地账本渲染时立即可见，之后的增量同步按记录ID覆盖，不会重复。
+ * 请求超时但服务器已创建的情况由clientEntryId在服务器端去重
+ */
+public class QuickEntryFlusher {
+    private static final String TAG = "QuickEntryFlusher";
+    private static final String OUTBOX_DIR = "quick-entry-outbox";
+    private static final long REQUEST_TIMEOUT_MS = 15000;
+
+    public static class FlushResult {
+        public int sent;
+        public int remaining;
+        /** 因网络或服务器暂时不可用而中断，需要稍后重试 */
+        public boolean retry;
+        public final Set<String> accountBookIds = new LinkedHashSet<>();
+    }
+
+    public interface Callback {
+        void onFinished(FlushResult result);
+    }
+
+    /**
+     * 有记录发送成功时回调，在补发线程中调用
+     */
+    public interface Listener {
+        void onFlushed(FlushResult result);
+    }
+
+    private static QuickEntryFlusher instance;
+
+    private final Context context;
+    private final QuickEntryOutbox outbox;
+    private final QuickEntrySession session;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile Listener listener;
+
+    public static synchronized QuickEntryFlusher getInstance(Context context) {
+        if (instance == null) {
+            instance = new QuickEntryFlusher(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private QuickEntryFlusher(Context context) {
+        this.context = context;
+        this.outbox = new QuickEntryOutbox(new File(context.getFilesDir(), OUTBOX_DIR));
+        this.session = new QuickEntrySession(context);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public QuickEntrySession getSession() {
+        return session;
+    }
+
+    /**
+     * 写入待发送队列
+     * @return 是否已持久化
+     */
+    public boolean enqueue(QuickEntry entry) {
+        if (entry.id == null) {
+            entry.id = UUID.randomUUID().toString();
+        }
+        if (entry.createdAt == 0) {
+            entry.createdAt = System.currentTimeMillis();
+        }
+        boolean saved = outbox.save(entry);
+        if (saved) {
+            Log.d(TAG, "📝 快速记账已保存: " + entry.id + " " + entry.amount);
+        }
+        return saved;
+    }
+
+    public List<QuickEntry> getPending() {
+        return outbox.loadAll();
+    }
+
+    public int pendingCount() {
+        return outbox.count();
+    }
+
+    public void discard(String entryId) {
+        outbox.delete(entryId);
+    }
+
+    public void flushAsync(Callback callback) {
+        executor.execute(() -> {
+            FlushResult result = flush();
+            if (callback != null) {
+                callback.onFinished(result);
+            }
+        });
+    }
+
+    /**
+     * 发送全部待发送记录，只在补发线程中调用
+     */
+    private FlushResult flush() {
+        FlushResult result = new FlushResult();
+        List<QuickEntry> entries = outbox.loadAll();
+        if (entries.isEmpty()) {
+            return result;
+        }
+
+        String token = session.getToken();
+        if (token == null) {
+            // 未登录时等待下次打开应用写入令牌
+            Log.d(TAG, "⏸️ 未登录，暂不补发快速记账: " + entries.size());
+            result.remaining = entries.size();
+            return result;
+        }
+
+        NativeHttpClient client = NativeHttpPlugin.getSharedClient(context);
+        String userId = session.getUserId();
+        List<QuickEntry> remaining = new ArrayList<>(entries);
+        for (QuickEntry entry : entries) {
+            if (entry.userId != null && !entry.userId.equals(userId)) {
+                // 其他用户录入的记录，等该用户重新登录后再发送
+                continue;
+            }
+            NativeHttpClient.Result response;
+            try {
+                NativeHttpClient.RequestSpec spec = new NativeHttpClient.RequestSpec();
+                spec.method = "POST";
+                spec.url = "/transactions";
+                spec.headers.put("Authorization", "Bearer " + token);
+                spec.contentType = "application/json";
+                spec.body = entry.toRequestBody().toString();
+                spec.timeoutMs = REQUEST_TIMEOUT_MS;
+                spec.coalesce = false;
+                response = client.execute(spec);
+            } catch (IOException e) {
+                markFailed(entry, e.getMessage());
+                result.retry = true;
+                Log.w(TAG, "⚠️ 快速记账补发失败，稍后重试: " + e.getMessage());
+                break;
+            } catch (JSONException | NumberFormatException e) {
+                // 数据本身无效，重试也不会成功
+                markFailed(entry, "记录无效: " + e.getMessage());
+                continue;
+            }
+
+            if (response.status >= 200 && response.status < 300) {
+                storeLocally(entry, response.body);
+                outbox.delete(entry.id);
+                remaining.remove(entry);
+                result.sent++;
+                result.accountBookIds.add(entry.accountBookId);
+            } else if (response.status == 401 || response.status == 403) {
+                // 令牌失效，等待重新登录后由Web层更新
+                markFailed(entry, "HTTP " + response.status);
+                Log.w(TAG, "⚠️ 登录已失效，暂停补发快速记账");
+                break;
+            } else if (response.status == 429 || response.status >= 500) {
+                markFailed(entry, "HTTP " + response.status);
+                result.retry = true;
+                break;
+            } else {
+                // 校验失败（如分类已删除）：保留记录，由用户在应用内修改或放弃
+                markFailed(entry, errorMessage(response));
+                Log.w(TAG, "⚠️ 快速记账被服务器拒绝: " + entry.id + " " + response.status);
+            }
+        }
+
+        result.remaining = remaining.size();
+        Log.i(TAG, "📤 快速记账补发完成: 成功 " + result.sent + "，剩余 " + result.remaining);
+        Listener current = listener;
+        if (result.sent > 0 && current != null) {
+            current.onFlushed(result);
+        }
+        return result;
+    }
+
+    private void markFailed(QuickEntry entry, String error) {
+        entry.attempts++;
+        entry.lastError = error;
+        outbox.save(entry);
+    }
+
+    private void storeLocally(QuickEntry entry, String body) {
+        try {
+            JSONArray transactions = new JSONArray();
+            transactions.put(new JSONObject(body));
+            LedgerDatabase.getInstance(context).upsertTransactions(entry.accountBookId, transactions);
+        } catch (JSONException | RuntimeException e) {
+            // 本地账本写入失败不影响发送结果，下次增量同步会拉取到该记录
+            Log.w(TAG, "写入本地账本失败: " + entry.id, e);
+        }
+    }
+
+    private static String errorMessage(NativeHttpClient.Result response) {
+        try {
+            String message = new JSONObject(response.body).optString("message", null);
+            if (message != null) {
+                return message;
+            }
+        } catch (JSONException | NullPointerException ignored) {
+            // 非JSON响应
+        }
+        return "HTTP " + response.status;
+    }
+}
@@ -0,0 +1,86 @@
+package cn.jacksonz.pwa.twa.zhiweijz.quickentry;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 快速记账待发送队列
+ * 每条记录保存为一个properties文件，先写临时文件再重命名；保存返回后即使进程被杀也不会丢失
+ */
+public class QuickEntryOutbox {
+    private static final String TAG = "QuickEntryOutbox";
+    private static final String SUFFIX = ".entry";
+
+    private final File directory;
+
+    public QuickEntryOutbox(File directory) {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "创建快速记账目录失败: " + directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return 是否写入成功
+     */
+    public synchronized boolean save(QuickEntry entry) {
+        File target = new File(directory, entry.id + SUFFIX);
+        File temp = new File(directory, entry.id + SUFFIX + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(temp)) {
+            entry.toProperties().store(outputStream, null);
+            // 录入后界面立即关闭，确保数据落盘
+            outputStream.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "❌ 保存快速记账失败: " + entry.id, e);
+            return false;
+        }
+        if (!temp.renameTo(target)) {
+            Log.e(TAG, "❌ 替换快速记账文件失败: " + entry.id);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void delete(String entryId) {
+        File target = new File(directory, entryId + SUFFIX);
+        if (target.exists() && !target.delete()) {
+            Log.w(TAG, "删除快速记账文件失败: " + entryId);
+        }
+    }
+
+    public synchronized List<QuickEntry> loadAll() {
+        List<QuickEntry> entries = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return entries;
+        }
+        for (File file : files) {
+            Properties properties = new Properties();
+            try (InputStream inputStream = new FileInputStream(file)) {
+                properties.load(inputStream);
+                QuickEntry entry = QuickEntry.fromProperties(properties);
+                if (entry.isValid()) {
+                    entries.add(entry);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "读取快速记账失败: " + file.getName(), e);
+            }
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(a.createdAt, b.createdAt));
+        return entries;
+    }
+
+    public synchronized int count() {
+        String[] names = directory.list((dir, name) -> name.endsWith(SUFFIX));
+        return names != null ? names.length : 0;
+    }
+}
@@ -0,0 +1,57 @@
+package cn.jacksonz.pwa.twa.zhiweijz.quickentry;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * 快速记账使用的登录信息
+ * 由Web层在同步账本时写入当前令牌和账本，快速记账和后台补发无需启动WebView即可读取；退出登录时清除
+ */
+public class QuickEntrySession {
+    private static final String PREFS_NAME = "quick_entry";
+    private static final String KEY_TOKEN = "token";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_ACCOUNT_BOOK_ID = "account_book_id";
+    private static final String KEY_ACCOUNT_BOOK_NAME = "account_book_name";
+
+    private final SharedPreferences preferences;
+
+    public QuickEntrySession(Context context) {
+        preferences = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public void save(String token, String userId, String accountBookId, String accountBookName) {
+        SharedPreferences.Editor editor = preferences.edit()
+            .putString(KEY_TOKEN, token)
+            .putString(KEY_USER_ID, userId)
+            .putString(KEY_ACCOUNT_BOOK_ID, accountBookId);
+        if (accountBookName != null) {
+            editor.putString(KEY_ACCOUNT_BOOK_NAME, accountBookName);
+        }
+        editor.apply();
+    }
+
+    public void clear() {
+        preferences.edit().clear().apply();
+    }
+
+    public String getToken() {
+        return preferences.getString(KEY_TOKEN, null);
+    }
+
+    public String getUserId() {
+        return preferences.getString(KEY_USER_ID, null);
+    }
+
+    public String getAccountBookId() {
+        return preferences.getString(KEY_ACCOUNT_BOOK_ID, null);
+    }
+
+    public String getAccountBookName() {
+        return preferences.getString(KEY_ACCOUNT_BOOK_NAME, null);
+    }
+
+    public boolean isReady() {
+        return getToken() != null && getAccountBookId() != null;
+    }
+}
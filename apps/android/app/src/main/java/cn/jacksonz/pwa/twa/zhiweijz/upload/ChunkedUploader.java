@@ -0,0 +1,280 @@
+package cn.jacksonz.pwa.twa.zhiweijz.upload;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 上传执行器
+ * 分片协议：
+ *   HEAD {url}，请求头 Upload-Id，服务端通过 Upload-Offset 响应头返回已接收字节数（404表示尚未开始）
+ *   PUT  {url}，请求头 Upload-Id 与 Content-Range: bytes start-end/total，
+ *        中间分片返回308或2xx，最后一个分片返回2xx及业务响应体
+ * 表单协议：单次 multipart/form-data POST，兼容现有附件上传接口
+ * 注意：服务端目前尚未实现分片协议的接口，分片任务在接口上线前无法完成；
+ * Web层也尚未接入上传队列，现阶段只有显式指定的表单协议任务可用
+ */
+public class ChunkedUploader {
+    private static final String TAG = "ChunkedUploader";
+
+    public static final String HEADER_UPLOAD_ID = "Upload-Id";
+    public static final String HEADER_UPLOAD_OFFSET = "Upload-Offset";
+    private static final int HTTP_RESUME_INCOMPLETE = 308;
+
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AuthorizationProvider authorizationProvider;
+
+    public ChunkedUploader() {
+        this(null);
+    }
+
+    public ChunkedUploader(AuthorizationProvider authorizationProvider) {
+        this.authorizationProvider = authorizationProvider;
+    }
+
+    /**
+     * 进度回调，每个分片确认后调用
+     */
+    public interface ProgressListener {
+        void onProgress(UploadJob job);
+    }
+
+    /**
+     * 提供发送请求时的认证信息，认证头不随任务持久化，每次请求时从当前登录会话读取
+     */
+    public interface AuthorizationProvider {
+        /**
+         * @return Authorization请求头，未登录时返回null
+         */
+        String getAuthorization();
+    }
+
+    /**
+     * 服务端返回非成功状态码
+     */
+    public static class HttpStatusException extends IOException {
+        public final int statusCode;
+
+        public HttpStatusException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * 5xx、429与408可重试，其余4xx说明请求本身有问题
+         */
+        public boolean isRetryable() {
+            return statusCode >= 500 || statusCode == 429 || statusCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT;
+        }
+    }
+
+    /**
+     * 执行上传，直到完成或抛出异常；进度写回job
+     */
+    public void upload(UploadJob job, ProgressListener listener) throws IOException {
+        File file = new File(job.filePath);
+        if (!file.exists()) {
+            throw new FileNotFoundException("上传文件不存在: " + job.filePath);
+        }
+        job.totalBytes = file.length();
+
+        if (UploadJob.PROTOCOL_MULTIPART.equals(job.protocol)) {
+            uploadMultipart(job, file);
+        } else {
+            uploadChunked(job, file, listener);
+        }
+        job.uploadedBytes = job.totalBytes;
+        if (listener != null) {
+            listener.onProgress(job);
+        }
+    }
+
+    private void uploadChunked(UploadJob job, File file, ProgressListener listener) throws IOException {
+        if (job.uploadedBytes > 0) {
+            job.uploadedBytes = queryServerOffset(job);
+            Log.d(TAG, "⏩ 从偏移量恢复上传: " + job.id + " @ " + job.uploadedBytes);
+        }
+
+        byte[] buffer = new byte[Math.max(1, job.chunkSize)];
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            // 空文件也需要发送一次请求以完成上传
+            do {
+                long start = job.uploadedBytes;
+                input.seek(start);
+                int length = (int) Math.min(buffer.length, job.totalBytes - start);
+                input.readFully(buffer, 0, length);
+
+                HttpURLConnection connection = openConnection(job, "PUT");
+                try {
+                    connection.setDoOutput(true);
+                    connection.setFixedLengthStreamingMode(length);
+                    connection.setRequestProperty("Content-Type", "application/octet-stream");
+                    String range = job.totalBytes == 0
+                        ? "bytes */0"
+                        : "bytes " + start + "-" + (start + length - 1) + "/" + job.totalBytes;
+                    connection.setRequestProperty("Content-Range", range);
+                    try (OutputStream outputStream = connection.getOutputStream()) {
+                        outputStream.write(buffer, 0, length);
+                    }
+
+                    int code = connection.getResponseCode();
+                    job.responseCode = code;
+                    if (code == HTTP_RESUME_INCOMPLETE || (code >= 200 && code < 300)) {
+                        long acknowledged = parseOffset(connection.getHeaderField(HEADER_UPLOAD_OFFSET), start + length);
+                        if (acknowledged <= start && length > 0) {
+                            // 服务端没有接收该分片，交给上层按网络错误重试，避免原地循环
+                            throw new IOException("服务端未确认分片: " + range);
+                        }
+                        job.uploadedBytes = Math.min(job.totalBytes, acknowledged);
+                        if (job.uploadedBytes >= job.totalBytes) {
+                            job.responseBody = readBody(connection);
+                        }
+                    } else {
+                        throw errorFor(code, readBody(connection));
+                    }
+                } finally {
+                    connection.disconnect();
+                }
+
+                if (listener != null) {
+                    listener.onProgress(job);
+                }
+            } while (job.uploadedBytes < job.totalBytes);
+        }
+    }
+
+    /**
+     * 查询服务端已接收的字节数，服务端不认识该任务时从头开始
+     */
+    private long queryServerOffset(UploadJob job) throws IOException {
+        HttpURLConnection connection = openConnection(job, "HEAD");
+        try {
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                return 0;
+            }
+            if (code >= 200 && code < 400) {
+                return Math.min(job.totalBytes, parseOffset(connection.getHeaderField(HEADER_UPLOAD_OFFSET), 0));
+            }
+            throw errorFor(code, null);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void uploadMultipart(UploadJob job, File file) throws IOException {
+        String boundary = "----ZhiWeiJZBoundary" + Long.toHexString(System.nanoTime());
+        String fileName = job.fileName != null ? job.fileName : file.getName();
+
+        ByteArrayOutputStream preamble = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> entry : job.formFields.entrySet()) {
+            writeAscii(preamble, "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + entry.getKey() + "\"\r\n\r\n");
+            preamble.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+            writeAscii(preamble, "\r\n");
+        }
+        writeAscii(preamble, "--" + boundary + "\r\n");
+        preamble.write(("Content-Disposition: form-data; name=\"" + job.fileField
+            + "\"; filename=\"" + fileName + "\"\r\n").getBytes(StandardCharsets.UTF_8));
+        writeAscii(preamble, "Content-Type: " + job.mimeType + "\r\n\r\n");
+        byte[] epilogue = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        HttpURLConnection connection = openConnection(job, "POST");
+        try {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(preamble.size() + job.totalBytes + epilogue.length);
+            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+            try (OutputStream outputStream = new DataOutputStream(connection.getOutputStream());
+                 InputStream inputStream = new FileInputStream(file)) {
+                preamble.writeTo(outputStream);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+                outputStream.write(epilogue);
+            }
+
+            int code = connection.getResponseCode();
+            job.responseCode = code;
+            if (code < 200 || code >= 300) {
+                throw errorFor(code, readBody(connection));
+            }
+            job.responseBody = readBody(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection openConnection(UploadJob job, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(job.url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setUseCaches(false);
+        // 308在分片协议中表示"继续上传"，不能被当作重定向处理
+        connection.setInstanceFollowRedirects(false);
+        connection.setRequestProperty(HEADER_UPLOAD_ID, job.id);
+        for (Map.Entry<String, String> header : job.headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        String authorization = authorizationProvider != null ? authorizationProvider.getAuthorization() : null;
+        if (authorization != null) {
+            connection.setRequestProperty("Authorization", authorization);
+        }
+        return connection;
+    }
+
+    private static HttpStatusException errorFor(int code, String body) {
+        String message = "HTTP " + code + (body != null && !body.isEmpty() ? ": " + body : "");
+        return new HttpStatusException(code, message);
+    }
+
+    private static long parseOffset(String value, long fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static String readBody(HttpURLConnection connection) {
+        try (InputStream inputStream = connection.getResponseCode() >= 400
+            ? connection.getErrorStream() : connection.getInputStream()) {
+            if (inputStream == null) {
+                return null;
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            return body.toString("UTF-8");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeAscii(OutputStream outputStream, String value) throws IOException {
+        outputStream.write(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
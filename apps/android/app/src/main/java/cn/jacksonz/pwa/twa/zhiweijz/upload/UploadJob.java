@@ -0,0 +1,142 @@
+package cn.jacksonz.pwa.twa.zhiweijz.upload;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 上传任务
+ * 记录文件、目标地址与当前进度，可序列化为Properties持久化到磁盘
+ */
+public class UploadJob {
+
+    /** 分片上传：PUT + Content-Range，支持断点续传 */
+    public static final String PROTOCOL_CHUNKED = "chunked";
+    /** 表单上传：一次性multipart/form-data POST，失败后整体重试 */
+    public static final String PROTOCOL_MULTIPART = "multipart";
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_UPLOADING = "uploading";
+    public static final String STATUS_WAITING_RETRY = "waiting_retry";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    private static final String HEADER_PREFIX = "header.";
+    private static final String FIELD_PREFIX = "field.";
+
+    public String id;
+    public String filePath;
+    public String url;
+    public String protocol = PROTOCOL_CHUNKED;
+    public String fileField = "file";
+    public String fileName;
+    public String mimeType = "application/octet-stream";
+    public int chunkSize = 256 * 1024;
+    public int maxAttempts = 8;
+
+    public long totalBytes;
+    public long uploadedBytes;
+    public String status = STATUS_PENDING;
+    public int attempts;
+    public String lastError;
+    public int responseCode;
+    public String responseBody;
+    public long createdAt;
+    public long updatedAt;
+
+    public final Map<String, String> headers = new LinkedHashMap<>();
+    public final Map<String, String> formFields = new LinkedHashMap<>();
+
+    /**
+     * 是否已结束（不会再被调度）
+     */
+    public boolean isFinished() {
+        return STATUS_COMPLETED.equals(status) || STATUS_FAILED.equals(status) || STATUS_CANCELLED.equals(status);
+    }
+
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("id", id);
+        properties.setProperty("filePath", filePath);
+        properties.setProperty("url", url);
+        properties.setProperty("protocol", protocol);
+        properties.setProperty("fileField", fileField);
+        if (fileName != null) {
+            properties.setProperty("fileName", fileName);
+        }
+        properties.setProperty("mimeType", mimeType);
+        properties.setProperty("chunkSize", String.valueOf(chunkSize));
+        properties.setProperty("maxAttempts", String.valueOf(maxAttempts));
+        properties.setProperty("totalBytes", String.valueOf(totalBytes));
+        properties.setProperty("uploadedBytes", String.valueOf(uploadedBytes));
+        properties.setProperty("status", status);
+        properties.setProperty("attempts", String.valueOf(attempts));
+        if (lastError != null) {
+            properties.setProperty("lastError", lastError);
+        }
+        properties.setProperty("responseCode", String.valueOf(responseCode));
+        if (responseBody != null) {
+            properties.setProperty("responseBody", responseBody);
+        }
+        properties.setProperty("createdAt", String.valueOf(createdAt));
+        properties.setProperty("updatedAt", String.valueOf(updatedAt));
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            // 认证头不写入磁盘，发送时由ChunkedUploader从当前会话读取
+            if ("Authorization".equalsIgnoreCase(entry.getKey())) {
+                continue;
+            }
+            properties.setProperty(HEADER_PREFIX + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : formFields.entrySet()) {
+            properties.setProperty(FIELD_PREFIX + entry.getKey(), entry.getValue());
+        }
+        return properties;
+    }
+
+    public static UploadJob fromProperties(Properties properties) {
+        UploadJob job = new UploadJob();
+        job.id = properties.getProperty("id");
+        job.filePath = properties.getProperty("filePath");
+        job.url = properties.getProperty("url");
+        job.protocol = properties.getProperty("protocol", PROTOCOL_CHUNKED);
+        job.fileField = properties.getProperty("fileField", "file");
+        job.fileName = properties.getProperty("fileName");
+        job.mimeType = properties.getProperty("mimeType", "application/octet-stream");
+        job.chunkSize = parseInt(properties.getProperty("chunkSize"), job.chunkSize);
+        job.maxAttempts = parseInt(properties.getProperty("maxAttempts"), job.maxAttempts);
+        job.totalBytes = parseLong(properties.getProperty("totalBytes"));
+        job.uploadedBytes = parseLong(properties.getProperty("uploadedBytes"));
+        job.status = properties.getProperty("status", STATUS_PENDING);
+        job.attempts = parseInt(properties.getProperty("attempts"), 0);
+        job.lastError = properties.getProperty("lastError");
+        job.responseCode = parseInt(properties.getProperty("responseCode"), 0);
+        job.responseBody = properties.getProperty("responseBody");
+        job.createdAt = parseLong(properties.getProperty("createdAt"));
+        job.updatedAt = parseLong(properties.getProperty("updatedAt"));
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(HEADER_PREFIX)) {
+                job.headers.put(key.substring(HEADER_PREFIX.length()), properties.getProperty(key));
+            } else if (key.startsWith(FIELD_PREFIX)) {
+                job.formFields.put(key.substring(FIELD_PREFIX.length()), properties.getProperty(key));
+            }
+        }
+        return job;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
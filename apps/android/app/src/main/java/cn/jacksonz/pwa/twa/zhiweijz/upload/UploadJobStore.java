@@ -0,0 +1,75 @@
+package cn.jacksonz.pwa.twa.zhiweijz.upload;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 上传任务持久化
+ * 每个任务保存为一个properties文件，先写临时文件再重命名，进程被杀时不会留下半截记录
+ */
+public class UploadJobStore {
+    private static final String TAG = "UploadJobStore";
+    private static final String SUFFIX = ".job";
+
+    private final File directory;
+
+    public UploadJobStore(File directory) {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "创建上传任务目录失败: " + directory.getAbsolutePath());
+        }
+    }
+
+    public synchronized void save(UploadJob job) {
+        File target = new File(directory, job.id + SUFFIX);
+        File temp = new File(directory, job.id + SUFFIX + ".tmp");
+        try (OutputStream outputStream = new FileOutputStream(temp)) {
+            job.toProperties().store(outputStream, null);
+        } catch (IOException e) {
+            Log.e(TAG, "❌ 保存上传任务失败: " + job.id, e);
+            return;
+        }
+        if (!temp.renameTo(target)) {
+            Log.e(TAG, "❌ 替换上传任务文件失败: " + job.id);
+        }
+    }
+
+    public synchronized void delete(String jobId) {
+        File target = new File(directory, jobId + SUFFIX);
+        if (target.exists() && !target.delete()) {
+            Log.w(TAG, "删除上传任务文件失败: " + jobId);
+        }
+    }
+
+    public synchronized List<UploadJob> loadAll() {
+        List<UploadJob> jobs = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return jobs;
+        }
+        for (File file : files) {
+            Properties properties = new Properties();
+            try (InputStream inputStream = new FileInputStream(file)) {
+                properties.load(inputStream);
+                UploadJob job = UploadJob.fromProperties(properties);
+                if (job.id != null && job.filePath != null && job.url != null) {
+                    jobs.add(job);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "读取上传任务失败: " + file.getName(), e);
+            }
+        }
+        Collections.sort(jobs, (a, b) -> Long.compare(a.createdAt, b.createdAt));
+        return jobs;
+    }
+}
@@ -0,0 +1,268 @@
+package cn.jacksonz.pwa.twa.zhiweijz.upload;
+
+import android.util.Log;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传队列管理器
+ * 负责任务持久化、调度、失败重试（指数退避）以及状态回调
+ * 进程重启后从磁盘恢复未完成的任务并从服务端确认的偏移量继续上传
+ */
+public class UploadManager {
+    private static final String TAG = "UploadManager";
+
+    private static final long BASE_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    /** 进度回调节流间隔，避免每个分片都回调Web层 */
+    private static final long PROGRESS_INTERVAL_MS = 250;
+
+    /**
+     * 任务状态回调，在上传线程中调用
+     */
+    public interface Listener {
+        void onProgress(UploadJob job);
+
+        void onStatusChanged(UploadJob job);
+    }
+
+    private final UploadJobStore store;
+    private final ChunkedUploader uploader;
+    private final ScheduledExecutorService executor;
+    private final Map<String, UploadJob> jobs = new LinkedHashMap<>();
+    private final Map<String, ScheduledFuture<?>> scheduled = new LinkedHashMap<>();
+    private final CountDownLatch restored = new CountDownLatch(1);
+    private volatile Listener listener;
+
+    public UploadManager(UploadJobStore store, ChunkedUploader uploader, int concurrency) {
+        this.store = store;
+        this.uploader = uploader;
+        this.executor = Executors.newScheduledThreadPool(Math.max(1, concurrency));
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 从磁盘恢复任务，中断时正在上传的任务重新排队
+     */
+    public synchronized void restore() {
+        try {
+            for (UploadJob job : store.loadAll()) {
+                jobs.put(job.id, job);
+                if (!job.isFinished()) {
+                    job.status = UploadJob.STATUS_PENDING;
+                    store.save(job);
+                    schedule(job, 0);
+                }
+            }
+            Log.d(TAG, "📤 已恢复上传任务: " + jobs.size());
+        } finally {
+            restored.countDown();
+        }
+    }
+
+    /**
+     * 在后台线程恢复任务，避免启动时在主线程读取磁盘
+     */
+    public void restoreAsync() {
+        executor.execute(this::restore);
+    }
+
+    /**
+     * 等待任务恢复完成；不能在持有本对象锁时调用
+     *
+     * @return 是否在超时前完成
+     */
+    public boolean awaitRestored(long timeoutMs) {
+        try {
+            return restored.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 新增上传任务并立即调度
+     */
+    public synchronized UploadJob enqueue(UploadJob job) {
+        if (job.id == null) {
+            job.id = UUID.randomUUID().toString();
+        }
+        long now = System.currentTimeMillis();
+        job.createdAt = now;
+        job.updatedAt = now;
+        job.status = UploadJob.STATUS_PENDING;
+        jobs.put(job.id, job);
+        store.save(job);
+        schedule(job, 0);
+        Log.d(TAG, "📤 新增上传任务: " + job.id + " -> " + job.url);
+        return job;
+    }
+
+    public synchronized UploadJob get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public synchronized List<UploadJob> list() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * 取消任务；正在上传的分片结束后停止
+     */
+    public synchronized boolean cancel(String jobId) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null || job.isFinished()) {
+            return false;
+        }
+        ScheduledFuture<?> future = scheduled.remove(jobId);
+        if (future != null) {
+            future.cancel(false);
+        }
+        updateStatus(job, UploadJob.STATUS_CANCELLED, null);
+        return true;
+    }
+
+    /**
+     * 手动重试失败的任务，重置重试次数；用户取消的任务不会被恢复
+     */
+    public synchronized boolean retry(String jobId) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null || !UploadJob.STATUS_FAILED.equals(job.status)) {
+            return false;
+        }
+        ScheduledFuture<?> future = scheduled.remove(jobId);
+        if (future != null) {
+            future.cancel(false);
+        }
+        job.attempts = 0;
+        updateStatus(job, UploadJob.STATUS_PENDING, null);
+        schedule(job, 0);
+        return true;
+    }
+
+    /**
+     * 移除已结束的任务记录
+     */
+    public synchronized boolean remove(String jobId) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null || !job.isFinished()) {
+            return false;
+        }
+        jobs.remove(jobId);
+        store.delete(jobId);
+        return true;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 计算第n次失败后的退避时间：指数增长并加入随机抖动
+     */
+    public static long backoffDelay(int attempt) {
+        long delay = BASE_BACKOFF_MS << Math.min(attempt - 1, 16);
+        delay = Math.min(delay, MAX_BACKOFF_MS);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void schedule(UploadJob job, long delayMs) {
+        scheduled.put(job.id, executor.schedule(() -> run(job.id), delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void run(String jobId) {
+        UploadJob job;
+        synchronized (this) {
+            scheduled.remove(jobId);
+            job = jobs.get(jobId);
+            if (job == null || job.isFinished() || UploadJob.STATUS_UPLOADING.equals(job.status)) {
+                return;
+            }
+            job.attempts++;
+            updateStatus(job, UploadJob.STATUS_UPLOADING, null);
+        }
+
+        long[] lastProgressAt = {0};
+        try {
+            uploader.upload(job, progressJob -> {
+                synchronized (UploadManager.this) {
+                    if (UploadJob.STATUS_CANCELLED.equals(progressJob.status)) {
+                        throw new CancellationException("上传已取消");
+                    }
+                    progressJob.updatedAt = System.currentTimeMillis();
+                    // 每个分片确认后落盘，进程被杀后可以从该偏移量恢复
+                    store.save(progressJob);
+                }
+                long now = System.currentTimeMillis();
+                Listener current = listener;
+                if (current != null && now - lastProgressAt[0] >= PROGRESS_INTERVAL_MS) {
+                    lastProgressAt[0] = now;
+                    current.onProgress(progressJob);
+                }
+            });
+            synchronized (this) {
+                if (!UploadJob.STATUS_CANCELLED.equals(job.status)) {
+                    updateStatus(job, UploadJob.STATUS_COMPLETED, null);
+                    Log.d(TAG, "✅ 上传完成: " + job.id + ", HTTP " + job.responseCode);
+                }
+            }
+        } catch (IOException e) {
+            handleFailure(job, e);
+        } catch (CancellationException e) {
+            Log.d(TAG, "⏹️ 上传已取消: " + job.id);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "❌ 上传发生未知错误: " + job.id, e);
+            synchronized (this) {
+                updateStatus(job, UploadJob.STATUS_FAILED, String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    private synchronized void handleFailure(UploadJob job, IOException e) {
+        if (UploadJob.STATUS_CANCELLED.equals(job.status)) {
+            return;
+        }
+        boolean retryable = !(e instanceof FileNotFoundException)
+            && (!(e instanceof ChunkedUploader.HttpStatusException)
+                || ((ChunkedUploader.HttpStatusException) e).isRetryable());
+
+        if (retryable && job.attempts < job.maxAttempts) {
+            long delay = backoffDelay(job.attempts);
+            Log.w(TAG, "⚠️ 上传失败，" + delay + "ms后重试(" + job.attempts + "/" + job.maxAttempts + "): "
+                + job.id + ", " + e.getMessage());
+            updateStatus(job, UploadJob.STATUS_WAITING_RETRY, e.getMessage());
+            schedule(job, delay);
+        } else {
+            Log.e(TAG, "❌ 上传失败: " + job.id + ", " + e.getMessage());
+            updateStatus(job, UploadJob.STATUS_FAILED, e.getMessage());
+        }
+    }
+
+    private void updateStatus(UploadJob job, String status, String error) {
+        job.status = status;
+        job.lastError = error;
+        job.updatedAt = System.currentTimeMillis();
+        store.save(job);
+        Listener current = listener;
+        if (current != null) {
+            current.onStatusChanged(job);
+        }
+    }
+}
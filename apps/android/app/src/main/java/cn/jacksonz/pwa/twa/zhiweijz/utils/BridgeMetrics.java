@@ -0,0 +1,382 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 插件桥接调用统计
+ * 按"插件.方法"记录调用次数、排队耗时（Web层发出到原生方法开始执行）、执行耗时（开始执行到resolve/reject）、
+ * 请求/响应数据大小和失败次数，并定期在logcat输出汇总
+ * 数据大小按UTF-8字节估算，不重新序列化JSON：图片Base64等大字符串只扫描开头一段再按比例推算
+ */
+public class BridgeMetrics {
+    private static final String TAG = "BridgeMetrics";
+
+    /** Web层在调用参数中附带的发送时间戳（毫秒） */
+    public static final String SENT_AT_KEY = "_bridgeSentAt";
+
+    /** 直方图桶上界（毫秒），最后一个桶收集超出上界的调用 */
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    private static final long SUMMARY_INTERVAL_MS = 60 * 1000;
+    private static final int SUMMARY_TOP_N = 5;
+
+    /** 超过此长度的字符串只扫描开头部分估算UTF-8字节数 */
+    private static final int SIZE_SCAN_CHARS = 4096;
+    /** 估算数据大小时的最大嵌套深度，更深的对象只计一个固定值 */
+    private static final int SIZE_MAX_DEPTH = 4;
+    /** 数字、布尔值、null及过深对象的估算字节数 */
+    private static final int SIZE_SCALAR_BYTES = 8;
+
+    private static final BridgeMetrics instance = new BridgeMetrics();
+
+    /**
+     * 耗时直方图
+     */
+    public static class Histogram {
+        private final long[] counts = new long[BUCKET_BOUNDS_MS.length + 1];
+        private long total;
+        private long sumMs;
+        private long maxMs;
+
+        synchronized void record(long ms) {
+            int index = 0;
+            while (index < BUCKET_BOUNDS_MS.length && ms > BUCKET_BOUNDS_MS[index]) {
+                index++;
+            }
+            counts[index]++;
+            total++;
+            sumMs += ms;
+            maxMs = Math.max(maxMs, ms);
+        }
+
+        /**
+         * 按桶估算分位数，返回所在桶的上界
+         */
+        synchronized long percentile(double p) {
+            if (total == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= threshold) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : maxMs;
+                }
+            }
+            return maxMs;
+        }
+
+        synchronized JSObject toJson() {
+            JSObject json = new JSObject();
+            json.put("count", total);
+            json.put("avgMs", total == 0 ? 0 : sumMs / total);
+            json.put("maxMs", maxMs);
+            json.put("p50Ms", percentile(0.5));
+            json.put("p95Ms", percentile(0.95));
+            JSArray buckets = new JSArray();
+            for (int i = 0; i < counts.length; i++) {
+                JSObject bucket = new JSObject();
+                bucket.put("le", i < BUCKET_BOUNDS_MS.length ? String.valueOf(BUCKET_BOUNDS_MS[i]) : "+Inf");
+                bucket.put("count", counts[i]);
+                buckets.put(bucket);
+            }
+            json.put("buckets", buckets);
+            return json;
+        }
+    }
+
+    /**
+     * 单个插件方法的统计
+     */
+    public static class MethodStats {
+        final Histogram queue = new Histogram();
+        final Histogram execution = new Histogram();
+        long calls;
+        long errors;
+        long requestBytes;
+        long responseBytes;
+
+        synchronized JSObject toJson() {
+            JSObject json = new JSObject();
+            json.put("calls", calls);
+            json.put("errors", errors);
+            json.put("errorRate", calls == 0 ? "0" : String.format(Locale.US, "%.4f", (double) errors / calls));
+            json.put("requestBytes", requestBytes);
+            json.put("responseBytes", responseBytes);
+            json.put("queue", queue.toJson());
+            json.put("execution", execution.toJson());
+            return json;
+        }
+    }
+
+    /**
+     * 一次插件调用，代替直接调用PluginCall的resolve/reject以记录结束时间
+     */
+    public static class Span {
+        private final PluginCall call;
+        private final MethodStats stats;
+        private final long startNanos = System.nanoTime();
+        private boolean finished;
+
+        Span(PluginCall call, MethodStats stats) {
+            this.call = call;
+            this.stats = stats;
+        }
+
+        public PluginCall getCall() {
+            return call;
+        }
+
+        public void resolve() {
+            finish(null, false);
+            call.resolve();
+        }
+
+        public void resolve(JSObject result) {
+            finish(result, false);
+            call.resolve(result);
+        }
+
+        public void reject(String message) {
+            finish(null, true);
+            call.reject(message);
+        }
+
+        public void reject(String message, Exception e) {
+            finish(null, true);
+            call.reject(message, e);
+        }
+
+        public void reject(String message, String code, Exception e) {
+            finish(null, true);
+            call.reject(message, code, e);
+        }
+
+        private void finish(JSObject result, boolean error) {
+            if (stats == null) {
+                return;
+            }
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+            }
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+            stats.execution.record(elapsedMs);
+            synchronized (stats) {
+                if (error) {
+                    stats.errors++;
+                }
+                if (result != null) {
+                    stats.responseBytes += estimateBytes(result, 0);
+                }
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private volatile long lastSummaryCalls = 0;
+    private Handler summaryHandler;
+
+    public static BridgeMetrics getInstance() {
+        return instance;
+    }
+
+    BridgeMetrics() {
+    }
+
+    /**
+     * 在插件方法开始处调用
+     */
+    public Span begin(PluginCall call) {
+        if (!enabled) {
+            return new Span(call, null);
+        }
+        String key = call.getPluginId() + "." + call.getMethodName();
+        // computeIfAbsent需要API 24
+        MethodStats stats = methods.get(key);
+        if (stats == null) {
+            MethodStats created = new MethodStats();
+            stats = methods.putIfAbsent(key, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+
+        JSONObject data = call.getData();
+        long sentAt = data.optLong(SENT_AT_KEY, 0);
+        synchronized (stats) {
+            stats.calls++;
+            stats.requestBytes += estimateBytes(data, 0);
+        }
+        if (sentAt > 0) {
+            stats.queue.record(Math.max(0, System.currentTimeMillis() - sentAt));
+        }
+        return new Span(call, stats);
+    }
+
+    /**
+     * 估算JSON数据序列化后的UTF-8字节数（不含引号和分隔符），遍历键值而不生成字符串副本
+     */
+    static long estimateBytes(Object value, int depth) {
+        if (value instanceof String) {
+            return utf8Length((String) value);
+        }
+        if (depth >= SIZE_MAX_DEPTH) {
+            return SIZE_SCALAR_BYTES;
+        }
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            long total = 0;
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                total += utf8Length(key) + estimateBytes(object.opt(key), depth + 1);
+            }
+            return total;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            long total = 0;
+            for (int i = 0; i < array.length(); i++) {
+                total += estimateBytes(array.opt(i), depth + 1);
+            }
+            return total;
+        }
+        return SIZE_SCALAR_BYTES;
+    }
+
+    /**
+     * 字符串的UTF-8字节数；长字符串只扫描前SIZE_SCAN_CHARS个字符，按其字节/字符比推算全长
+     */
+    static long utf8Length(String value) {
+        int length = value.length();
+        int scan = Math.min(length, SIZE_SCAN_CHARS);
+        long bytes = 0;
+        for (int i = 0; i < scan; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isSurrogate(c)) {
+                // 代理对共4字节，两个char各计2
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        if (scan == length) {
+            return bytes;
+        }
+        return bytes * length / scan;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public JSObject snapshot() {
+        JSObject result = new JSObject();
+        result.put("enabled", enabled);
+        JSObject methodsJson = new JSObject();
+        for (Map.Entry<String, MethodStats> entry : methods.entrySet()) {
+            methodsJson.put(entry.getKey(), entry.getValue().toJson());
+        }
+        result.put("methods", methodsJson);
+        return result;
+    }
+
+    public void reset() {
+        methods.clear();
+        lastSummaryCalls = 0;
+    }
+
+    /**
+     * 开始定期输出汇总，重复调用无副作用
+     */
+    public synchronized void startPeriodicSummary() {
+        if (summaryHandler != null) {
+            return;
+        }
+        summaryHandler = new Handler(Looper.getMainLooper());
+        summaryHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                logSummary();
+                summaryHandler.postDelayed(this, SUMMARY_INTERVAL_MS);
+            }
+        }, SUMMARY_INTERVAL_MS);
+    }
+
+    public synchronized void stopPeriodicSummary() {
+        if (summaryHandler != null) {
+            summaryHandler.removeCallbacksAndMessages(null);
+            summaryHandler = null;
+        }
+    }
+
+    /**
+     * 按总执行耗时输出最重的几个方法；期间没有新调用时不输出
+     */
+    public void logSummary() {
+        long totalCalls = 0;
+        List<Map.Entry<String, MethodStats>> entries = new ArrayList<>(methods.entrySet());
+        for (Map.Entry<String, MethodStats> entry : entries) {
+            synchronized (entry.getValue()) {
+                totalCalls += entry.getValue().calls;
+            }
+        }
+        if (totalCalls == lastSummaryCalls) {
+            return;
+        }
+        lastSummaryCalls = totalCalls;
+
+        Collections.sort(entries, (a, b) -> Long.compare(totalExecutionMs(b.getValue()), totalExecutionMs(a.getValue())));
+        StringBuilder summary = new StringBuilder("📊 桥接调用汇总 (总调用 ").append(totalCalls).append(")");
+        for (int i = 0; i < Math.min(SUMMARY_TOP_N, entries.size()); i++) {
+            MethodStats stats = entries.get(i).getValue();
+            synchronized (stats) {
+                summary.append("\n  ").append(entries.get(i).getKey())
+                    .append(": 调用 ").append(stats.calls)
+                    .append(", 失败 ").append(stats.errors)
+                    .append(", 排队p95 ").append(stats.queue.percentile(0.95)).append("ms")
+                    .append(", 执行p50/p95 ").append(stats.execution.percentile(0.5))
+                    .append("/").append(stats.execution.percentile(0.95)).append("ms")
+                    .append(", 请求 ").append(stats.requestBytes).append("B")
+                    .append(", 响应 ").append(stats.responseBytes).append("B");
+            }
+        }
+        Log.i(TAG, summary.toString());
+    }
+
+    private static long totalExecutionMs(MethodStats stats) {
+        synchronized (stats.execution) {
+            return stats.execution.sumMs;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.os.Looper;
+import android.util.Log;
+
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 证书信任决定协调器
+ * 握手线程遇到不受信任的证书时在这里等待用户决定：同一主机同一证书的并发握手共享一个待决定项，
+ * 只弹一次提示；用户选择后所有等待中的握手一起继续，超时的握手失败但提示保留，
+ * 用户稍后选择允许时仍会固定证书，之后的请求直接通过
+ */
+public class CertificateDecisionCoordinator {
+    private static final String TAG = "CertDecision";
+
+    /** 用户拒绝后的冷却时间，期间同一证书直接拒绝，不重复提示 */
+    private static final long DENY_COOLDOWN_MS = 60_000;
+
+    private static CertificateDecisionCoordinator instance;
+
+    public enum Decision {
+        ALLOWED,
+        DENIED,
+        TIMEOUT
+    }
+
+    /**
+     * 向用户展示提示，在握手线程中调用，实现需立即返回
+     */
+    public interface Prompt {
+        void show(PendingDecision pending);
+    }
+
+    public interface DecisionListener {
+        void onDecision(String host, X509Certificate leaf, boolean allowed);
+    }
+
+    /**
+     * 用户拒绝信任证书
+     */
+    public static class UserRejectedException extends CertificateException {
+        public UserRejectedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * 等待用户决定的证书
+     */
+    public static class PendingDecision {
+        public final String id;
+        public final String host;
+        public final String fingerprint;
+        public final X509Certificate leaf;
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile Decision decision;
+        int waiters;
+
+        PendingDecision(String host, String fingerprint, X509Certificate leaf) {
+            this.id = host + "#" + fingerprint;
+            this.host = host;
+            this.fingerprint = fingerprint;
+            this.leaf = leaf;
+        }
+    }
+
+    private final Map<String, PendingDecision> pending = new HashMap<>();
+    private final Map<String, Long> deniedAt = new HashMap<>();
+    private volatile Prompt prompt;
+    private volatile DecisionListener listener;
+
+    private long prompts;
+    private long joined;
+    private long timeouts;
+
+    public static synchronized CertificateDecisionCoordinator getInstance() {
+        if (instance == null) {
+            instance = new CertificateDecisionCoordinator();
+        }
+        return instance;
+    }
+
+    public void setPrompt(Prompt prompt) {
+        this.prompt = prompt;
+    }
+
+    public void setDecisionListener(DecisionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 等待用户对证书的决定
+     * 没有可用的提示界面时直接拒绝；在主线程调用时不阻塞，只发起提示
+     */
+    public Decision awaitDecision(String host, X509Certificate leaf, long timeoutMs) {
+        String fingerprint = CertificatePinStore.fingerprint(leaf);
+        PendingDecision decision;
+        boolean created = false;
+        synchronized (this) {
+            String id = host + "#" + fingerprint;
+            Long denied = deniedAt.get(id);
+            if (denied != null && System.currentTimeMillis() - denied < DENY_COOLDOWN_MS) {
+                return Decision.DENIED;
+            }
+            decision = pending.get(id);
+            if (decision == null) {
+                Prompt current = prompt;
+                if (current == null) {
+                    Log.w(TAG, "⚠️ 无法提示用户，拒绝证书: " + host);
+                    return Decision.DENIED;
+                }
+                decision = new PendingDecision(host, fingerprint, leaf);
+                pending.put(id, decision);
+                prompts++;
+                created = true;
+            } else {
+                joined++;
+            }
+            decision.waiters++;
+        }
+
+        if (created) {
+            Log.i(TAG, "🔐 等待用户决定证书: " + host + " " + fingerprint.substring(0, 16) + "...");
+            prompt.show(decision);
+        }
+
+        try {
+            if (isMainThread()) {
+                return decision.decision != null ? decision.decision : Decision.TIMEOUT;
+            }
+            if (decision.latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return decision.decision;
+            }
+            synchronized (this) {
+                timeouts++;
+            }
+            Log.w(TAG, "⏱️ 等待证书决定超时: " + host);
+            return Decision.TIMEOUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Decision.TIMEOUT;
+        } finally {
+            synchronized (this) {
+                decision.waiters--;
+            }
+        }
+    }
+
+    /**
+     * 提交用户的决定，唤醒所有等待该证书的握手
+     * @return 待决定项不存在（已处理）时返回false
+     */
+    public boolean resolve(String id, boolean allowed) {
+        PendingDecision decision;
+        int waiting;
+        synchronized (this) {
+            decision = pending.remove(id);
+            if (decision == null) {
+                return false;
+            }
+            if (allowed) {
+                deniedAt.remove(id);
+            } else {
+                deniedAt.put(id, System.currentTimeMillis());
+            }
+            waiting = decision.waiters;
+        }
+
+        // 先通知监听者（固定证书），再唤醒握手线程
+        DecisionListener current = listener;
+        if (current != null) {
+            current.onDecision(decision.host, decision.leaf, allowed);
+        }
+        decision.decision = allowed ? Decision.ALLOWED : Decision.DENIED;
+        decision.latch.countDown();
+        Log.i(TAG, (allowed ? "✅ 用户信任证书: " : "🚫 用户拒绝证书: ") + decision.host + ", 等待中的握手: " + waiting);
+        return true;
+    }
+
+    /**
+     * 拒绝所有待决定项（提示界面销毁时）
+     */
+    public void cancelAll() {
+        List<String> ids;
+        synchronized (this) {
+            ids = new ArrayList<>(pending.keySet());
+        }
+        for (String id : ids) {
+            resolve(id, false);
+        }
+    }
+
+    /**
+     * 清除主机的拒绝记录（用户在设置中重新允许该主机时）
+     */
+    public synchronized void clearDenied(String host) {
+        Iterator<String> iterator = deniedAt.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(host + "#")) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long getPromptCount() {
+        return prompts;
+    }
+
+    public synchronized long getJoinedCount() {
+        return joined;
+    }
+
+    public synchronized long getTimeoutCount() {
+        return timeouts;
+    }
+
+    private static boolean isMainThread() {
+        Looper main = Looper.getMainLooper();
+        return main != null && main == Looper.myLooper();
+    }
+}
@@ -0,0 +1,159 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.trust.TrustPolicy;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 证书指纹持久化
+ * 按主机保存用户已信任的叶子证书SHA-256指纹，冷启动后首次握手即可通过校验；
+ * 用户允许某主机但尚未看到其证书指纹时，只记为待确认，握手时仍会显示指纹询问用户，确认后才固定
+ */
+public class CertificatePinStore implements TrustPolicy.PinLookup {
+    private static final String TAG = "CertificatePinStore";
+    private static final String PREFS_NAME = "ssl_trust";
+    private static final String PIN_PREFIX = "pin:";
+    private static final String PENDING_PREFIX = "pending:";
+
+    private static CertificatePinStore instance;
+
+    private final SharedPreferences preferences;
+    private final Map<String, Set<String>> pins = new HashMap<>();
+    private final Set<String> pendingHosts = new HashSet<>();
+
+    public static synchronized CertificatePinStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new CertificatePinStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private CertificatePinStore(Context context) {
+        preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(PIN_PREFIX) && entry.getValue() instanceof Set) {
+                Set<String> fingerprints = new HashSet<>();
+                for (Object value : (Set<?>) entry.getValue()) {
+                    fingerprints.add(String.valueOf(value));
+                }
+                pins.put(key.substring(PIN_PREFIX.length()), fingerprints);
+            } else if (key.startsWith(PENDING_PREFIX)) {
+                pendingHosts.add(key.substring(PENDING_PREFIX.length()));
+            }
+        }
+        Log.d(TAG, "已加载证书指纹: " + pins.size() + " 个主机, 待固定: " + pendingHosts.size());
+    }
+
+    /**
+     * 主机的证书是否已被用户信任
+     */
+    public boolean isPinned(String host, X509Certificate leaf) {
+        return isPinned(host, fingerprint(leaf));
+    }
+
+    @Override
+    public synchronized boolean isPinned(String host, String fingerprint) {
+        Set<String> fingerprints = pins.get(normalize(host));
+        return fingerprints != null && fingerprints.contains(fingerprint);
+    }
+
+    /**
+     * 主机是否已允许但尚未确认证书
+     */
+    public synchronized boolean isPending(String host) {
+        return pendingHosts.contains(normalize(host));
+    }
+
+    /**
+     * 固定主机的叶子证书，同时清除待确认标记
+     */
+    public void pin(String host, X509Certificate leaf) {
+        pin(host, fingerprint(leaf));
+    }
+
+    /**
+     * 按已计算的指纹固定
+     */
+    public synchronized void pin(String host, String fingerprint) {
+        String key = normalize(host);
+        Set<String> fingerprints = pins.get(key);
+        if (fingerprints == null) {
+            fingerprints = new HashSet<>();
+            pins.put(key, fingerprints);
+        }
+        fingerprints.add(fingerprint);
+        pendingHosts.remove(key);
+        preferences.edit()
+            .putStringSet(PIN_PREFIX + key, new HashSet<>(fingerprints))
+            .remove(PENDING_PREFIX + key)
+            .apply();
+        Log.i(TAG, "📌 已固定证书: " + key + " " + fingerprint.substring(0, 16) + "...");
+    }
+
+    /**
+     * 记录用户已允许该主机但还没有看到证书指纹，不会自动信任任何证书
+     */
+    public synchronized void markPending(String host) {
+        String key = normalize(host);
+        pendingHosts.add(key);
+        preferences.edit().putBoolean(PENDING_PREFIX + key, true).apply();
+    }
+
+    /**
+     * 撤销主机的信任
+     */
+    public synchronized void remove(String host) {
+        String key = normalize(host);
+        pins.remove(key);
+        pendingHosts.remove(key);
+        preferences.edit().remove(PIN_PREFIX + key).remove(PENDING_PREFIX + key).apply();
+    }
+
+    public synchronized void clear() {
+        pins.clear();
+        pendingHosts.clear();
+        preferences.edit().clear().apply();
+    }
+
+    /**
+     * 已信任（含待确认）的主机及其指纹
+     */
+    public synchronized Map<String, Set<String>> snapshot() {
+        Map<String, Set<String>> result = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : pins.entrySet()) {
+            result.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        for (String host : pendingHosts) {
+            if (!result.containsKey(host)) {
+                result.put(host, new HashSet<>());
+            }
+        }
+        return result;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pins.isEmpty() && pendingHosts.isEmpty();
+    }
+
+    public static String fingerprint(X509Certificate certificate) {
+        try {
+            return TrustPolicy.fingerprint(certificate.getEncoded());
+        } catch (CertificateEncodingException e) {
+            throw new IllegalStateException("计算证书指纹失败", e);
+        }
+    }
+
+    private static String normalize(String host) {
+        return TrustPolicy.normalizeHost(host);
+    }
+}
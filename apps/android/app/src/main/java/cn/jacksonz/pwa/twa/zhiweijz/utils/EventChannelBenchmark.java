@@ -0,0 +1,149 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Base64Encoder;
+
+import org.json.JSONObject;
+
+import java.util.Random;
+
+/**
+ * 事件通道吞吐量基准
+ * 先后经由消息端口和evaluateJavascript发送同样数量、同样大小的事件，
+ * Web层收到最后一条后经端口回传 {type: "benchmarkDone", id, received}，以此计算端到端耗时
+ * 在主线程调用
+ */
+public class EventChannelBenchmark {
+    private static final String TAG = "EventChannelBenchmark";
+
+    public static final String EVENT_NAME = "__nativeBenchmark";
+    private static final long TIMEOUT_MS = 30000;
+    /** JSON负载包含需要转义的字符，同时检验两条路径的转义是否正确 */
+    private static final String FILLER = "记账'\"\\\n <>&";
+
+    public interface Callback {
+        void onFinished(JSObject result);
+    }
+
+    private final NativeEventChannel channel;
+    private final WebEventQueue.Dispatcher evaluateDispatcher;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private Callback callback;
+    private JSObject result;
+    private String runId;
+    private String phase;
+    private long phaseStart;
+    private int count;
+    private int payloadBytes;
+    private boolean binary;
+    private byte[] binaryPayload;
+    private final Runnable timeout = () -> finish("等待Web层确认超时: " + phase);
+
+    public EventChannelBenchmark(NativeEventChannel channel, WebEventQueue.Dispatcher evaluateDispatcher) {
+        this.channel = channel;
+        this.evaluateDispatcher = evaluateDispatcher;
+    }
+
+    public boolean isRunning() {
+        return callback != null;
+    }
+
+    public void run(int count, int payloadBytes, boolean binary, Callback callback) {
+        this.callback = callback;
+        this.count = count;
+        this.payloadBytes = payloadBytes;
+        this.binary = binary;
+        this.runId = Long.toString(SystemClock.elapsedRealtimeNanos(), 36);
+        this.binaryPayload = new byte[payloadBytes];
+        new Random(42).nextBytes(binaryPayload);
+        this.result = new JSObject();
+        result.put("count", count);
+        result.put("payloadBytes", payloadBytes);
+        result.put("binary", binary);
+
+        channel.setMessageListener(this::onWebMessage);
+        startPhase("channel");
+    }
+
+    private void startPhase(String name) {
+        phase = name;
+        phaseStart = SystemClock.elapsedRealtimeNanos();
+        mainHandler.postDelayed(timeout, TIMEOUT_MS);
+        String jsonPayload = binary ? null : buildTextPayload();
+        String base64Payload = binary ? Base64Encoder.encodeToString(binaryPayload, false) : null;
+        for (int i = 0; i < count; i++) {
+            JSObject detail = new JSObject();
+            detail.put("id", runId);
+            detail.put("phase", name);
+            detail.put("index", i);
+            detail.put("last", i == count - 1);
+            if ("channel".equals(name)) {
+                if (binary) {
+                    channel.dispatchBinary(EVENT_NAME, null, detail, binaryPayload);
+                } else {
+                    detail.put("payload", jsonPayload);
+                    // 基准消息可以丢弃，不交回事件队列
+                    channel.dispatch(EVENT_NAME, null, detail, true);
+                }
+            } else {
+                // 脚本注入只能传文本，二进制内容以Base64字符串传递
+                detail.put("payload", binary ? base64Payload : jsonPayload);
+                evaluateDispatcher.dispatch(EVENT_NAME, null, detail, true);
+            }
+        }
+    }
+
+    private void onWebMessage(JSONObject message) {
+        if (!"benchmarkDone".equals(message.optString("type")) || !runId.equals(message.optString("id"))
+            || !phase.equals(message.optString("phase"))) {
+            return;
+        }
+        mainHandler.removeCallbacks(timeout);
+        double elapsedMs = (SystemClock.elapsedRealtimeNanos() - phaseStart) / 1e6;
+        JSObject phaseResult = new JSObject();
+        phaseResult.put("elapsedMs", Double.valueOf(Math.round(elapsedMs * 100) / 100.0));
+        phaseResult.put("received", message.optInt("received"));
+        phaseResult.put("messagesPerSecond", elapsedMs > 0 ? Math.round(count * 1000 / elapsedMs) : 0);
+        result.put(phase, phaseResult);
+
+        if ("channel".equals(phase)) {
+            startPhase("evaluateJavascript");
+        } else {
+            finish(null);
+        }
+    }
+
+    private void finish(String error) {
+        mainHandler.removeCallbacks(timeout);
+        channel.setMessageListener(null);
+        if (error != null) {
+            result.put("error", error);
+        }
+        JSONObject channelResult = result.optJSONObject("channel");
+        JSONObject evaluateResult = result.optJSONObject("evaluateJavascript");
+        if (channelResult != null && evaluateResult != null && channelResult.optDouble("elapsedMs") > 0) {
+            double speedup = evaluateResult.optDouble("elapsedMs") / channelResult.optDouble("elapsedMs");
+            result.put("speedup", Double.valueOf(Math.round(speedup * 100) / 100.0));
+        }
+        Log.i(TAG, "📊 事件通道基准: " + result);
+        Callback current = callback;
+        callback = null;
+        current.onFinished(result);
+    }
+
+    private String buildTextPayload() {
+        StringBuilder builder = new StringBuilder(payloadBytes);
+        while (builder.length() < payloadBytes) {
+            builder.append(FILLER);
+        }
+        builder.setLength(payloadBytes);
+        return builder.toString();
+    }
+}
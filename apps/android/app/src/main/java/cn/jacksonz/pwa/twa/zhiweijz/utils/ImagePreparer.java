@@ -0,0 +1,182 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.os.Build;
+import android.util.Log;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.image.ImageSizing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 图片预处理助手类
+ * 在原生层完成缩放、方向校正与重新编码，减少上传体积并避免在JS线程中处理大图
+ */
+public class ImagePreparer {
+    private static final String TAG = "ImagePreparer";
+
+    /** 与Web层 FILE_SIZE_LIMITS.MAX_DIMENSION 保持一致 */
+    public static final int DEFAULT_MAX_DIMENSION = 2048;
+    public static final int DEFAULT_QUALITY = 85;
+    private static final int MIN_QUALITY = 40;
+    private static final int QUALITY_STEP = 10;
+
+    /**
+     * 预处理参数
+     */
+    public static class Options {
+        public int maxDimension = DEFAULT_MAX_DIMENSION;
+        public int quality = DEFAULT_QUALITY;
+        /** 目标文件大小上限（字节），0表示不限制 */
+        public long maxBytes = 0;
+        /** jpeg 或 webp */
+        public String format = "jpeg";
+    }
+
+    /**
+     * 预处理结果
+     */
+    public static class Result {
+        public File file;
+        public int originalWidth;
+        public int originalHeight;
+        public int width;
+        public int height;
+        public int rotation;
+        public int quality;
+        public String mimeType;
+    }
+
+    /**
+     * 预处理图片文件，输出到目标文件
+     */
+    public static Result prepare(File source, File target, Options options) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getAbsolutePath(), bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("无法解析图片尺寸: " + source.getName());
+        }
+
+        int rotation = readRotation(source);
+        // 旋转90/270度时宽高互换，目标尺寸按校正后的方向计算
+        int orientedWidth = ImageSizing.orientedWidth(bounds.outWidth, bounds.outHeight, rotation);
+        int orientedHeight = ImageSizing.orientedHeight(bounds.outWidth, bounds.outHeight, rotation);
+
+        BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+        decodeOptions.inSampleSize = ImageSizing.calculateInSampleSize(orientedWidth, orientedHeight, options.maxDimension);
+        decodeOptions.inPreferredConfig = Bitmap.Config.ARGB_8888;
+
+        Bitmap decoded = BitmapFactory.decodeFile(source.getAbsolutePath(), decodeOptions);
+        if (decoded == null) {
+            throw new IOException("无法解码图片: " + source.getName());
+        }
+
+        Bitmap output = transform(decoded, rotation, options.maxDimension);
+        try {
+            Result result = new Result();
+            result.file = target;
+            result.originalWidth = orientedWidth;
+            result.originalHeight = orientedHeight;
+            result.width = output.getWidth();
+            result.height = output.getHeight();
+            result.rotation = rotation;
+            result.mimeType = "webp".equals(options.format) ? "image/webp" : "image/jpeg";
+            result.quality = encode(output, target, options);
+
+            Log.d(TAG, "🖼️ 图片预处理完成: " + orientedWidth + "x" + orientedHeight + " -> "
+                + result.width + "x" + result.height + ", 质量: " + result.quality
+                + ", 大小: " + source.length() + " -> " + target.length());
+            return result;
+        } finally {
+            output.recycle();
+        }
+    }
+
+    /**
+     * 读取EXIF方向，返回需要顺时针旋转的角度
+     */
+    static int readRotation(File source) {
+        try {
+            ExifInterface exif = new ExifInterface(source.getAbsolutePath());
+            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "读取EXIF信息失败: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 旋转并精确缩放到目标尺寸，必要时回收中间位图
+     */
+    private static Bitmap transform(Bitmap source, int rotation, int maxDimension) {
+        float scale = ImageSizing.scaleToFit(source.getWidth(), source.getHeight(), maxDimension);
+        if (rotation == 0 && scale == 1f) {
+            return source;
+        }
+
+        Matrix matrix = new Matrix();
+        if (scale != 1f) {
+            matrix.postScale(scale, scale);
+        }
+        if (rotation != 0) {
+            matrix.postRotate(rotation);
+        }
+
+        Bitmap transformed = Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+        if (transformed != source) {
+            source.recycle();
+        }
+        return transformed;
+    }
+
+    /**
+     * 编码输出，若设置了大小上限则逐步降低质量，返回最终使用的质量
+     */
+    private static int encode(Bitmap bitmap, File target, Options options) throws IOException {
+        Bitmap.CompressFormat format = resolveFormat(options.format);
+        int quality = Math.max(MIN_QUALITY, Math.min(100, options.quality));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        while (true) {
+            buffer.reset();
+            bitmap.compress(format, quality, buffer);
+            if (options.maxBytes <= 0 || buffer.size() <= options.maxBytes || quality <= MIN_QUALITY) {
+                break;
+            }
+            quality = Math.max(MIN_QUALITY, quality - QUALITY_STEP);
+        }
+
+        try (FileOutputStream outputStream = new FileOutputStream(target)) {
+            buffer.writeTo(outputStream);
+        }
+        return quality;
+    }
+
+    @SuppressWarnings("deprecation")
+    static Bitmap.CompressFormat resolveFormat(String format) {
+        if (!"webp".equals(format)) {
+            return Bitmap.CompressFormat.JPEG;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+        return Bitmap.CompressFormat.WEBP;
+    }
+}
@@ -0,0 +1,184 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分享图片缓存管理
+ * 按字节预算做LRU淘汰（以文件修改时间作为最近使用时间），并清理超过保留期的文件；
+ * 在启动、写入新文件和系统内存紧张时触发清理
+ */
+public class MediaCacheJanitor implements MemoryPressureCoordinator.Trimmable {
+    private static final String TAG = "MediaCacheJanitor";
+
+    /** 默认缓存预算 */
+    public static final long DEFAULT_MAX_BYTES = 100L * 1024 * 1024;
+    /** 默认保留时间 */
+    public static final long DEFAULT_MAX_AGE_MS = 24L * 60 * 60 * 1000;
+    /** 新文件的最短保护时间，避免淘汰正在被Web层读取或预处理的文件 */
+    private static final long MIN_RETENTION_MS = 60 * 1000;
+
+    private static MediaCacheJanitor instance;
+
+    private final File directory;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile long maxBytes = DEFAULT_MAX_BYTES;
+    private volatile long maxAgeMs = DEFAULT_MAX_AGE_MS;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictCount = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    private final AtomicLong expireCount = new AtomicLong();
+
+    /**
+     * 缓存统计
+     */
+    public static class Stats {
+        public int entries;
+        public long bytes;
+        public long maxBytes;
+        public long maxAgeMs;
+        public long hits;
+        public long misses;
+        public long evictions;
+        public long evictedBytes;
+        public long expirations;
+    }
+
+    public static synchronized MediaCacheJanitor getInstance(Context context) {
+        if (instance == null) {
+            instance = new MediaCacheJanitor(SharedImageStore.getDirectory(context.getApplicationContext()));
+            MemoryPressureCoordinator.getInstance(context).register(TAG, instance);
+        }
+        return instance;
+    }
+
+    MediaCacheJanitor(File directory) {
+        this.directory = directory;
+    }
+
+    public void configure(long maxBytes, long maxAgeMs) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxAgeMs = Math.max(0, maxAgeMs);
+    }
+
+    /**
+     * 记录一次缓存访问：文件存在则刷新最近使用时间
+     *
+     * @return 文件是否仍在缓存中
+     */
+    public boolean recordAccess(File file) {
+        if (file.exists()) {
+            hitCount.incrementAndGet();
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                Log.w(TAG, "更新文件访问时间失败: " + file.getName());
+            }
+            return true;
+        }
+        missCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 新文件写入后调用，超出预算时异步清理
+     */
+    public void onFileAdded(File file) {
+        trimAsync(maxBytes);
+    }
+
+    /**
+     * 异步清理到指定预算
+     */
+    public void trimAsync(long budget) {
+        executor.execute(() -> trimTo(budget));
+    }
+
+    /**
+     * 内存紧张时缩小到预算的一半；文件在磁盘上不占用堆，最高级别也不清空，避免删掉正在导入的图片
+     */
+    @Override
+    public long onMemoryPressure(MemoryPressureCoordinator.Tier tier) {
+        if (tier != MemoryPressureCoordinator.Tier.LIGHT) {
+            trimAsync(maxBytes / 2);
+        }
+        return 0;
+    }
+
+    /**
+     * 删除过期文件，并按最近使用时间从旧到新淘汰，直到总大小不超过预算
+     */
+    public synchronized void trimTo(long budget) {
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        long total = 0;
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+            total += files[i].length();
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+
+        int removed = 0;
+        for (int index : order) {
+            File file = files[index];
+            long age = now - lastModified[index];
+            if (age < MIN_RETENTION_MS) {
+                // 按时间排序，之后的文件都更新
+                break;
+            }
+
+            boolean expired = maxAgeMs > 0 && age > maxAgeMs;
+            if (!expired && total <= budget) {
+                break;
+            }
+
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                removed++;
+                evictedBytes.addAndGet(length);
+                if (expired) {
+                    expireCount.incrementAndGet();
+                } else {
+                    evictCount.incrementAndGet();
+                }
+            }
+        }
+
+        if (removed > 0) {
+            Log.d(TAG, "🧹 已清理分享图片缓存: " + removed + " 个文件, 剩余: " + total + " 字节");
+        }
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        File[] files = directory.listFiles(File::isFile);
+        if (files != null) {
+            stats.entries = files.length;
+            for (File file : files) {
+                stats.bytes += file.length();
+            }
+        }
+        stats.maxBytes = maxBytes;
+        stats.maxAgeMs = maxAgeMs;
+        stats.hits = hitCount.get();
+        stats.misses = missCount.get();
+        stats.evictions = evictCount.get();
+        stats.evictedBytes = evictedBytes.get();
+        stats.expirations = expireCount.get();
+        return stats;
+    }
+}
@@ -0,0 +1,398 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.app.ActivityManager;
+import android.app.ApplicationExitInfo;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+
+/**
+ * 内存压力协调器
+ * 在应用级别接收系统内存回调，按级别换算为统一的分级，依次通知已登记的原生缓存和缓冲区收缩或清空；
+ * 每次回调、WebView渲染进程退出和上次进程的退出原因都记录下来并持久化，
+ * 渲染进程被回收导致应用重启后仍可对照退出前的内存状况
+ */
+public class MemoryPressureCoordinator implements ComponentCallbacks2 {
+    private static final String TAG = "MemoryPressure";
+
+    private static final String FILE_NAME = "memory_pressure.json";
+    private static final String PREFS_NAME = "memory_pressure";
+    private static final String KEY_LAST_EXIT = "last_exit_timestamp";
+    /** 保留的事件数，覆盖最近几次导入前后的回调即可 */
+    private static final int MAX_EVENTS = 50;
+
+    public static final String EVENT_TRIM = "trim";
+    public static final String EVENT_LOW_MEMORY = "low_memory";
+    public static final String EVENT_RENDERER_GONE = "renderer_gone";
+    public static final String EVENT_PROCESS_EXIT = "process_exit";
+
+    /**
+     * 收缩分级，级别越高释放越多
+     */
+    public enum Tier {
+        /** 内存开始紧张或界面不可见：只释放可立即重建的内容 */
+        LIGHT,
+        /** 内存偏低或进程进入后台：缓存减半，降低并发 */
+        SHRINK,
+        /** 内存严重不足或进程即将被回收：清空内存缓存，释放全部可释放的缓冲 */
+        EVICT
+    }
+
+    /**
+     * 可按内存压力收缩的组件，在主线程回调，耗时操作应自行转到后台
+     */
+    public interface Trimmable {
+        /**
+         * @return 估计释放的内存字节数（堆、原生或内存映射），无法估计时返回0
+         */
+        long onMemoryPressure(Tier tier);
+    }
+
+    private static MemoryPressureCoordinator instance;
+
+    private final Context context;
+    private final File file;
+    private final SharedPreferences preferences;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<String, Trimmable> trimmables = new LinkedHashMap<>();
+    private final ArrayDeque<JSONObject> events = new ArrayDeque<>();
+
+    private long lastTrimElapsed;
+    private int lastTrimLevel = -1;
+
+    public static synchronized MemoryPressureCoordinator getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new MemoryPressureCoordinator(appContext);
+            appContext.registerComponentCallbacks(instance);
+            instance.recordPreviousExitAsync();
+        }
+        return instance;
+    }
+
+    private MemoryPressureCoordinator(Context context) {
+        this.context = context;
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        this.preferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        load();
+    }
+
+    /**
+     * 登记组件，同名组件被替换（如插件随Activity重建重新加载）
+     */
+    public synchronized void register(String name, Trimmable trimmable) {
+        trimmables.put(name, trimmable);
+    }
+
+    public synchronized void unregister(String name) {
+        trimmables.remove(name);
+    }
+
+    public synchronized List<String> getRegisteredNames() {
+        return new ArrayList<>(trimmables.keySet());
+    }
+
+    /**
+     * 系统回调级别换算为收缩分级，未知级别返回null
+     * 前台的RUNNING_*级别表示设备内存紧张但本进程仍在运行，后台级别表示本进程在LRU中的位置
+     */
+    public static Tier tierFor(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            return Tier.EVICT;
+        }
+        switch (level) {
+            case TRIM_MEMORY_BACKGROUND:
+            case TRIM_MEMORY_RUNNING_LOW:
+                return Tier.SHRINK;
+            case TRIM_MEMORY_UI_HIDDEN:
+            case TRIM_MEMORY_RUNNING_MODERATE:
+                return Tier.LIGHT;
+            case TRIM_MEMORY_RUNNING_CRITICAL:
+                return Tier.EVICT;
+            default:
+                return null;
+        }
+    }
+
+    static String levelName(int level) {
+        switch (level) {
+            case TRIM_MEMORY_RUNNING_MODERATE:
+                return "running_moderate";
+            case TRIM_MEMORY_RUNNING_LOW:
+                return "running_low";
+            case TRIM_MEMORY_RUNNING_CRITICAL:
+                return "running_critical";
+            case TRIM_MEMORY_UI_HIDDEN:
+                return "ui_hidden";
+            case TRIM_MEMORY_BACKGROUND:
+                return "background";
+            case TRIM_MEMORY_MODERATE:
+                return "moderate";
+            case TRIM_MEMORY_COMPLETE:
+                return "complete";
+            default:
+                return String.valueOf(level);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        Tier tier = tierFor(level);
+        if (tier == null) {
+            return;
+        }
+        dispatch(EVENT_TRIM, level, tier);
+    }
+
+    /**
+     * 旧版系统在整体内存耗尽时回调，等同于最高级别
+     */
+    @Override
+    public void onLowMemory() {
+        dispatch(EVENT_LOW_MEMORY, TRIM_MEMORY_COMPLETE, Tier.EVICT);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * 记录WebView渲染进程退出；应用进程可能随即被结束，记录同步写入
+     *
+     * @param didCrash 渲染进程崩溃为true，被系统回收为false
+     * @param rendererPriority 退出时的渲染进程优先级，无法获取时为-1
+     */
+    public void recordRendererGone(boolean didCrash, int rendererPriority) {
+        JSONObject event = snapshot(EVENT_RENDERER_GONE);
+        String json;
+        synchronized (this) {
+            put(event, "didCrash", didCrash);
+            put(event, "rendererPriority", rendererPriority);
+            if (lastTrimLevel >= 0) {
+                put(event, "lastTrimLevel", levelName(lastTrimLevel));
+                put(event, "sinceLastTrimMs", SystemClock.elapsedRealtime() - lastTrimElapsed);
+            }
+            append(event);
+            json = serialize();
+        }
+        Log.w(TAG, "⚠️ WebView渲染进程已退出: " + (didCrash ? "崩溃" : "被系统回收") + ", " + event);
+        write(json);
+    }
+
+    /**
+     * 最近的事件（最早的在前），包含上次进程记录的事件
+     */
+    public synchronized JSArray getEvents() {
+        JSArray array = new JSArray();
+        for (JSONObject event : events) {
+            array.put(event);
+        }
+        return array;
+    }
+
+    public synchronized void clearEvents() {
+        events.clear();
+        String json = serialize();
+        executor.execute(() -> write(json));
+    }
+
+    /**
+     * 当前进程和设备的内存状况
+     */
+    public JSObject getMemoryState() {
+        JSObject state = new JSObject();
+        fillMemoryState(state);
+        return state;
+    }
+
+    private void dispatch(String type, int level, Tier tier) {
+        List<Map.Entry<String, Trimmable>> targets;
+        synchronized (this) {
+            targets = new ArrayList<>(trimmables.entrySet());
+            lastTrimLevel = level;
+            lastTrimElapsed = SystemClock.elapsedRealtime();
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        JSONObject released = new JSONObject();
+        long total = 0;
+        for (Map.Entry<String, Trimmable> target : targets) {
+            try {
+                long bytes = Math.max(0, target.getValue().onMemoryPressure(tier));
+                put(released, target.getKey(), bytes);
+                total += bytes;
+            } catch (RuntimeException e) {
+                Log.w(TAG, "组件处理内存回调失败: " + target.getKey(), e);
+            }
+        }
+
+        JSONObject event = snapshot(type);
+        put(event, "level", levelName(level));
+        put(event, "tier", tier.name().toLowerCase(Locale.ROOT));
+        put(event, "released", released);
+        put(event, "releasedBytes", total);
+        put(event, "durationMs", SystemClock.elapsedRealtime() - start);
+        String json;
+        synchronized (this) {
+            append(event);
+            json = serialize();
+        }
+        Log.i(TAG, "🧹 内存回调 " + levelName(level) + " → " + tier + ", 释放约 " + total / 1024 + "KB, 组件: " + targets.size());
+        executor.execute(() -> write(json));
+    }
+
+    /**
+     * 读取上次进程的退出原因（Android 11起），被低内存回收时可与之前的内存回调对照
+     */
+    private void recordPreviousExitAsync() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return;
+        }
+        executor.execute(() -> {
+            ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            if (activityManager == null) {
+                return;
+            }
+            List<ApplicationExitInfo> exits;
+            try {
+                exits = activityManager.getHistoricalProcessExitReasons(null, 0, 1);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "读取进程退出原因失败", e);
+                return;
+            }
+            if (exits.isEmpty() || exits.get(0).getTimestamp() <= preferences.getLong(KEY_LAST_EXIT, 0)) {
+                return;
+            }
+            ApplicationExitInfo exit = exits.get(0);
+            preferences.edit().putLong(KEY_LAST_EXIT, exit.getTimestamp()).apply();
+
+            JSONObject event = new JSONObject();
+            put(event, "type", EVENT_PROCESS_EXIT);
+            put(event, "time", exit.getTimestamp());
+            put(event, "reason", exit.getReason());
+            put(event, "description", exit.getDescription());
+            put(event, "importance", exit.getImportance());
+            put(event, "pssKb", exit.getPss());
+            put(event, "rssKb", exit.getRss());
+            String json;
+            synchronized (this) {
+                append(event);
+                json = serialize();
+            }
+            Log.i(TAG, "📋 上次进程退出原因: " + exit.getReason() + " " + exit.getDescription());
+            write(json);
+        });
+    }
+
+    private JSONObject snapshot(String type) {
+        JSONObject event = new JSONObject();
+        put(event, "type", type);
+        put(event, "time", System.currentTimeMillis());
+        fillMemoryState(event);
+        return event;
+    }
+
+    private void fillMemoryState(JSONObject target) {
+        Runtime runtime = Runtime.getRuntime();
+        put(target, "heapUsed", runtime.totalMemory() - runtime.freeMemory());
+        put(target, "heapMax", runtime.maxMemory());
+        put(target, "nativeHeap", Debug.getNativeHeapAllocatedSize());
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager != null) {
+            ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+            activityManager.getMemoryInfo(memoryInfo);
+            put(target, "availMem", memoryInfo.availMem);
+            put(target, "totalMem", memoryInfo.totalMem);
+            put(target, "lowMemory", memoryInfo.lowMemory);
+            put(target, "memoryClassMb", activityManager.getMemoryClass());
+        }
+    }
+
+    private void append(JSONObject event) {
+        while (events.size() >= MAX_EVENTS) {
+            events.pollFirst();
+        }
+        events.addLast(event);
+    }
+
+    private String serialize() {
+        JSONArray array = new JSONArray();
+        for (JSONObject event : events) {
+            array.put(event);
+        }
+        return array.toString();
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] data = Streams.readAll(inputStream, file.length());
+            JSONArray array = new JSONArray(new String(data, StandardCharsets.UTF_8));
+            for (int i = 0; i < array.length(); i++) {
+                append(array.getJSONObject(i));
+            }
+        } catch (IOException | JSONException e) {
+            // 记录损坏时丢弃，只影响历史对照
+            Log.w(TAG, "读取内存压力记录失败，已重置", e);
+            events.clear();
+        }
+    }
+
+    /**
+     * 写文件不持有事件锁，避免主线程的内存回调等待磁盘
+     */
+    private void write(String json) {
+        synchronized (file) {
+            File temp = new File(file.getPath() + ".tmp");
+            try (OutputStream outputStream = new FileOutputStream(temp)) {
+                outputStream.write(json.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Log.e(TAG, "❌ 保存内存压力记录失败", e);
+                return;
+            }
+            if (!temp.renameTo(file)) {
+                Log.e(TAG, "❌ 替换内存压力记录文件失败");
+            }
+        }
+    }
+
+    private static void put(JSONObject target, String key, Object value) {
+        try {
+            target.put(key, value);
+        } catch (JSONException e) {
+            Log.w(TAG, "写入字段失败: " + key, e);
+        }
+    }
+}
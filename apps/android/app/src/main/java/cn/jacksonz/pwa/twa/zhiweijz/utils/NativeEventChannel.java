@@ -0,0 +1,290 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.WebMessage;
+import android.webkit.WebMessagePort;
+import android.webkit.WebView;
+
+import com.getcapacitor.JSObject;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Base64Encoder;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * 基于WebMessagePort的原生到Web层事件通道
+ * 页面声明就绪后建立一对消息端口，之后的事件以JSON信封发送，不再逐条拼接并编译脚本：
+ * {seq, name, kind: "json"|"binary", detail, data(base64)}
+ *
+ * - 顺序：消息端口按发送顺序投递，seq单调递增，Web层据此发现乱序或丢失
+ * - 背压：Web层处理后回传 {type: "ack", seq}，未确认的消息超过窗口时在原生侧排队；
+ *   排队期间相同key的消息只保留最新一条（如同一上传任务的进度），超出上限时只丢弃最早的只需最新值的消息
+ * - 不丢失：通道关闭时排队中和已发送未确认的普通消息（分享、快速记账结果等）交回WebEventQueue，
+ *   页面再次声明就绪后重新派发；通道未建立时收到的消息同样交回
+ *
+ * 所有方法只在主线程调用
+ */
+public class NativeEventChannel implements WebEventQueue.Dispatcher {
+    private static final String TAG = "NativeEventChannel";
+
+    /** 握手消息，Web层据此识别通道端口 */
+    public static final String HANDSHAKE = "zhiweijz-native-channel";
+
+    /** 已发送未确认的消息上限 */
+    private static final int WINDOW = 64;
+    /** 原生侧排队上限 */
+    private static final int MAX_QUEUED = 500;
+
+    /**
+     * Web层通过端口发回的非ack消息（如基准测试结果），在主线程回调
+     */
+    public interface MessageListener {
+        void onMessage(JSONObject message);
+    }
+
+    private static class Message {
+        final String name;
+        final String key;
+        final JSObject detail;
+        final byte[] data;
+        /** 只需最新值，可被合并或在积压过多时丢弃 */
+        final boolean latestOnly;
+        long seq;
+
+        Message(String name, String key, JSObject detail, byte[] data, boolean latestOnly) {
+            this.name = name;
+            this.key = key;
+            this.detail = detail;
+            this.data = data;
+            this.latestOnly = latestOnly;
+        }
+    }
+
+    public static class Stats {
+        public boolean open;
+        public long sent;
+        public long acked;
+        public int queued;
+        public int maxQueued;
+        public long coalesced;
+        public long dropped;
+        public long sentBytes;
+        public int reconnects;
+    }
+
+    private final WebView webView;
+    private final Uri targetOrigin;
+    private final WebEventQueue eventQueue;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ArrayDeque<Message> queue = new ArrayDeque<>();
+    /** 已发送未确认的普通消息，通道关闭时交回eventQueue */
+    private final ArrayDeque<Message> unacked = new ArrayDeque<>();
+    private final Stats stats = new Stats();
+
+    private WebMessagePort port;
+    private long nextSeq;
+    private long ackedSeq;
+    private MessageListener messageListener;
+
+    /**
+     * @param eventQueue 未能送达的普通消息交回的队列
+     */
+    public NativeEventChannel(WebView webView, Uri targetOrigin, WebEventQueue eventQueue) {
+        this.webView = webView;
+        this.targetOrigin = targetOrigin;
+        this.eventQueue = eventQueue;
+    }
+
+    public void setMessageListener(MessageListener listener) {
+        this.messageListener = listener;
+    }
+
+    /**
+     * 建立新的端口对并把Web端端口交给页面；已有端口时先关闭
+     */
+    public void open() {
+        if (port != null) {
+            close();
+            stats.reconnects++;
+        }
+        WebMessagePort[] ports = webView.createWebMessageChannel();
+        port = ports[0];
+        port.setWebMessageCallback(new WebMessagePort.WebMessageCallback() {
+            @Override
+            public void onMessage(WebMessagePort source, WebMessage message) {
+                handleWebMessage(message.getData());
+            }
+        }, mainHandler);
+        webView.postWebMessage(new WebMessage(HANDSHAKE, new WebMessagePort[]{ports[1]}), targetOrigin);
+        nextSeq = 0;
+        ackedSeq = 0;
+        stats.open = true;
+        Log.d(TAG, "🔗 事件通道已建立");
+    }
+
+    /**
+     * 页面重新加载时关闭，应在eventQueue.markNotReady之后调用
+     * 已发送未确认和排队中的普通消息按发送顺序交回eventQueue，新页面声明就绪后重新派发；只需最新值的消息丢弃
+     */
+    public void close() {
+        if (port != null) {
+            port.close();
+            port = null;
+        }
+        for (Message message : unacked) {
+            handBack(message);
+        }
+        for (Message message : queue) {
+            handBack(message);
+        }
+        unacked.clear();
+        queue.clear();
+        stats.open = false;
+    }
+
+    public boolean isOpen() {
+        return port != null;
+    }
+
+    @Override
+    public void dispatch(String name, String key, JSObject detail, boolean latestOnly) {
+        enqueue(new Message(name, key, detail, null, latestOnly));
+    }
+
+    /**
+     * 发送二进制消息，Web层收到的detail.data为ArrayBuffer
+     * 平台WebMessage只能携带字符串，二进制内容以Base64放入信封；二进制消息不经过eventQueue，通道关闭时丢弃
+     */
+    public void dispatchBinary(String name, String key, JSObject detail, byte[] data) {
+        enqueue(new Message(name, key, detail, data, true));
+    }
+
+    public Stats getStats() {
+        Stats copy = new Stats();
+        copy.open = stats.open;
+        copy.sent = stats.sent;
+        copy.acked = ackedSeq;
+        copy.queued = queue.size();
+        copy.maxQueued = stats.maxQueued;
+        copy.coalesced = stats.coalesced;
+        copy.dropped = stats.dropped;
+        copy.sentBytes = stats.sentBytes;
+        copy.reconnects = stats.reconnects;
+        return copy;
+    }
+
+    private void enqueue(Message message) {
+        if (port == null) {
+            // 事件在通道关闭前已交给主线程，关闭后才执行到这里
+            Log.w(TAG, "⚠️ 事件通道未建立，事件交回队列: " + message.name);
+            handBack(message);
+            return;
+        }
+        if (queue.isEmpty() && nextSeq - ackedSeq < WINDOW) {
+            send(message);
+            return;
+        }
+
+        if (message.key != null) {
+            Iterator<Message> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                Message queued = iterator.next();
+                if (message.key.equals(queued.key) && message.name.equals(queued.name)) {
+                    iterator.remove();
+                    stats.coalesced++;
+                }
+            }
+        }
+        if (queue.size() >= MAX_QUEUED) {
+            dropOldestLatestOnly();
+        }
+        queue.addLast(message);
+        stats.maxQueued = Math.max(stats.maxQueued, queue.size());
+    }
+
+    private void dropOldestLatestOnly() {
+        Iterator<Message> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Message queued = iterator.next();
+            if (queued.latestOnly) {
+                iterator.remove();
+                stats.dropped++;
+                Log.w(TAG, "⚠️ Web层处理过慢，丢弃最早的状态事件: " + queued.name);
+                return;
+            }
+        }
+        Log.w(TAG, "⚠️ 排队事件已达 " + queue.size() + " 个，均为不可丢弃的事件");
+    }
+
+    /**
+     * 普通消息交回eventQueue等待重新派发，只需最新值的消息丢弃
+     */
+    private void handBack(Message message) {
+        if (message.latestOnly || message.data != null) {
+            stats.dropped++;
+            return;
+        }
+        eventQueue.requeue(message.name, message.key, message.detail, false);
+    }
+
+    private void send(Message message) {
+        JSONObject envelope = new JSONObject();
+        try {
+            envelope.put("seq", ++nextSeq);
+            envelope.put("name", message.name);
+            envelope.put("detail", message.detail != null ? message.detail : new JSObject());
+            if (message.data != null) {
+                envelope.put("kind", "binary");
+                envelope.put("data", Base64Encoder.encodeToString(message.data, false));
+            } else {
+                envelope.put("kind", "json");
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "序列化事件失败: " + message.name, e);
+            return;
+        }
+        String payload = envelope.toString();
+        port.postMessage(new WebMessage(payload));
+        message.seq = nextSeq;
+        if (!message.latestOnly) {
+            unacked.addLast(message);
+        }
+        stats.sent++;
+        stats.sentBytes += payload.length();
+    }
+
+    private void handleWebMessage(String data) {
+        if (data == null) {
+            return;
+        }
+        JSONObject message;
+        try {
+            message = new JSONObject(data);
+        } catch (JSONException e) {
+            Log.w(TAG, "无法解析Web层消息: " + data);
+            return;
+        }
+        if ("ack".equals(message.optString("type"))) {
+            ackedSeq = Math.max(ackedSeq, Math.min(message.optLong("seq"), nextSeq));
+            while (!unacked.isEmpty() && unacked.peekFirst().seq <= ackedSeq) {
+                unacked.pollFirst();
+            }
+            drain();
+        } else if (messageListener != null) {
+            messageListener.onMessage(message);
+        }
+    }
+
+    private void drain() {
+        while (port != null && !queue.isEmpty() && nextSeq - ackedSeq < WINDOW) {
+            send(queue.pollFirst());
+        }
+    }
+}
@@ -2,102 +2,328 @@ package cn.jacksonz.pwa.twa.zhiweijz.utils;
 
 import android.content.Context;
 import android.util.Log;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
 
 /**
  * 网络配置助手类
- * 提供SSL证书信任配置
+ * 提供按主机划分的SSL证书信任配置：每个主机使用独立的SSLContext（各自的TLS会话缓存），
+ * 系统校验失败时只接受该主机已固定指纹的证书，不再全局信任所有证书
  */
 public class NetworkConfigHelper {
     private static final String TAG = "NetworkConfigHelper";
-    private static boolean isConfigured = false;
+    private static final int SESSION_CACHE_SIZE = 32;
+
+    private static CertificatePinStore pinStore;
+    private static X509TrustManager systemTrustManager;
+    private static SSLContext defaultContext;
+    private static HostnameVerifier systemHostnameVerifier;
+    private static ScopedSocketFactory socketFactory;
+    private static ScopedHostnameVerifier hostnameVerifier;
+    private static final Map<String, SSLTrustManager> trustManagers = new HashMap<>();
+    private static final Map<String, SSLContext> contexts = new HashMap<>();
+    private static final List<RevocationListener> revocationListeners = new CopyOnWriteArrayList<>();
 
     /**
-     * 配置宽松的SSL设置（允许不受信任的证书）
-     * 注意：这会降低安全性，仅在开发/测试环境使用
+     * 撤销信任后的回调，使用本配置的客户端据此关闭已建立的连接
+     * （复用的连接和恢复的TLS会话不会再经过证书校验）
      */
-    public static void configurePermissiveSSL(Context context) {
-        if (isConfigured) {
-            Log.d(TAG, "SSL配置已经设置，跳过重复配置");
+    public interface RevocationListener {
+        /**
+         * @param host 被撤销的主机，恢复默认设置时为null
+         */
+        void onTrustRevoked(String host);
+    }
+
+    public static void addRevocationListener(RevocationListener listener) {
+        revocationListeners.add(listener);
+    }
+
+    /**
+     * 初始化并安装为HttpsURLConnection的默认配置，重复调用无副作用
+     * 未信任任何主机时行为与系统默认一致
+     */
+    public static synchronized void init(Context context) {
+        if (socketFactory != null) {
             return;
         }
-
         try {
-            // 创建信任所有证书的TrustManager
-            TrustManager[] trustAllCerts = new TrustManager[]{
-                new X509TrustManager() {
-                    @Override
-                    public X509Certificate[] getAcceptedIssuers() {
-                        return new X509Certificate[0];
-                    }
-
-                    @Override
-                    public void checkClientTrusted(X509Certificate[] certs, String authType) {
-                        // 信任所有客户端证书
-                    }
-
-                    @Override
-                    public void checkServerTrusted(X509Certificate[] certs, String authType) {
-                        // 信任所有服务器证书
-                    }
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init((KeyStore) null);
+            for (TrustManager trustManager : factory.getTrustManagers()) {
+                if (trustManager instanceof X509TrustManager) {
+                    systemTrustManager = (X509TrustManager) trustManager;
+                    break;
                 }
-            };
+            }
+            if (systemTrustManager == null) {
+                throw new GeneralSecurityException("系统未提供X509TrustManager");
+            }
+            defaultContext = SSLContext.getInstance("TLS");
+            defaultContext.init(null, new TrustManager[]{systemTrustManager}, null);
+        } catch (GeneralSecurityException e) {
+            Log.e(TAG, "❌ 初始化SSL配置失败", e);
+            return;
+        }
 
-            // 创建SSLContext
-            SSLContext sslContext = SSLContext.getInstance("TLS");
-            sslContext.init(null, trustAllCerts, new SecureRandom());
+        pinStore = CertificatePinStore.getInstance(context);
+        CertificatePinStore store = pinStore;
+        CertificateDecisionCoordinator.getInstance().setDecisionListener((host, leaf, allowed) -> {
+            if (allowed) {
+                store.pin(host, leaf);
+            }
+        });
+        systemHostnameVerifier = HttpsURLConnection.getDefaultHostnameVerifier();
+        socketFactory = new ScopedSocketFactory();
+        hostnameVerifier = new ScopedHostnameVerifier();
+        HttpsURLConnection.setDefaultSSLSocketFactory(socketFactory);
+        HttpsURLConnection.setDefaultHostnameVerifier(hostnameVerifier);
+        Log.i(TAG, "✅ 已安装按主机划分的SSL信任配置");
+    }
 
-            // 设置默认的SSLSocketFactory
-            HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
+    /**
+     * 信任指定主机，但不固定任何用户没有看到过的证书：握手时仍会显示指纹询问用户
+     */
+    public static void trustHost(Context context, String host) {
+        trustHost(context, host, null);
+    }
 
-            // 设置默认的HostnameVerifier（信任所有主机名）
-            HttpsURLConnection.setDefaultHostnameVerifier(new HostnameVerifier() {
-                @Override
-                public boolean verify(String hostname, SSLSession session) {
-                    Log.d(TAG, "验证主机名: " + hostname);
-                    return true; // 信任所有主机名
-                }
-            });
+    /**
+     * 信任指定主机的证书（用户在SSL警告中选择继续连接）
+     * @param shownFingerprint 警告中显示给用户的证书指纹，只固定该指纹；为null时下一次握手再询问
+     */
+    public static void trustHost(Context context, String host, String shownFingerprint) {
+        init(context);
+        if (pinStore == null) {
+            throw new IllegalStateException("SSL配置未初始化");
+        }
+        trustManagerFor(host).allowHost(shownFingerprint);
+        CertificateDecisionCoordinator.getInstance().clearDenied(host.toLowerCase(Locale.US));
+        Log.i(TAG, "✅ 已信任主机: " + host);
+    }
 
-            isConfigured = true;
-            Log.i(TAG, "✅ 已配置宽松的SSL设置");
+    /**
+     * 该主机最近一次未通过校验的证书指纹，用于在警告中显示；未遇到或SSL配置未初始化时返回null
+     */
+    public static String getRejectedFingerprint(Context context, String host) {
+        init(context);
+        if (pinStore == null || host == null) {
+            return null;
+        }
+        return trustManagerFor(host).getLastRejectedFingerprint();
+    }
 
-        } catch (NoSuchAlgorithmException | KeyManagementException e) {
-            Log.e(TAG, "❌ 配置SSL设置失败", e);
+    /**
+     * 撤销指定主机的信任
+     */
+    public static void revokeHost(Context context, String host) {
+        init(context);
+        if (pinStore != null) {
+            pinStore.remove(host);
+            discardHostState(host.toLowerCase(Locale.US));
+            notifyRevoked(host);
+            Log.i(TAG, "✅ 已撤销主机信任: " + host);
         }
     }
 
     /**
-     * 恢复默认的SSL设置
+     * 恢复默认的SSL设置：清除所有主机的信任，之后只接受系统信任的证书
      */
-    public static void restoreDefaultSSL() {
-        try {
-            // 恢复默认的SSL设置
-            SSLContext sslContext = SSLContext.getInstance("TLS");
-            sslContext.init(null, null, null);
-            HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
-            HttpsURLConnection.setDefaultHostnameVerifier(HttpsURLConnection.getDefaultHostnameVerifier());
-            
-            isConfigured = false;
-            Log.i(TAG, "✅ 已恢复默认SSL设置");
-        } catch (NoSuchAlgorithmException | KeyManagementException e) {
-            Log.e(TAG, "❌ 恢复默认SSL设置失败", e);
+    public static void restoreDefaultSSL(Context context) {
+        init(context);
+        if (pinStore != null) {
+            pinStore.clear();
+            discardAllHostState();
+            notifyRevoked(null);
         }
+        Log.i(TAG, "✅ 已恢复默认SSL设置");
     }
 
     /**
-     * 检查是否已配置宽松SSL
+     * 检查是否有主机被信任（含待确认）
      */
-    public static boolean isPermissiveSSLConfigured() {
-        return isConfigured;
+    public static boolean hasTrustedHosts(Context context) {
+        init(context);
+        return pinStore != null && !pinStore.isEmpty();
+    }
+
+    /**
+     * 已信任的主机及其证书指纹
+     */
+    public static Map<String, Set<String>> getTrustedHosts(Context context) {
+        init(context);
+        return pinStore != null ? pinStore.snapshot() : new HashMap<>();
+    }
+
+    /**
+     * 供OkHttp等自行配置SSL的客户端使用；初始化失败时返回null
+     */
+    public static SSLSocketFactory getSocketFactory(Context context) {
+        init(context);
+        return socketFactory;
+    }
+
+    public static X509TrustManager getSystemTrustManager(Context context) {
+        init(context);
+        return systemTrustManager;
+    }
+
+    public static HostnameVerifier getHostnameVerifier(Context context) {
+        init(context);
+        return hostnameVerifier;
+    }
+
+    private static synchronized SSLTrustManager trustManagerFor(String host) {
+        String key = host.toLowerCase(Locale.US);
+        SSLTrustManager trustManager = trustManagers.get(key);
+        if (trustManager == null) {
+            trustManager = new SSLTrustManager(key, systemTrustManager, pinStore);
+            trustManagers.put(key, trustManager);
+        }
+        return trustManager;
+    }
+
+    /**
+     * 丢弃主机的SSLContext和信任管理器并使其TLS会话失效，之后的连接重新握手并校验证书
+     */
+    private static synchronized void discardHostState(String key) {
+        trustManagers.remove(key);
+        SSLContext context = contexts.remove(key);
+        if (context != null) {
+            invalidateSessions(context.getClientSessionContext());
+        }
+    }
+
+    private static synchronized void discardAllHostState() {
+        for (SSLContext context : contexts.values()) {
+            invalidateSessions(context.getClientSessionContext());
+        }
+        contexts.clear();
+        trustManagers.clear();
+    }
+
+    private static void invalidateSessions(SSLSessionContext sessions) {
+        Enumeration<byte[]> ids = sessions.getIds();
+        while (ids.hasMoreElements()) {
+            SSLSession session = sessions.getSession(ids.nextElement());
+            if (session != null) {
+                session.invalidate();
+            }
+        }
+    }
+
+    private static void notifyRevoked(String host) {
+        for (RevocationListener listener : revocationListeners) {
+            listener.onTrustRevoked(host);
+        }
+    }
+
+    /**
+     * 每个主机一个SSLContext，连接复用同一个TLS会话缓存
+     */
+    private static synchronized SSLSocketFactory factoryFor(String host) {
+        if (host == null) {
+            return defaultContext.getSocketFactory();
+        }
+        String key = host.toLowerCase(Locale.US);
+        SSLContext context = contexts.get(key);
+        if (context == null) {
+            try {
+                context = SSLContext.getInstance("TLS");
+                context.init(null, new TrustManager[]{trustManagerFor(key)}, null);
+                context.getClientSessionContext().setSessionCacheSize(SESSION_CACHE_SIZE);
+            } catch (GeneralSecurityException e) {
+                Log.e(TAG, "❌ 创建主机SSL配置失败: " + key, e);
+                return defaultContext.getSocketFactory();
+            }
+            contexts.put(key, context);
+        }
+        return context.getSocketFactory();
+    }
+
+    /**
+     * 按目标主机选择SSLContext的SocketFactory
+     */
+    private static class ScopedSocketFactory extends SSLSocketFactory {
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return defaultContext.getSocketFactory().getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return defaultContext.getSocketFactory().getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return defaultContext.getSocketFactory().createSocket();
+        }
+
+        @Override
+        public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+            return factoryFor(host).createSocket(socket, host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return factoryFor(host).createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return factoryFor(host).createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port) throws IOException {
+            return factoryFor(address.getHostAddress()).createSocket(address, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return factoryFor(address.getHostAddress()).createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+    /**
+     * 系统主机名校验失败时，接受证书指纹已固定在该主机上的连接（自签名证书常不含正确的主机名）
+     */
+    private static class ScopedHostnameVerifier implements HostnameVerifier {
+        @Override
+        public boolean verify(String hostname, SSLSession session) {
+            if (systemHostnameVerifier.verify(hostname, session)) {
+                return true;
+            }
+            try {
+                Certificate[] peer = session.getPeerCertificates();
+                return peer.length > 0 && peer[0] instanceof X509Certificate
+                    && pinStore.isPinned(hostname, (X509Certificate) peer[0]);
+            } catch (SSLPeerUnverifiedException e) {
+                return false;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * 网络状态监听
+ * 默认网络的连通性、类型或计费状态变化时向Web层发送networkChanged事件，相同状态不重复发送
+ */
+public class NetworkStateMonitor {
+    private static final String TAG = "NetworkStateMonitor";
+
+    public static final String EVENT_NETWORK_CHANGED = "networkChanged";
+
+    private final ConnectivityManager connectivityManager;
+    private final WebEventQueue eventQueue;
+    private ConnectivityManager.NetworkCallback callback;
+    private String lastState;
+
+    public NetworkStateMonitor(Context context, WebEventQueue eventQueue) {
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.eventQueue = eventQueue;
+    }
+
+    public void start() {
+        if (connectivityManager == null || callback != null) {
+            return;
+        }
+        callback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                report();
+            }
+
+            @Override
+            public void onLost(Network network) {
+                report();
+            }
+
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                report();
+            }
+        };
+        NetworkRequest request = new NetworkRequest.Builder()
+            .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+            .build();
+        try {
+            connectivityManager.registerNetworkCallback(request, callback);
+        } catch (RuntimeException e) {
+            // 部分系统对每个应用的回调数量有限制
+            Log.w(TAG, "注册网络状态监听失败", e);
+            callback = null;
+        }
+    }
+
+    public void stop() {
+        if (callback == null) {
+            return;
+        }
+        try {
+            connectivityManager.unregisterNetworkCallback(callback);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "注销网络状态监听失败", e);
+        }
+        callback = null;
+    }
+
+    /**
+     * 以当前默认网络为准，多个网络的回调不会产生多余事件
+     */
+    private synchronized void report() {
+        Network active = connectivityManager.getActiveNetwork();
+        NetworkCapabilities capabilities = active != null ? connectivityManager.getNetworkCapabilities(active) : null;
+        boolean connected = capabilities != null
+            && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+            && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+        String transport = transportOf(capabilities);
+        boolean metered = capabilities != null
+            && !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+
+        String state = connected + "|" + transport + "|" + metered;
+        if (state.equals(lastState)) {
+            return;
+        }
+        lastState = state;
+
+        JSObject detail = new JSObject();
+        detail.put("connected", connected);
+        detail.put("transport", transport);
+        detail.put("metered", metered);
+        Log.d(TAG, "🌐 网络状态变化: " + state);
+        // 只有最新状态有意义，排队时合并
+        eventQueue.postLatest(EVENT_NETWORK_CHANGED, EVENT_NETWORK_CHANGED, detail);
+    }
+
+    private static String transportOf(NetworkCapabilities capabilities) {
+        if (capabilities == null) {
+            return "none";
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return "wifi";
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return "cellular";
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return "ethernet";
+        }
+        return "other";
+    }
+}
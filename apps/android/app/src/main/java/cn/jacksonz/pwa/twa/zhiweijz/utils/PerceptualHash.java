@@ -0,0 +1,180 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.graphics.Matrix;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.image.ImageSizing;
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * 图片感知哈希（dHash）
+ * 缩小为9x8的灰度网格后比较每行相邻格的明暗，得到64位指纹；
+ * 同一张截图重新压缩、缩放或重新截取后指纹只有少数位不同，按汉明距离判断是否近似重复。
+ * 同一应用的不同票据版式相同、只有金额等文字不同，9x8网格上几乎分辨不出，
+ * 因此指纹附带文件内容的SHA-256和校正方向后的尺寸，由调用方要求内容相同或尺寸一致
+ */
+public class PerceptualHash {
+    /** 默认的近似重复阈值（64位中不同的位数） */
+    public static final int DEFAULT_THRESHOLD = 4;
+    public static final int MAX_THRESHOLD = 16;
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+    /** 解码时短边不小于该值，保证每个网格由足够多的像素平均得到 */
+    private static final int DECODE_MIN_SIDE = 72;
+
+    /**
+     * 图片指纹
+     */
+    public static class Fingerprint {
+        public long hash;
+        /** 文件内容的SHA-256，小写十六进制 */
+        public String contentHash;
+        /** 按EXIF方向校正后的原图尺寸 */
+        public int width;
+        public int height;
+    }
+
+    /**
+     * 计算图片文件的dHash，已按EXIF方向校正
+     */
+    public static long compute(File source) throws IOException {
+        return fingerprint(source).hash;
+    }
+
+    /**
+     * 计算图片文件的dHash、内容哈希和尺寸
+     */
+    public static Fingerprint fingerprint(File source) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getAbsolutePath(), bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("无法解析图片尺寸: " + source.getName());
+        }
+
+        int sampleSize = 1;
+        while (Math.min(bounds.outWidth, bounds.outHeight) / (sampleSize * 2) >= DECODE_MIN_SIDE) {
+            sampleSize *= 2;
+        }
+        BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+        decodeOptions.inSampleSize = sampleSize;
+        decodeOptions.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap bitmap = BitmapFactory.decodeFile(source.getAbsolutePath(), decodeOptions);
+        if (bitmap == null) {
+            throw new IOException("无法解码图片: " + source.getName());
+        }
+
+        int rotation = ImagePreparer.readRotation(source);
+        Fingerprint fingerprint = new Fingerprint();
+        fingerprint.width = ImageSizing.orientedWidth(bounds.outWidth, bounds.outHeight, rotation);
+        fingerprint.height = ImageSizing.orientedHeight(bounds.outWidth, bounds.outHeight, rotation);
+        fingerprint.contentHash = sha256(source);
+        if (rotation != 0) {
+            Matrix matrix = new Matrix();
+            matrix.postRotate(rotation);
+            Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, false);
+            if (rotated != bitmap) {
+                bitmap.recycle();
+                bitmap = rotated;
+            }
+        }
+
+        try {
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            int[] pixels = new int[width * height];
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            for (int i = 0; i < pixels.length; i++) {
+                int color = pixels[i];
+                pixels[i] = (77 * Color.red(color) + 150 * Color.green(color) + 29 * Color.blue(color)) >> 8;
+            }
+            fingerprint.hash = dHash(pixels, width, height);
+            return fingerprint;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static String sha256(File source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[Streams.BUFFER_SIZE];
+        try (InputStream inputStream = new FileInputStream(source)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder builder = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 由亮度数据计算dHash：按面积平均缩小为9x8网格，每行相邻两格左侧更亮记为1
+     */
+    static long dHash(int[] luminance, int width, int height) {
+        long[] sums = new long[GRID_WIDTH * GRID_HEIGHT];
+        int[] counts = new int[GRID_WIDTH * GRID_HEIGHT];
+        for (int y = 0; y < height; y++) {
+            int row = y * GRID_HEIGHT / height;
+            for (int x = 0; x < width; x++) {
+                int cell = row * GRID_WIDTH + x * GRID_WIDTH / width;
+                sums[cell] += luminance[y * width + x];
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        for (int row = 0; row < GRID_HEIGHT; row++) {
+            for (int column = 0; column < GRID_WIDTH - 1; column++) {
+                int left = row * GRID_WIDTH + column;
+                // 比较平均值时交叉相乘，避免除法取整
+                boolean brighter = sums[left] * Math.max(1, counts[left + 1])
+                    > sums[left + 1] * Math.max(1, counts[left]);
+                hash = (hash << 1) | (brighter ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 两个指纹的汉明距离
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    public static String toHex(long hash) {
+        return String.format(Locale.US, "%016x", hash);
+    }
+
+    /**
+     * 解析16位十六进制指纹，格式错误时抛出NumberFormatException
+     */
+    public static long fromHex(String hex) {
+        if (hex == null || hex.length() != 16) {
+            throw new NumberFormatException("指纹格式错误: " + hex);
+        }
+        // Long.parseUnsignedLong需要API 26
+        return new BigInteger(hex, 16).longValue();
+    }
+}
@@ -0,0 +1,434 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 票据图片预处理
+ * 识别前在原生层裁掉截图的状态栏/导航栏和四周的纯色边距，可选转为灰度并拉伸对比度，
+ * 超长截图（如账单列表长截屏）在内容空白处切分为多张，减少视觉识别的图片token
+ */
+public class ReceiptPreprocessor {
+    private static final String TAG = "ReceiptPreprocessor";
+
+    public static final String TRANSFORM_ROTATE = "rotate";
+    public static final String TRANSFORM_CROP_STATUS_BAR = "crop-status-bar";
+    public static final String TRANSFORM_CROP_NAVIGATION_BAR = "crop-navigation-bar";
+    public static final String TRANSFORM_CROP_BORDERS = "crop-borders";
+    public static final String TRANSFORM_GRAYSCALE = "grayscale";
+    public static final String TRANSFORM_CONTRAST = "contrast";
+    public static final String TRANSFORM_SCALE = "scale";
+    public static final String TRANSFORM_TILE = "tile";
+
+    /** 输出宽度上限，票据文字在此宽度下仍清晰 */
+    public static final int DEFAULT_MAX_WIDTH = 1080;
+    /** 不切分时输出长边上限 */
+    private static final int MAX_DIMENSION = ImagePreparer.DEFAULT_MAX_DIMENSION;
+    /** 高宽比超过该值时切分 */
+    private static final float TILE_THRESHOLD = 3.0f;
+    /** 切片的目标高宽比 */
+    private static final float TILE_ASPECT = 1.6f;
+    private static final int MAX_TILES = 8;
+    /** 切点不在空白行时相邻切片的重叠高度（输出像素），避免切断文字 */
+    private static final int TILE_OVERLAP = 48;
+    /** 解码像素上限，超长截图据此降采样 */
+    private static final long MAX_DECODE_PIXELS = 12_000_000L;
+
+    /** 纯色判断：各通道与参考色之差不超过该值 */
+    private static final int UNIFORM_TOLERANCE = 16;
+    /** 一行（列）中与参考色一致的采样比例达到该值视为纯色 */
+    private static final float UNIFORM_RATIO = 0.98f;
+    /** 裁剪边距后保留的留白（解码像素） */
+    private static final int BORDER_PADDING = 8;
+    /** 裁剪后内容过小时视为空白图片，不裁剪 */
+    private static final int MIN_CONTENT = 32;
+    private static final int SAMPLES_PER_LINE = 256;
+    /** 对比度拉伸时两端忽略的像素比例 */
+    private static final float CONTRAST_CLIP = 0.01f;
+
+    /**
+     * 预处理参数
+     */
+    public static class Options {
+        public int maxWidth = DEFAULT_MAX_WIDTH;
+        public boolean cropSystemBars = true;
+        public boolean cropBorders = true;
+        public boolean grayscale = false;
+        public boolean tile = true;
+        public int quality = ImagePreparer.DEFAULT_QUALITY;
+        /** jpeg 或 webp */
+        public String format = "jpeg";
+        /** 屏幕物理尺寸与系统栏高度（像素），用于识别本机截图 */
+        public int screenWidth;
+        public int screenHeight;
+        public int statusBarHeight;
+        public int navigationBarHeight;
+    }
+
+    /**
+     * 输出的一张图片
+     */
+    public static class Tile {
+        public File file;
+        public int width;
+        public int height;
+        /** 在裁剪后整图中的起始位置（输出像素） */
+        public int top;
+    }
+
+    /**
+     * 预处理结果
+     */
+    public static class Result {
+        public int originalWidth;
+        public int originalHeight;
+        public int rotation;
+        public boolean screenshot;
+        /** 保留区域，原图坐标 */
+        public int cropLeft;
+        public int cropTop;
+        public int cropRight;
+        public int cropBottom;
+        public int contrastLow;
+        public int contrastHigh = 255;
+        public String mimeType;
+        public final List<String> transforms = new ArrayList<>();
+        public final List<Tile> tiles = new ArrayList<>();
+        public long outputBytes;
+    }
+
+    /**
+     * 预处理图片，输出文件写入directory，文件名以namePrefix开头
+     */
+    public static Result process(File source, File directory, String namePrefix, Options options) throws IOException {
+        long start = System.currentTimeMillis();
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getAbsolutePath(), bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("无法解析图片尺寸: " + source.getName());
+        }
+
+        Result result = new Result();
+        result.rotation = ImagePreparer.readRotation(source);
+        boolean swapped = result.rotation == 90 || result.rotation == 270;
+        result.originalWidth = swapped ? bounds.outHeight : bounds.outWidth;
+        result.originalHeight = swapped ? bounds.outWidth : bounds.outHeight;
+        result.screenshot = isScreenshot(result.originalWidth, result.originalHeight, options);
+
+        // 按宽度采样：长截图的高度不参与计算，否则文字会被缩得过小
+        int sampleSize = 1;
+        while (result.originalWidth / (sampleSize * 2) >= options.maxWidth) {
+            sampleSize *= 2;
+        }
+        while ((long) (result.originalWidth / sampleSize) * (result.originalHeight / sampleSize) > MAX_DECODE_PIXELS) {
+            sampleSize *= 2;
+        }
+        BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+        decodeOptions.inSampleSize = sampleSize;
+        decodeOptions.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap decoded = BitmapFactory.decodeFile(source.getAbsolutePath(), decodeOptions);
+        if (decoded == null) {
+            throw new IOException("无法解码图片: " + source.getName());
+        }
+
+        Bitmap bitmap = rotate(decoded, result.rotation);
+        if (result.rotation != 0) {
+            result.transforms.add(TRANSFORM_ROTATE);
+        }
+        try {
+            float toDecoded = bitmap.getWidth() / (float) result.originalWidth;
+            Rect content = new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight());
+
+            if (options.cropSystemBars && result.screenshot) {
+                cropSystemBars(content, options, toDecoded, result);
+            }
+            if (options.cropBorders) {
+                Rect trimmed = trimBorders(bitmap, content);
+                if (!trimmed.equals(content)) {
+                    content = trimmed;
+                    result.transforms.add(TRANSFORM_CROP_BORDERS);
+                }
+            }
+            result.cropLeft = Math.round(content.left / toDecoded);
+            result.cropTop = Math.round(content.top / toDecoded);
+            result.cropRight = Math.min(result.originalWidth, Math.round(content.right / toDecoded));
+            result.cropBottom = Math.min(result.originalHeight, Math.round(content.bottom / toDecoded));
+
+            ColorMatrix colorMatrix = options.grayscale ? grayscaleMatrix(bitmap, content, result) : null;
+            try {
+                render(bitmap, content, colorMatrix, directory, namePrefix, options, result);
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                // 不留下不完整的切片
+                for (Tile tile : result.tiles) {
+                    tile.file.delete();
+                }
+                throw e;
+            }
+        } finally {
+            bitmap.recycle();
+        }
+
+        result.mimeType = "webp".equals(options.format) ? "image/webp" : "image/jpeg";
+        Log.d(TAG, "🧾 票据预处理完成: " + result.originalWidth + "x" + result.originalHeight + " -> "
+            + result.tiles.size() + " 张, " + result.transforms + ", 大小: " + source.length() + " -> "
+            + result.outputBytes + ", 耗时: " + (System.currentTimeMillis() - start) + "ms");
+        return result;
+    }
+
+    /**
+     * 宽度与屏幕一致、高度不小于屏幕的图片视为本机截图（含滚动长截屏）
+     */
+    static boolean isScreenshot(int width, int height, Options options) {
+        if (options.screenWidth <= 0 || options.screenHeight <= 0) {
+            return false;
+        }
+        int shortSide = Math.min(options.screenWidth, options.screenHeight);
+        int longSide = Math.max(options.screenWidth, options.screenHeight);
+        return width == shortSide && height >= longSide;
+    }
+
+    private static void cropSystemBars(Rect content, Options options, float toDecoded, Result result) {
+        int statusBar = Math.round(options.statusBarHeight * toDecoded);
+        if (statusBar > 0 && statusBar < content.height() / 4) {
+            content.top += statusBar;
+            result.transforms.add(TRANSFORM_CROP_STATUS_BAR);
+        }
+        int navigationBar = Math.round(options.navigationBarHeight * toDecoded);
+        if (navigationBar > 0 && navigationBar < content.height() / 4) {
+            content.bottom -= navigationBar;
+            result.transforms.add(TRANSFORM_CROP_NAVIGATION_BAR);
+        }
+    }
+
+    /**
+     * 从四边向内跳过纯色的行和列，保留少量留白
+     */
+    static Rect trimBorders(Bitmap bitmap, Rect bounds) {
+        int[] line = new int[Math.max(bounds.width(), bounds.height())];
+        Rect rect = new Rect(bounds);
+        while (rect.height() > MIN_CONTENT && uniformity(bitmap, rect.left, rect.top, rect.width(), true, line) >= UNIFORM_RATIO) {
+            rect.top++;
+        }
+        while (rect.height() > MIN_CONTENT && uniformity(bitmap, rect.left, rect.bottom - 1, rect.width(), true, line) >= UNIFORM_RATIO) {
+            rect.bottom--;
+        }
+        while (rect.width() > MIN_CONTENT && uniformity(bitmap, rect.left, rect.top, rect.height(), false, line) >= UNIFORM_RATIO) {
+            rect.left++;
+        }
+        while (rect.width() > MIN_CONTENT && uniformity(bitmap, rect.right - 1, rect.top, rect.height(), false, line) >= UNIFORM_RATIO) {
+            rect.right--;
+        }
+        if (rect.width() <= MIN_CONTENT || rect.height() <= MIN_CONTENT) {
+            // 几乎是空白图片，保持原样交给识别服务判断
+            return new Rect(bounds);
+        }
+        rect.left = Math.max(bounds.left, rect.left - BORDER_PADDING);
+        rect.top = Math.max(bounds.top, rect.top - BORDER_PADDING);
+        rect.right = Math.min(bounds.right, rect.right + BORDER_PADDING);
+        rect.bottom = Math.min(bounds.bottom, rect.bottom + BORDER_PADDING);
+        return rect;
+    }
+
+    /**
+     * 一行（或一列）中与首个像素颜色一致的采样比例
+     */
+    private static float uniformity(Bitmap bitmap, int x, int y, int length, boolean horizontal, int[] line) {
+        if (horizontal) {
+            bitmap.getPixels(line, 0, length, x, y, length, 1);
+        } else {
+            bitmap.getPixels(line, 0, 1, x, y, 1, length);
+        }
+        int step = Math.max(1, length / SAMPLES_PER_LINE);
+        int reference = line[0];
+        int samples = 0;
+        int matched = 0;
+        for (int i = 0; i < length; i += step) {
+            samples++;
+            if (isClose(line[i], reference)) {
+                matched++;
+            }
+        }
+        return matched / (float) samples;
+    }
+
+    private static boolean isClose(int a, int b) {
+        return Math.abs(Color.red(a) - Color.red(b)) <= UNIFORM_TOLERANCE
+            && Math.abs(Color.green(a) - Color.green(b)) <= UNIFORM_TOLERANCE
+            && Math.abs(Color.blue(a) - Color.blue(b)) <= UNIFORM_TOLERANCE;
+    }
+
+    /**
+     * 去色并按亮度分布拉伸对比度（忽略两端各1%的像素）
+     */
+    private static ColorMatrix grayscaleMatrix(Bitmap bitmap, Rect content, Result result) {
+        ColorMatrix matrix = new ColorMatrix();
+        matrix.setSaturation(0);
+        result.transforms.add(TRANSFORM_GRAYSCALE);
+
+        int[] histogram = new int[256];
+        int[] row = new int[content.width()];
+        int rowStep = Math.max(1, content.height() / 512);
+        int columnStep = Math.max(1, content.width() / SAMPLES_PER_LINE);
+        int total = 0;
+        for (int y = content.top; y < content.bottom; y += rowStep) {
+            bitmap.getPixels(row, 0, content.width(), content.left, y, content.width(), 1);
+            for (int x = 0; x < row.length; x += columnStep) {
+                int color = row[x];
+                histogram[(77 * Color.red(color) + 150 * Color.green(color) + 29 * Color.blue(color)) >> 8]++;
+                total++;
+            }
+        }
+
+        int clip = (int) (total * CONTRAST_CLIP);
+        int low = 0;
+        for (int count = 0; low < 255 && (count += histogram[low]) <= clip; ) {
+            low++;
+        }
+        int high = 255;
+        for (int count = 0; high > 0 && (count += histogram[high]) <= clip; ) {
+            high--;
+        }
+        // 已经占满亮度范围或几乎是纯色时不拉伸
+        if (high - low >= 16 && (low > 0 || high < 255)) {
+            float scale = 255f / (high - low);
+            float translate = -low * scale;
+            matrix.postConcat(new ColorMatrix(new float[]{
+                scale, 0, 0, 0, translate,
+                0, scale, 0, 0, translate,
+                0, 0, scale, 0, translate,
+                0, 0, 0, 1, 0,
+            }));
+            result.contrastLow = low;
+            result.contrastHigh = high;
+            result.transforms.add(TRANSFORM_CONTRAST);
+        }
+        return matrix;
+    }
+
+    private static void render(Bitmap bitmap, Rect content, ColorMatrix colorMatrix, File directory, String namePrefix,
+                               Options options, Result result) throws IOException {
+        float scale = Math.min(1f, options.maxWidth / (float) content.width());
+        int outWidth = Math.max(1, Math.round(content.width() * scale));
+        int outHeight = Math.max(1, Math.round(content.height() * scale));
+        boolean tile = options.tile && outHeight > outWidth * TILE_THRESHOLD;
+        if (!tile && Math.max(outWidth, outHeight) > MAX_DIMENSION) {
+            scale *= MAX_DIMENSION / (float) Math.max(outWidth, outHeight);
+            outWidth = Math.max(1, Math.round(content.width() * scale));
+            outHeight = Math.max(1, Math.round(content.height() * scale));
+        }
+        if (outWidth < result.cropRight - result.cropLeft) {
+            result.transforms.add(TRANSFORM_SCALE);
+        }
+
+        List<int[]> bands = tile ? planTiles(bitmap, content, scale, outWidth, outHeight) : null;
+        if (bands == null || bands.size() < 2) {
+            bands = new ArrayList<>();
+            bands.add(new int[]{0, outHeight});
+        } else {
+            result.transforms.add(TRANSFORM_TILE);
+        }
+
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        if (colorMatrix != null) {
+            paint.setColorFilter(new ColorMatrixColorFilter(colorMatrix));
+        }
+        Bitmap.CompressFormat format = ImagePreparer.resolveFormat(options.format);
+        String extension = "webp".equals(options.format) ? ".webp" : ".jpg";
+        int quality = Math.max(1, Math.min(100, options.quality));
+
+        for (int i = 0; i < bands.size(); i++) {
+            int[] band = bands.get(i);
+            int bandHeight = band[1] - band[0];
+            Rect src = new Rect(content.left, content.top + (int) (band[0] / scale),
+                content.right, Math.min(content.bottom, content.top + (int) Math.ceil(band[1] / scale)));
+            Bitmap output = Bitmap.createBitmap(outWidth, bandHeight, Bitmap.Config.ARGB_8888);
+            try {
+                Canvas canvas = new Canvas(output);
+                canvas.drawColor(Color.WHITE);
+                canvas.drawBitmap(bitmap, src, new Rect(0, 0, outWidth, bandHeight), paint);
+
+                File target = new File(directory, namePrefix + "_" + i + extension);
+                try (OutputStream outputStream = new FileOutputStream(target)) {
+                    if (!output.compress(format, quality, outputStream)) {
+                        throw new IOException("图片编码失败");
+                    }
+                }
+                Tile tileResult = new Tile();
+                tileResult.file = target;
+                tileResult.width = outWidth;
+                tileResult.height = bandHeight;
+                tileResult.top = band[0];
+                result.tiles.add(tileResult);
+                result.outputBytes += target.length();
+            } finally {
+                output.recycle();
+            }
+        }
+    }
+
+    /**
+     * 规划切片（输出像素坐标）：在每片末尾1/4范围内寻找最接近空白的行作为切点，
+     * 找不到空白行时相邻切片保留重叠，避免切断文字
+     */
+    private static List<int[]> planTiles(Bitmap bitmap, Rect content, float scale, int outWidth, int outHeight) {
+        int tileHeight = Math.max(Math.round(outWidth * TILE_ASPECT), (outHeight + MAX_TILES - 1) / MAX_TILES);
+        int overlap = Math.min(TILE_OVERLAP, tileHeight / 4);
+        int[] line = new int[content.width()];
+        List<int[]> bands = new ArrayList<>();
+        int start = 0;
+        while (start < outHeight) {
+            int end = start + tileHeight;
+            if (outHeight - end < tileHeight / 4) {
+                // 剩余部分过短时并入当前切片
+                bands.add(new int[]{start, outHeight});
+                break;
+            }
+
+            int searchFrom = start + tileHeight * 3 / 4;
+            int step = Math.max(1, (end - searchFrom) / 64);
+            int cut = end;
+            float best = -1f;
+            for (int y = end; y >= searchFrom; y -= step) {
+                int sourceY = Math.min(content.bottom - 1, content.top + (int) (y / scale));
+                float score = uniformity(bitmap, content.left, sourceY, content.width(), true, line);
+                if (score > best) {
+                    best = score;
+                    cut = y;
+                }
+            }
+
+            bands.add(new int[]{start, cut});
+            start = best >= UNIFORM_RATIO ? cut : cut - overlap;
+        }
+        return bands;
+    }
+
+    private static Bitmap rotate(Bitmap source, int rotation) {
+        if (rotation == 0) {
+            return source;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        Bitmap rotated = Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+        if (rotated != source) {
+            source.recycle();
+        }
+        return rotated;
+    }
+}
@@ -0,0 +1,246 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 图片识别结果缓存
+ * 以图片感知哈希为键保存最近的识别结果，重复分享同一张截图时可直接复用，不必再次调用视觉识别；
+ * 文件内容完全相同时直接命中，否则只在原图尺寸一致的记录中按汉明距离匹配，避免同一应用的不同票据被当成重复；
+ * 索引保存在应用私有目录的一个JSON文件中，先写临时文件再重命名；内存严重不足时释放内存中的记录，下次使用时重新读取
+ */
+public class RecognitionResultCache implements MemoryPressureCoordinator.Trimmable {
+    private static final String TAG = "RecognitionResultCache";
+    private static final String FILE_NAME = "recognition_cache.json";
+
+    /** 最多保留的记录数，超出时淘汰最早的 */
+    private static final int MAX_ENTRIES = 200;
+    /** 记录有效期，过期的识别结果不再复用 */
+    private static final long MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private static RecognitionResultCache instance;
+
+    /**
+     * 一条识别记录
+     */
+    public static class Entry {
+        public long hash;
+        /** 文件内容的SHA-256 */
+        public String contentHash;
+        /** 按EXIF方向校正后的原图尺寸 */
+        public int width;
+        public int height;
+        /** 识别结果JSON */
+        public String result;
+        public String accountBookId;
+        public long createdAt;
+    }
+
+    /**
+     * 近似匹配结果
+     */
+    public static class Match {
+        public final Entry entry;
+        public final int distance;
+        /** 文件内容完全相同 */
+        public final boolean exact;
+
+        Match(Entry entry, int distance, boolean exact) {
+            this.entry = entry;
+            this.distance = distance;
+            this.exact = exact;
+        }
+    }
+
+    private final File file;
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean loaded;
+
+    public static synchronized RecognitionResultCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new RecognitionResultCache(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+            MemoryPressureCoordinator.getInstance(context).register(TAG, instance);
+        }
+        return instance;
+    }
+
+    private RecognitionResultCache(File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * 查找近似记录：内容哈希相同的优先；否则在尺寸一致的记录中取汉明距离不超过threshold的最近一条，距离相同时取较新的。
+     * accountBookId不为空时只在该账本的记录中查找
+     */
+    public synchronized Match findNearest(PerceptualHash.Fingerprint fingerprint, int threshold, String accountBookId) {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        boolean bestExact = false;
+        for (Entry entry : entries) {
+            if (now - entry.createdAt > MAX_AGE_MS) {
+                continue;
+            }
+            if (accountBookId != null && !accountBookId.equals(entry.accountBookId)) {
+                continue;
+            }
+            int distance = PerceptualHash.distance(fingerprint.hash, entry.hash);
+            boolean exact = fingerprint.contentHash.equals(entry.contentHash);
+            if (!exact && (distance > threshold
+                || entry.width != fingerprint.width || entry.height != fingerprint.height)) {
+                continue;
+            }
+            boolean better = best == null
+                || (exact && !bestExact)
+                || (exact == bestExact && (distance < bestDistance
+                    || (distance == bestDistance && entry.createdAt > best.createdAt)));
+            if (better) {
+                best = entry;
+                bestDistance = distance;
+                bestExact = exact;
+            }
+        }
+        return best != null ? new Match(best, bestDistance, bestExact) : null;
+    }
+
+    /**
+     * 保存识别结果，同一账本下指纹完全相同的旧记录被替换
+     */
+    public synchronized void put(PerceptualHash.Fingerprint fingerprint, String result, String accountBookId) {
+        ensureLoaded();
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry existing = iterator.next();
+            if (existing.hash == fingerprint.hash && existing.contentHash.equals(fingerprint.contentHash)
+                && equals(existing.accountBookId, accountBookId)) {
+                iterator.remove();
+            }
+        }
+
+        Entry entry = new Entry();
+        entry.hash = fingerprint.hash;
+        entry.contentHash = fingerprint.contentHash;
+        entry.width = fingerprint.width;
+        entry.height = fingerprint.height;
+        entry.result = result;
+        entry.accountBookId = accountBookId;
+        entry.createdAt = System.currentTimeMillis();
+        entries.add(entry);
+        while (entries.size() > MAX_ENTRIES) {
+            entries.remove(0);
+        }
+        save();
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        loaded = true;
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "删除识别缓存文件失败: " + file.getAbsolutePath());
+        }
+    }
+
+    @Override
+    public synchronized long onMemoryPressure(MemoryPressureCoordinator.Tier tier) {
+        if (tier != MemoryPressureCoordinator.Tier.EVICT || !loaded) {
+            return 0;
+        }
+        long released = 0;
+        for (Entry entry : entries) {
+            released += (entry.result != null ? 2L * entry.result.length() : 0) + 64;
+        }
+        entries.clear();
+        loaded = false;
+        return released;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private void load() {
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] data = Streams.readAll(inputStream, file.length());
+            JSONArray array = new JSONArray(new String(data, StandardCharsets.UTF_8));
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject object = array.getJSONObject(i);
+                Entry entry = new Entry();
+                entry.hash = PerceptualHash.fromHex(object.getString("hash"));
+                entry.contentHash = object.getString("contentHash");
+                entry.width = object.getInt("width");
+                entry.height = object.getInt("height");
+                entry.result = object.getString("result");
+                entry.accountBookId = object.isNull("accountBookId") ? null : object.optString("accountBookId", null);
+                entry.createdAt = object.getLong("createdAt");
+                if (now - entry.createdAt <= MAX_AGE_MS) {
+                    entries.add(entry);
+                }
+            }
+            Log.d(TAG, "已加载识别缓存: " + entries.size() + " 条");
+        } catch (IOException | JSONException | NumberFormatException e) {
+            // 索引损坏时丢弃，只是少了可复用的结果
+            Log.w(TAG, "读取识别缓存失败，已重置", e);
+            entries.clear();
+        }
+    }
+
+    private void save() {
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream outputStream = new FileOutputStream(temp)) {
+            JSONArray array = new JSONArray();
+            for (Entry entry : entries) {
+                JSONObject object = new JSONObject();
+                object.put("hash", PerceptualHash.toHex(entry.hash));
+                object.put("contentHash", entry.contentHash);
+                object.put("width", entry.width);
+                object.put("height", entry.height);
+                object.put("result", entry.result);
+                object.put("accountBookId", entry.accountBookId != null ? entry.accountBookId : JSONObject.NULL);
+                object.put("createdAt", entry.createdAt);
+                array.put(object);
+            }
+            outputStream.write(array.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "❌ 保存识别缓存失败", e);
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.e(TAG, "❌ 替换识别缓存文件失败");
+        }
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
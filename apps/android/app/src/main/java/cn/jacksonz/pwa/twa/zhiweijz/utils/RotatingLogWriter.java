@@ -0,0 +1,261 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.util.Log;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+import cn.jacksonz.pwa.twa.zhiweijz.core.log.LogLineFormatter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 日志文件写入器
+ * Web层日志先进入内存环形缓冲区，由后台线程批量写入按大小轮转的日志文件，
+ * 调用方线程只做入队，不做磁盘IO。
+ * 从缓冲区取出一批到写完文件都持有directory锁，flush、导出和清除也先取该锁，避免日志乱序或导出时漏掉正在写的一批；
+ * 需要同时持有两把锁时先取directory锁再取this
+ */
+public class RotatingLogWriter implements MemoryPressureCoordinator.Trimmable {
+    private static final String TAG = "RotatingLogWriter";
+
+    public static final String FILE_NAME = "web.log";
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+    private static final int MAX_FILES = 5;
+    /** 环形缓冲区容量，写入线程跟不上时丢弃最旧的日志 */
+    private static final int BUFFER_CAPACITY = 2000;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    /**
+     * 日志条目
+     */
+    public static class Entry {
+        public final long timestamp;
+        public final String level;
+        public final String tag;
+        public final String message;
+
+        public Entry(long timestamp, String level, String tag, String message) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+        }
+    }
+
+    private final File directory;
+    private final ArrayDeque<Entry> buffer = new ArrayDeque<>();
+    /** 只在持有directory锁的写入过程中使用 */
+    private final LogLineFormatter formatter = new LogLineFormatter();
+    private Thread writerThread;
+    private long droppedCount = 0;
+    private boolean running = false;
+
+    public RotatingLogWriter(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 启动后台写入线程；未主动启动时在首次写入日志时启动
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drainLoop, "LogBridge-Writer");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    /**
+     * 停止写入线程，缓冲区中的日志会在退出前写完
+     */
+    public synchronized void stop() {
+        running = false;
+        notifyAll();
+    }
+
+    public synchronized void append(Entry entry) {
+        if (writerThread == null) {
+            start();
+        }
+        if (buffer.size() >= BUFFER_CAPACITY) {
+            buffer.pollFirst();
+            droppedCount++;
+        }
+        buffer.addLast(entry);
+        // 积压过半时提前唤醒写入线程，不等待定时刷新
+        if (buffer.size() == BUFFER_CAPACITY / 2) {
+            notifyAll();
+        }
+    }
+
+    public synchronized void appendAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            append(entry);
+        }
+    }
+
+    /**
+     * 立即写入缓冲区中的日志（导出前调用）
+     */
+    public void flush() {
+        synchronized (directory) {
+            writeBatch(takeBatch());
+        }
+    }
+
+    /**
+     * 按时间顺序返回所有日志文件（最旧的在前）
+     */
+    public List<File> getLogFiles() {
+        List<File> files = new ArrayList<>();
+        for (int i = MAX_FILES - 1; i >= 1; i--) {
+            File rotated = new File(directory, FILE_NAME + "." + i);
+            if (rotated.exists()) {
+                files.add(rotated);
+            }
+        }
+        File current = new File(directory, FILE_NAME);
+        if (current.exists()) {
+            files.add(current);
+        }
+        return files;
+    }
+
+    /**
+     * 将所有日志文件合并导出到目标文件
+     */
+    public File exportTo(File target) throws IOException {
+        synchronized (directory) {
+            flush();
+            try (OutputStream outputStream = new FileOutputStream(target)) {
+                for (File file : getLogFiles()) {
+                    try (InputStream inputStream = new FileInputStream(file)) {
+                        Streams.copy(inputStream, outputStream);
+                    }
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 删除所有日志文件
+     */
+    public void clear() {
+        synchronized (directory) {
+            synchronized (this) {
+                buffer.clear();
+            }
+            for (File file : getLogFiles()) {
+                if (!file.delete()) {
+                    Log.w(TAG, "删除日志文件失败: " + file.getName());
+                }
+            }
+        }
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * 内存紧张时唤醒写入线程立即写出缓冲区，不等待定时刷新，也不在回调线程上写文件
+     */
+    @Override
+    public synchronized long onMemoryPressure(MemoryPressureCoordinator.Tier tier) {
+        if (tier != MemoryPressureCoordinator.Tier.LIGHT && !buffer.isEmpty()) {
+            notifyAll();
+        }
+        return 0;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            synchronized (this) {
+                if (running && buffer.isEmpty()) {
+                    try {
+                        wait(FLUSH_INTERVAL_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running && buffer.isEmpty()) {
+                    return;
+                }
+            }
+            // 等待时不能持有directory锁，否则flush和导出要等到定时刷新
+            synchronized (directory) {
+                writeBatch(takeBatch());
+            }
+        }
+    }
+
+    private synchronized List<Entry> takeBatch() {
+        List<Entry> batch = new ArrayList<>(buffer);
+        buffer.clear();
+        return batch;
+    }
+
+    /**
+     * 写入一批日志，调用方需持有directory锁，并在同一锁内用takeBatch取出该批
+     */
+    private void writeBatch(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "创建日志目录失败: " + directory.getAbsolutePath());
+            return;
+        }
+        File current = new File(directory, FILE_NAME);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(current, true), StandardCharsets.UTF_8))) {
+            for (Entry entry : batch) {
+                writer.append(formatter.format(entry.timestamp, entry.level, entry.tag, entry.message));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "❌ 写入日志文件失败", e);
+            return;
+        }
+        if (current.length() >= MAX_FILE_BYTES) {
+            rotate();
+        }
+    }
+
+    private void rotate() {
+        File oldest = new File(directory, FILE_NAME + "." + (MAX_FILES - 1));
+        if (oldest.exists() && !oldest.delete()) {
+            Log.w(TAG, "删除最旧日志文件失败");
+        }
+        for (int i = MAX_FILES - 2; i >= 1; i--) {
+            File source = new File(directory, FILE_NAME + "." + i);
+            if (source.exists() && !source.renameTo(new File(directory, FILE_NAME + "." + (i + 1)))) {
+                Log.w(TAG, "轮转日志文件失败: " + source.getName());
+            }
+        }
+        File current = new File(directory, FILE_NAME);
+        if (!current.renameTo(new File(directory, FILE_NAME + ".1"))) {
+            Log.w(TAG, "轮转当前日志文件失败");
+        }
+    }
+}
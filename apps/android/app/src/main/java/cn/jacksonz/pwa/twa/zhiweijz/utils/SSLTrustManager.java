@@ -1,36 +1,36 @@
 package cn.jacksonz.pwa.twa.zhiweijz.utils;
 
-import android.app.AlertDialog;
-import android.content.Context;
 import android.util.Log;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.trust.TrustPolicy;
+
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import javax.net.ssl.X509TrustManager;
 
 /**
- * 自定义SSL信任管理器
- * 在证书验证失败时提供用户选择
+ * 按主机划分的SSL信任管理器
+ * 系统证书校验失败时，接受该主机已固定指纹的叶子证书；其余情况（含用户已允许但未看到指纹的主机）
+ * 交由CertificateDecisionCoordinator显示指纹并等待用户决定，握手线程在等待期间阻塞而不是立即失败
  */
 public class SSLTrustManager implements X509TrustManager {
     private static final String TAG = "SSLTrustManager";
+    /** 等待用户决定的时间，超时的握手失败，提示保留到用户作出选择 */
+    private static final long DECISION_TIMEOUT_MS = 30_000;
+    private final String host;
     private final X509TrustManager defaultTrustManager;
-    private final Context context;
-    private boolean userAllowedUntrusted = false;
+    private final CertificatePinStore pinStore;
+    private volatile String lastRejectedFingerprint;
 
-    public SSLTrustManager(X509TrustManager defaultTrustManager, Context context) {
+    public SSLTrustManager(String host, X509TrustManager defaultTrustManager, CertificatePinStore pinStore) {
+        this.host = host;
         this.defaultTrustManager = defaultTrustManager;
-        this.context = context;
+        this.pinStore = pinStore;
     }
 
     @Override
     public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-        try {
-            defaultTrustManager.checkClientTrusted(chain, authType);
-        } catch (CertificateException e) {
-            if (!userAllowedUntrusted) {
-                handleUntrustedCertificate(e, "客户端证书");
-            }
-        }
+        defaultTrustManager.checkClientTrusted(chain, authType);
     }
 
     @Override
@@ -38,9 +38,15 @@ public class SSLTrustManager implements X509TrustManager {
         try {
             defaultTrustManager.checkServerTrusted(chain, authType);
         } catch (CertificateException e) {
-            if (!userAllowedUntrusted) {
-                handleUntrustedCertificate(e, "服务器证书");
+            if (chain == null || chain.length == 0) {
+                throw e;
             }
+            X509Certificate leaf = chain[0];
+            String fingerprint = CertificatePinStore.fingerprint(leaf);
+            if (TrustPolicy.decide(host, fingerprint, pinStore) == TrustPolicy.Decision.ACCEPT_PINNED) {
+                return;
+            }
+            handleUntrustedCertificate(e, leaf);
         }
     }
 
@@ -50,62 +56,45 @@ public class SSLTrustManager implements X509TrustManager {
     }
 
     /**
-     * 处理不受信任的证书
+     * 处理不受信任的证书：等待用户决定，并发握手共享同一次提示
+     * 用户允许后证书已由协调器的监听者固定，本次握手直接通过
      */
-    private void handleUntrustedCertificate(CertificateException originalException, String certificateType) throws CertificateException {
-        Log.w(TAG, "检测到不受信任的" + certificateType + ": " + originalException.getMessage());
-        
-        // 在主线程中显示对话框
-        if (context instanceof android.app.Activity) {
-            android.app.Activity activity = (android.app.Activity) context;
-            activity.runOnUiThread(() -> {
-                showSecurityWarningDialog(originalException, certificateType);
-            });
+    private void handleUntrustedCertificate(CertificateException originalException, X509Certificate leaf) throws CertificateException {
+        Log.w(TAG, "检测到不受信任的服务器证书: " + host + ", " + originalException.getMessage());
+        lastRejectedFingerprint = CertificatePinStore.fingerprint(leaf);
+
+        CertificateDecisionCoordinator.Decision decision =
+            CertificateDecisionCoordinator.getInstance().awaitDecision(host, leaf, DECISION_TIMEOUT_MS);
+        if (decision == CertificateDecisionCoordinator.Decision.ALLOWED) {
+            return;
         }
-        
-        // 如果用户没有允许，抛出原始异常
-        if (!userAllowedUntrusted) {
-            throw originalException;
+        if (decision == CertificateDecisionCoordinator.Decision.DENIED) {
+            throw new CertificateDecisionCoordinator.UserRejectedException("用户拒绝信任服务器证书: " + host, originalException);
         }
+        throw originalException;
     }
 
     /**
-     * 显示安全警告对话框
+     * 信任该主机：只固定用户在提示中看到的指纹；没有显示过指纹时仅记为待确认，
+     * 下一次握手仍会显示实际证书的指纹询问用户
+     * @param shownFingerprint 提示中显示给用户的证书指纹，可为null
      */
-    private void showSecurityWarningDialog(CertificateException exception, String certificateType) {
-        new AlertDialog.Builder(context)
-            .setTitle("⚠️ 安全警告")
-            .setMessage("检测到不受信任的" + certificateType + "。\n\n" +
-                       "这可能是因为：\n" +
-                       "• 服务器使用自签名证书\n" +
-                       "• 证书已过期或无效\n" +
-                       "• 连接可能不安全\n\n" +
-                       "是否仍要继续连接？")
-            .setPositiveButton("继续连接", (dialog, which) -> {
-                userAllowedUntrusted = true;
-                Log.i(TAG, "用户选择信任不受信任的证书");
-                dialog.dismiss();
-            })
-            .setNegativeButton("取消", (dialog, which) -> {
-                userAllowedUntrusted = false;
-                Log.i(TAG, "用户拒绝信任不受信任的证书");
-                dialog.dismiss();
-            })
-            .setCancelable(false)
-            .show();
+    public void allowHost(String shownFingerprint) {
+        if (shownFingerprint != null) {
+            pinStore.pin(host, shownFingerprint);
+        } else {
+            pinStore.markPending(host);
+        }
     }
 
     /**
-     * 重置用户选择状态
+     * 最近一次未通过校验的叶子证书指纹，尚未遇到时返回null
      */
-    public void resetUserChoice() {
-        userAllowedUntrusted = false;
+    public String getLastRejectedFingerprint() {
+        return lastRejectedFingerprint;
     }
 
-    /**
-     * 检查用户是否已允许不受信任的证书
-     */
-    public boolean isUserAllowedUntrusted() {
-        return userAllowedUntrusted;
+    public String getHost() {
+        return host;
     }
-}
\ No newline at end of file
+}
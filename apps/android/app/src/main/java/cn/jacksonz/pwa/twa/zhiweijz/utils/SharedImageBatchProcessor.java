@@ -0,0 +1,180 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量分享图片处理器
+ * 使用有界线程池并行复制/预处理多张分享图片，并逐张回调处理进度；
+ * 内存紧张时降为单线程，同一时刻只有一张图片的解码位图驻留内存
+ */
+public class SharedImageBatchProcessor implements MemoryPressureCoordinator.Trimmable {
+    private static final String TAG = "SharedImageBatch";
+
+    /** 同时处理的图片数上限，避免多张大图同时解码导致内存不足 */
+    public static final int MAX_CONCURRENCY = 3;
+    /** 内存紧张后保持单线程的时长，之后提交新批次时恢复并发 */
+    private static final long THROTTLE_MS = 60 * 1000;
+
+    /**
+     * 单张图片的处理结果
+     */
+    public static class Item {
+        public int index;
+        public Uri sourceUri;
+        public String fileName;
+        public String mimeType;
+        public File file;
+        public ImagePreparer.Result prepared;
+        public String error;
+
+        public boolean isSuccess() {
+            return error == null && file != null;
+        }
+    }
+
+    /**
+     * 处理进度回调，在工作线程中调用
+     */
+    public interface Listener {
+        void onItemFinished(String batchId, Item item, int completed, int total);
+
+        void onBatchFinished(String batchId, int succeeded, int failed, long elapsedMs);
+    }
+
+    /**
+     * 文件名/类型解析，由插件提供（依赖ContentResolver查询）
+     */
+    public interface MetadataResolver {
+        String getFileName(Uri uri);
+
+        String getMimeType(Uri uri);
+    }
+
+    private final Context context;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger batchSequence = new AtomicInteger();
+    private final int concurrency;
+    private long throttledUntil;
+
+    public SharedImageBatchProcessor(Context context, int concurrency) {
+        this.context = context.getApplicationContext();
+        int threads = Math.max(1, Math.min(concurrency, MAX_CONCURRENCY));
+        this.concurrency = threads;
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交一批图片，立即返回批次ID，处理结果通过Listener逐张回调
+     *
+     * @param prepareOptions 为null时仅复制，不做缩放重编码
+     */
+    public String submit(List<Uri> uris, ImagePreparer.Options prepareOptions,
+                         MetadataResolver resolver, Listener listener) {
+        String batchId = "batch_" + System.currentTimeMillis() + "_" + batchSequence.incrementAndGet();
+        int total = uris.size();
+        long startTime = System.currentTimeMillis();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        restoreConcurrency();
+        Log.d(TAG, "📷 开始批量处理分享图片: " + batchId + ", 数量: " + total);
+
+        for (int i = 0; i < total; i++) {
+            final int index = i;
+            final Uri uri = uris.get(i);
+            executor.execute(() -> {
+                Item item = processItem(index, uri, prepareOptions, resolver);
+                if (!item.isSuccess()) {
+                    failed.incrementAndGet();
+                }
+
+                int done = completed.incrementAndGet();
+                listener.onItemFinished(batchId, item, done, total);
+
+                if (done == total) {
+                    long elapsed = System.currentTimeMillis() - startTime;
+                    Log.d(TAG, "✅ 批量处理完成: " + batchId + ", 耗时: " + elapsed + "ms, 失败: " + failed.get());
+                    listener.onBatchFinished(batchId, total - failed.get(), failed.get(), elapsed);
+                }
+            });
+        }
+        return batchId;
+    }
+
+    /**
+     * 停止处理并丢弃排队中的任务
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 正在处理的线程完成当前图片后退出，排队的图片由剩下的一个线程依次处理
+     */
+    @Override
+    public synchronized long onMemoryPressure(MemoryPressureCoordinator.Tier tier) {
+        if (tier == MemoryPressureCoordinator.Tier.LIGHT) {
+            return 0;
+        }
+        throttledUntil = SystemClock.elapsedRealtime() + THROTTLE_MS;
+        if (executor.getMaximumPoolSize() > 1) {
+            executor.setCorePoolSize(1);
+            executor.setMaximumPoolSize(1);
+            Log.i(TAG, "🧹 内存紧张，批量处理降为单线程");
+        }
+        return 0;
+    }
+
+    private synchronized void restoreConcurrency() {
+        if (executor.getMaximumPoolSize() < concurrency && SystemClock.elapsedRealtime() >= throttledUntil) {
+            executor.setMaximumPoolSize(concurrency);
+            executor.setCorePoolSize(concurrency);
+        }
+    }
+
+    private Item processItem(int index, Uri uri, ImagePreparer.Options prepareOptions, MetadataResolver resolver) {
+        Item item = new Item();
+        item.index = index;
+        item.sourceUri = uri;
+        File copied = null;
+        try {
+            item.fileName = resolver.getFileName(uri);
+            item.mimeType = resolver.getMimeType(uri);
+            copied = SharedImageStore.copyToCache(context, uri, item.fileName);
+
+            if (prepareOptions == null) {
+                item.file = copied;
+                return item;
+            }
+
+            String extension = "webp".equals(prepareOptions.format) ? ".webp" : ".jpg";
+            File target = new File(SharedImageStore.getDirectory(context),
+                "prepared_" + System.currentTimeMillis() + "_" + index + extension);
+            item.prepared = ImagePreparer.prepare(copied, target, prepareOptions);
+            MediaCacheJanitor.getInstance(context).onFileAdded(target);
+            item.file = target;
+            item.mimeType = item.prepared.mimeType;
+            if (!copied.delete()) {
+                Log.w(TAG, "删除临时文件失败: " + copied.getAbsolutePath());
+            }
+        } catch (Exception | OutOfMemoryError e) {
+            Log.e(TAG, "❌ 处理分享图片失败: " + uri, e);
+            item.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (copied != null && copied.exists() && !copied.delete()) {
+                Log.w(TAG, "删除临时文件失败: " + copied.getAbsolutePath());
+            }
+        }
+        return item;
+    }
+}
@@ -0,0 +1,124 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.core.content.FileProvider;
+
+import com.getcapacitor.Bridge;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分享图片存储助手类
+ * 将分享的内容URI流式复制到应用缓存目录，并生成WebView可直接加载的地址，
+ * 避免通过Base64字符串在桥接层传递整张图片
+ */
+public class SharedImageStore {
+    private static final String TAG = "SharedImageStore";
+
+    /** 缓存子目录，位于file_paths.xml中声明的cache-path之下 */
+    public static final String DIRECTORY_NAME = "shared_images";
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * 获取分享图片缓存目录
+     */
+    public static File getDirectory(Context context) {
+        File dir = new File(context.getCacheDir(), DIRECTORY_NAME);
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "创建分享图片目录失败: " + dir.getAbsolutePath());
+        }
+        return dir;
+    }
+
+    /**
+     * 将内容URI复制到缓存目录
+     *
+     * @return 复制后的文件
+     */
+    public static File copyToCache(Context context, Uri uri, String displayName) throws IOException {
+        ContentResolver contentResolver = context.getContentResolver();
+        File target = new File(getDirectory(context), buildFileName(displayName));
+
+        try (InputStream inputStream = contentResolver.openInputStream(uri)) {
+            if (inputStream == null) {
+                throw new IOException("无法读取图片数据: " + uri);
+            }
+            try (OutputStream outputStream = new FileOutputStream(target)) {
+                Streams.copy(inputStream, outputStream);
+            }
+        } catch (IOException e) {
+            if (target.exists() && !target.delete()) {
+                Log.w(TAG, "删除不完整的缓存文件失败: " + target.getAbsolutePath());
+            }
+            throw e;
+        }
+
+        Log.d(TAG, "📷 图片已复制到缓存: " + target.getAbsolutePath() + ", 大小: " + target.length());
+        MediaCacheJanitor.getInstance(context).onFileAdded(target);
+        return target;
+    }
+
+    /**
+     * 生成WebView可加载的本地地址（由Capacitor本地服务器提供，支持Range请求）
+     */
+    public static String toWebPath(Bridge bridge, File file) {
+        return bridge.getLocalUrl() + Bridge.CAPACITOR_FILE_START + file.getAbsolutePath();
+    }
+
+    /**
+     * 生成FileProvider内容URI，供其他组件或应用读取
+     */
+    public static Uri toContentUri(Context context, File file) {
+        return FileProvider.getUriForFile(context, context.getPackageName() + ".fileprovider", file);
+    }
+
+    /**
+     * 判断文件是否位于分享图片目录中，防止Web层删除任意文件
+     */
+    public static boolean isManagedFile(Context context, File file) {
+        return isWithin(getDirectory(context), file);
+    }
+
+    /**
+     * 判断文件是否位于应用缓存目录中（分享图片、录音、日志导出等临时文件），
+     * 防止Web层读取files、databases、shared_prefs等私有数据
+     */
+    public static boolean isCacheFile(Context context, File file) {
+        return isWithin(context.getCacheDir(), file);
+    }
+
+    private static boolean isWithin(File dir, File file) {
+        try {
+            String dirPath = dir.getCanonicalPath() + File.separator;
+            return file.getCanonicalPath().startsWith(dirPath);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String buildFileName(String displayName) {
+        String extension = ".jpg";
+        if (displayName != null) {
+            int dot = displayName.lastIndexOf('.');
+            if (dot >= 0 && dot < displayName.length() - 1) {
+                String candidate = displayName.substring(dot).toLowerCase();
+                if (candidate.matches("\\.[a-z0-9]{1,5}")) {
+                    extension = candidate;
+                }
+            }
+        }
+        return "shared_image_" + System.currentTimeMillis() + "_" + sequence.incrementAndGet() + extension;
+    }
+}
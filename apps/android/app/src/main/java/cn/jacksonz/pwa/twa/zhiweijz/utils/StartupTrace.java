@@ -0,0 +1,127 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 冷启动阶段记录
+ * 以进程启动时间为起点记录各阶段首次到达的时间（elapsedRealtime），
+ * 同一进程内Activity重建时不覆盖已有记录
+ */
+public class StartupTrace {
+    private static final String TAG = "StartupTrace";
+
+    public static final String PROCESS_START = "process_start";
+    public static final String ACTIVITY_CREATE = "activity_create";
+    public static final String PLUGINS_LOADED = "plugins_loaded";
+    public static final String BRIDGE_READY = "bridge_ready";
+    public static final String PAGE_STARTED = "page_started";
+    public static final String PAGE_VISIBLE = "page_visible";
+    public static final String PAGE_LOADED = "page_loaded";
+    public static final String WEB_INTERACTIVE = "web_interactive";
+
+    /** API 24以下无法获取进程启动时间，以本类加载时间近似 */
+    private static final long CLASS_LOADED_AT = SystemClock.elapsedRealtime();
+
+    private static final StartupTrace instance = new StartupTrace();
+
+    private final long processStart;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> pluginLoadMs = new LinkedHashMap<>();
+    private boolean coldStart = true;
+
+    public static StartupTrace getInstance() {
+        return instance;
+    }
+
+    private StartupTrace() {
+        processStart = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+            ? Process.getStartElapsedRealtime()
+            : CLASS_LOADED_AT;
+        phases.put(PROCESS_START, processStart);
+    }
+
+    /**
+     * 记录阶段到达时间，只记录首次
+     */
+    public synchronized void mark(String phase) {
+        if (phases.containsKey(phase)) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        phases.put(phase, now);
+        Log.d(TAG, "⏱️ " + phase + ": +" + (now - processStart) + "ms");
+        if (WEB_INTERACTIVE.equals(phase)) {
+            logSummary();
+        }
+    }
+
+    /**
+     * 记录插件load()耗时，只记录插件加载阶段结束前的首次加载
+     */
+    public synchronized void recordPluginLoad(String pluginName, long startElapsed) {
+        if (!phases.containsKey(PLUGINS_LOADED) && !pluginLoadMs.containsKey(pluginName)) {
+            pluginLoadMs.put(pluginName, SystemClock.elapsedRealtime() - startElapsed);
+        }
+    }
+
+    /**
+     * Activity重建或进程已存活时调用，此后的记录不代表冷启动
+     */
+    public synchronized void markWarmStart() {
+        if (phases.containsKey(ACTIVITY_CREATE)) {
+            coldStart = false;
+        }
+    }
+
+    public synchronized JSObject toJson() {
+        JSObject result = new JSObject();
+        result.put("coldStart", coldStart);
+        result.put("processStartSource", Build.VERSION.SDK_INT >= Build.VERSION_CODES.N ? "process" : "class_load");
+
+        JSArray phaseArray = new JSArray();
+        long previous = processStart;
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            JSObject phase = new JSObject();
+            phase.put("name", entry.getKey());
+            phase.put("sinceProcessStartMs", entry.getValue() - processStart);
+            phase.put("deltaMs", entry.getValue() - previous);
+            phaseArray.put(phase);
+            previous = entry.getValue();
+        }
+        result.put("phases", phaseArray);
+
+        JSObject plugins = new JSObject();
+        long totalLoadMs = 0;
+        for (Map.Entry<String, Long> entry : pluginLoadMs.entrySet()) {
+            plugins.put(entry.getKey(), entry.getValue());
+            totalLoadMs += entry.getValue();
+        }
+        result.put("pluginLoadMs", plugins);
+        result.put("pluginLoadTotalMs", totalLoadMs);
+        return result;
+    }
+
+    private void logSummary() {
+        StringBuilder summary = new StringBuilder("🚀 启动阶段耗时").append(coldStart ? "（冷启动）" : "");
+        long previous = processStart;
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            summary.append("\n  ").append(entry.getKey())
+                .append(": +").append(entry.getValue() - processStart).append("ms")
+                .append(" (Δ").append(entry.getValue() - previous).append("ms)");
+            previous = entry.getValue();
+        }
+        for (Map.Entry<String, Long> entry : pluginLoadMs.entrySet()) {
+            summary.append("\n  插件 ").append(entry.getKey()).append(" load: ").append(entry.getValue()).append("ms");
+        }
+        Log.i(TAG, summary.toString());
+    }
+}
@@ -0,0 +1,246 @@
+package cn.jacksonz.pwa.twa.zhiweijz.utils;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.WebView;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 原生到Web层的事件队列
+ * Web层就绪前事件在原生侧排队，Web层通过插件调用声明就绪后取走积压事件（或经由事件通道按顺序派发）；
+ * 就绪后的事件直接派发。页面重新加载时恢复为未就绪状态
+ * 分享等普通事件不会被丢弃；进度、网络状态等只需最新值的事件按key合并，积压过多时优先丢弃。
+ * 积压事件随Activity状态保存，进程被回收后恢复。
+ * 派发器未能送达的普通事件（如页面重新加载时通道中尚未确认的事件）经requeue交回，Web层再次就绪后重新派发
+ */
+public class WebEventQueue {
+    private static final String TAG = "WebEventQueue";
+
+    /** 积压事件上限，超出时丢弃最早的只需最新值的事件；普通事件不受此限制 */
+    private static final int MAX_PENDING = 50;
+
+    private static final String STATE_EVENTS = "web_event_queue.events";
+
+    /**
+     * 待派发事件
+     */
+    private static class PendingEvent {
+        final String name;
+        final String key;
+        final JSObject detail;
+        /** 只需最新值的事件，可被合并或在积压过多时丢弃 */
+        final boolean latestOnly;
+
+        PendingEvent(String name, String key, JSObject detail, boolean latestOnly) {
+            this.name = name;
+            this.key = key;
+            this.detail = detail;
+            this.latestOnly = latestOnly;
+        }
+    }
+
+    /**
+     * 事件派发器，在主线程调用；默认通过WebView执行脚本派发CustomEvent
+     * key不为空时，派发器可以合并尚未送达的同key事件；只有latestOnly的事件可以被派发器丢弃
+     */
+    public interface Dispatcher {
+        void dispatch(String name, String key, JSObject detail, boolean latestOnly);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<PendingEvent> pending = new ArrayList<>();
+    private Dispatcher dispatcher;
+    private boolean webReady = false;
+    /** 本次未就绪期间交回的事件插入位置：排在交回之后才发送的事件前面，保持发送顺序 */
+    private int requeueIndex = 0;
+
+    public WebEventQueue(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public synchronized void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * 基于WebView.evaluateJavascript的派发器
+     */
+    public static Dispatcher evaluateJavascriptDispatcher(WebView webView) {
+        return (name, key, detail, latestOnly) -> {
+            String jsCode = "window.dispatchEvent(new CustomEvent(" + JSObject.quote(name)
+                + ", { detail: " + detail.toString() + " }));";
+            webView.evaluateJavascript(jsCode, null);
+        };
+    }
+
+    /**
+     * 发送事件，Web层就绪前积压的事件不会被丢弃。key不为空时替换相同key的积压事件，避免重复投递同一个分享
+     */
+    public synchronized void post(String name, String key, JSObject detail) {
+        enqueue(name, key, detail, false);
+    }
+
+    /**
+     * 发送只需最新值的事件（进度、网络状态等）：相同key的积压事件被替换，积压过多时最早的此类事件被丢弃
+     */
+    public synchronized void postLatest(String name, String key, JSObject detail) {
+        enqueue(name, key, detail, true);
+    }
+
+    /**
+     * 派发器未能送达的事件交回队列（如页面重新加载时事件通道已关闭），Web层再次就绪后重新派发
+     * 交回的事件早于未就绪后新发送的事件，排在它们前面；队列中已有相同key的较新事件时不再保留
+     */
+    public synchronized void requeue(String name, String key, JSObject detail, boolean latestOnly) {
+        if (webReady) {
+            dispatchOnMain(name, key, detail, latestOnly);
+            return;
+        }
+        if (key != null) {
+            for (PendingEvent event : pending) {
+                if (name.equals(event.name) && key.equals(event.key)) {
+                    return;
+                }
+            }
+        }
+        requeueIndex = Math.min(requeueIndex, pending.size());
+        pending.add(requeueIndex++, new PendingEvent(name, key, detail, latestOnly));
+        Log.d(TAG, "↩️ 事件未送达，已重新排队: " + name + ", 积压: " + pending.size());
+    }
+
+    private void enqueue(String name, String key, JSObject detail, boolean latestOnly) {
+        if (webReady) {
+            dispatchOnMain(name, key, detail, latestOnly);
+            return;
+        }
+
+        if (key != null) {
+            Iterator<PendingEvent> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                PendingEvent event = iterator.next();
+                if (name.equals(event.name) && key.equals(event.key)) {
+                    iterator.remove();
+                }
+            }
+        }
+        if (pending.size() >= MAX_PENDING) {
+            dropOldestLatestOnly();
+        }
+        pending.add(new PendingEvent(name, key, detail, latestOnly));
+        Log.d(TAG, "📥 Web层未就绪，事件已排队: " + name + ", 积压: " + pending.size());
+    }
+
+    private void dropOldestLatestOnly() {
+        Iterator<PendingEvent> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            PendingEvent event = iterator.next();
+            if (event.latestOnly) {
+                iterator.remove();
+                Log.w(TAG, "⚠️ 积压事件过多，丢弃最早的状态事件: " + event.name);
+                return;
+            }
+        }
+        Log.w(TAG, "⚠️ 积压事件已达 " + pending.size() + " 个，均为不可丢弃的事件");
+    }
+
+    /**
+     * 保存积压事件，Activity被销毁（含进程回收）后由restoreState恢复
+     */
+    public synchronized void saveState(Bundle outState) {
+        ArrayList<String> events = new ArrayList<>();
+        for (PendingEvent event : pending) {
+            JSObject item = new JSObject();
+            item.put("name", event.name);
+            item.put("key", event.key);
+            item.put("detail", event.detail);
+            item.put("latestOnly", event.latestOnly);
+            events.add(item.toString());
+        }
+        outState.putStringArrayList(STATE_EVENTS, events);
+    }
+
+    /**
+     * 恢复saveState保存的积压事件
+     * @return 状态中没有保存过事件队列时返回false，调用方应重新投递启动Intent中的事件
+     */
+    public synchronized boolean restoreState(Bundle savedState) {
+        ArrayList<String> events = savedState != null ? savedState.getStringArrayList(STATE_EVENTS) : null;
+        if (events == null) {
+            return false;
+        }
+        for (String json : events) {
+            try {
+                JSObject item = new JSObject(json);
+                String key = item.has("key") ? item.getString("key") : null;
+                pending.add(new PendingEvent(item.getString("name"), key,
+                    item.getJSObject("detail", new JSObject()), item.optBoolean("latestOnly")));
+            } catch (JSONException e) {
+                Log.w(TAG, "恢复积压事件失败: " + e.getMessage());
+            }
+        }
+        Log.d(TAG, "♻️ 已恢复积压事件: " + pending.size());
+        return true;
+    }
+
+    /**
+     * Web层声明就绪，返回并清空积压事件（按发送顺序）
+     */
+    public synchronized JSArray markReadyAndDrain() {
+        JSArray events = new JSArray();
+        for (PendingEvent event : pending) {
+            JSObject item = new JSObject();
+            item.put("name", event.name);
+            item.put("detail", event.detail);
+            events.put(item);
+        }
+        Log.d(TAG, "📤 Web层已就绪，取走积压事件: " + pending.size());
+        pending.clear();
+        webReady = true;
+        return events;
+    }
+
+    /**
+     * Web层声明就绪，积压事件按发送顺序交给当前派发器，之后的事件排在其后
+     * @return 积压事件数
+     */
+    public synchronized int markReadyAndFlush() {
+        int count = pending.size();
+        for (PendingEvent event : pending) {
+            dispatchOnMain(event.name, event.key, event.detail, event.latestOnly);
+        }
+        Log.d(TAG, "📤 Web层已就绪，派发积压事件: " + count);
+        pending.clear();
+        webReady = true;
+        return count;
+    }
+
+    /**
+     * 页面开始（重新）加载时调用，之后的事件重新进入排队状态
+     */
+    public synchronized void markNotReady() {
+        webReady = false;
+        requeueIndex = 0;
+    }
+
+    public synchronized boolean isWebReady() {
+        return webReady;
+    }
+
+    /**
+     * 统一投递到主线程队列，保证事件按发送顺序派发
+     */
+    private void dispatchOnMain(String name, String key, JSObject detail, boolean latestOnly) {
+        Dispatcher current = dispatcher;
+        mainHandler.post(() -> current.dispatch(name, key, detail, latestOnly));
+    }
+}
@@ -0,0 +1,259 @@
+package cn.jacksonz.pwa.twa.zhiweijz.voice;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.os.Build;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 语音编码
+ * 16kHz单声道PCM经MediaCodec编码后写入容器：AAC-LC写入m4a（服务器各语音识别服务均支持），
+ * Opus写入ogg（Android 10+）。时间戳按已输入的采样数计算，被裁剪的静音不会在文件中留下空洞
+ */
+public class SpeechEncoder {
+    public static final int SAMPLE_RATE = 16000;
+
+    public static final String CODEC_AAC = "aac";
+    public static final String CODEC_OPUS = "opus";
+
+    /** 语音场景的默认码率 */
+    public static final int DEFAULT_AAC_BITRATE = 24000;
+    public static final int DEFAULT_OPUS_BITRATE = 16000;
+
+    private static final long TIMEOUT_US = 10_000;
+    /** ADTS采样率索引：16000Hz */
+    private static final int ADTS_SAMPLE_RATE_INDEX = 8;
+    private static final int ADTS_HEADER_SIZE = 7;
+
+    /**
+     * 编码输出回调，在录音线程中调用
+     */
+    public interface EncodedFrameListener {
+        /**
+         * @param frame 带ADTS头的完整AAC帧，回调返回后不再使用
+         */
+        void onEncodedFrame(byte[] frame, int length);
+    }
+
+    private final String codec;
+    private final File output;
+    private final MediaCodec encoder;
+    private final MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+    private MediaMuxer muxer;
+    private int track = -1;
+    private long samplesQueued;
+    private long bytesWritten;
+    private boolean finished;
+    private boolean released;
+    private EncodedFrameListener frameListener;
+    private byte[] frameBuffer = new byte[0];
+
+    /**
+     * 当前系统是否支持该编码
+     */
+    public static boolean isSupported(String codec) {
+        return CODEC_AAC.equals(codec) || (CODEC_OPUS.equals(codec) && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q);
+    }
+
+    public static String mimeTypeOf(String codec) {
+        return CODEC_OPUS.equals(codec) ? "audio/ogg" : "audio/mp4";
+    }
+
+    public static String extensionOf(String codec) {
+        return CODEC_OPUS.equals(codec) ? "ogg" : "m4a";
+    }
+
+    public SpeechEncoder(File output, String codec, int bitrate) throws IOException {
+        if (!isSupported(codec)) {
+            throw new IOException("不支持的编码: " + codec);
+        }
+        this.codec = codec;
+        this.output = output;
+
+        String mime = CODEC_OPUS.equals(codec) ? MediaFormat.MIMETYPE_AUDIO_OPUS : MediaFormat.MIMETYPE_AUDIO_AAC;
+        MediaFormat format = MediaFormat.createAudioFormat(mime, SAMPLE_RATE, 1);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, bitrate);
+        if (CODEC_AAC.equals(codec)) {
+            format.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+        }
+        format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 16 * 1024);
+
+        encoder = MediaCodec.createEncoderByType(mime);
+        try {
+            encoder.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            encoder.start();
+        } catch (RuntimeException e) {
+            encoder.release();
+            throw new IOException("编码器初始化失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 输入一帧PCM，调用返回后即可复用samples
+     */
+    public void encode(short[] samples, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int index = encoder.dequeueInputBuffer(TIMEOUT_US);
+            if (index < 0) {
+                drain(false);
+                continue;
+            }
+            ByteBuffer input = encoder.getInputBuffer(index);
+            input.clear();
+            int count = Math.min(length - offset, input.remaining() / 2);
+            input.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(samples, offset, count);
+            encoder.queueInputBuffer(index, 0, count * 2, presentationTimeUs(), 0);
+            samplesQueued += count;
+            offset += count;
+            drain(false);
+        }
+    }
+
+    /**
+     * 结束编码并关闭文件
+     *
+     * @return 是否写出了有效文件（没有输入任何音频时为false）
+     */
+    public boolean finish() throws IOException {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        try {
+            if (samplesQueued == 0) {
+                return false;
+            }
+            int index;
+            while ((index = encoder.dequeueInputBuffer(TIMEOUT_US)) < 0) {
+                drain(false);
+            }
+            encoder.queueInputBuffer(index, 0, 0, presentationTimeUs(), MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            drain(true);
+            if (muxer == null || bytesWritten == 0) {
+                return false;
+            }
+            muxer.stop();
+            return true;
+        } catch (IllegalStateException e) {
+            throw new IOException("编码结束失败: " + e.getMessage(), e);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 放弃编码（取消录音），不保证文件可用
+     */
+    public void release() {
+        finished = true;
+        if (released) {
+            return;
+        }
+        released = true;
+        try {
+            encoder.stop();
+        } catch (IllegalStateException ignored) {
+            // 编码器可能已停止
+        }
+        encoder.release();
+        if (muxer != null) {
+            try {
+                muxer.release();
+            } catch (IllegalStateException ignored) {
+                // 未写入任何数据时release会抛出
+            }
+        }
+    }
+
+    /**
+     * 编码时同时输出ADTS帧（仅AAC），用于边录边传；文件照常写入
+     */
+    public void setEncodedFrameListener(EncodedFrameListener listener) {
+        this.frameListener = CODEC_AAC.equals(codec) ? listener : null;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public long getDurationMs() {
+        return samplesQueued * 1000 / SAMPLE_RATE;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private long presentationTimeUs() {
+        return samplesQueued * 1_000_000L / SAMPLE_RATE;
+    }
+
+    private void drain(boolean endOfStream) throws IOException {
+        // 等待结束标志最多约1秒，个别编码器不回传EOS
+        int retries = 100;
+        while (true) {
+            int index = encoder.dequeueOutputBuffer(info, endOfStream ? TIMEOUT_US : 0);
+            if (index == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                if (!endOfStream || --retries <= 0) {
+                    return;
+                }
+            } else if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                startMuxer(encoder.getOutputFormat());
+            } else if (index >= 0) {
+                ByteBuffer data = encoder.getOutputBuffer(index);
+                boolean config = (info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+                if (!config && info.size > 0 && muxer != null) {
+                    data.position(info.offset).limit(info.offset + info.size);
+                    muxer.writeSampleData(track, data, info);
+                    bytesWritten += info.size;
+                    if (frameListener != null) {
+                        data.position(info.offset);
+                        emitAdtsFrame(data, info.size);
+                    }
+                }
+                encoder.releaseOutputBuffer(index, false);
+                if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 为裸AAC帧加上ADTS头（AAC-LC、16kHz、单声道、无CRC）
+     */
+    private void emitAdtsFrame(ByteBuffer data, int size) {
+        int length = ADTS_HEADER_SIZE + size;
+        if (frameBuffer.length < length) {
+            frameBuffer = new byte[length];
+        }
+        byte[] frame = frameBuffer;
+        int profile = MediaCodecInfo.CodecProfileLevel.AACObjectLC - 1;
+        int channels = 1;
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xF1;
+        frame[2] = (byte) ((profile << 6) | (ADTS_SAMPLE_RATE_INDEX << 2) | (channels >> 2));
+        frame[3] = (byte) (((channels & 3) << 6) | (length >> 11));
+        frame[4] = (byte) ((length & 0x7FF) >> 3);
+        frame[5] = (byte) (((length & 7) << 5) | 0x1F);
+        frame[6] = (byte) 0xFC;
+        data.get(frame, ADTS_HEADER_SIZE, size);
+        frameListener.onEncodedFrame(frame, length);
+    }
+
+    private void startMuxer(MediaFormat format) throws IOException {
+        int outputFormat = CODEC_OPUS.equals(codec) && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+            ? MediaMuxer.OutputFormat.MUXER_OUTPUT_OGG
+            : MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4;
+        muxer = new MediaMuxer(output.getAbsolutePath(), outputFormat);
+        track = muxer.addTrack(format);
+        muxer.start();
+    }
+}
@@ -0,0 +1,140 @@
+package cn.jacksonz.pwa.twa.zhiweijz.voice;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * 按语音活动裁剪PCM帧
+ * 语音开始前只保留最近的一小段作为前置缓冲，语音结束后保留一段拖尾；
+ * 句中停顿超过上限的部分被压缩，结束时未被语音接续的静音全部丢弃。
+ * 通过的帧按原顺序交给下游编码器
+ */
+public class SpeechGate {
+
+    /**
+     * 接收通过裁剪的帧
+     */
+    public interface FrameSink {
+        void onFrame(short[] samples, int length) throws IOException;
+    }
+
+    private final VoiceActivityDetector detector;
+    private final int preRollFrames;
+    private final int hangoverFrames;
+    private final int maxPauseFrames;
+    private final FrameSink sink;
+
+    /** 语音开始前的最近若干帧 */
+    private final ArrayDeque<short[]> preRoll = new ArrayDeque<>();
+    /** 拖尾之后暂存的静音帧，语音接续时输出，结束时丢弃 */
+    private final ArrayDeque<short[]> held = new ArrayDeque<>();
+    private boolean started;
+    private int silentFrames;
+
+    private int leadingDropped;
+    private int pauseDropped;
+    /** 当前停顿中被压缩的帧数，语音接续时计入句中停顿，否则属于结尾静音 */
+    private int currentPauseDropped;
+    private int passedFrames;
+
+    /**
+     * @param maxPauseFrames 句中停顿保留的最大帧数（含拖尾）
+     */
+    public SpeechGate(VoiceActivityDetector detector, int preRollFrames, int hangoverFrames, int maxPauseFrames, FrameSink sink) {
+        this.detector = detector;
+        this.preRollFrames = preRollFrames;
+        this.hangoverFrames = hangoverFrames;
+        this.maxPauseFrames = Math.max(maxPauseFrames, hangoverFrames);
+        this.sink = sink;
+    }
+
+    /**
+     * @return 该帧是否为语音
+     */
+    public boolean offer(short[] samples, int length) throws IOException {
+        boolean speech = detector.process(samples, length);
+        if (!started) {
+            if (!speech) {
+                preRoll.addLast(copy(samples, length));
+                if (preRoll.size() > preRollFrames) {
+                    preRoll.removeFirst();
+                    leadingDropped++;
+                }
+                return false;
+            }
+            started = true;
+            while (!preRoll.isEmpty()) {
+                emit(preRoll.removeFirst());
+            }
+        }
+
+        if (speech) {
+            silentFrames = 0;
+            pauseDropped += currentPauseDropped;
+            currentPauseDropped = 0;
+            while (!held.isEmpty()) {
+                emit(held.removeFirst());
+            }
+            emit(samples, length);
+        } else {
+            silentFrames++;
+            if (silentFrames <= hangoverFrames) {
+                // 拖尾无论之后是否接续语音都会保留，直接输出
+                emit(samples, length);
+            } else if (silentFrames <= maxPauseFrames) {
+                held.addLast(copy(samples, length));
+            } else {
+                currentPauseDropped++;
+            }
+        }
+        return speech;
+    }
+
+    /**
+     * 录音结束，丢弃未被语音接续的静音
+     *
+     * @return 丢弃的结尾帧数
+     */
+    public int finish() {
+        int trailing = held.size() + currentPauseDropped;
+        held.clear();
+        currentPauseDropped = 0;
+        if (!started) {
+            leadingDropped += preRoll.size();
+            preRoll.clear();
+        }
+        return trailing;
+    }
+
+    public boolean isSpeechDetected() {
+        return started;
+    }
+
+    public int getLeadingDroppedFrames() {
+        return leadingDropped;
+    }
+
+    /** 句中停顿被压缩掉的帧数 */
+    public int getPauseDroppedFrames() {
+        return pauseDropped;
+    }
+
+    public int getPassedFrames() {
+        return passedFrames;
+    }
+
+    private void emit(short[] samples) throws IOException {
+        emit(samples, samples.length);
+    }
+
+    private void emit(short[] samples, int length) throws IOException {
+        passedFrames++;
+        sink.onFrame(samples, length);
+    }
+
+    private static short[] copy(short[] samples, int length) {
+        short[] copy = new short[length];
+        System.arraycopy(samples, 0, copy, 0, length);
+        return copy;
+    }
+}
@@ -0,0 +1,70 @@
+package cn.jacksonz.pwa.twa.zhiweijz.voice;
+
+/**
+ * 基于能量的语音活动检测
+ * 逐帧计算电平（dBFS），维护自适应噪声基底：低于基底时立即下调，非语音帧缓慢上调；
+ * 电平同时高于基底一定幅度和绝对下限时判为语音，连续若干帧才确认语音开始，避免按键声等短促噪声
+ */
+public class VoiceActivityDetector {
+    /** 语音需高出噪声基底的幅度 */
+    private static final double SPEECH_MARGIN_DB = 10;
+    /** 语音的绝对下限，安静环境下基底很低，避免把微弱噪声当成语音 */
+    private static final double MIN_SPEECH_DB = -50;
+    private static final double SILENCE_DB = -96;
+    /** 非语音帧时噪声基底的上调速率 */
+    private static final double NOISE_ADAPT_RATE = 0.05;
+    /** 确认语音开始所需的连续语音帧数 */
+    private static final int ONSET_FRAMES = 3;
+
+    private double noiseFloorDb = -70;
+    private double lastLevelDb = SILENCE_DB;
+    private int consecutiveSpeech;
+    private boolean inSpeech;
+
+    /**
+     * @return 该帧是否属于语音
+     */
+    public boolean process(short[] samples, int length) {
+        double level = levelDb(samples, length);
+        lastLevelDb = level;
+
+        boolean loud = level > Math.max(noiseFloorDb + SPEECH_MARGIN_DB, MIN_SPEECH_DB);
+        if (level < noiseFloorDb) {
+            noiseFloorDb = level;
+        } else if (!loud) {
+            noiseFloorDb += (level - noiseFloorDb) * NOISE_ADAPT_RATE;
+        }
+
+        if (loud) {
+            consecutiveSpeech++;
+            if (consecutiveSpeech >= ONSET_FRAMES) {
+                inSpeech = true;
+            }
+        } else {
+            consecutiveSpeech = 0;
+            inSpeech = false;
+        }
+        return inSpeech;
+    }
+
+    public double getLastLevelDb() {
+        return lastLevelDb;
+    }
+
+    public double getNoiseFloorDb() {
+        return noiseFloorDb;
+    }
+
+    static double levelDb(short[] samples, int length) {
+        if (length <= 0) {
+            return SILENCE_DB;
+        }
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double sample = samples[i] / 32768.0;
+            sum += sample * sample;
+        }
+        double rms = Math.sqrt(sum / length);
+        return rms > 0 ? Math.max(SILENCE_DB, 20 * Math.log10(rms)) : SILENCE_DB;
+    }
+}
@@ -0,0 +1,229 @@
+package cn.jacksonz.pwa.twa.zhiweijz.voice;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 语音录音
+ * AudioRecord以语音识别音源采集16kHz单声道PCM，录音线程逐帧（20ms）做语音活动检测，
+ * 裁剪首尾静音后直接送入编码器；停止时只需冲刷编码器，不再有整段转换
+ */
+public class VoiceRecorder {
+    private static final String TAG = "VoiceRecorder";
+
+    private static final int SAMPLE_RATE = SpeechEncoder.SAMPLE_RATE;
+    private static final int FRAME_MS = 20;
+    private static final int FRAME_SAMPLES = SAMPLE_RATE * FRAME_MS / 1000;
+    /** 语音开始前保留的时长，避免切掉起始的弱辅音 */
+    private static final int PRE_ROLL_MS = 300;
+    /** 语音结束后保留的时长 */
+    private static final int HANGOVER_MS = 400;
+    /** 句中停顿保留的最大时长 */
+    private static final int MAX_PAUSE_MS = 1200;
+    /** 电平回调间隔 */
+    private static final long LEVEL_INTERVAL_MS = 100;
+
+    public static class Options {
+        public String codec = SpeechEncoder.CODEC_AAC;
+        public int bitrate = SpeechEncoder.DEFAULT_AAC_BITRATE;
+        public long maxDurationMs = 60_000;
+        /** 边录边输出ADTS帧（仅AAC），在录音线程中回调 */
+        public SpeechEncoder.EncodedFrameListener encodedFrameListener;
+    }
+
+    public static class Result {
+        public File file;
+        public String codec;
+        public boolean speechDetected;
+        /** 文件中的音频时长 */
+        public long durationMs;
+        /** 实际录音时长 */
+        public long recordedMs;
+        public long trimmedLeadingMs;
+        public long trimmedTrailingMs;
+        public long compressedPauseMs;
+        public long size;
+        /** 从调用stop到文件可用的耗时 */
+        public long finalizeMs;
+    }
+
+    /**
+     * 录音线程回调，不在主线程
+     */
+    public interface Listener {
+        /**
+         * @param level 0-100
+         */
+        void onLevel(int level, boolean speech);
+
+        void onMaxDurationReached();
+    }
+
+    private final File output;
+    private final Options options;
+    private final Listener listener;
+
+    private VoiceActivityDetector detector;
+    private SpeechGate gate;
+    private SpeechEncoder encoder;
+    private AudioRecord record;
+    private Thread thread;
+    private volatile boolean running;
+    private IOException failure;
+    private long recordedSamples;
+
+    public VoiceRecorder(File output, Options options, Listener listener) {
+        this.output = output;
+        this.options = options;
+        this.listener = listener;
+    }
+
+    public void start() throws IOException {
+        int minBuffer = AudioRecord.getMinBufferSize(SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBuffer <= 0) {
+            throw new IOException("设备不支持16kHz录音");
+        }
+
+        encoder = new SpeechEncoder(output, options.codec, options.bitrate);
+        encoder.setEncodedFrameListener(options.encodedFrameListener);
+        try {
+            record = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, Math.max(minBuffer, FRAME_SAMPLES * 2 * 10));
+        } catch (IllegalArgumentException | SecurityException e) {
+            encoder.release();
+            throw new IOException("麦克风初始化失败: " + e.getMessage(), e);
+        }
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            encoder.release();
+            throw new IOException("麦克风初始化失败");
+        }
+
+        detector = new VoiceActivityDetector();
+        gate = new SpeechGate(detector, frames(PRE_ROLL_MS), frames(HANGOVER_MS), frames(MAX_PAUSE_MS), encoder::encode);
+        record.startRecording();
+        if (record.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
+            record.release();
+            encoder.release();
+            throw new IOException("麦克风被其他应用占用");
+        }
+
+        running = true;
+        thread = new Thread(this::loop, "VoiceRecorder");
+        thread.start();
+        Log.d(TAG, "🎤 开始录音: " + options.codec + " " + options.bitrate + "bps");
+    }
+
+    /**
+     * 停止录音并写完文件，未检测到语音时删除文件
+     */
+    public Result stop() throws IOException {
+        long stopAt = System.nanoTime();
+        join();
+        if (failure != null) {
+            encoder.release();
+            output.delete();
+            throw failure;
+        }
+
+        Result result = new Result();
+        int trailingFrames = gate.finish();
+        result.speechDetected = gate.isSpeechDetected();
+        boolean written = result.speechDetected && encoder.finish();
+        encoder.release();
+        if (!written) {
+            output.delete();
+        }
+
+        result.file = written ? output : null;
+        result.codec = options.codec;
+        result.durationMs = encoder.getDurationMs();
+        result.recordedMs = recordedSamples * 1000 / SAMPLE_RATE;
+        result.trimmedLeadingMs = (long) gate.getLeadingDroppedFrames() * FRAME_MS;
+        result.trimmedTrailingMs = (long) trailingFrames * FRAME_MS;
+        result.compressedPauseMs = (long) gate.getPauseDroppedFrames() * FRAME_MS;
+        result.size = written ? output.length() : 0;
+        result.finalizeMs = (System.nanoTime() - stopAt) / 1_000_000;
+        Log.i(TAG, "🎤 录音完成: 录制 " + result.recordedMs + "ms, 保留 " + result.durationMs + "ms, 裁剪开头 "
+            + result.trimmedLeadingMs + "ms/结尾 " + result.trimmedTrailingMs + "ms, " + result.size + " 字节, 收尾 " + result.finalizeMs + "ms");
+        return result;
+    }
+
+    /**
+     * 取消录音并删除文件
+     */
+    public void cancel() {
+        join();
+        encoder.release();
+        output.delete();
+        Log.d(TAG, "🎤 录音已取消");
+    }
+
+    private void join() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        short[] frame = new short[FRAME_SAMPLES];
+        long maxSamples = options.maxDurationMs * SAMPLE_RATE / 1000;
+        long lastLevelAt = 0;
+        try {
+            while (running) {
+                int read = record.read(frame, 0, FRAME_SAMPLES);
+                if (read < 0) {
+                    throw new IOException("读取麦克风数据失败: " + read);
+                }
+                if (read == 0) {
+                    continue;
+                }
+                recordedSamples += read;
+                boolean speech = gate.offer(frame, read);
+
+                long now = System.currentTimeMillis();
+                if (listener != null && now - lastLevelAt >= LEVEL_INTERVAL_MS) {
+                    lastLevelAt = now;
+                    listener.onLevel(toLevel(detector.getLastLevelDb()), speech);
+                }
+                if (recordedSamples >= maxSamples) {
+                    running = false;
+                    if (listener != null) {
+                        listener.onMaxDurationReached();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "❌ 录音失败", e);
+            failure = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        } finally {
+            try {
+                record.stop();
+            } catch (IllegalStateException ignored) {
+                // 已停止
+            }
+            record.release();
+        }
+    }
+
+    /**
+     * 电平映射到0-100，-60dBFS以下为0
+     */
+    private static int toLevel(double db) {
+        return (int) Math.max(0, Math.min(100, (db + 60) / 60 * 100));
+    }
+
+    private static int frames(int ms) {
+        return ms / FRAME_MS;
+    }
+}
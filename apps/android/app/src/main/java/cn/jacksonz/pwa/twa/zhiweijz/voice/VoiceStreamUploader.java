@@ -0,0 +1,452 @@
+package cn.jacksonz.pwa.twa.zhiweijz.voice;
+
+import android.util.Log;
+
+import cn.jacksonz.pwa.twa.zhiweijz.http.NativeHttpClient;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * 语音流式上传
+ * 录音过程中把编码后的ADTS帧通过一个长连接（分块传输的POST）持续发送给服务器，
+ * 停止录音后只需结束请求体并调用finalize触发识别，省去整段文件上传的等待。
+ * 已编码的数据全部保留在内存中，连接中断后先查询服务器已收到的字节数，再从该位置重新发起请求
+ */
+public class VoiceStreamUploader {
+    private static final String TAG = "VoiceStreamUploader";
+
+    private static final MediaType AAC = MediaType.get("audio/aac");
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private static final String STREAM_PATH = "/ai/smart-accounting/speech/stream/";
+
+    private static final long INITIAL_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 2000;
+    /** 连续失败超过该时长放弃流式上传，由调用方改用整段上传 */
+    private static final long MAX_RETRY_MS = 15_000;
+    /** 服务器识别耗时较长，finalize单独设置超时 */
+    private static final long FINALIZE_TIMEOUT_MS = 60_000;
+
+    /**
+     * finalize的服务器响应
+     */
+    public static class FinalizeResult {
+        public int status;
+        public String body;
+        public long totalBytes;
+        public int reconnects;
+        public long elapsedMs;
+    }
+
+    private final NativeHttpClient http;
+    private final String authorization;
+    private final String sessionId;
+    private final OkHttpClient streamClient;
+
+    private final Object lock = new Object();
+    private byte[] data = new byte[16 * 1024];
+    private int size;
+    private boolean complete;
+    private boolean cancelled;
+    /** 服务器已确认收到的字节数 */
+    private long acknowledged;
+    private boolean uploaded;
+    private IOException failure;
+    private int reconnects;
+
+    private Thread sender;
+    private volatile Call currentCall;
+
+    /**
+     * @param http 共享HTTP客户端，stream地址基于其服务器地址解析
+     * @param authorization Authorization头，可为null
+     */
+    public VoiceStreamUploader(NativeHttpClient http, String authorization) {
+        this.http = http;
+        this.authorization = authorization;
+        this.sessionId = UUID.randomUUID().toString();
+        // 长连接不设总超时；写超时用于发现断网，读超时覆盖请求体结束后等待服务器确认的时间
+        this.streamClient = http.getClient().newBuilder()
+            .callTimeout(0, TimeUnit.MILLISECONDS)
+            .writeTimeout(5, TimeUnit.SECONDS)
+            .readTimeout(10, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(false)
+            .build();
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void start() {
+        sender = new Thread(this::sendLoop, "VoiceStreamUploader");
+        sender.start();
+    }
+
+    /**
+     * 追加已编码的数据，调用返回后即可复用bytes
+     */
+    public void write(byte[] bytes, int length) {
+        synchronized (lock) {
+            if (complete || cancelled) {
+                return;
+            }
+            if (size + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+            }
+            System.arraycopy(bytes, 0, data, size, length);
+            size += length;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 录音结束，不再有新数据，发送线程发完剩余数据后结束请求
+     */
+    public void complete() {
+        synchronized (lock) {
+            complete = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 放弃上传，服务器端会话由空闲清理回收
+     */
+    public void cancel() {
+        synchronized (lock) {
+            cancelled = true;
+            lock.notifyAll();
+        }
+        Call call = currentCall;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    public long getTotalBytes() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    public int getReconnects() {
+        synchronized (lock) {
+            return reconnects;
+        }
+    }
+
+    /**
+     * 等待数据全部送达后请求服务器识别
+     *
+     * @throws IOException 流式上传失败或finalize请求失败，调用方应改用整段上传
+     */
+    public FinalizeResult finish(String accountBookId) throws IOException {
+        long start = System.nanoTime();
+        complete();
+        awaitUploaded(MAX_RETRY_MS + FINALIZE_TIMEOUT_MS);
+
+        JSONObject payload = new JSONObject();
+        long total;
+        try {
+            synchronized (lock) {
+                total = size;
+            }
+            payload.put("accountBookId", accountBookId);
+            payload.put("totalBytes", total);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        Request request = newRequest(streamUrl("/finalize"))
+            .post(RequestBody.create(payload.toString(), JSON))
+            .build();
+        OkHttpClient client = http.getClient().newBuilder()
+            .callTimeout(FINALIZE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .readTimeout(FINALIZE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .build();
+        try (Response response = client.newCall(request).execute()) {
+            FinalizeResult result = new FinalizeResult();
+            result.status = response.code();
+            ResponseBody body = response.body();
+            result.body = body != null ? body.string() : "";
+            result.totalBytes = total;
+            result.reconnects = getReconnects();
+            result.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            Log.i(TAG, "🎤 流式识别完成: HTTP " + result.status + ", " + total + " 字节, 重连 "
+                + result.reconnects + " 次, 收尾 " + result.elapsedMs + "ms");
+            return result;
+        }
+    }
+
+    private void awaitUploaded(long timeoutMs) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (lock) {
+            while (!uploaded && failure == null && !cancelled) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    cancel();
+                    throw new IOException("等待流式上传超时");
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待流式上传被中断");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (cancelled) {
+                throw new IOException("流式上传已取消");
+            }
+        }
+    }
+
+    private void sendLoop() {
+        long backoff = INITIAL_BACKOFF_MS;
+        long failingSince = 0;
+        boolean resync = false;
+        try {
+            while (!isCancelled()) {
+                try {
+                    if (resync) {
+                        // 断线期间服务器可能已收到部分数据，以服务器记录为准
+                        long before = getAcknowledged();
+                        long received = queryReceived();
+                        setAcknowledged(received);
+                        resync = false;
+                        if (received > before) {
+                            // 上次连接有进展，重新计算失败时长
+                            failingSince = 0;
+                            backoff = INITIAL_BACKOFF_MS;
+                        }
+                    }
+                    if (stream()) {
+                        markUploaded();
+                        return;
+                    }
+                    // 409：偏移量与服务器不一致，已按响应中的received校正
+                    failingSince = 0;
+                    backoff = INITIAL_BACKOFF_MS;
+                } catch (FatalStreamException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    long now = System.currentTimeMillis();
+                    if (failingSince == 0) {
+                        failingSince = now;
+                    } else if (now - failingSince > MAX_RETRY_MS) {
+                        throw e;
+                    }
+                    Log.w(TAG, "⚠️ 语音流中断，" + backoff + "ms后从服务器进度续传: " + e.getMessage());
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                    resync = true;
+                    synchronized (lock) {
+                        reconnects++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("流式上传被中断"));
+        }
+    }
+
+    /**
+     * 从已确认位置发起一次流式请求
+     *
+     * @return 服务器已收到全部数据时为true，偏移量冲突时为false
+     */
+    private boolean stream() throws IOException {
+        long offset = getAcknowledged();
+        HttpUrl url = streamUrl("").newBuilder().addQueryParameter("offset", String.valueOf(offset)).build();
+        Request request = newRequest(url).post(new StreamBody(offset)).build();
+        Call call = streamClient.newCall(request);
+        currentCall = call;
+        try (Response response = call.execute()) {
+            long received = readReceived(response);
+            if (response.code() == 409 && received >= 0) {
+                setAcknowledged(received);
+                return false;
+            }
+            if (!response.isSuccessful()) {
+                if (response.code() >= 500) {
+                    throw new IOException("HTTP " + response.code());
+                }
+                // 认证失败等不可重试的错误
+                throw new FatalStreamException("语音流被服务器拒绝: HTTP " + response.code());
+            }
+            synchronized (lock) {
+                acknowledged = Math.max(acknowledged, received);
+                if (complete && acknowledged >= size) {
+                    return true;
+                }
+            }
+            throw new IOException("服务器未收到全部数据: " + received);
+        } finally {
+            currentCall = null;
+        }
+    }
+
+    private long queryReceived() throws IOException {
+        Request request = newRequest(streamUrl("")).get().build();
+        try (Response response = streamClient.newCall(request).execute()) {
+            if (response.code() == 404) {
+                // 服务器在收到第一个字节前断开，尚未创建会话
+                return 0;
+            }
+            long received = readReceived(response);
+            if (!response.isSuccessful() || received < 0) {
+                throw new IOException("查询语音流进度失败: HTTP " + response.code());
+            }
+            return received;
+        }
+    }
+
+    private static long readReceived(Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return -1;
+        }
+        try {
+            return new JSONObject(body.string()).optLong("received", -1);
+        } catch (JSONException e) {
+            return -1;
+        }
+    }
+
+    private HttpUrl streamUrl(String suffix) {
+        return http.resolve(STREAM_PATH + sessionId + suffix);
+    }
+
+    private Request.Builder newRequest(HttpUrl url) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder;
+    }
+
+    private boolean isCancelled() {
+        synchronized (lock) {
+            return cancelled;
+        }
+    }
+
+    private long getAcknowledged() {
+        synchronized (lock) {
+            return acknowledged;
+        }
+    }
+
+    private void setAcknowledged(long received) throws IOException {
+        synchronized (lock) {
+            if (received > size) {
+                throw new FatalStreamException("服务器进度超出已发送数据: " + received);
+            }
+            acknowledged = received;
+        }
+    }
+
+    private void markUploaded() {
+        synchronized (lock) {
+            uploaded = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void fail(IOException e) {
+        Log.w(TAG, "⚠️ 语音流式上传失败: " + e.getMessage());
+        synchronized (lock) {
+            failure = e;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 请求体：从offset开始发送已有数据，随后阻塞等待新数据，录音结束后结束请求体
+     */
+    private class StreamBody extends RequestBody {
+        private final long offset;
+
+        StreamBody(long offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return AAC;
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            int position = (int) offset;
+            byte[] chunk = new byte[0];
+            while (true) {
+                int length;
+                synchronized (lock) {
+                    while (position >= size && !complete && !cancelled) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("流式上传被中断");
+                        }
+                    }
+                    if (cancelled) {
+                        throw new IOException("流式上传已取消");
+                    }
+                    length = size - position;
+                    if (length == 0) {
+                        return;
+                    }
+                    if (chunk.length < length) {
+                        chunk = new byte[Math.max(length, 4096)];
+                    }
+                    System.arraycopy(data, position, chunk, 0, length);
+                }
+                sink.write(chunk, 0, length);
+                // 每批数据立即发出，不等待缓冲区写满
+                sink.flush();
+                position += length;
+            }
+        }
+    }
+
+    /**
+     * 不可重试的错误
+     */
+    private static class FatalStreamException extends IOException {
+        FatalStreamException(String message) {
+            super(message);
+        }
+    }
+}
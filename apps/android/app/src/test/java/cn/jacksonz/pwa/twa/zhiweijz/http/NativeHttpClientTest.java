@@ -0,0 +1,303 @@
+package cn.jacksonz.pwa.twa.zhiweijz.http;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 原生HTTP客户端测试，使用本地HttpServer模拟API服务器
+ * 连接数通过服务端看到的客户端端口区分
+ */
+public class NativeHttpClientTest {
+
+    private static final int CONNECTION_REQUESTS = 200;
+
+    private HttpServer server;
+    private String origin;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicLong gzipBytesSent = new AtomicLong();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile long responseDelayMs = 0;
+    private String payload;
+
+    @Before
+    public void setUp() throws IOException {
+        StringBuilder builder = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 200; i++) {
+            builder.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"category\":\"餐饮\",\"amount\":12.5}");
+        }
+        payload = builder.append("]}").toString();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/api/", this::handle);
+        server.start();
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        readFully(exchange.getRequestBody());
+        if (responseDelayMs > 0) {
+            try {
+                Thread.sleep(responseDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        byte[] body = path.endsWith("/echo-auth")
+            ? String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")).getBytes(StandardCharsets.UTF_8)
+            : payload.getBytes(StandardCharsets.UTF_8);
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            gzipBytesSent.addAndGet(body.length);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    @Test
+    public void relativePath_resolvesAgainstBaseUrl() throws Exception {
+        NativeHttpClient client = newClient();
+        client.setBaseUrl(origin + "/api");
+
+        assertEquals(origin + "/api/transactions?page=1", client.resolve("/transactions?page=1").toString());
+        assertEquals(origin + "/api/transactions", client.resolve("transactions").toString());
+        assertEquals("https://other.example/x", client.resolve("https://other.example/x").toString());
+    }
+
+    @Test
+    public void gzipResponse_isDecodedTransparently() throws Exception {
+        NativeHttpClient client = newClient();
+        client.setBaseUrl(origin + "/api");
+
+        NativeHttpClient.Result result = await(client, get("/transactions"));
+
+        assertEquals(200, result.status);
+        assertEquals(payload, result.body);
+        assertTrue("响应应以gzip传输", gzipBytesSent.get() > 0 && gzipBytesSent.get() < payload.length());
+    }
+
+    @Test
+    public void identicalInFlightGets_shareOneNetworkRequest() throws Exception {
+        NativeHttpClient client = newClient();
+        client.setBaseUrl(origin + "/api");
+        responseDelayMs = 200;
+
+        int callers = 10;
+        CountDownLatch done = new CountDownLatch(callers);
+        List<NativeHttpClient.Result> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            client.enqueue(get("/transactions"), new NativeHttpClient.ResultCallback() {
+                @Override
+                public void onSuccess(NativeHttpClient.Result result) {
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailure(IOException error) {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(callers, results.size());
+        assertEquals(1, requestCount.get());
+        assertEquals(callers - 1, client.getStats().coalesced);
+        int coalesced = 0;
+        for (NativeHttpClient.Result result : results) {
+            assertEquals(payload, result.body);
+            if (result.coalesced) {
+                coalesced++;
+            }
+        }
+        assertEquals(callers - 1, coalesced);
+    }
+
+    @Test
+    public void getsWithDifferentAuthorization_areNotCoalesced() throws Exception {
+        NativeHttpClient client = newClient();
+        client.setBaseUrl(origin + "/api");
+        responseDelayMs = 100;
+
+        NativeHttpClient.RequestSpec first = get("/echo-auth");
+        first.headers.put("Authorization", "Bearer a");
+        NativeHttpClient.RequestSpec second = get("/echo-auth");
+        second.headers.put("Authorization", "Bearer b");
+
+        AtomicReference<String> secondBody = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        client.enqueue(first, noop());
+        client.enqueue(second, new NativeHttpClient.ResultCallback() {
+            @Override
+            public void onSuccess(NativeHttpClient.Result result) {
+                secondBody.set(result.body);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException error) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals("Bearer b", secondBody.get());
+        assertEquals(0, client.getStats().coalesced);
+    }
+
+    /**
+     * 连接池客户端复用连接，连接数远少于请求数
+     * WebView的fetch无法在JVM中运行，以不复用连接的请求方式作为对照；只比较连接数，不在单元测试中比较耗时
+     */
+    @Test
+    public void pooledClient_reusesConnectionsUnlikePerRequestConnections() throws Exception {
+        runPerRequestConnections(CONNECTION_REQUESTS);
+        int baselineConnections = clientPorts.size();
+
+        clientPorts.clear();
+        NativeHttpClient client = newClient();
+        client.setBaseUrl(origin + "/api");
+        runPooled(client, CONNECTION_REQUESTS);
+        int pooledConnections = clientPorts.size();
+
+        assertEquals(CONNECTION_REQUESTS, baselineConnections);
+        // 并发请求时连接数受每主机并发上限约束，远少于请求数
+        assertTrue("连接池应复用连接", pooledConnections < CONNECTION_REQUESTS / 10);
+    }
+
+    private void runPerRequestConnections(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(origin + "/api/transactions?i=" + i).openConnection();
+            connection.setRequestProperty("Connection", "close");
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            try (InputStream inputStream = connection.getInputStream()) {
+                readFully(inputStream);
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private void runPooled(NativeHttpClient client, int count) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            callers.execute(() -> client.enqueue(get("/transactions?i=" + index), new NativeHttpClient.ResultCallback() {
+                @Override
+                public void onSuccess(NativeHttpClient.Result result) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailure(IOException error) {
+                    done.countDown();
+                }
+            }));
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        callers.shutdown();
+    }
+
+    private static NativeHttpClient newClient() {
+        return new NativeHttpClient(NativeHttpClient.defaultBuilder().build());
+    }
+
+    private static NativeHttpClient.RequestSpec get(String path) {
+        NativeHttpClient.RequestSpec spec = new NativeHttpClient.RequestSpec();
+        spec.url = path;
+        return spec;
+    }
+
+    private static NativeHttpClient.ResultCallback noop() {
+        return new NativeHttpClient.ResultCallback() {
+            @Override
+            public void onSuccess(NativeHttpClient.Result result) {
+            }
+
+            @Override
+            public void onFailure(IOException error) {
+            }
+        };
+    }
+
+    private static NativeHttpClient.Result await(NativeHttpClient client, NativeHttpClient.RequestSpec spec) throws Exception {
+        AtomicReference<NativeHttpClient.Result> result = new AtomicReference<>();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        client.enqueue(spec, new NativeHttpClient.ResultCallback() {
+            @Override
+            public void onSuccess(NativeHttpClient.Result value) {
+                result.set(value);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException error) {
+                failure.set(error);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    private static void readFully(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (inputStream.read(buffer) != -1) {
+            // 丢弃
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import static cn.jacksonz.pwa.twa.zhiweijz.plugins.ResourceMeter.KB;
+import static cn.jacksonz.pwa.twa.zhiweijz.plugins.ResourceMeter.MB;
+import static org.junit.Assert.*;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LogBridge各方法的分配量、峰值堆和耗时上限
+ * 限流关闭，所有日志都经过格式化、logcat输出和文件写入，测量的是最重的路径
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LogBridgePluginPerformanceTest {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String MESSAGE = buildMessage(200);
+
+    private PluginCallRecorder recorder;
+    private LogBridgePlugin plugin;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        recorder = new PluginCallRecorder();
+        plugin = new LogBridgePlugin();
+        plugin.setBridge(PluginCallRecorder.bridge(context));
+        plugin.load();
+
+        JSObject unlimited = new JSObject();
+        unlimited.put("minLevel", "debug");
+        unlimited.put("ratePerSecond", 0);
+        JSObject policy = new JSObject();
+        policy.put("defaultRule", unlimited);
+        policy.put("rules", new JSObject());
+        plugin.setLogPolicy(recorder.call("LogBridge", "setLogPolicy", policy));
+        assertTrue(recorder.last().isResolved());
+
+        // 预热：启动写入线程并完成类加载
+        plugin.logBatch(batchCall(10));
+        plugin.logInfo(logCall("logInfo"));
+        recorder.clear();
+    }
+
+    @After
+    public void tearDown() {
+        plugin.handleOnDestroy();
+    }
+
+    @Test
+    public void logBatch_staysWithinBudget() throws Exception {
+        PluginCall call = batchCall(BATCH_SIZE);
+
+        ResourceMeter.measure(() -> plugin.logBatch(call))
+            .assertWithin("logBatch(" + BATCH_SIZE + ")", 500, 8 * MB, 8 * MB);
+
+        JSObject data = recorder.last().data();
+        assertEquals(BATCH_SIZE, data.getInt("accepted"));
+        assertEquals(0, data.getInt("dropped"));
+    }
+
+    @Test
+    public void singleLogCalls_stayWithinBudget() throws Exception {
+        List<PluginCall> calls = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            calls.add(logCall("logInfo"));
+        }
+
+        ResourceMeter.measure(() -> {
+            for (PluginCall call : calls) {
+                plugin.logInfo(call);
+            }
+        }).assertWithin("logInfo x" + BATCH_SIZE, 1000, 6 * MB, 8 * MB);
+
+        assertEquals(BATCH_SIZE, recorder.count());
+    }
+
+    @Test
+    public void logsBelowMinLevel_skipFormatting() throws Exception {
+        JSObject warnOnly = new JSObject();
+        warnOnly.put("minLevel", "warn");
+        JSObject policy = new JSObject();
+        policy.put("defaultRule", warnOnly);
+        plugin.setLogPolicy(recorder.call("LogBridge", "setLogPolicy", policy));
+
+        List<PluginCall> calls = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            calls.add(logCall("logDebug"));
+        }
+
+        // 被过滤的日志只有桥接调用本身的开销，不拼接字符串也不进入写入队列
+        ResourceMeter.measure(() -> {
+            for (PluginCall call : calls) {
+                plugin.logDebug(call);
+            }
+        }).assertWithin("logDebug（已过滤） x" + BATCH_SIZE, 500, 2 * MB, 4 * MB);
+    }
+
+    @Test
+    public void exportLogs_streamsFilesWithoutLoadingThem() throws Exception {
+        // 约3MB日志，跨越多个轮转文件
+        for (int i = 0; i < 15; i++) {
+            plugin.logBatch(batchCall(BATCH_SIZE));
+        }
+        plugin.exportLogs(recorder.call("LogBridge", "exportLogs", new JSObject()));
+        assertTrue(recorder.last().isResolved());
+
+        PluginCall call = recorder.call("LogBridge", "exportLogs", new JSObject());
+        ResourceMeter.measure(() -> plugin.exportLogs(call))
+            .assertWithin("exportLogs", 1000, 2 * MB, 8 * MB);
+
+        PluginCallRecorder.Response response = recorder.last();
+        assertTrue(response.isResolved());
+        File exported = new File(response.data().getString("path"));
+        assertTrue(exported.length() > 2 * MB);
+        assertEquals(exported.length(), response.data().getLong("fileSize"));
+    }
+
+    @Test
+    public void getLogPolicy_withManyTags_staysWithinBudget() throws Exception {
+        JSArray entries = new JSArray();
+        for (int i = 0; i < 200; i++) {
+            entries.put(entry("info", "Tag" + i));
+        }
+        JSObject data = new JSObject();
+        data.put("entries", entries);
+        plugin.logBatch(recorder.call("LogBridge", "logBatch", data));
+
+        PluginCall call = recorder.call("LogBridge", "getLogPolicy", new JSObject());
+        ResourceMeter.measure(() -> plugin.getLogPolicy(call))
+            .assertWithin("getLogPolicy(200个标签)", 100, 512 * KB, 4 * MB);
+
+        assertTrue(recorder.last().data().getJSObject("stats").has("Tag199"));
+    }
+
+    private PluginCall batchCall(int count) {
+        JSArray entries = new JSArray();
+        for (int i = 0; i < count; i++) {
+            entries.put(entry(i % 10 == 0 ? "warn" : "info", "Dashboard"));
+        }
+        JSObject data = new JSObject();
+        data.put("entries", entries);
+        return recorder.call("LogBridge", "logBatch", data);
+    }
+
+    private PluginCall logCall(String method) {
+        JSObject data = new JSObject();
+        data.put("tag", "Dashboard");
+        data.put("message", MESSAGE);
+        return recorder.call("LogBridge", method, data);
+    }
+
+    private static JSObject entry(String level, String tag) {
+        JSObject entry = new JSObject();
+        entry.put("level", level);
+        entry.put("tag", tag);
+        entry.put("message", MESSAGE);
+        entry.put("timestamp", System.currentTimeMillis());
+        return entry;
+    }
+
+    private static String buildMessage(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append("加载仪表盘数据 account=42 elapsed=135ms; ");
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.MessageHandler;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginResult;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 不经过WebView构造插件调用，记录插件的响应
+ * 响应只保存引用，不在插件方法执行期间序列化，测量结果只包含插件自身的开销
+ */
+class PluginCallRecorder {
+
+    /**
+     * 一次调用的响应
+     */
+    static class Response {
+        final PluginResult success;
+        final PluginResult error;
+
+        Response(PluginResult success, PluginResult error) {
+            this.success = success;
+            this.error = error;
+        }
+
+        boolean isResolved() {
+            return success != null;
+        }
+
+        JSObject data() throws JSONException {
+            return new JSObject(success.toString());
+        }
+
+        String errorMessage() throws JSONException {
+            return error != null ? new JSObject(error.toString()).getString("message") : null;
+        }
+    }
+
+    private final MessageHandler messageHandler = mock(MessageHandler.class);
+    private final List<Response> responses = new ArrayList<>();
+    private int nextCallbackId;
+
+    PluginCallRecorder() {
+        doAnswer(invocation -> {
+            synchronized (responses) {
+                responses.add(new Response(invocation.getArgument(1), invocation.getArgument(2)));
+            }
+            return null;
+        }).when(messageHandler).sendResponseMessage(any(), any(), any());
+    }
+
+    /**
+     * 只提供插件用到的Context，其余Bridge方法返回默认值
+     */
+    static Bridge bridge(Context context) {
+        Bridge bridge = mock(Bridge.class);
+        when(bridge.getContext()).thenReturn(context);
+        return bridge;
+    }
+
+    PluginCall call(String pluginId, String methodName, JSObject data) {
+        return new PluginCall(messageHandler, pluginId, "test-" + (nextCallbackId++), methodName, data);
+    }
+
+    Response last() {
+        synchronized (responses) {
+            if (responses.isEmpty()) {
+                throw new AssertionError("插件没有响应");
+            }
+            return responses.get(responses.size() - 1);
+        }
+    }
+
+    int count() {
+        synchronized (responses) {
+            return responses.size();
+        }
+    }
+
+    void clear() {
+        synchronized (responses) {
+            responses.clear();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 测量一段代码的耗时、分配量和峰值堆占用，超出上限时测试失败
+ * - 分配量：所有线程的HotSpot分配计数之差，执行期间结束的线程不计入
+ * - 峰值堆：执行前GC取基线，执行期间每0.2毫秒采样已用堆，取最大值减去基线；
+ *   采样包含尚未回收的垃圾，是实际占用的上界
+ */
+final class ResourceMeter {
+
+    static final long KB = 1024;
+    static final long MB = 1024 * 1024;
+
+    interface Action {
+        void run() throws Exception;
+    }
+
+    static final class Usage {
+        final long wallTimeMs;
+        final long allocatedBytes;
+        final long peakHeapBytes;
+
+        Usage(long wallTimeMs, long allocatedBytes, long peakHeapBytes) {
+            this.wallTimeMs = wallTimeMs;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        /**
+         * 逐项检查上限，失败信息包含全部实测值，便于调整时参考
+         */
+        Usage assertWithin(String label, long maxWallTimeMs, long maxAllocatedBytes, long maxPeakHeapBytes) {
+            StringBuilder failures = new StringBuilder();
+            if (wallTimeMs > maxWallTimeMs) {
+                failures.append("\n  耗时 ").append(wallTimeMs).append("ms > ").append(maxWallTimeMs).append("ms");
+            }
+            if (allocatedBytes > maxAllocatedBytes) {
+                failures.append("\n  分配 ").append(format(allocatedBytes)).append(" > ").append(format(maxAllocatedBytes));
+            }
+            if (peakHeapBytes > maxPeakHeapBytes) {
+                failures.append("\n  峰值堆 ").append(format(peakHeapBytes)).append(" > ").append(format(maxPeakHeapBytes));
+            }
+            if (failures.length() > 0) {
+                fail(label + " 超出性能上限（" + this + "）:" + failures);
+            }
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "耗时 " + wallTimeMs + "ms, 分配 " + format(allocatedBytes) + ", 峰值堆 " + format(peakHeapBytes);
+        }
+    }
+
+    private ResourceMeter() {
+    }
+
+    static Usage measure(Action action) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Runtime runtime = Runtime.getRuntime();
+
+        System.gc();
+        System.gc();
+        long baseline = runtime.totalMemory() - runtime.freeMemory();
+        HeapSampler sampler = new HeapSampler(runtime, baseline);
+        sampler.start();
+
+        Map<Long, Long> allocatedBefore = allocatedBytes(threads);
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            sampler.finish();
+        }
+        long wallTimeMs = (System.nanoTime() - start) / 1_000_000;
+        Map<Long, Long> allocatedAfter = allocatedBytes(threads);
+
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : allocatedAfter.entrySet()) {
+            if (entry.getKey() == sampler.getId()) {
+                continue;
+            }
+            Long before = allocatedBefore.get(entry.getKey());
+            allocated += entry.getValue() - (before != null ? before : 0);
+        }
+        long peak = Math.max(sampler.peak, runtime.totalMemory() - runtime.freeMemory());
+        return new Usage(wallTimeMs, allocated, Math.max(0, peak - baseline));
+    }
+
+    private static Map<Long, Long> allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> result = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                result.put(ids[i], bytes[i]);
+            }
+        }
+        return result;
+    }
+
+    private static String format(long bytes) {
+        return bytes >= MB ? String.format("%.1fMB", bytes / (double) MB) : String.format("%.1fKB", bytes / (double) KB);
+    }
+
+    /**
+     * 采样线程，循环中不分配对象
+     */
+    private static final class HeapSampler extends Thread {
+        private final Runtime runtime;
+        private volatile boolean running = true;
+        volatile long peak;
+
+        HeapSampler(Runtime runtime, long baseline) {
+            super("ResourceMeter-Sampler");
+            setDaemon(true);
+            this.runtime = runtime;
+            this.peak = baseline;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long used = runtime.totalMemory() - runtime.freeMemory();
+                if (used > peak) {
+                    peak = used;
+                }
+                LockSupport.parkNanos(200_000);
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+        }
+    }
+}
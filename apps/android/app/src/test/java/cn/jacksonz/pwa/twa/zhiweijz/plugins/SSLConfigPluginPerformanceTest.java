@@ -0,0 +1,146 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import static cn.jacksonz.pwa.twa.zhiweijz.plugins.ResourceMeter.KB;
+import static cn.jacksonz.pwa.twa.zhiweijz.plugins.ResourceMeter.MB;
+import static org.junit.Assert.*;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SSLConfig各方法的分配量、峰值堆和耗时上限
+ * 信任状态按主机持久化，方法开销随已信任主机数增长，这里以100个主机为准
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SSLConfigPluginPerformanceTest {
+
+    private static final int HOST_COUNT = 100;
+
+    private PluginCallRecorder recorder;
+    private SSLConfigPlugin plugin;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        recorder = new PluginCallRecorder();
+        plugin = new SSLConfigPlugin();
+        plugin.setBridge(PluginCallRecorder.bridge(context));
+        plugin.load();
+
+        // 预热：加载系统信任库并清除上一个测试留下的信任状态
+        plugin.restoreDefaultSSL(recorder.call("SSLConfig", "restoreDefaultSSL", new JSObject()));
+        plugin.getSSLStatus(recorder.call("SSLConfig", "getSSLStatus", new JSObject()));
+        recorder.clear();
+    }
+
+    @After
+    public void tearDown() {
+        plugin.restoreDefaultSSL(recorder.call("SSLConfig", "restoreDefaultSSL", new JSObject()));
+        plugin.handleOnDestroy();
+    }
+
+    @Test
+    public void configurePermissiveSSL_staysWithinBudget() throws Exception {
+        List<PluginCall> calls = new ArrayList<>();
+        for (int i = 0; i < HOST_COUNT; i++) {
+            calls.add(urlCall("configurePermissiveSSL", i));
+        }
+
+        ResourceMeter.measure(() -> {
+            for (PluginCall call : calls) {
+                plugin.configurePermissiveSSL(call);
+            }
+        }).assertWithin("configurePermissiveSSL x" + HOST_COUNT, 2000, 16 * MB, 16 * MB);
+
+        PluginCallRecorder.Response response = recorder.last();
+        assertTrue(response.isResolved());
+        assertEquals(host(HOST_COUNT - 1), response.data().getString("host"));
+    }
+
+    @Test
+    public void getSSLStatus_withManyHosts_staysWithinBudget() throws Exception {
+        trustHosts();
+        PluginCall call = recorder.call("SSLConfig", "getSSLStatus", new JSObject());
+
+        ResourceMeter.measure(() -> plugin.getSSLStatus(call))
+            .assertWithin("getSSLStatus(" + HOST_COUNT + "个主机)", 100, 512 * KB, 4 * MB);
+
+        JSObject data = recorder.last().data();
+        assertTrue(data.getBoolean("isPermissive"));
+        assertEquals(HOST_COUNT, data.getJSONArray("hosts").length());
+    }
+
+    @Test
+    public void revokeHost_staysWithinBudget() throws Exception {
+        trustHosts();
+        List<PluginCall> calls = new ArrayList<>();
+        for (int i = 0; i < HOST_COUNT; i++) {
+            JSObject data = new JSObject();
+            data.put("host", host(i));
+            calls.add(recorder.call("SSLConfig", "revokeHost", data));
+        }
+
+        ResourceMeter.measure(() -> {
+            for (PluginCall call : calls) {
+                plugin.revokeHost(call);
+            }
+        }).assertWithin("revokeHost x" + HOST_COUNT, 2000, 16 * MB, 16 * MB);
+
+        plugin.getSSLStatus(recorder.call("SSLConfig", "getSSLStatus", new JSObject()));
+        assertFalse(recorder.last().data().getBoolean("isPermissive"));
+    }
+
+    @Test
+    public void restoreDefaultSSL_staysWithinBudget() throws Exception {
+        trustHosts();
+        PluginCall call = recorder.call("SSLConfig", "restoreDefaultSSL", new JSObject());
+
+        ResourceMeter.measure(() -> plugin.restoreDefaultSSL(call))
+            .assertWithin("restoreDefaultSSL(" + HOST_COUNT + "个主机)", 200, 1 * MB, 4 * MB);
+
+        assertTrue(recorder.last().isResolved());
+    }
+
+    @Test
+    public void invalidUrl_rejectsQuickly() throws Exception {
+        JSObject data = new JSObject();
+        data.put("url", "not a url");
+        PluginCall call = recorder.call("SSLConfig", "configurePermissiveSSL", data);
+
+        ResourceMeter.measure(() -> plugin.configurePermissiveSSL(call))
+            .assertWithin("configurePermissiveSSL(无效地址)", 200, 1 * MB, 4 * MB);
+
+        assertFalse(recorder.last().isResolved());
+        assertEquals("未指定服务器地址", recorder.last().errorMessage());
+    }
+
+    private void trustHosts() {
+        for (int i = 0; i < HOST_COUNT; i++) {
+            plugin.configurePermissiveSSL(urlCall("configurePermissiveSSL", i));
+        }
+        recorder.clear();
+    }
+
+    private PluginCall urlCall(String method, int index) {
+        JSObject data = new JSObject();
+        data.put("url", "https://" + host(index) + ":8443/api");
+        return recorder.call("SSLConfig", method, data);
+    }
+
+    private static String host(int index) {
+        return "host" + index + ".zhiweijz.test";
+    }
+}
@@ -0,0 +1,132 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import static cn.jacksonz.pwa.twa.zhiweijz.plugins.ResourceMeter.KB;
+import static cn.jacksonz.pwa.twa.zhiweijz.plugins.ResourceMeter.MB;
+import static org.junit.Assert.*;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Base64Encoder;
+import cn.jacksonz.pwa.twa.zhiweijz.utils.BridgeMetrics;
+
+/**
+ * getSharedImage的分配量、峰值堆和耗时上限
+ * - base64模式边读边编码，原始字节不整体驻留内存：分配和峰值约为编码结果的两倍（输出缓冲区和字符串）
+ * - file模式流式复制到缓存，开销与内容大小无关
+ * - 桥接统计保持开启（与线上默认一致），其大小估算不复制响应，计入上述上限
+ * 改回ByteArrayOutputStream整体读取等做法时分配量会超过上限
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class ShareTargetPluginPerformanceTest {
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}MB")
+    public static Collection<Object[]> sizes() {
+        return Arrays.asList(new Object[][]{{1}, {10}, {50}});
+    }
+
+    private final long size;
+    private Context context;
+    private PluginCallRecorder recorder;
+    private ShareTargetPlugin plugin;
+
+    public ShareTargetPluginPerformanceTest(int megabytes) {
+        this.size = megabytes * MB;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+        recorder = new PluginCallRecorder();
+        plugin = new ShareTargetPlugin();
+        plugin.setBridge(PluginCallRecorder.bridge(context));
+        plugin.load();
+        BridgeMetrics.getInstance().setEnabled(true);
+        BridgeMetrics.getInstance().reset();
+
+        // 预热：类加载和首次调用的开销不计入测量
+        plugin.getSharedImage(sharedImageCall(SyntheticContentProvider.register(context, 64 * KB), "base64"));
+        plugin.getSharedImage(sharedImageCall(SyntheticContentProvider.register(context, 64 * KB), "file"));
+        recorder.clear();
+    }
+
+    @After
+    public void tearDown() {
+        plugin.handleOnDestroy();
+    }
+
+    @Test
+    public void base64Mode_staysWithinBudget() throws Exception {
+        PluginCall call = sharedImageCall(SyntheticContentProvider.register(context, size), "base64");
+
+        ResourceMeter.Usage usage = ResourceMeter.measure(() -> plugin.getSharedImage(call));
+
+        long encodedLength = Base64Encoder.encodedLength(size, true);
+        usage.assertWithin("getSharedImage(base64, " + size / MB + "MB)",
+            500 + 40 * size / MB,
+            2 * encodedLength + 8 * MB,
+            2 * encodedLength + 24 * MB);
+
+        PluginCallRecorder.Response response = recorder.last();
+        assertTrue(response.isResolved());
+        JSObject data = response.data();
+        assertEquals(size, data.getLong("fileSize"));
+        String base64Data = data.getString("base64Data");
+        assertEquals(encodedLength, base64Data.length());
+        assertPrefixMatches(Base64.getMimeDecoder().decode(base64Data.substring(0, 77 * 100)));
+
+        // 统计按字节估算出的响应大小覆盖了编码结果
+        JSObject stats = BridgeMetrics.getInstance().snapshot()
+            .getJSObject("methods").getJSObject("ShareTarget.getSharedImage");
+        assertTrue(stats.getLong("responseBytes") >= encodedLength);
+    }
+
+    @Test
+    public void fileMode_costDoesNotGrowWithSize() throws Exception {
+        PluginCall call = sharedImageCall(SyntheticContentProvider.register(context, size), "file");
+
+        ResourceMeter.Usage usage = ResourceMeter.measure(() -> plugin.getSharedImage(call));
+
+        usage.assertWithin("getSharedImage(file, " + size / MB + "MB)",
+            500 + 20 * size / MB,
+            4 * MB,
+            8 * MB);
+
+        PluginCallRecorder.Response response = recorder.last();
+        assertTrue(response.isResolved());
+        File file = new File(response.data().getString("path"));
+        assertEquals(size, response.data().getLong("fileSize"));
+        file.delete();
+    }
+
+    private PluginCall sharedImageCall(Uri uri, String mode) {
+        JSObject data = new JSObject();
+        data.put("imageUri", uri.toString());
+        data.put("mode", mode);
+        return recorder.call("ShareTarget", "getSharedImage", data);
+    }
+
+    private static void assertPrefixMatches(byte[] decoded) {
+        for (int i = 0; i < decoded.length; i++) {
+            if (decoded[i] != SyntheticContentProvider.byteAt(i)) {
+                fail("第 " + i + " 个字节与原始内容不符");
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package cn.jacksonz.pwa.twa.zhiweijz.plugins;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+
+import org.robolectric.Robolectric;
+
+import java.io.InputStream;
+
+/**
+ * 合成的分享内容
+ * 地址形如 content://AUTHORITY/images/{size}.jpg，查询返回文件名和大小；
+ * 内容按位置计算生成，不占用与大小相当的内存，读取时每次最多返回64KB，与系统管道的行为相近
+ */
+public class SyntheticContentProvider extends ContentProvider {
+
+    static final String AUTHORITY = "cn.jacksonz.pwa.twa.zhiweijz.test.synthetic";
+
+    private static final int MAX_READ = 64 * 1024;
+
+    /**
+     * 注册一个指定大小的内容地址
+     */
+    static Uri register(Context context, long size) {
+        // Robolectric在每个测试之间重置已注册的提供者，重复注册会替换同一实例
+        Robolectric.setupContentProvider(SyntheticContentProvider.class, AUTHORITY);
+        Uri uri = Uri.parse("content://" + AUTHORITY + "/images/" + size + ".jpg");
+        shadowOf(context.getContentResolver()).registerInputStreamSupplier(uri, () -> new SyntheticInputStream(size));
+        return uri;
+    }
+
+    /**
+     * 指定位置的内容字节
+     */
+    static byte byteAt(long position) {
+        return (byte) ((position * 2654435761L) >>> 13);
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        String name = uri.getLastPathSegment();
+        long size = Long.parseLong(name.substring(0, name.indexOf('.')));
+        MatrixCursor cursor = new MatrixCursor(new String[]{OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE});
+        cursor.addRow(new Object[]{name, size});
+        return cursor;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return "image/jpeg";
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException();
+    }
+
+    private static final class SyntheticInputStream extends InputStream {
+        private final long size;
+        private long position;
+
+        SyntheticInputStream(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? byteAt(position++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= size) {
+                return -1;
+            }
+            int count = (int) Math.min(Math.min(length, MAX_READ), size - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = byteAt(position++);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(MAX_READ, size - position);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package cn.jacksonz.pwa.twa.zhiweijz.upload;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上传队列测试，使用本地HttpServer模拟分片上传接口
+ */
+public class UploadManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private StandInUploadEndpoint endpoint;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        endpoint = new StandInUploadEndpoint();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/upload", endpoint);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void chunkedUpload_deliversAllBytesInOrder() throws Exception {
+        byte[] content = randomBytes(200 * 1024 + 17);
+        UploadJob job = newJob(writeFile(content), 64 * 1024);
+
+        UploadJob finished = runToCompletion(newManager(), job);
+
+        assertEquals(UploadJob.STATUS_COMPLETED, finished.status);
+        assertArrayEquals(content, endpoint.received.toByteArray());
+        assertEquals(4, endpoint.putCount.get());
+        assertEquals("{\"ok\":true}", finished.responseBody);
+    }
+
+    @Test
+    public void chunkedUpload_resumesFromServerOffsetAfterFailure() throws Exception {
+        byte[] content = randomBytes(256 * 1024);
+        endpoint.failOnPut = 3;
+        UploadJob job = newJob(writeFile(content), 64 * 1024);
+
+        UploadJob finished = runToCompletion(newManager(), job);
+
+        assertEquals(UploadJob.STATUS_COMPLETED, finished.status);
+        assertArrayEquals(content, endpoint.received.toByteArray());
+        assertEquals(2, finished.attempts);
+        assertEquals(1, endpoint.headCount.get());
+        // 4个分片 + 1次失败请求，已确认的分片不会重复发送
+        assertEquals(5, endpoint.putCount.get());
+    }
+
+    @Test
+    public void restore_continuesPersistedJob() throws Exception {
+        byte[] content = randomBytes(128 * 1024);
+        File jobsDir = folder.newFolder("jobs");
+
+        // 模拟进程被杀：服务端已收到前半部分，磁盘上记录了偏移量
+        endpoint.received.write(content, 0, 64 * 1024);
+        UploadJob job = newJob(writeFile(content), 64 * 1024);
+        job.id = "restored-job";
+        job.uploadedBytes = 64 * 1024;
+        job.totalBytes = content.length;
+        job.status = UploadJob.STATUS_UPLOADING;
+        new UploadJobStore(jobsDir).save(job);
+
+        UploadManager manager = new UploadManager(new UploadJobStore(jobsDir), new ChunkedUploader(), 1);
+        CountDownLatch done = awaitFinish(manager);
+        manager.restore();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        manager.shutdown();
+        assertEquals(UploadJob.STATUS_COMPLETED, manager.get("restored-job").status);
+        assertArrayEquals(content, endpoint.received.toByteArray());
+        assertEquals(1, endpoint.putCount.get());
+    }
+
+    @Test
+    public void clientError_failsWithoutRetry() throws Exception {
+        endpoint.rejectWith = 400;
+        UploadJob job = newJob(writeFile(randomBytes(1024)), 64 * 1024);
+
+        UploadJob finished = runToCompletion(newManager(), job);
+
+        assertEquals(UploadJob.STATUS_FAILED, finished.status);
+        assertEquals(1, finished.attempts);
+    }
+
+    @Test
+    public void retry_ignoresCancelledJob() throws Exception {
+        File jobsDir = folder.newFolder("jobs");
+        UploadJob job = newJob(writeFile(randomBytes(1024)), 64 * 1024);
+        job.id = "cancelled-job";
+        job.status = UploadJob.STATUS_CANCELLED;
+        new UploadJobStore(jobsDir).save(job);
+
+        UploadManager manager = new UploadManager(new UploadJobStore(jobsDir), new ChunkedUploader(), 1);
+        manager.restore();
+
+        assertFalse(manager.retry("cancelled-job"));
+        manager.shutdown();
+        assertEquals(UploadJob.STATUS_CANCELLED, manager.get("cancelled-job").status);
+        assertEquals(0, endpoint.putCount.get());
+    }
+
+    private UploadManager newManager() throws IOException {
+        return new UploadManager(new UploadJobStore(folder.newFolder()), new ChunkedUploader(), 1);
+    }
+
+    private UploadJob runToCompletion(UploadManager manager, UploadJob job) throws InterruptedException {
+        CountDownLatch done = awaitFinish(manager);
+        manager.enqueue(job);
+        assertTrue("上传未在限定时间内结束", done.await(10, TimeUnit.SECONDS));
+        manager.shutdown();
+        return manager.get(job.id);
+    }
+
+    private static CountDownLatch awaitFinish(UploadManager manager) {
+        CountDownLatch done = new CountDownLatch(1);
+        manager.setListener(new UploadManager.Listener() {
+            @Override
+            public void onProgress(UploadJob job) {
+            }
+
+            @Override
+            public void onStatusChanged(UploadJob job) {
+                if (job.isFinished()) {
+                    done.countDown();
+                }
+            }
+        });
+        return done;
+    }
+
+    private UploadJob newJob(File file, int chunkSize) {
+        UploadJob job = new UploadJob();
+        job.filePath = file.getAbsolutePath();
+        job.url = url;
+        job.chunkSize = chunkSize;
+        return job;
+    }
+
+    private File writeFile(byte[] content) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(content);
+        }
+        return file;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * 模拟服务端分片上传接口：按Content-Range追加数据，HEAD返回已接收偏移量
+     */
+    private static class StandInUploadEndpoint implements HttpHandler {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final AtomicInteger putCount = new AtomicInteger();
+        final AtomicInteger headCount = new AtomicInteger();
+        volatile int failOnPut = -1;
+        volatile int rejectWith = 0;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            byte[] body = readAll(exchange.getRequestBody());
+            if ("HEAD".equals(method)) {
+                headCount.incrementAndGet();
+                exchange.getResponseHeaders().set(ChunkedUploader.HEADER_UPLOAD_OFFSET, String.valueOf(received.size()));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+
+            int count = putCount.incrementAndGet();
+            if (rejectWith > 0) {
+                respond(exchange, rejectWith, "bad request");
+                return;
+            }
+            if (count == failOnPut) {
+                respond(exchange, 503, "unavailable");
+                return;
+            }
+
+            String range = exchange.getRequestHeaders().getFirst("Content-Range");
+            String[] parts = range.substring("bytes ".length()).split("[-/]");
+            long start = Long.parseLong(parts[0]);
+            long total = Long.parseLong(parts[2]);
+            if (start != received.size()) {
+                respond(exchange, 409, "offset mismatch");
+                return;
+            }
+            received.write(body, 0, body.length);
+
+            exchange.getResponseHeaders().set(ChunkedUploader.HEADER_UPLOAD_OFFSET, String.valueOf(received.size()));
+            if (received.size() < total) {
+                exchange.sendResponseHeaders(308, -1);
+                exchange.close();
+            } else {
+                respond(exchange, 200, "{\"ok\":true}");
+            }
+        }
+
+        private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        }
+
+        private static byte[] readAll(InputStream inputStream) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package cn.jacksonz.pwa.twa.zhiweijz.voice;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import cn.jacksonz.pwa.twa.zhiweijz.http.NativeHttpClient;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 语音流式上传测试，使用本地HttpServer模拟服务器的stream/status/finalize接口
+ */
+public class VoiceStreamUploaderTest {
+    private static final String STREAM_PATH = "/api/ai/smart-accounting/speech/stream/";
+
+    private HttpServer server;
+    private StandInStreamEndpoint endpoint;
+    private NativeHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        endpoint = new StandInStreamEndpoint();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(STREAM_PATH, endpoint);
+        server.start();
+        client = new NativeHttpClient(NativeHttpClient.defaultBuilder().build());
+        client.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void stream_sendsFramesWhileRecording() throws Exception {
+        byte[] audio = randomBytes(24 * 1024);
+        VoiceStreamUploader uploader = new VoiceStreamUploader(client, "Bearer test-token");
+        uploader.start();
+
+        writeFrames(uploader, audio, 0, audio.length / 2);
+        // 录音尚未结束，服务器已经在接收数据
+        waitForReceived(audio.length / 2);
+        writeFrames(uploader, audio, audio.length / 2, audio.length);
+
+        VoiceStreamUploader.FinalizeResult result = uploader.finish("book-1");
+
+        assertEquals(200, result.status);
+        assertEquals(audio.length, result.totalBytes);
+        assertEquals(0, result.reconnects);
+        assertArrayEquals(audio, endpoint.received.toByteArray());
+        assertEquals(1, endpoint.streamCount.get());
+        assertEquals("Bearer test-token", endpoint.authorization);
+        JSONObject body = new JSONObject(result.body);
+        assertEquals("book-1", body.getString("accountBookId"));
+        assertEquals(audio.length, body.getInt("bytes"));
+    }
+
+    @Test
+    public void stream_resumesFromServerOffsetAfterDrop() throws Exception {
+        byte[] audio = randomBytes(40 * 1024);
+        endpoint.dropAfterBytes = 10 * 1024;
+        VoiceStreamUploader uploader = new VoiceStreamUploader(client, null);
+        uploader.start();
+
+        writeFrames(uploader, audio, 0, audio.length);
+        VoiceStreamUploader.FinalizeResult result = uploader.finish("book-1");
+
+        assertEquals(200, result.status);
+        assertArrayEquals(audio, endpoint.received.toByteArray());
+        assertEquals(1, result.reconnects);
+        assertEquals(2, endpoint.streamCount.get());
+        assertTrue(endpoint.statusCount.get() >= 1);
+    }
+
+    @Test
+    public void stream_rejectedRequestFailsWithoutRetry() throws Exception {
+        endpoint.rejectWith = 401;
+        VoiceStreamUploader uploader = new VoiceStreamUploader(client, null);
+        uploader.start();
+        writeFrames(uploader, randomBytes(2048), 0, 2048);
+
+        try {
+            uploader.finish("book-1");
+            fail("应抛出IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("401"));
+        }
+        assertEquals(1, endpoint.streamCount.get());
+        assertEquals(0, endpoint.finalizeCount.get());
+    }
+
+    @Test
+    public void cancel_stopsStreaming() throws Exception {
+        VoiceStreamUploader uploader = new VoiceStreamUploader(client, null);
+        uploader.start();
+        writeFrames(uploader, randomBytes(4096), 0, 4096);
+        waitForReceived(4096);
+
+        uploader.cancel();
+
+        try {
+            uploader.finish("book-1");
+            fail("应抛出IOException");
+        } catch (IOException expected) {
+            // 已取消
+        }
+        assertEquals(0, endpoint.finalizeCount.get());
+    }
+
+    /**
+     * 按编码器的节奏分帧写入，每帧之后短暂停顿
+     */
+    private static void writeFrames(VoiceStreamUploader uploader, byte[] audio, int from, int to) throws InterruptedException {
+        byte[] frame = new byte[512];
+        for (int offset = from; offset < to; ) {
+            int length = Math.min(frame.length, to - offset);
+            System.arraycopy(audio, offset, frame, 0, length);
+            uploader.write(frame, length);
+            offset += length;
+            Thread.sleep(2);
+        }
+    }
+
+    private void waitForReceived(int bytes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (endpoint.receivedSize() < bytes) {
+            assertTrue("服务器未在限定时间内收到数据", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * 模拟服务器语音流接口：
+     * POST stream/{id}?offset=N 追加数据，GET stream/{id} 返回已接收字节数，POST stream/{id}/finalize 返回识别结果
+     */
+    private static class StandInStreamEndpoint implements HttpHandler {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final AtomicInteger streamCount = new AtomicInteger();
+        final AtomicInteger statusCount = new AtomicInteger();
+        final AtomicInteger finalizeCount = new AtomicInteger();
+        volatile int dropAfterBytes = -1;
+        volatile int rejectWith = 0;
+        volatile String authorization;
+
+        synchronized int receivedSize() {
+            return received.size();
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+            if (path.endsWith("/finalize")) {
+                finalizeCount.incrementAndGet();
+                try {
+                    JSONObject request = new JSONObject(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8));
+                    int total = receivedSize();
+                    if (request.getLong("totalBytes") != total) {
+                        respond(exchange, 409, "{\"received\":" + total + "}");
+                        return;
+                    }
+                    respond(exchange, 200, "{\"accountBookId\":\"" + request.getString("accountBookId") + "\",\"bytes\":" + total + "}");
+                } catch (JSONException e) {
+                    respond(exchange, 400, "{\"error\":\"invalid json\"}");
+                }
+                return;
+            }
+            if ("GET".equals(method)) {
+                statusCount.incrementAndGet();
+                respond(exchange, 200, "{\"received\":" + receivedSize() + "}");
+                return;
+            }
+
+            streamCount.incrementAndGet();
+            if (rejectWith > 0) {
+                readAll(exchange.getRequestBody());
+                respond(exchange, rejectWith, "{\"error\":\"unauthorized\"}");
+                return;
+            }
+            long offset = Long.parseLong(exchange.getRequestURI().getQuery().replace("offset=", ""));
+            if (offset != receivedSize()) {
+                respond(exchange, 409, "{\"received\":" + receivedSize() + "}");
+                return;
+            }
+
+            InputStream input = exchange.getRequestBody();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                synchronized (this) {
+                    received.write(buffer, 0, read);
+                }
+                int limit = dropAfterBytes;
+                if (limit > 0 && receivedSize() >= limit) {
+                    // 模拟网络中断：不响应直接断开连接
+                    dropAfterBytes = -1;
+                    throw new IOException("模拟断线");
+                }
+            }
+            respond(exchange, 200, "{\"received\":" + receivedSize() + "}");
+        }
+
+        private static byte[] readAll(InputStream input) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.bench;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.image.ImageSizing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片尺寸计算，覆盖批量分享时逐张计算采样率和缩放比例的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ImageSizingBenchmark {
+
+    private static final int COUNT = 64;
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+
+    private final int[] widths = new int[COUNT];
+    private final int[] heights = new int[COUNT];
+    private final int[] rotations = new int[COUNT];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < COUNT; i++) {
+            widths[i] = 480 + random.nextInt(8000);
+            heights[i] = 480 + random.nextInt(8000);
+            rotations[i] = ROTATIONS[random.nextInt(ROTATIONS.length)];
+        }
+    }
+
+    @Benchmark
+    public long sizeBatch() {
+        long checksum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            int width = ImageSizing.orientedWidth(widths[i], heights[i], rotations[i]);
+            int height = ImageSizing.orientedHeight(widths[i], heights[i], rotations[i]);
+            int sampleSize = ImageSizing.calculateInSampleSize(width, height, 2048);
+            float scale = ImageSizing.scaleToFit(width / sampleSize, height / sampleSize, 2048);
+            checksum += sampleSize + Float.floatToIntBits(scale);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,76 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.bench;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.log.LogLineFormatter;
+import cn.jacksonz.pwa.twa.zhiweijz.core.log.LogPolicy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志批量格式化与策略判断
+ * 一批100条日志的时间戳间隔约10毫秒，与Web层批量上报的分布相近
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final long[] timestamps = new long[BATCH_SIZE];
+    private final SimpleDateFormat legacyFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+    private final LogLineFormatter formatter = new LogLineFormatter();
+    private LogPolicy policy;
+
+    @Setup
+    public void setUp() {
+        long start = 1718000000000L;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            timestamps[i] = start + i * 10L + (i % 7);
+        }
+        policy = new LogPolicy(new LogPolicy.Rule(LogPolicy.INFO, 0, 40, 1));
+    }
+
+    @Benchmark
+    public void legacyFormatBatch(Blackhole blackhole) {
+        for (long timestamp : timestamps) {
+            blackhole.consume(legacyFormat.format(new Date(timestamp)) + " " + "info" + "/" + "Dashboard" + ": "
+                + "加载仪表盘数据完成");
+        }
+    }
+
+    @Benchmark
+    public void formatBatch(Blackhole blackhole) {
+        for (long timestamp : timestamps) {
+            blackhole.consume(formatter.format(timestamp, "info", "Dashboard", "加载仪表盘数据完成"));
+        }
+    }
+
+    @Benchmark
+    public boolean shouldLogPassed() {
+        return policy.shouldLog(LogPolicy.INFO, "Dashboard");
+    }
+
+    @Benchmark
+    public boolean shouldLogDroppedByLevel() {
+        return policy.shouldLog(LogPolicy.DEBUG, "Dashboard");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean shouldLogContended() {
+        return policy.shouldLog(LogPolicy.INFO, "Dashboard");
+    }
+}
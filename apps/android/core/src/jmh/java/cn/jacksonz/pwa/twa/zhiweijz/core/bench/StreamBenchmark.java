@@ -0,0 +1,104 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.bench;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Base64Encoder;
+import cn.jacksonz.pwa.twa.zhiweijz.core.io.Streams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分享图片读取与编码
+ * legacy* 为改造前ShareTargetPlugin的做法：1KB缓冲区读入ByteArrayOutputStream，再整体编码；
+ * 配合 -prof gc 比较每次操作的分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StreamBenchmark {
+
+    @Param({"1048576", "10485760"})
+    public int sizeBytes;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = new byte[sizeBytes];
+        new Random(42).nextBytes(content);
+    }
+
+    @Benchmark
+    public String legacyReadThenEncode() throws IOException {
+        InputStream inputStream = new ByteArrayInputStream(content);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] data = new byte[1024];
+        int read;
+        while ((read = inputStream.read(data, 0, data.length)) != -1) {
+            buffer.write(data, 0, read);
+        }
+        return Base64Encoder.encodeToString(buffer.toByteArray(), true);
+    }
+
+    @Benchmark
+    public String streamingEncode() throws IOException {
+        return Base64Encoder.encodeToString(new ByteArrayInputStream(content), sizeBytes, true);
+    }
+
+    @Benchmark
+    public String streamingEncodeUnknownSize() throws IOException {
+        return Base64Encoder.encodeToString(new ByteArrayInputStream(content), -1, true);
+    }
+
+    @Benchmark
+    public long legacyCopy1KBuffer() throws IOException {
+        return Streams.copy(new ByteArrayInputStream(content), DiscardingOutputStream.INSTANCE, new byte[1024]);
+    }
+
+    @Benchmark
+    public long copy() throws IOException {
+        return Streams.copy(new ByteArrayInputStream(content), DiscardingOutputStream.INSTANCE);
+    }
+
+    @Benchmark
+    public byte[] legacyReadAll() throws IOException {
+        InputStream inputStream = new ByteArrayInputStream(content);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] data = new byte[8192];
+        int read;
+        while ((read = inputStream.read(data)) != -1) {
+            buffer.write(data, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] readAllWithSizeHint() throws IOException {
+        return Streams.readAll(new ByteArrayInputStream(content), sizeBytes);
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+        static final DiscardingOutputStream INSTANCE = new DiscardingOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.bench;
+
+import cn.jacksonz.pwa.twa.zhiweijz.core.trust.TrustPolicy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 握手时的证书信任决策
+ * 证书内容为随机字节，长度与常见叶子证书的DER编码相近，摘要计算不关心内容
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrustBenchmark {
+
+    private byte[] encodedCertificate;
+    private byte[] digest;
+    private String fingerprint;
+    private TrustPolicy.PinLookup pins;
+
+    @Setup
+    public void setUp() throws Exception {
+        encodedCertificate = new byte[1400];
+        new Random(42).nextBytes(encodedCertificate);
+        digest = MessageDigest.getInstance("SHA-256").digest(encodedCertificate);
+        fingerprint = TrustPolicy.toHex(digest);
+
+        final Map<String, Set<String>> pinned = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            pinned.put("host" + i + ".example.com", new HashSet<>(Collections.singleton(TrustPolicy.toHex(new byte[32]))));
+        }
+        pinned.put("192.168.1.10", new HashSet<>(Collections.singleton(fingerprint)));
+        pins = new TrustPolicy.PinLookup() {
+            @Override
+            public boolean isPinned(String host, String candidate) {
+                Set<String> fingerprints = pinned.get(TrustPolicy.normalizeHost(host));
+                return fingerprints != null && fingerprints.contains(candidate);
+            }
+        };
+    }
+
+    @Benchmark
+    public String legacyHex() {
+        StringBuilder builder = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            builder.append(String.format(Locale.US, "%02x", b));
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public String hex() {
+        return TrustPolicy.toHex(digest);
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return TrustPolicy.fingerprint(encodedCertificate);
+    }
+
+    @Benchmark
+    public TrustPolicy.Decision decidePinned() {
+        return TrustPolicy.decide("192.168.1.10", TrustPolicy.fingerprint(encodedCertificate), pins);
+    }
+
+    @Benchmark
+    public TrustPolicy.Decision decideUnknown() {
+        return TrustPolicy.decide("10.0.0.2", TrustPolicy.fingerprint(encodedCertificate), pins);
+    }
+}
@@ -0,0 +1,49 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.image;
+
+/**
+ * 图片尺寸计算
+ * 解码采样率、按长边缩放的比例和EXIF旋转后的宽高，不依赖Bitmap
+ */
+public final class ImageSizing {
+
+    private ImageSizing() {
+    }
+
+    /**
+     * 计算2的幂次采样率，使解码后的长边不小于目标尺寸
+     */
+    public static int calculateInSampleSize(int width, int height, int maxDimension) {
+        int sampleSize = 1;
+        if (maxDimension <= 0) {
+            return sampleSize;
+        }
+        int longest = Math.max(width, height);
+        while (longest / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * 长边超过目标尺寸时的缩放比例，不需要缩放时返回1
+     */
+    public static float scaleToFit(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        return maxDimension > 0 && longest > maxDimension ? (float) maxDimension / longest : 1f;
+    }
+
+    /**
+     * 旋转90/270度时宽高互换
+     */
+    public static boolean swapsDimensions(int rotation) {
+        return rotation == 90 || rotation == 270;
+    }
+
+    public static int orientedWidth(int width, int height, int rotation) {
+        return swapsDimensions(rotation) ? height : width;
+    }
+
+    public static int orientedHeight(int width, int height, int rotation) {
+        return swapsDimensions(rotation) ? width : height;
+    }
+}
@@ -0,0 +1,129 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base64编码（标准字母表，带填充）
+ * 换行模式与android.util.Base64.DEFAULT的输出一致：每76个字符换行，末行之后也有换行；
+ * 不换行模式与NO_WRAP一致。java.util.Base64需要Android 8.0，这里自行实现以支持更低版本
+ *
+ * 流式编码按块读取输入，直接写入按预期长度分配的输出缓冲区，
+ * 内存中不会同时存在完整的原始字节和编码结果之外的副本
+ */
+public final class Base64Encoder {
+
+    /** 每行字符数 */
+    public static final int LINE_LENGTH = 76;
+    /** 每行对应的输入字节数 */
+    private static final int LINE_BYTES = LINE_LENGTH / 4 * 3;
+    /** 流式编码每块的字节数，是每行字节数的整数倍，使块边界与换行位置对齐 */
+    private static final int CHUNK_BYTES = LINE_BYTES * 1024;
+
+    private static final byte[] ALPHABET =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+
+    private Base64Encoder() {
+    }
+
+    /**
+     * 编码后的字符数（含换行）
+     */
+    public static long encodedLength(long inputLength, boolean wrap) {
+        long length = (inputLength + 2) / 3 * 4;
+        if (wrap && length > 0) {
+            length += (length + LINE_LENGTH - 1) / LINE_LENGTH;
+        }
+        return length;
+    }
+
+    public static String encodeToString(byte[] data, boolean wrap) {
+        return encodeToString(data, 0, data.length, wrap);
+    }
+
+    public static String encodeToString(byte[] data, int offset, int length, boolean wrap) {
+        long encodedLength = encodedLength(length, wrap);
+        if (encodedLength > Streams.MAX_ARRAY_SIZE) {
+            throw new IllegalArgumentException("内容过大，无法编码为Base64: " + length);
+        }
+        byte[] output = new byte[(int) encodedLength];
+        int written = encode(data, offset, length, output, 0, wrap);
+        return new String(output, 0, written, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 从流中读取并编码，读完后不关闭流
+     * @param sizeHint 预期的输入大小，未知时传-1；与实际大小不符时仍能正确编码
+     */
+    public static String encodeToString(InputStream inputStream, long sizeHint, boolean wrap) throws IOException {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        long initialLength = encodedLength(sizeHint >= 0 ? sizeHint : CHUNK_BYTES, wrap);
+        byte[] output = new byte[(int) Math.min(initialLength, Streams.MAX_ARRAY_SIZE)];
+        int written = 0;
+        while (true) {
+            int read = Streams.readFully(inputStream, chunk, 0, chunk.length);
+            if (read == 0) {
+                break;
+            }
+            long required = written + encodedLength(read, wrap);
+            if (required > output.length) {
+                if (required > Streams.MAX_ARRAY_SIZE) {
+                    throw new IOException("内容过大，无法编码为Base64");
+                }
+                long grown = Math.max(required, (long) output.length + (output.length >> 1));
+                output = Arrays.copyOf(output, (int) Math.min(grown, Streams.MAX_ARRAY_SIZE));
+            }
+            // 除最后一块外每块都是整行，块内编码的换行位置与整体编码相同
+            written = encode(chunk, 0, read, output, written, wrap);
+            if (read < chunk.length) {
+                break;
+            }
+        }
+        return new String(output, 0, written, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 编码一段输入，返回输出的结束位置
+     * 输入长度不是3的倍数时补齐填充；换行模式下结尾的不完整行也追加换行
+     */
+    private static int encode(byte[] source, int offset, int length, byte[] output, int position, boolean wrap) {
+        int sp = offset;
+        int dp = position;
+        int groupsPerLine = LINE_LENGTH / 4;
+        int groups = 0;
+        int fullEnd = offset + length / 3 * 3;
+        while (sp < fullEnd) {
+            int bits = (source[sp++] & 0xff) << 16 | (source[sp++] & 0xff) << 8 | (source[sp++] & 0xff);
+            output[dp++] = ALPHABET[(bits >>> 18) & 0x3f];
+            output[dp++] = ALPHABET[(bits >>> 12) & 0x3f];
+            output[dp++] = ALPHABET[(bits >>> 6) & 0x3f];
+            output[dp++] = ALPHABET[bits & 0x3f];
+            if (wrap && ++groups == groupsPerLine) {
+                output[dp++] = '\n';
+                groups = 0;
+            }
+        }
+
+        int remaining = offset + length - sp;
+        if (remaining > 0) {
+            int b0 = source[sp] & 0xff;
+            output[dp++] = ALPHABET[b0 >>> 2];
+            if (remaining == 1) {
+                output[dp++] = ALPHABET[(b0 << 4) & 0x3f];
+                output[dp++] = '=';
+            } else {
+                int b1 = source[sp + 1] & 0xff;
+                output[dp++] = ALPHABET[((b0 << 4) | (b1 >>> 4)) & 0x3f];
+                output[dp++] = ALPHABET[(b1 << 2) & 0x3f];
+            }
+            output[dp++] = '=';
+            groups++;
+        }
+        if (wrap && groups > 0) {
+            output[dp++] = '\n';
+        }
+        return dp;
+    }
+}
@@ -0,0 +1,80 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 流复制与读取
+ * 复制使用64KB缓冲区，读取整个流时按已知大小一次分配，
+ * 不经过ByteArrayOutputStream的倍增扩容和toByteArray复制
+ */
+public final class Streams {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+    /** 部分VM保留数组头部空间，数组长度不能取到Integer.MAX_VALUE */
+    static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private Streams() {
+    }
+
+    public static long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        return copy(inputStream, outputStream, new byte[BUFFER_SIZE]);
+    }
+
+    /**
+     * 使用调用方提供的缓冲区复制，便于批量复制时复用缓冲区
+     */
+    public static long copy(InputStream inputStream, OutputStream outputStream, byte[] buffer) throws IOException {
+        long total = 0;
+        int bytesRead;
+        while ((bytesRead = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, bytesRead);
+            total += bytesRead;
+        }
+        return total;
+    }
+
+    /**
+     * 读满指定长度，返回实际读取的字节数；只有到达流末尾时才少于length
+     */
+    public static int readFully(InputStream inputStream, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = inputStream.read(buffer, offset + total, length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 读取整个流
+     * @param sizeHint 预期大小（如文件长度），未知时传-1；与实际大小不符时仍能正确读取
+     */
+    public static byte[] readAll(InputStream inputStream, long sizeHint) throws IOException {
+        if (sizeHint > MAX_ARRAY_SIZE) {
+            throw new IOException("内容过大，无法读入内存: " + sizeHint);
+        }
+        // 多分配一个字节，大小准确时无需再次扩容即可确认已到末尾
+        byte[] data = new byte[sizeHint >= 0 ? (int) Math.min(sizeHint + 1, MAX_ARRAY_SIZE) : 8192];
+        int length = 0;
+        while (true) {
+            if (length == data.length) {
+                if (length == MAX_ARRAY_SIZE) {
+                    throw new IOException("内容过大，无法读入内存");
+                }
+                data = Arrays.copyOf(data, (int) Math.min((long) length * 2, MAX_ARRAY_SIZE));
+            }
+            int read = inputStream.read(data, length, data.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return length == data.length ? data : Arrays.copyOf(data, length);
+    }
+}
@@ -0,0 +1,58 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.log;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * 日志行格式化
+ * 输出 "yyyy-MM-dd HH:mm:ss.SSS level/tag: message"；
+ * 同一秒内的日志复用已格式化的日期前缀，只追加毫秒，避免每条日志都调用SimpleDateFormat
+ *
+ * 非线程安全，每个写入线程使用各自的实例
+ */
+public class LogLineFormatter {
+
+    private final SimpleDateFormat secondFormat;
+    private final StringBuilder line = new StringBuilder(256);
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedPrefix;
+
+    public LogLineFormatter() {
+        this(TimeZone.getDefault());
+    }
+
+    public LogLineFormatter(TimeZone timeZone) {
+        secondFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        secondFormat.setTimeZone(timeZone);
+    }
+
+    /**
+     * 格式化一条日志，返回的内容在下一次调用前有效（不含换行）
+     */
+    public CharSequence format(long timestamp, String level, String tag, String message) {
+        line.setLength(0);
+        appendTimestamp(line, timestamp);
+        line.append(' ').append(level).append('/').append(tag).append(": ").append(message);
+        return line;
+    }
+
+    public void appendTimestamp(StringBuilder builder, long timestamp) {
+        // 时区偏移只在整秒处变化，按秒缓存前缀不会跨越夏令时切换
+        long second = timestamp >= 0 ? timestamp / 1000 : (timestamp - 999) / 1000;
+        if (second != cachedSecond) {
+            cachedPrefix = secondFormat.format(new Date(second * 1000));
+            cachedSecond = second;
+        }
+        int millis = (int) (timestamp - second * 1000);
+        builder.append(cachedPrefix).append('.');
+        if (millis < 100) {
+            builder.append('0');
+        }
+        if (millis < 10) {
+            builder.append('0');
+        }
+        builder.append(millis);
+    }
+}
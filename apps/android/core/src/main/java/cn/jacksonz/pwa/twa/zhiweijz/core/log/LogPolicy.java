@@ -0,0 +1,200 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 日志输出策略
+ * 按标签配置最低级别、令牌桶限流和采样比例，在拼接日志字符串之前决定是否输出，
+ * 并按标签统计被丢弃的日志数量。错误日志不受限流和采样影响
+ */
+public class LogPolicy {
+
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+
+    private static final String[] LEVEL_NAMES = {"debug", "info", "warn", "error"};
+
+    /**
+     * 单个标签（或默认）的规则
+     */
+    public static class Rule {
+        public final int minLevel;
+        /** 每秒补充的令牌数，0表示不限流 */
+        public final double ratePerSecond;
+        /** 令牌桶容量，允许的突发条数 */
+        public final int burst;
+        /** 采样比例，1表示全部输出 */
+        public final double sampleRate;
+
+        public Rule(int minLevel, double ratePerSecond, int burst, double sampleRate) {
+            this.minLevel = Math.max(DEBUG, Math.min(ERROR, minLevel));
+            this.ratePerSecond = Math.max(0, ratePerSecond);
+            this.burst = Math.max(1, burst);
+            this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        }
+    }
+
+    /**
+     * 标签的运行状态：令牌桶和计数
+     */
+    public static class TagStats {
+        public long passed;
+        public long droppedByLevel;
+        public long droppedByRate;
+        public long droppedBySample;
+
+        private double tokens = -1;
+        private long lastRefillNanos;
+
+        public long getDropped() {
+            return droppedByLevel + droppedByRate + droppedBySample;
+        }
+    }
+
+    private volatile Rule defaultRule;
+    private volatile Map<String, Rule> tagRules = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TagStats> stats = new ConcurrentHashMap<>();
+
+    public LogPolicy(Rule defaultRule) {
+        this.defaultRule = defaultRule;
+    }
+
+    /**
+     * 调试包默认输出全部级别，正式包只输出info及以上
+     */
+    public static LogPolicy createDefault(boolean debuggable) {
+        return new LogPolicy(new Rule(debuggable ? DEBUG : INFO, 20, 40, 1));
+    }
+
+    public static int parseLevel(String level) {
+        if (level == null) {
+            return INFO;
+        }
+        switch (level) {
+            case "debug":
+                return DEBUG;
+            case "warn":
+                return WARN;
+            case "error":
+                return ERROR;
+            default:
+                return INFO;
+        }
+    }
+
+    public static String levelName(int level) {
+        return LEVEL_NAMES[Math.max(DEBUG, Math.min(ERROR, level))];
+    }
+
+    public Rule getDefaultRule() {
+        return defaultRule;
+    }
+
+    public Map<String, Rule> getTagRules() {
+        return tagRules;
+    }
+
+    public Rule getRule(String tag) {
+        Rule rule = tagRules.get(tag);
+        return rule != null ? rule : defaultRule;
+    }
+
+    /**
+     * 替换全部规则，已有的令牌桶状态重置
+     */
+    public void setRules(Rule defaultRule, Map<String, Rule> tagRules) {
+        this.defaultRule = defaultRule;
+        this.tagRules = new ConcurrentHashMap<>(tagRules);
+        for (TagStats tagStats : stats.values()) {
+            synchronized (tagStats) {
+                tagStats.tokens = -1;
+            }
+        }
+    }
+
+    /**
+     * 判断日志是否应该输出，并更新计数
+     */
+    public boolean shouldLog(int level, String tag) {
+        Rule rule = getRule(tag);
+        TagStats tagStats = statsFor(tag);
+        synchronized (tagStats) {
+            if (level < rule.minLevel) {
+                tagStats.droppedByLevel++;
+                return false;
+            }
+            if (level < ERROR) {
+                if (rule.sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= rule.sampleRate) {
+                    tagStats.droppedBySample++;
+                    return false;
+                }
+                if (rule.ratePerSecond > 0 && !tryAcquire(tagStats, rule, System.nanoTime())) {
+                    tagStats.droppedByRate++;
+                    return false;
+                }
+            }
+            tagStats.passed++;
+            return true;
+        }
+    }
+
+    /**
+     * 级别是否可能输出，仅按最低级别判断，不消耗令牌也不计数
+     */
+    public boolean isLoggable(int level, String tag) {
+        return level >= getRule(tag).minLevel;
+    }
+
+    public Map<String, TagStats> getStats() {
+        return stats;
+    }
+
+    public long getTotalDropped() {
+        long total = 0;
+        for (TagStats tagStats : stats.values()) {
+            synchronized (tagStats) {
+                total += tagStats.getDropped();
+            }
+        }
+        return total;
+    }
+
+    public void resetStats() {
+        stats.clear();
+    }
+
+    /**
+     * ConcurrentHashMap.computeIfAbsent在Android 7.0以下不可用，先查再放入
+     */
+    private TagStats statsFor(String tag) {
+        TagStats tagStats = stats.get(tag);
+        if (tagStats == null) {
+            TagStats created = new TagStats();
+            tagStats = stats.putIfAbsent(tag, created);
+            if (tagStats == null) {
+                tagStats = created;
+            }
+        }
+        return tagStats;
+    }
+
+    private static boolean tryAcquire(TagStats tagStats, Rule rule, long nowNanos) {
+        if (tagStats.tokens < 0) {
+            tagStats.tokens = rule.burst;
+            tagStats.lastRefillNanos = nowNanos;
+        } else {
+            double elapsedSeconds = (nowNanos - tagStats.lastRefillNanos) / 1_000_000_000.0;
+            tagStats.tokens = Math.min(rule.burst, tagStats.tokens + elapsedSeconds * rule.ratePerSecond);
+            tagStats.lastRefillNanos = nowNanos;
+        }
+        if (tagStats.tokens >= 1) {
+            tagStats.tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.trust;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * 证书信任决策
+ * 系统校验失败后，按主机已固定的叶子证书指纹决定接受或询问用户；只固定用户看到过的指纹，
+ * 不在首次握手时自动信任出现的证书。指纹为证书DER编码的SHA-256小写十六进制
+ */
+public final class TrustPolicy {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * 系统校验失败后的处理方式
+     */
+    public enum Decision {
+        /** 证书指纹已被固定，直接接受 */
+        ACCEPT_PINNED,
+        /** 交由用户决定 */
+        ASK_USER
+    }
+
+    /**
+     * 已固定指纹的查询
+     */
+    public interface PinLookup {
+        boolean isPinned(String host, String fingerprint);
+    }
+
+    private TrustPolicy() {
+    }
+
+    public static Decision decide(String host, String leafFingerprint, PinLookup pins) {
+        if (pins.isPinned(host, leafFingerprint)) {
+            return Decision.ACCEPT_PINNED;
+        }
+        return Decision.ASK_USER;
+    }
+
+    /**
+     * 计算证书DER编码的指纹
+     */
+    public static String fingerprint(byte[] encodedCertificate) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(encodedCertificate));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("计算证书指纹失败", e);
+        }
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int value = bytes[i] & 0xff;
+            chars[i * 2] = HEX_DIGITS[value >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[value & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 主机名不区分大小写
+     */
+    public static String normalizeHost(String host) {
+        return host == null ? "" : host.toLowerCase(Locale.US);
+    }
+}
@@ -0,0 +1,106 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.io;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Base64编码测试，以JDK编码器的输出为准，换行模式按每76个字符插入换行符比较
+ */
+public class Base64EncoderTest {
+
+    private static final int[] LENGTHS = {0, 1, 2, 3, 56, 57, 58, 114, 1000, 57 * 1024, 57 * 1024 + 1, 300 * 1024 + 5};
+
+    @Test
+    public void encodeBytes_matchesJdkEncoder() {
+        for (int length : LENGTHS) {
+            byte[] data = randomBytes(length);
+            assertEquals("NO_WRAP " + length, Base64.getEncoder().encodeToString(data),
+                Base64Encoder.encodeToString(data, false));
+            assertEquals("DEFAULT " + length, wrapped(data), Base64Encoder.encodeToString(data, true));
+        }
+    }
+
+    @Test
+    public void encodeStream_matchesByteEncoding_withAnySizeHint() throws IOException {
+        for (int length : LENGTHS) {
+            byte[] data = randomBytes(length);
+            String expected = wrapped(data);
+            assertEquals(expected, Base64Encoder.encodeToString(new ByteArrayInputStream(data), length, true));
+            assertEquals(expected, Base64Encoder.encodeToString(new ByteArrayInputStream(data), -1, true));
+            assertEquals(expected, Base64Encoder.encodeToString(new ByteArrayInputStream(data), length / 3, true));
+            assertEquals(Base64.getEncoder().encodeToString(data),
+                Base64Encoder.encodeToString(new TrickleInputStream(data), length, false));
+        }
+    }
+
+    @Test
+    public void encodedLength_matchesOutput() {
+        for (int length : LENGTHS) {
+            byte[] data = randomBytes(length);
+            assertEquals(Base64Encoder.encodeToString(data, true).length(), Base64Encoder.encodedLength(length, true));
+            assertEquals(Base64Encoder.encodeToString(data, false).length(), Base64Encoder.encodedLength(length, false));
+        }
+    }
+
+    @Test
+    public void readAll_handlesWrongSizeHints() throws IOException {
+        byte[] data = randomBytes(100 * 1024 + 3);
+        assertArrayEquals(data, Streams.readAll(new ByteArrayInputStream(data), data.length));
+        assertArrayEquals(data, Streams.readAll(new ByteArrayInputStream(data), 10));
+        assertArrayEquals(data, Streams.readAll(new ByteArrayInputStream(data), data.length * 2L));
+        assertArrayEquals(data, Streams.readAll(new TrickleInputStream(data), -1));
+    }
+
+    /**
+     * android.util.Base64.DEFAULT的格式：每行76个字符，末行之后也有换行
+     */
+    private static String wrapped(byte[] data) {
+        String plain = Base64.getEncoder().encodeToString(data);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < plain.length(); i += 76) {
+            builder.append(plain, i, Math.min(plain.length(), i + 76)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * 每次最多返回少量字节，模拟ContentResolver返回的管道流
+     */
+    private static class TrickleInputStream extends InputStream {
+        private final byte[] data;
+        private int position;
+
+        TrickleInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= data.length) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, 1000), data.length - position);
+            System.arraycopy(data, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package cn.jacksonz.pwa.twa.zhiweijz.core.log;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * 日志行格式测试，以逐条SimpleDateFormat格式化的结果为准
+ */
+public class LogLineFormatterTest {
+
+    @Test
+    public void format_matchesSimpleDateFormat_acrossSecondsAndDaylightSaving() {
+        TimeZone timeZone = TimeZone.getTimeZone("America/New_York");
+        SimpleDateFormat reference = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        reference.setTimeZone(timeZone);
+        LogLineFormatter formatter = new LogLineFormatter(timeZone);
+
+        // 2024-03-10 夏令时开始前后
+        long start = 1710054000000L - 3000;
+        for (long timestamp = start; timestamp < start + 6000; timestamp += 7) {
+            String expected = reference.format(new Date(timestamp)) + " info/WebView: 消息";
+            assertEquals(expected, formatter.format(timestamp, "info", "WebView", "消息").toString());
+        }
+    }
+
+    @Test
+    public void format_handlesTimestampsBeforeEpoch() {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        LogLineFormatter formatter = new LogLineFormatter(utc);
+        assertEquals("1969-12-31 23:59:59.999 warn/t: m", formatter.format(-1, "warn", "t", "m").toString());
+        assertEquals("1970-01-01 00:00:00.005 warn/t: m", formatter.format(5, "warn", "t", "m").toString());
+    }
+
+    @Test
+    public void shouldLog_countsDropsPerTag() {
+        LogPolicy policy = new LogPolicy(new LogPolicy.Rule(LogPolicy.INFO, 0, 1, 1));
+        assertFalse(policy.shouldLog(LogPolicy.DEBUG, "a"));
+        assertTrue(policy.shouldLog(LogPolicy.WARN, "a"));
+        assertTrue(policy.shouldLog(LogPolicy.ERROR, "b"));
+        assertEquals(1, policy.getStats().get("a").droppedByLevel);
+        assertEquals(1, policy.getStats().get("a").passed);
+        assertEquals(1, policy.getTotalDropped());
+    }
+}
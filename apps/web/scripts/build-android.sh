@@ -212,6 +212,10 @@ else
     exit 1
 fi
 
+# 8.1 预压缩静态资源，由原生层解压一次后内存映射提供
+echo "🗜️ 预压缩静态资源..."
+node scripts/precompress-android-assets.js ../android/app/src/main/assets/public
+
 # 9. 打开Android Studio
 echo "🚀 打开Android Studio..."
 npx cap open android
@@ -79,6 +79,10 @@ done
 echo "🔄 同步项目..."
 npx cap sync android
 
+# 2.1 预压缩静态资源，由原生层解压一次后内存映射提供
+echo "🗜️ 预压缩静态资源..."
+node scripts/precompress-android-assets.js ../android/app/src/main/assets/public
+
 # 3. 进入Android目录
 cd ../android
 
@@ -0,0 +1,79 @@
+#!/usr/bin/env node
+/**
+ * 预压缩Android包内的Next.js静态资源
+ * 在 cap sync 之后运行：把 assets/public/_next/static 下的JS/CSS压缩为 .gz 并删除原文件，
+ * 同时生成 precompressed-assets.json 清单，由原生 LocalAssetServer 按清单解压一次后内存映射提供
+ *
+ * 用法: node scripts/precompress-android-assets.js [assets/public目录]
+ */
+
+const fs = require('fs');
+const path = require('path');
+const zlib = require('zlib');
+const crypto = require('crypto');
+
+const DEFAULT_PUBLIC_DIR = path.resolve(__dirname, '../../android/app/src/main/assets/public');
+const STATIC_DIR = '_next/static';
+const MANIFEST_NAME = 'precompressed-assets.json';
+const EXTENSIONS = new Set(['.js', '.css']);
+/** 过小的文件压缩收益不明显，保留原样由Capacitor提供 */
+const MIN_SIZE = 1024;
+
+function walk(directory, files = []) {
+  for (const entry of fs.readdirSync(directory, { withFileTypes: true })) {
+    const fullPath = path.join(directory, entry.name);
+    if (entry.isDirectory()) {
+      walk(fullPath, files);
+    } else if (entry.isFile()) {
+      files.push(fullPath);
+    }
+  }
+  return files;
+}
+
+function main() {
+  const publicDir = path.resolve(process.argv[2] || DEFAULT_PUBLIC_DIR);
+  const staticDir = path.join(publicDir, STATIC_DIR);
+  if (!fs.existsSync(staticDir)) {
+    console.error(`❌ 静态资源目录不存在: ${staticDir}`);
+    process.exit(1);
+  }
+
+  const files = {};
+  const digest = crypto.createHash('sha1');
+  let originalBytes = 0;
+  let compressedBytes = 0;
+
+  const candidates = walk(staticDir)
+    .filter((file) => EXTENSIONS.has(path.extname(file)))
+    .sort();
+  for (const file of candidates) {
+    const content = fs.readFileSync(file);
+    if (content.length < MIN_SIZE) continue;
+
+    const compressed = zlib.gzipSync(content, { level: zlib.constants.Z_BEST_COMPRESSION });
+    fs.writeFileSync(`${file}.gz`, compressed);
+    fs.unlinkSync(file);
+
+    const relativePath = path.relative(publicDir, file).split(path.sep).join('/');
+    files[relativePath] = { size: content.length, gzipSize: compressed.length };
+    digest.update(relativePath).update(content);
+    originalBytes += content.length;
+    compressedBytes += compressed.length;
+  }
+
+  const manifest = {
+    // 内容变化时版本随之变化，原生层据此丢弃旧版本的解压文件
+    version: digest.digest('hex').slice(0, 16),
+    encoding: 'gzip',
+    files,
+  };
+  fs.writeFileSync(path.join(publicDir, MANIFEST_NAME), JSON.stringify(manifest));
+
+  const count = Object.keys(files).length;
+  const ratio = originalBytes > 0 ? ((compressedBytes / originalBytes) * 100).toFixed(1) : '0';
+  console.log(`✅ 已预压缩 ${count} 个静态资源: ${originalBytes} -> ${compressedBytes} 字节 (${ratio}%)`);
+  console.log(`   清单版本: ${manifest.version}`);
+}
+
+main();
@@ -4,6 +4,7 @@ import React, { useEffect } from 'react';
 import { toast } from 'sonner';
 import { useAccountBookStore } from '@/store/account-book-store';
 import { useRouter } from 'next/navigation';
+import { nativeLogger } from '@/lib/native-log-bridge';
 
 /**
  * 分享图片处理组件
@@ -19,23 +20,13 @@ export function ShareImageHandler() {
         console.log('📷 [ShareImageHandler] 接收到分享图片识别事件:', event.detail);
 
         // 同时输出到Android logcat
-        if (typeof window !== 'undefined' && (window as any).Capacitor?.Plugins?.LogBridge) {
-          (window as any).Capacitor.Plugins.LogBridge.logInfo({
-            message: '📷 [ShareImageHandler] 接收到分享图片识别事件',
-            tag: 'ShareImageHandler'
-          });
-        }
+        nativeLogger.info('ShareImageHandler', '📷 [ShareImageHandler] 接收到分享图片识别事件');
 
-        const { file, source } = event.detail;
+        const { file, files, source, preprocessing, imageFingerprint } = event.detail;
 
         if (!file || source !== 'share') {
           console.log('📷 [ShareImageHandler] 无效的分享图片数据');
-          if (typeof window !== 'undefined' && (window as any).Capacitor?.Plugins?.LogBridge) {
-            (window as any).Capacitor.Plugins.LogBridge.logWarn({
-              message: '📷 [ShareImageHandler] 无效的分享图片数据',
-              tag: 'ShareImageHandler'
-            });
-          }
+          nativeLogger.warn('ShareImageHandler', '📷 [ShareImageHandler] 无效的分享图片数据');
           return;
         }
 
@@ -47,36 +38,50 @@ export function ShareImageHandler() {
           return;
         }
 
+        if (preprocessing) {
+          console.log('📷 [ShareImageHandler] 原生票据预处理:', preprocessing.transforms, '张数:', files?.length);
+        }
+
+        // 将File对象转换为可序列化的格式（base64 data URL），长截图切分后的每张都保存
+        const tiles: File[] = Array.isArray(files) && files.length > 0 ? files : [file];
+        const tileData = await Promise.all(
+          tiles.map(
+            (tile) =>
+              new Promise<{ fileName: string; fileType: string; fileSize: number; fileData: any }>(
+                (resolve, reject) => {
+                  const reader = new FileReader();
+                  reader.onload = (e) =>
+                    resolve({
+                      fileName: tile.name,
+                      fileType: tile.type,
+                      fileSize: tile.size,
+                      fileData: e.target?.result,
+                    });
+                  reader.onerror = () => reject(reader.error);
+                  reader.readAsDataURL(tile);
+                },
+              ),
+          ),
+        );
+
         // 将分享图片数据保存到sessionStorage，供智能记账模态框使用
-        const shareImageData = {
+        const shareImageDataForStorage = {
           type: 'share-image',
-          file: file,
+          ...tileData[0],
+          tiles: tileData.length > 1 ? tileData : undefined,
+          transforms: preprocessing?.transforms,
+          imageFingerprint,
           accountBookId: currentAccountBook.id,
           source: 'share'
         };
 
-        // 将File对象转换为可序列化的格式
-        const reader = new FileReader();
-        reader.onload = function(e) {
-          const shareImageDataForStorage = {
-            type: 'share-image',
-            fileName: file.name,
-            fileType: file.type,
-            fileSize: file.size,
-            fileData: e.target?.result, // base64 data URL
-            accountBookId: currentAccountBook.id,
-            source: 'share'
-          };
-
-          sessionStorage.setItem('shareImageData', JSON.stringify(shareImageDataForStorage));
-          console.log('📷 [ShareImageHandler] 分享图片数据已保存到sessionStorage');
-
-          // 触发打开智能记账模态框的事件
-          window.dispatchEvent(new CustomEvent('openSmartAccountingDialog', {
-            detail: { source: 'share-image' }
-          }));
-        };
-        reader.readAsDataURL(file);
+        sessionStorage.setItem('shareImageData', JSON.stringify(shareImageDataForStorage));
+        console.log('📷 [ShareImageHandler] 分享图片数据已保存到sessionStorage');
+
+        // 触发打开智能记账模态框的事件
+        window.dispatchEvent(new CustomEvent('openSmartAccountingDialog', {
+          detail: { source: 'share-image' }
+        }));
 
       } catch (error) {
         console.error('📷 [ShareImageHandler] 处理分享图片失败:', error);
@@ -84,13 +89,30 @@ export function ShareImageHandler() {
       }
     };
 
+    // 多图分享的导入进度，完成后由shareImageRecognition进入识别流程
+    const handleBatchProgress = (event: CustomEvent) => {
+      const { batchId, completed, total } = event.detail || {};
+      toast.loading(`正在导入分享的图片 ${completed}/${total}`, { id: `share-batch-${batchId}` });
+    };
+    const handleBatchComplete = (event: CustomEvent) => {
+      const { batchId, failed } = event.detail || {};
+      toast.dismiss(`share-batch-${batchId}`);
+      if (failed > 0) {
+        toast.error(`${failed} 张图片导入失败`);
+      }
+    };
+
     // 监听分享图片识别事件
     window.addEventListener('shareImageRecognition', handleShareImageRecognition as EventListener);
+    window.addEventListener('shareImageBatchProgress', handleBatchProgress as EventListener);
+    window.addEventListener('shareImageBatchComplete', handleBatchComplete as EventListener);
 
     console.log('📷 [ShareImageHandler] 分享图片处理器已初始化');
 
     return () => {
       window.removeEventListener('shareImageRecognition', handleShareImageRecognition as EventListener);
+      window.removeEventListener('shareImageBatchProgress', handleBatchProgress as EventListener);
+      window.removeEventListener('shareImageBatchComplete', handleBatchComplete as EventListener);
       console.log('📷 [ShareImageHandler] 分享图片处理器已清理');
     };
   }, [currentAccountBook?.id, router]);
@@ -39,6 +39,24 @@ import {
   needsConversion,
   convertAudioToWav,
 } from '@/lib/audio-conversion';
+import {
+  isNativeVoiceRecorderAvailable,
+  startNativeRecording,
+  stopNativeRecording,
+  cancelNativeRecording,
+  readNativeRecording,
+  deleteNativeRecording,
+  finalizeNativeStream,
+  NO_SPEECH_CODE,
+  NativeRecording,
+} from '@/lib/native-voice-recorder';
+import {
+  findSimilarRecognition,
+  storeRecognition,
+  describeRecognitionAge,
+  describeRecognitionAmounts,
+  ImageFingerprint,
+} from '@/lib/recognition-cache';
 import { platformFilePicker } from '@/lib/platform-file-picker';
 import { useTransactionSelectionStore } from '@/store/transaction-selection-store';
 import {
@@ -152,6 +170,7 @@ export default function EnhancedSmartAccountingDialog({
   const [isAnalyzing, setIsAnalyzing] = useState(false); // 新增：独立的分析状态
   const isAnalyzingRef = useRef(false); // 新增：用于立即检查的ref
   const isRecordingRef = useRef(false); // 添加录音状态的ref
+  const nativeRecordingRef = useRef(false); // 是否使用原生录音
 
   // 移除本地记录选择状态，使用全局状态管理
 
@@ -470,13 +489,43 @@ export default function EnhancedSmartAccountingDialog({
         setIsProcessingMultimodal(true);
         setDescription('正在识别分享的图片...');
 
-        // 将base64数据转换回File对象
-        const response = await fetch(shareImageData.fileData);
-        const blob = await response.blob();
-        const file = new File([blob], shareImageData.fileName, { type: shareImageData.fileType });
+        // 将base64数据转换回File对象，长截图经原生预处理后可能切分为多张
+        const tiles: any[] = Array.isArray(shareImageData.tiles) ? shareImageData.tiles : [shareImageData];
+        const files = await Promise.all(
+          tiles.map(async (tile) => {
+            const response = await fetch(tile.fileData);
+            const blob = await response.blob();
+            return new File([blob], tile.fileName, { type: tile.fileType });
+          }),
+        );
+
+        // 近期识别过相同或几乎相同的截图时提示，可直接复用上次的识别结果
+        // 同一应用的不同票据可能只有金额不同，提示中显示上次的记账金额供用户核对
+        const imageFingerprint: ImageFingerprint | undefined = shareImageData.imageFingerprint || undefined;
+        let reusedResponse: any = null;
+        if (imageFingerprint) {
+          const similar = await findSimilarRecognition(imageFingerprint, accountBookId);
+          if (similar) {
+            console.log('🔁 [SmartAccountingDialog] 发现近似图片的识别记录:', {
+              distance: similar.distance,
+              exact: similar.exact,
+              createdAt: similar.createdAt,
+            });
+            const amounts = describeRecognitionAmounts(similar);
+            const reuse = window.confirm(
+              `这张图片与${describeRecognitionAge(similar.createdAt)}识别过的图片${similar.exact ? '相同' : '几乎相同'}，` +
+                `上次记账金额：${amounts ?? '未知'}。\n` +
+                `如果金额不同，请选择"取消"重新识别。是否直接使用上次的识别结果？\n\n` +
+                `${similar.result.data.text.slice(0, 120)}`,
+            );
+            if (reuse) {
+              reusedResponse = similar.result;
+            }
+          }
+        }
 
         // 开始处理分享图片
-        await handleImageRecognition(file);
+        await handleImageRecognition(files.length > 1 ? files : files[0], { imageFingerprint, reusedResponse });
       }
     } catch (error) {
       console.error('📷 [SmartAccountingDialog] 处理分享图片数据失败:', error);
@@ -561,6 +610,13 @@ export default function EnhancedSmartAccountingDialog({
       }
 
       console.log('🎤 麦克风权限获取成功，开始初始化设备...');
+
+      // Android原生环境：原生采集编码并裁剪静音，返回文件句柄
+      if (isNativeVoiceRecorderAvailable()) {
+        await startNativeVoiceRecording();
+        return;
+      }
+
       const stream = await navigator.mediaDevices.getUserMedia({ audio: true });
 
       // 设置音频分析器
@@ -704,8 +760,117 @@ export default function EnhancedSmartAccountingDialog({
     }
   };
 
+  // 开始原生录音
+  const startNativeVoiceRecording = async () => {
+    const stateManager = recordingStateManagerRef.current;
+
+    await startNativeRecording(
+      {
+        onLevel: (level) => setAudioLevel(level),
+        onAutoStop: () => {
+          console.log('🎤 [NativeRecording] 录音超时，自动停止');
+          finishNativeRecording(gestureTypeRef.current);
+        },
+      },
+      // 边录边传，松开后只需等待识别
+      { stream: !!accountBookId },
+    );
+    nativeRecordingRef.current = true;
+
+    stateManager.transition(RecordingState.RECORDING);
+    safeHapticFeedback('start');
+
+    // 电平来自原生事件，这里只驱动声波动画
+    isAnalyzingRef.current = true;
+    setIsAnalyzing(true);
+
+    isRecordingRef.current = true;
+    recordingCancelledRef.current = false;
+    setGestureType('none');
+    gestureTypeRef.current = 'none';
+    setShowGestureHint(true);
+
+    console.log('🎤 [NativeRecording] 原生录音已启动');
+    showInfo('正在录音，松开停止，向上滑动取消');
+  };
+
+  // 结束原生录音：取消或取回文件后识别
+  const finishNativeRecording = async (gestureType: 'none' | 'cancel' | 'fill-text') => {
+    if (!nativeRecordingRef.current) return;
+    nativeRecordingRef.current = false;
+
+    const stateManager = recordingStateManagerRef.current;
+    cleanupAudioAnalyser();
+    setIsButtonTouched(false);
+    setTimeout(() => {
+      gestureTypeRef.current = 'none';
+    }, 100);
+
+    if (recordingCancelledRef.current) {
+      await cancelNativeRecording().catch((error) => {
+        console.warn('🎤 [NativeRecording] 取消录音失败:', error);
+      });
+      stateManager.transition(RecordingState.CANCELLED);
+      safeHapticFeedback('cancel');
+      setTimeout(() => stateManager.reset(), 1500);
+      return;
+    }
+
+    stateManager.transition(RecordingState.PROCESSING);
+    safeHapticFeedback('stop');
+
+    let recording: NativeRecording;
+    try {
+      recording = await stopNativeRecording();
+    } catch (error: any) {
+      console.error('🎤 [NativeRecording] 停止录音失败:', error);
+      stateManager.setError(RecordingErrorType.RECORDING_FAILED);
+      safeHapticFeedback('error');
+      showError(
+        createError(
+          MultimodalErrorType.RECORDING_FAILED,
+          error?.code === NO_SPEECH_CODE ? '未检测到语音，请重试' : '录音过程中发生错误',
+        ),
+      );
+      setTimeout(() => stateManager.reset(), 2000);
+      return;
+    }
+
+    console.log('🎤 [NativeRecording] 录音完成:', {
+      时长: `${recording.durationMs}ms`,
+      裁剪: `${recording.trimmedLeadingMs}ms / ${recording.trimmedTrailingMs}ms`,
+      大小: recording.size,
+    });
+
+    try {
+      const streamed = accountBookId ? await finalizeNativeStream(recording, accountBookId) : null;
+      if (streamed) {
+        await handleSpeechRecognition(null, gestureType, true, streamed);
+      } else {
+        const audioBlob = await readNativeRecording(recording);
+        await handleSpeechRecognition(audioBlob, gestureType, true);
+      }
+    } catch (error) {
+      console.error('🎤 [NativeRecording] 读取录音失败:', error);
+      stateManager.setError(RecordingErrorType.PROCESSING_FAILED);
+      safeHapticFeedback('error');
+      showError(error);
+      setTimeout(() => stateManager.reset(), 2000);
+    } finally {
+      deleteNativeRecording(recording);
+    }
+  };
+
   // 停止录音（松开手指）
   const stopRecording = (gestureType: 'none' | 'cancel' | 'fill-text' = 'none') => {
+    if (nativeRecordingRef.current) {
+      gestureTypeRef.current = gestureType;
+      isRecordingRef.current = false;
+      setTouchStartPos(null);
+      finishNativeRecording(gestureType);
+      return;
+    }
+
     console.log('🎤 [StopRecording] 调用停止录音，当前状态:', {
       mediaRecorder: mediaRecorder?.state,
       recordingState,
@@ -738,6 +903,14 @@ export default function EnhancedSmartAccountingDialog({
     console.log('🎤 [CancelRecording] 取消录音');
     recordingCancelledRef.current = true;
 
+    if (nativeRecordingRef.current) {
+      isRecordingRef.current = false;
+      setTouchStartPos(null);
+      finishNativeRecording('cancel');
+      showInfo('录音已取消');
+      return;
+    }
+
     // 清空音频块数据，确保不会被处理
     audioChunksRef.current = [];
 
@@ -1011,8 +1184,10 @@ export default function EnhancedSmartAccountingDialog({
 
   // 处理语音识别
   const handleSpeechRecognition = async (
-    audioBlob: Blob,
+    audioBlob: Blob | null,
     gestureType: 'none' | 'cancel' | 'fill-text',
+    preEncoded: boolean = false,
+    recognizedResponse?: any,
   ) => {
     console.log('🎤 [SpeechRecognition] 开始处理语音识别，手势类型:', gestureType);
 
@@ -1024,52 +1199,59 @@ export default function EnhancedSmartAccountingDialog({
     setIsProcessingMultimodal(true);
 
     try {
-      // 检测音频格式并自动转换
-      const audioFormat = detectAudioFormat(audioBlob);
-      console.log('🎤 [SpeechRecognition] 检测到音频格式:', audioFormat, '大小:', audioBlob.size);
-
-      let processedAudio = audioBlob;
-      let fileName = `recording.${audioFormat}`;
+      // 流式上传已在服务器完成识别，直接使用结果
+      let response = recognizedResponse;
+      if (!response) {
+        if (!audioBlob) {
+          throw new Error('没有可识别的录音');
+        }
+        // 检测音频格式并自动转换
+        const audioFormat = detectAudioFormat(audioBlob);
+        console.log('🎤 [SpeechRecognition] 检测到音频格式:', audioFormat, '大小:', audioBlob.size);
 
-      // 如果需要转换格式
-      if (needsConversion(audioFormat)) {
-        console.log('🎤 [SpeechRecognition] 需要转换音频格式');
-        //showInfo('正在处理音频格式...');
+        let processedAudio = audioBlob;
+        let fileName = `recording.${audioFormat}`;
 
-        try {
-          const conversionResult = await processAudioForSpeechRecognition(audioBlob);
-          processedAudio = conversionResult.blob;
-          fileName = `recording.${conversionResult.format}`;
-
-          console.log('🎤 [SpeechRecognition] 音频转换完成:', {
-            原始大小: audioBlob.size,
-            转换后大小: conversionResult.size,
-            转换时间: `${conversionResult.duration}ms`,
-            格式: `${audioFormat} → ${conversionResult.format}`,
-          });
+        // 如果需要转换格式（原生录音已是服务器支持的压缩格式）
+        if (!preEncoded && needsConversion(audioFormat)) {
+          console.log('🎤 [SpeechRecognition] 需要转换音频格式');
+          //showInfo('正在处理音频格式...');
 
-          //showSuccess(`音频已转换为${conversionResult.format.toUpperCase()}格式`);
-        } catch (conversionError) {
-          console.error('🎤 [SpeechRecognition] 音频转换失败:', conversionError);
-          showError(
-            `音频格式转换失败: ${conversionError instanceof Error ? conversionError.message : '未知错误'}`,
-          );
-          return;
+          try {
+            const conversionResult = await processAudioForSpeechRecognition(audioBlob);
+            processedAudio = conversionResult.blob;
+            fileName = `recording.${conversionResult.format}`;
+
+            console.log('🎤 [SpeechRecognition] 音频转换完成:', {
+              原始大小: audioBlob.size,
+              转换后大小: conversionResult.size,
+              转换时间: `${conversionResult.duration}ms`,
+              格式: `${audioFormat} → ${conversionResult.format}`,
+            });
+
+            //showSuccess(`音频已转换为${conversionResult.format.toUpperCase()}格式`);
+          } catch (conversionError) {
+            console.error('🎤 [SpeechRecognition] 音频转换失败:', conversionError);
+            showError(
+              `音频格式转换失败: ${conversionError instanceof Error ? conversionError.message : '未知错误'}`,
+            );
+            return;
+          }
+        } else {
+          console.log('🎤 [SpeechRecognition] 音频格式已支持，无需转换');
         }
-      } else {
-        console.log('🎤 [SpeechRecognition] 音频格式已支持，无需转换');
-      }
 
-      const formData = new FormData();
-      formData.append('audio', processedAudio, fileName);
-      formData.append('accountBookId', accountBookId);
+        const formData = new FormData();
+        formData.append('audio', processedAudio, fileName);
+        formData.append('accountBookId', accountBookId);
 
-      const response = await apiClient.post('/ai/smart-accounting/speech', formData, {
-        headers: {
-          'Content-Type': 'multipart/form-data',
-        },
-        timeout: 60000,
-      });
+        response = await apiClient.post('/ai/smart-accounting/speech', formData, {
+          headers: {
+            'Content-Type': 'multipart/form-data',
+          },
+          timeout: 60000,
+        });
+      }
 
       if (response && response.data && response.data.text) {
         const recognizedText = response.data.text;
@@ -1627,8 +1809,42 @@ export default function EnhancedSmartAccountingDialog({
     }
   };
 
+  // 识别单张图片
+  const recognizeImage = async (imageFile: File, bookId: string) => {
+    const formData = new FormData();
+    formData.append('image', imageFile);
+    formData.append('accountBookId', bookId);
+
+    return apiClient.post('/ai/smart-accounting/vision', formData, {
+      headers: {
+        'Content-Type': 'multipart/form-data',
+      },
+      timeout: 60000,
+    });
+  };
+
+  // 逐张识别长截图切片并按顺序合并文本，附件使用第一张
+  const recognizeImageTiles = async (tiles: File[], bookId: string) => {
+    const texts: string[] = [];
+    let first: any = null;
+    for (const tile of tiles) {
+      const response: any = await recognizeImage(tile, bookId);
+      if (!first) first = response;
+      if (response?.data?.text) {
+        texts.push(response.data.text);
+      }
+    }
+    console.log('🖼️ [ImageRecognition] 切片识别完成:', { 张数: tiles.length, 有效: texts.length });
+    if (!first || texts.length === 0) return first;
+    return { ...first, data: { ...first.data, text: texts.join('\n') } };
+  };
+
   // 处理图片识别
-  const handleImageRecognition = async (imageFile: File) => {
+  // imageFingerprint用于保存本次识别结果，reusedResponse为复用的上次识别结果（不再调用识别接口）
+  const handleImageRecognition = async (
+    imageFile: File | File[],
+    cache: { imageFingerprint?: ImageFingerprint; reusedResponse?: any } = {},
+  ) => {
     if (!accountBookId) {
       toast.error('请先选择账本');
       return;
@@ -1637,16 +1853,18 @@ export default function EnhancedSmartAccountingDialog({
     setIsProcessingMultimodal(true);
 
     try {
-      const formData = new FormData();
-      formData.append('image', imageFile);
-      formData.append('accountBookId', accountBookId);
-
-      const response = await apiClient.post('/ai/smart-accounting/vision', formData, {
-        headers: {
-          'Content-Type': 'multipart/form-data',
-        },
-        timeout: 60000,
-      });
+      let response: any;
+      if (cache.reusedResponse) {
+        response = cache.reusedResponse;
+        toast.info('已使用上次的识别结果');
+      } else {
+        response = Array.isArray(imageFile)
+          ? await recognizeImageTiles(imageFile, accountBookId)
+          : await recognizeImage(imageFile, accountBookId);
+        if (cache.imageFingerprint && response?.data?.text) {
+          storeRecognition(cache.imageFingerprint, accountBookId, response.data.text);
+        }
+      }
 
       if (response && response.data && response.data.text) {
         const recognizedText = response.data.text;
@@ -1766,6 +1984,13 @@ export default function EnhancedSmartAccountingDialog({
               : `记账成功，已创建${directAddResponse.count}条记录`;
             progressManager.showProgress(progressId, successMessage, 'success');
 
+            // 记录本次创建的金额，之后分享近似图片时在确认提示中显示
+            if (cache.imageFingerprint && !cache.reusedResponse) {
+              const created: any[] = directAddResponse.id ? [directAddResponse] : directAddResponse.transactions;
+              const amounts = created.map((transaction) => Number(transaction.amount)).filter((amount) => !isNaN(amount));
+              storeRecognition(cache.imageFingerprint, accountBookId, recognizedText, amounts);
+            }
+
             // 刷新仪表盘数据
             if (accountBookId) {
               try {
@@ -2278,6 +2503,16 @@ export default function EnhancedSmartAccountingDialog({
     };
   }, [isOpen, recordingState, configLoading, config.accountingPointsEnabled]);
 
+  // 卸载时停止仍在进行的原生录音
+  useEffect(() => {
+    return () => {
+      if (nativeRecordingRef.current) {
+        nativeRecordingRef.current = false;
+        cancelNativeRecording();
+      }
+    };
+  }, []);
+
   // 专门处理记账点余额获取
   useEffect(() => {
     console.log('🔍 余额获取useEffect触发:', {
@@ -7,6 +7,7 @@
 import { useQuery } from '@tanstack/react-query';
 import { fetchApi } from '@/lib/api-client';
 import { createLogger } from '@/lib/logger';
+import { isNativeImageCacheAvailable } from '@/lib/native-image-cache';
 
 const imageLogger = createLogger('Image');
 
@@ -112,8 +113,11 @@ export function useImageBlob(url: string | null, enabled: boolean = true) {
         return cachedBlobUrl;
       }
       
+      // 原生环境中请求由原生图片缓存返回，不再用localStorage持久化
+      const nativeCached = isNativeImageCacheAvailable();
+
       // 2. 检查localStorage缓存
-      const persistedBlobUrl = await getCachedImageData(url);
+      const persistedBlobUrl = nativeCached ? null : await getCachedImageData(url);
       if (persistedBlobUrl) {
         // 恢复到内存缓存
         blobUrlCache.set(url, persistedBlobUrl);
@@ -153,7 +157,9 @@ export function useImageBlob(url: string | null, enabled: boolean = true) {
       
       // 缓存到内存和localStorage
       blobUrlCache.set(url, blobUrl);
-      setCachedImageData(url, blob); // 缓存原始blob数据，不是URL
+      if (!nativeCached) {
+        setCachedImageData(url, blob); // 缓存原始blob数据，不是URL
+      }
       
       imageLogger.debug('图片加载成功，已缓存到内存和localStorage');
       return blobUrl;
@@ -0,0 +1,73 @@
+import axios from 'axios';
+import { nativeHttpAdapter } from '../native-http';
+
+jest.mock('@/store/server-config-store', () => ({
+  useServerConfigStore: { subscribe: jest.fn() },
+}));
+
+jest.mock('../server-config', () => ({
+  getApiBaseUrl: () => 'https://api.example.com/api',
+}));
+
+describe('nativeHttpAdapter', () => {
+  const nativeRequest = jest.fn();
+  const xhrAdapter = jest.fn();
+
+  const buildConfig = (overrides: Record<string, any> = {}): any => ({
+    url: '/transactions/export',
+    baseURL: 'https://api.example.com/api',
+    method: 'get',
+    headers: new axios.AxiosHeaders({ Accept: 'application/json' }),
+    ...overrides,
+  });
+
+  beforeEach(() => {
+    jest.clearAllMocks();
+    (globalThis as any).window = {
+      Capacitor: {
+        isNativePlatform: () => true,
+        Plugins: { NativeHttp: { request: nativeRequest } },
+      },
+    };
+    jest.spyOn(axios, 'getAdapter').mockReturnValue(xhrAdapter as any);
+  });
+
+  afterEach(() => {
+    delete (globalThis as any).window;
+    jest.restoreAllMocks();
+  });
+
+  it('blob响应交给XHR适配器，数据保持为Blob', async () => {
+    const blob = new Blob([new Uint8Array([0x25, 0x50, 0x44, 0x46, 0xff, 0x00])], { type: 'application/pdf' });
+    xhrAdapter.mockResolvedValue({ data: blob, status: 200, statusText: 'OK', headers: {}, config: {} });
+
+    const response = await nativeHttpAdapter(buildConfig({ responseType: 'blob' }));
+
+    expect(nativeRequest).not.toHaveBeenCalled();
+    expect(xhrAdapter).toHaveBeenCalledTimes(1);
+    expect(response.data).toBe(blob);
+    expect(response.data.size).toBe(6);
+  });
+
+  it('设置了取消信号或上传进度的请求交给XHR适配器', async () => {
+    xhrAdapter.mockResolvedValue({ data: {}, status: 200, statusText: 'OK', headers: {}, config: {} });
+
+    await nativeHttpAdapter(buildConfig({ signal: new AbortController().signal }));
+    await nativeHttpAdapter(buildConfig({ method: 'post', data: { a: 1 }, onUploadProgress: jest.fn() }));
+
+    expect(nativeRequest).not.toHaveBeenCalled();
+    expect(xhrAdapter).toHaveBeenCalledTimes(2);
+  });
+
+  it('JSON响应经由原生插件并解析', async () => {
+    nativeRequest.mockResolvedValue({ status: 200, statusText: 'OK', headers: {}, data: '{"total":3}' });
+
+    const response = await nativeHttpAdapter(buildConfig({ url: '/transactions' }));
+
+    expect(xhrAdapter).not.toHaveBeenCalled();
+    expect(nativeRequest).toHaveBeenCalledWith(
+      expect.objectContaining({ url: 'https://api.example.com/api/transactions', method: 'GET' }),
+    );
+    expect(response.data).toEqual({ total: 3 });
+  });
+});
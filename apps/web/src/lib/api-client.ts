@@ -4,6 +4,7 @@ import axios, { AxiosInstance, AxiosRequestConfig, AxiosResponse } from 'axios';
 import { getApiBaseUrl } from './server-config';
 import { createLogger } from './logger';
 import { sslConfigService } from './ssl-config';
+import { nativeHttpAdapter } from './native-http';
 
 // 创建API专用日志器
 const apiLogger = createLogger('API');
@@ -18,6 +19,8 @@ class ApiClient {
       headers: {
         'Content-Type': 'application/json',
       },
+      // 原生环境经由NativeHttp插件发送，其他环境自动回退到XHR
+      adapter: nativeHttpAdapter,
     });
 
     // 请求拦截器
@@ -92,13 +95,16 @@ class ApiClient {
             isNative: sslConfigService.isNativePlatform()
           });
           
+          // 原生请求的证书问题已在握手时由原生层询问过用户，不再重复提示
+          const certificateHandled = error.code === 'CERT_REJECTED' || error.code === 'CERT_UNTRUSTED';
+
           // 在原生平台上显示SSL警告
-          if (sslConfigService.isNativePlatform()) {
+          if (sslConfigService.isNativePlatform() && !certificateHandled) {
             try {
               const allowed = await sslConfigService.showSSLWarning(url, message);
               if (allowed) {
-                // 用户允许后，配置宽松SSL并重试请求
-                await sslConfigService.configurePermissiveSSL();
+                // 用户允许后，信任该服务器的证书并重试请求
+                await sslConfigService.configurePermissiveSSL(url);
                 apiLogger.info('用户允许连接，重试请求', { url });
                 return this.instance.request(error.config);
               } else {
@@ -1,5 +1,6 @@
 import { apiClient } from './api-client';
 import { getCurrentMonthRange } from './utils';
+import { removeLocalTransactions } from './local-ledger';
 
 // 账本相关API
 export const accountBookService = {
@@ -67,8 +68,10 @@ export const transactionService = {
   },
 
   // 删除记账
-  deleteTransaction: (id: string) => {
-    return apiClient.delete(`/transactions/${id}`);
+  deleteTransaction: async (id: string) => {
+    const result = await apiClient.delete(`/transactions/${id}`);
+    removeLocalTransactions([id]);
+    return result;
   },
 
   // 获取最近记账
@@ -0,0 +1,91 @@
+/**
+ * 插件桥接调用埋点
+ * 为自定义原生插件的调用参数附带发送时间戳，原生层据此统计排队耗时；
+ * 同时负责上报Web层可交互时间，统计结果通过Diagnostics插件读取
+ */
+
+const SENT_AT_KEY = '_bridgeSentAt';
+
+/** 需要统计的自定义插件 */
+const INSTRUMENTED_PLUGINS = ['ShareTarget', 'LogBridge', 'SSLConfig', 'UploadQueue', 'NativeHttp', 'LocalLedger', 'ImageCache', 'VoiceRecorder', 'QuickEntry'];
+
+/** 不是插件方法的属性，不做包装 */
+const PASSTHROUGH_PROPS = new Set(['addListener', 'removeAllListeners', 'then']);
+
+let installed = false;
+
+function wrapPlugin(plugin: any): any {
+  return new Proxy(plugin, {
+    get(target, prop, receiver) {
+      const value = Reflect.get(target, prop, receiver);
+      if (typeof value !== 'function' || typeof prop !== 'string' || PASSTHROUGH_PROPS.has(prop)) {
+        return value;
+      }
+      return (options?: Record<string, any>, ...rest: any[]) =>
+        value.call(target, { ...(options || {}), [SENT_AT_KEY]: Date.now() }, ...rest);
+    },
+  });
+}
+
+/**
+ * 包装Capacitor.Plugins上的自定义插件，重复调用无副作用
+ */
+export function installBridgeInstrumentation() {
+  if (installed || typeof window === 'undefined') return;
+  const plugins = (window as any).Capacitor?.Plugins;
+  if (!plugins) return;
+
+  for (const name of INSTRUMENTED_PLUGINS) {
+    if (plugins[name]) {
+      plugins[name] = wrapPlugin(plugins[name]);
+    }
+  }
+  installed = true;
+}
+
+/**
+ * 获取原生侧桥接调用统计
+ */
+export async function getBridgeMetrics(reset = false): Promise<any> {
+  const diagnostics = (window as any).Capacitor?.Plugins?.Diagnostics;
+  if (!diagnostics?.getBridgeMetrics) return null;
+  return diagnostics.getBridgeMetrics({ reset });
+}
+
+let interactiveReported = false;
+
+/**
+ * 首屏渲染完成后通知原生层记录可交互时间，只上报一次
+ * 两次requestAnimationFrame确保首帧已提交
+ */
+export function reportWebInteractive() {
+  if (interactiveReported || typeof window === 'undefined') return;
+  const diagnostics = (window as any).Capacitor?.Plugins?.Diagnostics;
+  if (!diagnostics?.markInteractive) return;
+  interactiveReported = true;
+  requestAnimationFrame(() => {
+    requestAnimationFrame(() => {
+      diagnostics.markInteractive().catch((error: any) => {
+        console.error('📊 [Diagnostics] 上报可交互时间失败:', error);
+      });
+    });
+  });
+}
+
+/**
+ * 获取原生侧记录的启动阶段耗时
+ */
+export async function getStartupTrace(): Promise<any> {
+  const diagnostics = (window as any).Capacitor?.Plugins?.Diagnostics;
+  if (!diagnostics?.getStartupTrace) return null;
+  return diagnostics.getStartupTrace();
+}
+
+/**
+ * 比较原生事件通道与evaluateJavascript派发的吞吐量，需要事件通道已建立
+ */
+export async function benchmarkEventChannel(options: { count?: number; payloadBytes?: number; binary?: boolean } = {}): Promise<any> {
+  const diagnostics = (window as any).Capacitor?.Plugins?.Diagnostics;
+  if (!diagnostics?.benchmarkEventChannel) return null;
+  return diagnostics.benchmarkEventChannel(options);
+}
@@ -6,6 +6,11 @@
 import { navigationManager } from './mobile-navigation';
 import { platformGestureHandler } from './platform-gesture-handler';
 import { handleShortcutsDeepLink } from './shortcuts-deep-link-handler';
+import { nativeLogger } from './native-log-bridge';
+import { installBridgeInstrumentation, reportWebInteractive } from './bridge-instrumentation';
+import { startNativeBaseUrlSync } from './native-http';
+import { addNativeEventListener, prepareNativeEventChannel } from './native-events';
+import type { ImageFingerprint } from './recognition-cache';
 
 // Capacitor插件接口
 interface CapacitorApp {
@@ -88,11 +93,20 @@ export class CapacitorIntegration {
       isNative: this.capacitor.isNativePlatform(),
     });
 
+    // 自定义插件调用附带发送时间，供原生层统计桥接排队耗时
+    installBridgeInstrumentation();
+
+    // 原生HTTP客户端跟随服务器设置中的地址
+    startNativeBaseUrlSync();
+
     this.setupAppListeners();
     this.setupBackButtonHandler();
     this.setupStatusBar();
     this.setupKeyboard();
     this.setupSharedImageListener();
+
+    // 集成初始化完成时页面已渲染，上报启动可交互时间
+    reportWebInteractive();
   }
 
   // 设置应用监听器
@@ -325,35 +339,40 @@ export class CapacitorIntegration {
         console.log('📷 [Capacitor] 接收到分享图片事件:', event.detail);
 
         // 同时输出到Android logcat
-        if (typeof window !== 'undefined' && (window as any).Capacitor?.Plugins?.LogBridge) {
-          (window as any).Capacitor.Plugins.LogBridge.logInfo({
-            message: '📷 [Capacitor] 接收到分享图片事件: ' + JSON.stringify(event.detail),
-            tag: 'CapacitorIntegration'
-          });
-        }
+        nativeLogger.info('CapacitorIntegration', () => '📷 [Capacitor] 接收到分享图片事件: ' + JSON.stringify(event.detail));
 
         this.handleSharedImage(event.detail);
       });
 
+      // 监听来自Android的多图分享事件
+      window.addEventListener('sharedImagesReceived', (event: any) => {
+        console.log('📷 [Capacitor] 接收到多图分享事件:', event.detail);
+        this.handleSharedImages(event.detail);
+      });
+
       console.log('🔌 [Capacitor] 分享图片监听器已设置');
 
-      // 同时输出到Android logcat
-      if (typeof window !== 'undefined' && (window as any).Capacitor?.Plugins?.LogBridge) {
-        (window as any).Capacitor.Plugins.LogBridge.logInfo({
-          message: '🔌 [Capacitor] 分享图片监听器已设置',
-          tag: 'CapacitorIntegration'
+      // 通知原生层Web已就绪：支持事件通道时积压和之后的原生事件都经由消息端口按顺序派发，
+      // 否则取走启动期间积压的事件在此派发
+      const shareTargetPlugin = (window as any).Capacitor?.Plugins?.ShareTarget;
+      if (shareTargetPlugin?.notifyWebReady) {
+        const channel = prepareNativeEventChannel();
+        shareTargetPlugin.notifyWebReady({ channel }).then((result: any) => {
+          for (const event of result?.events || []) {
+            window.dispatchEvent(new CustomEvent(event.name, { detail: event.detail }));
+          }
+        }).catch((error: any) => {
+          console.error('🔌 [Capacitor] 通知原生层就绪失败:', error);
         });
       }
+
+      // 同时输出到Android logcat
+      nativeLogger.info('CapacitorIntegration', '🔌 [Capacitor] 分享图片监听器已设置');
     } catch (error) {
       console.error('🔌 [Capacitor] 分享图片监听器设置失败:', error);
 
       // 同时输出到Android logcat
-      if (typeof window !== 'undefined' && (window as any).Capacitor?.Plugins?.LogBridge) {
-        (window as any).Capacitor.Plugins.LogBridge.logError({
-          message: '🔌 [Capacitor] 分享图片监听器设置失败: ' + error.message,
-          tag: 'CapacitorIntegration'
-        });
-      }
+      nativeLogger.error('CapacitorIntegration', '🔌 [Capacitor] 分享图片监听器设置失败: ' + error.message);
     }
   }
 
@@ -384,26 +403,69 @@ export class CapacitorIntegration {
         return;
       }
 
-      const imageData = await shareTargetPlugin.getSharedImage({ imageUri: data.imageUri });
+      // 使用file模式：原生层将图片复制到本地缓存并返回可直接fetch的地址，避免Base64拷贝
+      const imageData = await shareTargetPlugin.getSharedImage({ imageUri: data.imageUri, mode: 'file' });
       console.log('📷 [Capacitor] 获取图片数据成功:', {
         fileName: imageData.fileName,
         mimeType: imageData.mimeType,
         fileSize: imageData.fileSize,
       });
 
-      // 将Base64数据转换为File对象
-      const base64Data = imageData.base64Data;
-      const byteCharacters = atob(base64Data);
-      const byteNumbers = new Array(byteCharacters.length);
-      for (let i = 0; i < byteCharacters.length; i++) {
-        byteNumbers[i] = byteCharacters.charCodeAt(i);
+      let files: File[];
+      let preprocessing: any = null;
+      let imageFingerprint: ImageFingerprint | null = null;
+      if (imageData.webPath) {
+        // 对原图计算感知哈希，识别对话框据此查找近期识别过的相同截图
+        imageFingerprint = await this.computeImageHash(shareTargetPlugin, imageData.path);
+        const receipt = await this.loadPreprocessedReceipt(shareTargetPlugin, imageData);
+        if (receipt) {
+          files = receipt.files;
+          preprocessing = receipt.preprocessing;
+        } else {
+          // 在原生层完成缩放和重新编码，避免在JS线程处理大图
+          let webPath = imageData.webPath;
+          let mimeType = imageData.mimeType;
+          let preparedPath: string | null = null;
+          if (shareTargetPlugin.prepareImage) {
+            try {
+              const prepared = await shareTargetPlugin.prepareImage({
+                path: imageData.path,
+                maxDimension: 2048,
+                quality: 85,
+              });
+              webPath = prepared.webPath;
+              mimeType = prepared.mimeType;
+              preparedPath = prepared.path;
+            } catch (error) {
+              console.warn('📷 [Capacitor] 原生图片预处理失败，使用原图:', error);
+            }
+          }
+
+          const response = await fetch(webPath);
+          const blob = await response.blob();
+          files = [new File([blob], imageData.fileName, { type: mimeType })];
+          if (preparedPath) {
+            shareTargetPlugin.releaseSharedImage?.({ path: preparedPath }).catch(() => {});
+          }
+        }
+        // 内容已读入Blob，释放原生缓存文件
+        shareTargetPlugin.releaseSharedImage?.({ path: imageData.path }).catch(() => {});
+      } else {
+        // 兼容旧版原生层：将Base64数据转换为File对象
+        const base64Data = imageData.base64Data;
+        const byteCharacters = atob(base64Data);
+        const byteNumbers = new Array(byteCharacters.length);
+        for (let i = 0; i < byteCharacters.length; i++) {
+          byteNumbers[i] = byteCharacters.charCodeAt(i);
+        }
+        const byteArray = new Uint8Array(byteNumbers);
+        files = [new File([byteArray], imageData.fileName, { type: imageData.mimeType })];
       }
-      const byteArray = new Uint8Array(byteNumbers);
-      const file = new File([byteArray], imageData.fileName, { type: imageData.mimeType });
 
       // 触发图片识别事件，让Web层处理
+      // file为第一张，长截图切分后的全部图片在files中
       window.dispatchEvent(new CustomEvent('shareImageRecognition', {
-        detail: { file, source: 'share' }
+        detail: { file: files[0], files, source: 'share', preprocessing, imageFingerprint }
       }));
 
       console.log('📷 [Capacitor] 分享图片处理完成，已触发识别事件');
@@ -413,6 +475,159 @@ export class CapacitorIntegration {
     }
   }
 
+  // 计算图片感知哈希、内容哈希和尺寸；原生层不支持或失败时返回null，不影响识别流程
+  private async computeImageHash(shareTargetPlugin: any, path: string): Promise<ImageFingerprint | null> {
+    if (!shareTargetPlugin.computeImageHash) return null;
+    try {
+      const { hash, contentHash, width, height, elapsedMs } = await shareTargetPlugin.computeImageHash({ path });
+      console.log('📷 [Capacitor] 图片感知哈希:', hash, `${width}x${height}`, `${elapsedMs}ms`);
+      return { hash, contentHash, width, height };
+    } catch (error) {
+      console.warn('📷 [Capacitor] 计算图片哈希失败:', error);
+      return null;
+    }
+  }
+
+  // 票据预处理：裁剪系统栏和空白边距，长截图切分为多张；原生层不支持或失败时返回null
+  private async loadPreprocessedReceipt(
+    shareTargetPlugin: any,
+    imageData: any,
+  ): Promise<{ files: File[]; preprocessing: any } | null> {
+    if (!shareTargetPlugin.preprocessReceipt) return null;
+
+    let processed: any;
+    try {
+      processed = await shareTargetPlugin.preprocessReceipt({ path: imageData.path, maxWidth: 1080, quality: 85 });
+    } catch (error) {
+      console.warn('📷 [Capacitor] 票据预处理失败，改用普通预处理:', error);
+      return null;
+    }
+    console.log('📷 [Capacitor] 票据预处理完成:', {
+      变换: processed.transforms,
+      张数: processed.tiles.length,
+      大小: `${processed.originalFileSize} -> ${processed.fileSize}`,
+    });
+
+    const baseName = (imageData.fileName || 'shared_image').replace(/\.[^.]+$/, '');
+    const extension = processed.mimeType === 'image/webp' ? 'webp' : 'jpg';
+    try {
+      const files = await Promise.all(
+        processed.tiles.map(async (tile: any, index: number) => {
+          const response = await fetch(tile.webPath);
+          const blob = await response.blob();
+          const suffix = processed.tiles.length > 1 ? `_${index + 1}` : '';
+          return new File([blob], `${baseName}${suffix}.${extension}`, { type: processed.mimeType });
+        }),
+      );
+      const preprocessing = {
+        transforms: processed.transforms,
+        crop: processed.crop,
+        screenshot: processed.screenshot,
+        originalWidth: processed.originalWidth,
+        originalHeight: processed.originalHeight,
+        originalFileSize: processed.originalFileSize,
+        fileSize: processed.fileSize,
+        tiles: processed.tiles.map((tile: any) => ({ width: tile.width, height: tile.height, top: tile.top })),
+      };
+      return { files, preprocessing };
+    } catch (error) {
+      console.warn('📷 [Capacitor] 读取预处理结果失败:', error);
+      return null;
+    } finally {
+      for (const tile of processed.tiles) {
+        shareTargetPlugin.releaseSharedImage?.({ path: tile.path }).catch(() => {});
+      }
+    }
+  }
+
+  // 批量处理分享的多张图片：原生层有界并行复制/预处理，逐张通过事件回传进度，
+  // 全部完成后读入File交给与单图相同的识别流程，并释放原生缓存文件
+  private async handleSharedImages(data: any) {
+    const shareTargetPlugin = (window as any).Capacitor?.Plugins?.ShareTarget;
+    if (!shareTargetPlugin?.importSharedImages || !Array.isArray(data?.imageUris)) {
+      console.error('📷 [Capacitor] 多图分享数据无效或插件不可用');
+      return;
+    }
+
+    // 批次ID在importSharedImages返回后才知道，之前到达的事件先缓存，之后只处理本批次的事件
+    let batchId: string | null = null;
+    const items: any[] = [];
+    const summaries = new Map<string, any>();
+    let onSummary: (() => void) | null = null;
+
+    const removeProgress = addNativeEventListener('sharedImageProgress', (item: any) => {
+      if (batchId && item?.batchId !== batchId) return;
+      items.push(item);
+      if (batchId) {
+        window.dispatchEvent(new CustomEvent('shareImageBatchProgress', { detail: item }));
+      }
+    });
+    const removeComplete = addNativeEventListener('sharedImageBatchComplete', (summary: any) => {
+      if (batchId && summary?.batchId !== batchId) return;
+      summaries.set(summary?.batchId, summary);
+      onSummary?.();
+    });
+
+    try {
+      const started = await shareTargetPlugin.importSharedImages({
+        imageUris: data.imageUris,
+        prepare: true,
+        maxDimension: 2048,
+      });
+      batchId = started.batchId as string;
+      console.log('📷 [Capacitor] 多图分享开始处理:', batchId, started.total);
+
+      for (const item of items) {
+        if (item?.batchId === batchId) {
+          window.dispatchEvent(new CustomEvent('shareImageBatchProgress', { detail: item }));
+        }
+      }
+
+      const summary =
+        summaries.get(batchId) ??
+        (await new Promise<any>((resolve) => {
+          onSummary = () => {
+            const finished = summaries.get(batchId as string);
+            if (finished) resolve(finished);
+          };
+        }));
+      console.log('📷 [Capacitor] 多图分享处理完成:', summary);
+      window.dispatchEvent(new CustomEvent('shareImageBatchComplete', { detail: summary }));
+
+      const succeeded = items
+        .filter((item) => item?.batchId === batchId && item.success && item.webPath)
+        .sort((a, b) => a.index - b.index);
+      const files: File[] = [];
+      for (const item of succeeded) {
+        try {
+          const response = await fetch(item.webPath);
+          const blob = await response.blob();
+          files.push(new File([blob], item.fileName, { type: item.mimeType || blob.type }));
+        } catch (error) {
+          console.warn('📷 [Capacitor] 读取分享图片失败:', item.fileName, error);
+        } finally {
+          // 内容已读入Blob（或读取失败），释放原生缓存文件
+          shareTargetPlugin.releaseSharedImage?.({ path: item.path }).catch(() => {});
+        }
+      }
+
+      if (files.length === 0) {
+        console.error('📷 [Capacitor] 多图分享没有可用的图片');
+        return;
+      }
+
+      // 与单图分享共用识别流程，多张图片一起提交识别
+      window.dispatchEvent(new CustomEvent('shareImageRecognition', {
+        detail: { file: files[0], files, source: 'share', preprocessing: null, imageFingerprint: null }
+      }));
+    } catch (error) {
+      console.error('📷 [Capacitor] 多图分享处理失败:', error);
+    } finally {
+      removeProgress();
+      removeComplete();
+    }
+  }
+
   // 应用激活处理
   private onAppActivated() {
     console.log('🔌 [Capacitor] 应用已激活');
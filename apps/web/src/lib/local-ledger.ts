@@ -0,0 +1,125 @@
+/**
+ * 本地账本
+ * Android原生环境中，仪表盘和日历先从原生SQLite缓存渲染，再由服务器数据刷新；
+ * 缓存通过LocalLedger插件在后台按updatedAt增量同步
+ */
+
+export interface LocalTransactionPage {
+  items: any[];
+  total: number;
+  /** 本地数据覆盖了查询范围 */
+  complete: boolean;
+  syncedAt: number;
+}
+
+export interface LocalDailyStats {
+  date: string;
+  income: number;
+  expense: number;
+  count: number;
+}
+
+const syncing = new Map<string, Promise<any>>();
+
+function getLocalLedger(): any {
+  if (typeof window === 'undefined') return null;
+  const capacitor = (window as any).Capacitor;
+  if (!capacitor?.isNativePlatform?.()) return null;
+  return capacitor.Plugins?.LocalLedger || null;
+}
+
+export function isLocalLedgerAvailable(): boolean {
+  return !!getLocalLedger()?.queryTransactions;
+}
+
+/**
+ * 后台同步账本，同一账本的同步进行中时复用同一个Promise
+ */
+export function syncLocalLedger(accountBookId: string): Promise<any> {
+  const ledger = getLocalLedger();
+  if (!ledger || !accountBookId) return Promise.resolve(null);
+
+  const running = syncing.get(accountBookId);
+  if (running) return running;
+
+  const token = localStorage.getItem('auth-token');
+  const promise = ledger
+    .sync({ accountBookId, token })
+    .catch((error: any) => {
+      console.warn('📒 [LocalLedger] 同步失败:', error?.message || error);
+      return null;
+    })
+    .finally(() => syncing.delete(accountBookId));
+  syncing.set(accountBookId, promise);
+  return promise;
+}
+
+/**
+ * 从本地查询记账记录，插件不可用或本地无数据时返回null
+ */
+export async function queryLocalTransactions(params: {
+  accountBookId: string;
+  startDate?: string;
+  endDate?: string;
+  categoryIds?: string[];
+  type?: string;
+  limit?: number;
+  offset?: number;
+}): Promise<LocalTransactionPage | null> {
+  const ledger = getLocalLedger();
+  if (!ledger) return null;
+  try {
+    const result = await ledger.queryTransactions(params);
+    if (!result.syncedAt) return null;
+    return {
+      items: JSON.parse(result.itemsJson || '[]'),
+      total: result.total,
+      complete: result.complete,
+      syncedAt: result.syncedAt,
+    };
+  } catch (error) {
+    console.warn('📒 [LocalLedger] 查询失败:', error);
+    return null;
+  }
+}
+
+/**
+ * 从本地按天汇总收支，本地数据未覆盖该范围时返回null
+ */
+export async function getLocalDailyStats(
+  accountBookId: string,
+  startDate: string,
+  endDate: string,
+): Promise<LocalDailyStats[] | null> {
+  const ledger = getLocalLedger();
+  if (!ledger) return null;
+  try {
+    const result = await ledger.getDailyStats({ accountBookId, startDate, endDate });
+    return result.complete ? result.days : null;
+  } catch (error) {
+    console.warn('📒 [LocalLedger] 统计失败:', error);
+    return null;
+  }
+}
+
+/**
+ * 删除记账后同步移除本地记录（服务器增量同步不返回删除）
+ */
+export function removeLocalTransactions(ids: string[]) {
+  const ledger = getLocalLedger();
+  if (!ledger || ids.length === 0) return;
+  ledger.removeTransactions({ ids }).catch((error: any) => {
+    console.warn('📒 [LocalLedger] 删除本地记录失败:', error);
+  });
+}
+
+/**
+ * 清除本地数据（退出登录时）
+ */
+export function clearLocalLedger() {
+  const ledger = getLocalLedger();
+  if (!ledger) return;
+  ledger.clear({}).catch((error: any) => {
+    console.warn('📒 [LocalLedger] 清除本地数据失败:', error);
+  });
+}
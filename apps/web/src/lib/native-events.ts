@@ -0,0 +1,124 @@
+/**
+ * 原生事件通道
+ * 原生层在Web层声明就绪后通过WebMessagePort发送事件（分享、上传进度、网络变化等），
+ * 这里把每条消息还原为window上的CustomEvent，监听方式与脚本注入派发的事件相同。
+ *
+ * 消息信封: { seq, name, kind: 'json' | 'binary', detail, data? }
+ * - seq 单调递增，用于发现乱序或丢失
+ * - binary 消息的 data 为Base64，派发前解码为 ArrayBuffer 放入 detail.data
+ * - 处理后回传 { type: 'ack', seq }，原生层据此控制未确认消息的数量（背压）
+ */
+
+const HANDSHAKE = 'zhiweijz-native-channel';
+const BENCHMARK_EVENT = '__nativeBenchmark';
+/** 每处理这么多条消息立即确认一次，其余在空闲时确认 */
+const ACK_EVERY = 16;
+
+interface NativeEnvelope {
+  seq: number;
+  name: string;
+  kind: 'json' | 'binary';
+  detail: any;
+  data?: string;
+}
+
+let port: MessagePort | null = null;
+let handshakeInstalled = false;
+let lastSeq = 0;
+let ackedSeq = 0;
+let ackTimer: ReturnType<typeof setTimeout> | null = null;
+const benchmarkCounts = new Map<string, number>();
+
+function base64ToArrayBuffer(base64: string): ArrayBuffer {
+  const binary = atob(base64);
+  const bytes = new Uint8Array(binary.length);
+  for (let i = 0; i < binary.length; i++) {
+    bytes[i] = binary.charCodeAt(i);
+  }
+  return bytes.buffer;
+}
+
+function sendAck() {
+  if (ackTimer) {
+    clearTimeout(ackTimer);
+    ackTimer = null;
+  }
+  if (!port || lastSeq === ackedSeq) return;
+  ackedSeq = lastSeq;
+  port.postMessage(JSON.stringify({ type: 'ack', seq: lastSeq }));
+}
+
+function handleEnvelope(raw: string) {
+  let envelope: NativeEnvelope;
+  try {
+    envelope = JSON.parse(raw);
+  } catch (error) {
+    console.warn('🔗 [NativeEvents] 无法解析原生消息:', error);
+    return;
+  }
+
+  if (envelope.seq !== lastSeq + 1) {
+    console.warn('🔗 [NativeEvents] 消息序号不连续:', lastSeq, '->', envelope.seq);
+  }
+  lastSeq = envelope.seq;
+
+  const detail = envelope.detail || {};
+  if (envelope.kind === 'binary' && envelope.data) {
+    detail.data = base64ToArrayBuffer(envelope.data);
+  }
+  try {
+    window.dispatchEvent(new CustomEvent(envelope.name, { detail }));
+  } finally {
+    if (lastSeq - ackedSeq >= ACK_EVERY) {
+      sendAck();
+    } else if (!ackTimer) {
+      ackTimer = setTimeout(sendAck, 0);
+    }
+  }
+}
+
+/**
+ * 基准测试：统计收到的事件，最后一条到达后经由端口回传
+ */
+function handleBenchmarkEvent(event: Event) {
+  const { id, phase, last } = (event as CustomEvent).detail || {};
+  const key = `${id}:${phase}`;
+  const received = (benchmarkCounts.get(key) || 0) + 1;
+  benchmarkCounts.set(key, received);
+  if (last) {
+    benchmarkCounts.delete(key);
+    port?.postMessage(JSON.stringify({ type: 'benchmarkDone', id, phase, received }));
+  }
+}
+
+/**
+ * 在通知原生层就绪之前调用，准备接收通道端口
+ * @returns 当前环境是否支持事件通道
+ */
+export function prepareNativeEventChannel(): boolean {
+  if (typeof window === 'undefined' || typeof MessageChannel === 'undefined') return false;
+  if (handshakeInstalled) return true;
+  handshakeInstalled = true;
+
+  window.addEventListener('message', (event: MessageEvent) => {
+    if (event.data !== HANDSHAKE || !event.ports?.[0]) return;
+    port?.close();
+    port = event.ports[0];
+    lastSeq = 0;
+    ackedSeq = 0;
+    port.onmessage = (message: MessageEvent) => handleEnvelope(message.data);
+    console.log('🔗 [NativeEvents] 原生事件通道已建立');
+  });
+  window.addEventListener(BENCHMARK_EVENT, handleBenchmarkEvent);
+  return true;
+}
+
+/**
+ * 监听原生事件，无论经由事件通道还是脚本注入派发
+ * @returns 取消监听的函数
+ */
+export function addNativeEventListener<T = any>(name: string, handler: (detail: T) => void): () => void {
+  const listener = (event: Event) => handler((event as CustomEvent<T>).detail);
+  window.addEventListener(name, listener);
+  return () => window.removeEventListener(name, listener);
+}
@@ -0,0 +1,139 @@
+/**
+ * 原生HTTP适配
+ * 在Android原生环境中，API请求经由NativeHttp插件发送（共享连接池、HTTP/2、TLS会话复用、相同GET合并），
+ * 插件不可用、请求体无法序列化、响应不是文本（blob/arraybuffer等），或请求需要取消/上传进度时
+ * 回退到默认的XHR适配器
+ */
+
+import axios, { AxiosError, AxiosRequestConfig, AxiosResponse, InternalAxiosRequestConfig } from 'axios';
+import { useServerConfigStore } from '@/store/server-config-store';
+import { getApiBaseUrl } from './server-config';
+
+let baseUrlSyncStarted = false;
+
+function getNativeHttp(): any {
+  if (typeof window === 'undefined') return null;
+  const capacitor = (window as any).Capacitor;
+  if (!capacitor?.isNativePlatform?.()) return null;
+  return capacitor.Plugins?.NativeHttp || null;
+}
+
+export function isNativeHttpAvailable(): boolean {
+  return !!getNativeHttp()?.request;
+}
+
+function syncBaseUrl(nativeHttp: any, baseUrl: string) {
+  // Docker等相对地址场景不在原生环境出现，仅同步绝对地址
+  if (!/^https?:\/\//.test(baseUrl)) return;
+  nativeHttp.setBaseUrl({ baseUrl }).catch((error: any) => {
+    console.error('🌐 [NativeHttp] 同步服务器地址失败:', error);
+  });
+}
+
+/**
+ * 将服务器设置中的地址同步到原生层，并在设置变化时更新
+ */
+export function startNativeBaseUrlSync() {
+  if (baseUrlSyncStarted) return;
+  const nativeHttp = getNativeHttp();
+  if (!nativeHttp?.setBaseUrl) return;
+  baseUrlSyncStarted = true;
+
+  let current = getApiBaseUrl();
+  syncBaseUrl(nativeHttp, current);
+  useServerConfigStore.subscribe(() => {
+    const next = getApiBaseUrl();
+    if (next !== current) {
+      current = next;
+      syncBaseUrl(nativeHttp, next);
+    }
+  });
+}
+
+function serializeBody(data: any): string | undefined | null {
+  if (data === undefined || data === null) return undefined;
+  if (typeof data === 'string') return data;
+  if (typeof FormData !== 'undefined' && data instanceof FormData) return null;
+  if (typeof Blob !== 'undefined' && data instanceof Blob) return null;
+  if (data instanceof ArrayBuffer || ArrayBuffer.isView(data)) return null;
+  return JSON.stringify(data);
+}
+
+function flattenHeaders(config: InternalAxiosRequestConfig): Record<string, string> {
+  const headers: Record<string, string> = {};
+  const source = config.headers?.toJSON ? config.headers.toJSON() : (config.headers as any) || {};
+  for (const [name, value] of Object.entries(source)) {
+    if (value !== undefined && value !== null && typeof value !== 'object') {
+      headers[name] = String(value);
+    }
+  }
+  return headers;
+}
+
+/**
+ * 原生插件只返回UTF-8文本响应，也无法中途取消或报告上传进度，这些请求交给XHR适配器
+ */
+function requiresXhr(config: InternalAxiosRequestConfig): boolean {
+  const responseType = config.responseType;
+  if (responseType !== undefined && responseType !== 'json' && responseType !== 'text') return true;
+  return !!(config.signal || config.cancelToken || config.onUploadProgress || config.onDownloadProgress);
+}
+
+/**
+ * axios适配器：经由原生插件发送请求，响应格式与XHR适配器一致
+ */
+export async function nativeHttpAdapter(config: InternalAxiosRequestConfig): Promise<AxiosResponse> {
+  const nativeHttp = getNativeHttp();
+  const fallback = axios.getAdapter(['xhr', 'fetch']);
+  const url = axios.getUri(config as AxiosRequestConfig);
+  const body = serializeBody(config.data);
+
+  if (!nativeHttp || body === null || requiresXhr(config) || !/^https?:\/\//.test(url)) {
+    return fallback(config);
+  }
+
+  let result: any;
+  try {
+    result = await nativeHttp.request({
+      url,
+      method: (config.method || 'get').toUpperCase(),
+      headers: flattenHeaders(config),
+      data: body,
+      timeout: config.timeout || 0,
+    });
+  } catch (error: any) {
+    // 证书问题已由原生层询问用户，保留错误码供上层区分
+    const code = error?.code === 'CERT_REJECTED' || error?.code === 'CERT_UNTRUSTED' ? error.code : AxiosError.ERR_NETWORK;
+    throw new AxiosError(error?.message || 'Network Error', code, config);
+  }
+
+  let data: any = result.data;
+  if (config.responseType === undefined || config.responseType === 'json') {
+    try {
+      data = result.data ? JSON.parse(result.data) : result.data;
+    } catch {
+      // 非JSON响应保持原样
+    }
+  }
+
+  const response: AxiosResponse = {
+    data,
+    status: result.status,
+    statusText: result.statusText || '',
+    headers: result.headers || {},
+    config,
+    request: { native: true, protocol: result.protocol },
+  };
+
+  const validateStatus = config.validateStatus;
+  if (!validateStatus || validateStatus(response.status)) {
+    return response;
+  }
+  throw new AxiosError(
+    'Request failed with status code ' + response.status,
+    response.status >= 500 ? AxiosError.ERR_BAD_RESPONSE : AxiosError.ERR_BAD_REQUEST,
+    config,
+    response.request,
+    response,
+  );
+}
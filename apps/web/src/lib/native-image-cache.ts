@@ -0,0 +1,68 @@
+/**
+ * 原生图片缓存
+ * Android原生环境中，附件缩略图、代理原图和头像请求由WebView请求拦截从原生内存/磁盘两级缓存返回，
+ * <img>和fetch无需改动；这里只提供统计、预算调整和清除
+ */
+
+export interface NativeImageCacheTier {
+  entries: number;
+  bytes: number;
+  maxBytes: number;
+  hits: number;
+  evictions: number;
+}
+
+export interface NativeImageCacheStats {
+  memory: NativeImageCacheTier;
+  disk: NativeImageCacheTier;
+  misses: number;
+  expirations: number;
+  servedBytes: number;
+  downloadedBytes: number;
+  hitRate: number;
+}
+
+function getImageCache(): any {
+  if (typeof window === 'undefined') return null;
+  const capacitor = (window as any).Capacitor;
+  if (!capacitor?.isNativePlatform?.()) return null;
+  return capacitor.Plugins?.ImageCache || null;
+}
+
+/**
+ * 原生缓存可用时图片已持久化在原生侧，Web层不必再自行持久化
+ */
+export function isNativeImageCacheAvailable(): boolean {
+  return !!getImageCache()?.getStats;
+}
+
+export async function getNativeImageCacheStats(): Promise<NativeImageCacheStats | null> {
+  const cache = getImageCache();
+  if (!cache) return null;
+  try {
+    return await cache.getStats({});
+  } catch (error) {
+    console.warn('🖼️ [ImageCache] 获取统计失败:', error);
+    return null;
+  }
+}
+
+export async function configureNativeImageCache(budget: {
+  memoryBytes?: number;
+  diskBytes?: number;
+}): Promise<void> {
+  const cache = getImageCache();
+  if (!cache) return;
+  await cache.configure(budget);
+}
+
+/**
+ * 清除原生图片缓存（退出登录时）
+ */
+export function clearNativeImageCache() {
+  const cache = getImageCache();
+  if (!cache) return;
+  cache.clear({}).catch((error: any) => {
+    console.warn('🖼️ [ImageCache] 清除缓存失败:', error);
+  });
+}
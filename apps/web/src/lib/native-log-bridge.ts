@@ -0,0 +1,172 @@
+/**
+ * 原生日志桥接
+ * 将需要写入Android logcat的日志在Web层合并，定时或达到数量上限时通过一次LogBridge.logBatch调用提交，
+ * 避免每条日志都跨越一次Capacitor桥。原生层日志策略的最低级别会同步到Web层，
+ * 低于该级别的日志直接跳过，不拼接消息也不跨桥
+ */
+
+export type NativeLogLevel = 'debug' | 'info' | 'warn' | 'error';
+
+interface NativeLogEntry {
+  level: NativeLogLevel;
+  tag: string;
+  message: string;
+  timestamp: number;
+}
+
+const FLUSH_INTERVAL_MS = 500;
+const MAX_BATCH_SIZE = 50;
+const MAX_PENDING = 500;
+
+const LEVEL_ORDER: Record<NativeLogLevel, number> = {
+  debug: 0,
+  info: 1,
+  warn: 2,
+  error: 3,
+};
+
+interface NativeLogPolicy {
+  defaultRule: { minLevel: NativeLogLevel };
+  rules: Record<string, { minLevel: NativeLogLevel }>;
+}
+
+const SINGLE_METHODS: Record<NativeLogLevel, string> = {
+  debug: 'logDebug',
+  info: 'logInfo',
+  warn: 'logWarn',
+  error: 'logError',
+};
+
+let pending: NativeLogEntry[] = [];
+let flushTimer: ReturnType<typeof setTimeout> | null = null;
+let lifecycleListenersAttached = false;
+let policy: NativeLogPolicy | null = null;
+let policyRequested = false;
+
+function getLogBridge(): any {
+  if (typeof window === 'undefined') return null;
+  return (window as any).Capacitor?.Plugins?.LogBridge || null;
+}
+
+function attachLifecycleListeners() {
+  if (lifecycleListenersAttached || typeof document === 'undefined') return;
+  lifecycleListenersAttached = true;
+  // 页面进入后台时立即提交，避免进程被回收时丢失日志
+  document.addEventListener('visibilitychange', () => {
+    if (document.visibilityState === 'hidden') {
+      flushNativeLogs();
+    }
+  });
+}
+
+function loadPolicy(logBridge: any) {
+  if (policyRequested || !logBridge.getLogPolicy) return;
+  policyRequested = true;
+  logBridge.getLogPolicy().then((result: NativeLogPolicy) => {
+    policy = result;
+  }).catch((error: any) => {
+    console.error('🪵 [NativeLog] 获取日志策略失败:', error);
+  });
+}
+
+function isLoggable(level: NativeLogLevel, tag: string): boolean {
+  if (!policy) return true;
+  const minLevel = policy.rules?.[tag]?.minLevel || policy.defaultRule?.minLevel || 'debug';
+  return LEVEL_ORDER[level] >= LEVEL_ORDER[minLevel];
+}
+
+/**
+ * 获取原生层日志策略及丢弃计数
+ */
+export async function getNativeLogPolicy(): Promise<any> {
+  const logBridge = getLogBridge();
+  if (!logBridge?.getLogPolicy) return null;
+  policy = await logBridge.getLogPolicy();
+  return policy;
+}
+
+/**
+ * 更新原生层日志策略，更新后Web层同步使用新的最低级别
+ */
+export async function setNativeLogPolicy(options: Record<string, any>): Promise<any> {
+  const logBridge = getLogBridge();
+  if (!logBridge?.setLogPolicy) return null;
+  policy = await logBridge.setLogPolicy(options);
+  return policy;
+}
+
+/**
+ * 提交积压的日志
+ */
+export function flushNativeLogs() {
+  if (flushTimer) {
+    clearTimeout(flushTimer);
+    flushTimer = null;
+  }
+  if (pending.length === 0) return;
+
+  const logBridge = getLogBridge();
+  const entries = pending;
+  pending = [];
+  if (!logBridge) return;
+
+  if (logBridge.logBatch) {
+    logBridge.logBatch({ entries }).catch((error: any) => {
+      console.error('🪵 [NativeLog] 批量提交日志失败:', error);
+    });
+    return;
+  }
+
+  // 旧版本原生层没有logBatch时逐条提交
+  for (const entry of entries) {
+    logBridge[SINGLE_METHODS[entry.level]]?.({ message: entry.message, tag: entry.tag });
+  }
+}
+
+/**
+ * 记录一条需要输出到原生日志的消息
+ * message可以传入函数，只有在策略允许输出时才会调用以生成消息
+ */
+export function nativeLog(level: NativeLogLevel, tag: string, message: string | (() => string)) {
+  const logBridge = getLogBridge();
+  if (!logBridge) return;
+  loadPolicy(logBridge);
+  if (!isLoggable(level, tag)) return;
+  attachLifecycleListeners();
+
+  if (pending.length >= MAX_PENDING) {
+    pending.shift();
+  }
+  pending.push({
+    level,
+    tag,
+    message: typeof message === 'function' ? message() : message,
+    timestamp: Date.now(),
+  });
+
+  // 错误日志立即提交，保证崩溃前能落盘
+  if (level === 'error' || pending.length >= MAX_BATCH_SIZE) {
+    flushNativeLogs();
+    return;
+  }
+  if (!flushTimer) {
+    flushTimer = setTimeout(flushNativeLogs, FLUSH_INTERVAL_MS);
+  }
+}
+
+export const nativeLogger = {
+  debug: (tag: string, message: string | (() => string)) => nativeLog('debug', tag, message),
+  info: (tag: string, message: string | (() => string)) => nativeLog('info', tag, message),
+  warn: (tag: string, message: string | (() => string)) => nativeLog('warn', tag, message),
+  error: (tag: string, message: string | (() => string)) => nativeLog('error', tag, message),
+};
+
+/**
+ * 导出原生日志文件，返回可分享的文件地址
+ */
+export async function exportNativeLogs(): Promise<{ path: string; webPath: string; contentUri: string } | null> {
+  const logBridge = getLogBridge();
+  if (!logBridge?.exportLogs) return null;
+  flushNativeLogs();
+  return logBridge.exportLogs();
+}
@@ -0,0 +1,149 @@
+/**
+ * 原生语音录音
+ * Android原生环境中由VoiceRecorder插件采集并编码为AAC(m4a)，裁剪首尾静音后返回文件路径；
+ * 不再在WebView中录制webm并在JS线程中转换为wav。
+ * 开启流式上传时录音过程中已把音频发送给服务器，停止后调用finalizeNativeStream即可取得识别结果
+ */
+
+export interface NativeRecording {
+  path: string;
+  mimeType: string;
+  /** 文件扩展名，如m4a */
+  format: string;
+  size: number;
+  durationMs: number;
+  recordedMs: number;
+  trimmedLeadingMs: number;
+  trimmedTrailingMs: number;
+  finalizeMs: number;
+  /** 流式上传的会话ID，未开启或未能开启流式上传时为空 */
+  streamSessionId?: string;
+}
+
+export interface NativeRecordingHandlers {
+  /** 电平0-100，约每100ms一次 */
+  onLevel?: (level: number, speech: boolean) => void;
+  /** 达到最长录音时长，原生已停止采集，需调用stopNativeRecording取回文件 */
+  onAutoStop?: () => void;
+}
+
+/** 未检测到语音时stop的错误码 */
+export const NO_SPEECH_CODE = 'NO_SPEECH';
+
+let listenerHandles: any[] = [];
+
+function getVoiceRecorder(): any {
+  if (typeof window === 'undefined') return null;
+  const capacitor = (window as any).Capacitor;
+  if (!capacitor?.isNativePlatform?.()) return null;
+  return capacitor.Plugins?.VoiceRecorder || null;
+}
+
+export function isNativeVoiceRecorderAvailable(): boolean {
+  return !!getVoiceRecorder()?.start;
+}
+
+async function removeListeners() {
+  const handles = listenerHandles;
+  listenerHandles = [];
+  await Promise.all(handles.map((handle) => handle?.remove?.()));
+}
+
+export async function startNativeRecording(
+  handlers: NativeRecordingHandlers = {},
+  options: { maxDurationMs?: number; stream?: boolean } = {},
+): Promise<void> {
+  const recorder = getVoiceRecorder();
+  if (!recorder) throw new Error('原生录音不可用');
+
+  await removeListeners();
+  if (handlers.onLevel) {
+    listenerHandles.push(
+      await recorder.addListener('voiceLevel', (event: { level: number; speech: boolean }) =>
+        handlers.onLevel?.(event.level, event.speech),
+      ),
+    );
+  }
+  if (handlers.onAutoStop) {
+    listenerHandles.push(await recorder.addListener('voiceAutoStopped', () => handlers.onAutoStop?.()));
+  }
+
+  try {
+    await recorder.start({
+      codec: 'aac',
+      maxDurationMs: options.maxDurationMs ?? 60000,
+      // 流式上传的地址来自NativeHttp已同步的服务器地址
+      stream: options.stream ? { token: localStorage.getItem('auth-token') } : undefined,
+    });
+  } catch (error) {
+    await removeListeners();
+    throw error;
+  }
+}
+
+/**
+ * 停止录音，返回文件句柄；未检测到语音时抛出code为NO_SPEECH的错误
+ */
+export async function stopNativeRecording(): Promise<NativeRecording> {
+  const recorder = getVoiceRecorder();
+  if (!recorder) throw new Error('原生录音不可用');
+  try {
+    return await recorder.stop({});
+  } finally {
+    await removeListeners();
+  }
+}
+
+export async function cancelNativeRecording(): Promise<void> {
+  const recorder = getVoiceRecorder();
+  if (!recorder) return;
+  try {
+    await recorder.cancel({});
+  } finally {
+    await removeListeners();
+  }
+}
+
+/**
+ * 提交流式上传的录音进行识别
+ * 返回与 /ai/smart-accounting/speech 相同的响应；流式上传失败时返回null，调用方应改用文件上传
+ */
+export async function finalizeNativeStream(recording: NativeRecording, accountBookId: string): Promise<any | null> {
+  const recorder = getVoiceRecorder();
+  if (!recorder || !recording.streamSessionId) return null;
+  try {
+    const result = await recorder.finalizeStream({ accountBookId });
+    console.log('🎤 [VoiceRecorder] 流式识别:', {
+      状态: result.status,
+      大小: result.totalBytes,
+      重连: result.reconnects,
+      耗时: `${result.elapsedMs}ms`,
+    });
+    if (result.status < 200 || result.status >= 300) return null;
+    return JSON.parse(result.body);
+  } catch (error) {
+    console.warn('🎤 [VoiceRecorder] 流式上传失败，改用文件上传:', error);
+    return null;
+  }
+}
+
+/**
+ * 读取录音文件用于上传（经Capacitor本地服务器读取，不经过桥接传输音频数据）
+ */
+export async function readNativeRecording(recording: NativeRecording): Promise<Blob> {
+  const capacitor = (window as any).Capacitor;
+  const response = await fetch(capacitor.convertFileSrc(recording.path));
+  if (!response.ok) {
+    throw new Error(`读取录音文件失败: ${response.status}`);
+  }
+  const data = await response.arrayBuffer();
+  return new Blob([data], { type: recording.mimeType });
+}
+
+export function deleteNativeRecording(recording: NativeRecording) {
+  const recorder = getVoiceRecorder();
+  if (!recorder) return;
+  recorder.deleteRecording({ path: recording.path }).catch((error: any) => {
+    console.warn('🎤 [VoiceRecorder] 删除录音文件失败:', error);
+  });
+}
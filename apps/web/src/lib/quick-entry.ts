@@ -0,0 +1,55 @@
+/**
+ * 原生快速记账
+ * 桌面快捷方式打开的原生界面不加载WebView，需要Web层提前写入登录令牌和当前账本；
+ * 离线录入的记录由原生层补发，补发成功后触发记账变化事件刷新仪表盘
+ */
+
+import { useAccountBookStore } from '@/store/account-book-store';
+import { useAuthStore } from '@/store/auth-store';
+
+let listenerAdded = false;
+
+function getQuickEntry(): any {
+  if (typeof window === 'undefined') return null;
+  const capacitor = (window as any).Capacitor;
+  if (!capacitor?.isNativePlatform?.()) return null;
+  return capacitor.Plugins?.QuickEntry || null;
+}
+
+/**
+ * 更新快速记账使用的登录信息和账本，随本地账本同步调用
+ */
+export function updateQuickEntrySession(accountBookId: string) {
+  const quickEntry = getQuickEntry();
+  const token = localStorage.getItem('auth-token');
+  if (!quickEntry?.setSession || !token || !accountBookId) return;
+
+  const { currentAccountBook } = useAccountBookStore.getState();
+  const accountBookName = currentAccountBook?.id === accountBookId ? currentAccountBook.name : undefined;
+  quickEntry
+    .setSession({ token, userId: useAuthStore.getState().user?.id, accountBookId, accountBookName })
+    .catch((error: any) => {
+      console.warn('📝 [QuickEntry] 更新登录信息失败:', error);
+    });
+
+  if (!listenerAdded) {
+    listenerAdded = true;
+    quickEntry.addListener('quickEntryFlushed', (event: { sent: number; accountBookIds: string[] }) => {
+      console.log('📝 [QuickEntry] 快速记账已补发:', event.sent);
+      for (const bookId of event.accountBookIds || []) {
+        window.dispatchEvent(new CustomEvent('transactionChanged', { detail: { accountBookId: bookId } }));
+      }
+    });
+  }
+}
+
+/**
+ * 清除快速记账的登录信息（退出登录时），未发送的记录保留到该用户再次登录
+ */
+export function clearQuickEntrySession() {
+  const quickEntry = getQuickEntry();
+  if (!quickEntry?.clearSession) return;
+  quickEntry.clearSession({}).catch((error: any) => {
+    console.warn('📝 [QuickEntry] 清除登录信息失败:', error);
+  });
+}
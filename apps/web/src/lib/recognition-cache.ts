@@ -0,0 +1,105 @@
+/**
+ * 图片识别结果缓存
+ * 分享图片时原生层计算感知哈希，识别前按哈希查找近期识别过的近似截图；
+ * 命中后可直接复用上次的识别文本，省去一次视觉识别请求。
+ * 同一应用的不同票据感知哈希几乎相同，原生层只在文件内容相同或原图尺寸一致时匹配，确认时显示上次的记账金额
+ */
+
+/** 原生层computeImageHash的返回值 */
+export interface ImageFingerprint {
+  hash: string;
+  /** 文件内容的SHA-256 */
+  contentHash: string;
+  width: number;
+  height: number;
+}
+
+export interface SimilarRecognition {
+  hash: string;
+  /** 与当前图片的汉明距离，0表示完全相同 */
+  distance: number;
+  /** 文件内容完全相同 */
+  exact?: boolean;
+  /** amounts为上次识别后创建的记账金额 */
+  result: { data: { text: string; amounts?: number[] } };
+  createdAt: number;
+}
+
+/** 汉明距离不超过该值视为近似重复 */
+export const SIMILAR_THRESHOLD = 4;
+
+function getShareTarget(): any {
+  if (typeof window === 'undefined') return null;
+  const capacitor = (window as any).Capacitor;
+  if (!capacitor?.isNativePlatform?.()) return null;
+  return capacitor.Plugins?.ShareTarget || null;
+}
+
+/**
+ * 查找同一账本下近期识别过的近似图片，原生层不支持或未命中时返回null
+ */
+export async function findSimilarRecognition(
+  fingerprint: ImageFingerprint,
+  accountBookId: string,
+  threshold: number = SIMILAR_THRESHOLD,
+): Promise<SimilarRecognition | null> {
+  const plugin = getShareTarget();
+  if (!plugin?.findSimilarRecognition) return null;
+  try {
+    const { match } = await plugin.findSimilarRecognition({ ...fingerprint, threshold, accountBookId });
+    return match?.result?.data?.text ? match : null;
+  } catch (error) {
+    console.warn('🔁 [RecognitionCache] 查找识别记录失败:', error);
+    return null;
+  }
+}
+
+/**
+ * 保存识别文本和创建的记账金额；附件已关联到上一次的记账，不随结果保存
+ */
+export async function storeRecognition(
+  fingerprint: ImageFingerprint,
+  accountBookId: string,
+  text: string,
+  amounts?: number[],
+): Promise<void> {
+  const plugin = getShareTarget();
+  if (!plugin?.storeRecognition) return;
+  try {
+    await plugin.storeRecognition({ ...fingerprint, accountBookId, result: { data: { text, amounts } } });
+  } catch (error) {
+    console.warn('🔁 [RecognitionCache] 保存识别记录失败:', error);
+  }
+}
+
+/**
+ * 清空识别结果缓存，登出时调用
+ */
+export function clearRecognitionCache() {
+  const plugin = getShareTarget();
+  if (!plugin?.clearRecognitionCache) return;
+  plugin.clearRecognitionCache({}).catch((error: any) => {
+    console.warn('🔁 [RecognitionCache] 清除识别记录失败:', error);
+  });
+}
+
+/**
+ * 上次记账金额的描述，如"¥35.00、¥12.50"；未记录金额时返回null
+ */
+export function describeRecognitionAmounts(match: SimilarRecognition): string | null {
+  const amounts = match.result.data.amounts;
+  if (!amounts || amounts.length === 0) return null;
+  return amounts.map((amount) => `¥${Number(amount).toFixed(2)}`).join('、');
+}
+
+/**
+ * 近似图片的识别时间描述，如"3分钟前"
+ */
+export function describeRecognitionAge(createdAt: number): string {
+  const minutes = Math.max(0, Math.round((Date.now() - createdAt) / 60000));
+  if (minutes < 1) return '刚刚';
+  if (minutes < 60) return `${minutes}分钟前`;
+  const hours = Math.round(minutes / 60);
+  if (hours < 24) return `${hours}小时前`;
+  return `${Math.round(hours / 24)}天前`;
+}
@@ -5,9 +5,24 @@ import { Capacitor } from '@capacitor/core';
  */
 interface SSLConfigPlugin {
   showSSLWarning(options: { url: string; message: string }): Promise<{ allowed: boolean; message: string }>;
-  configurePermissiveSSL(): Promise<{ success: boolean; message: string }>;
+  configurePermissiveSSL(options?: { url?: string }): Promise<{ success: boolean; host?: string; message: string }>;
   restoreDefaultSSL(): Promise<{ success: boolean; message: string }>;
-  getSSLStatus(): Promise<{ isPermissive: boolean; message: string }>;
+  getSSLStatus(): Promise<SSLStatus>;
+  revokeHost(options: { host?: string; url?: string }): Promise<{ success: boolean; host: string }>;
+}
+
+/**
+ * 已信任的服务器及其证书指纹（SHA-256）
+ */
+interface TrustedHost {
+  host: string;
+  fingerprints: string[];
+}
+
+interface SSLStatus {
+  isPermissive: boolean;
+  hosts?: TrustedHost[];
+  message: string;
 }
 
 /**
@@ -82,9 +97,10 @@ class SSLConfigService {
   }
 
   /**
-   * 配置宽松的SSL设置
+   * 信任服务器证书，仅对该服务器生效
+   * 未指定地址时原生层使用当前API服务器地址
    */
-  async configurePermissiveSSL(): Promise<boolean> {
+  async configurePermissiveSSL(url?: string): Promise<boolean> {
     // 确保插件已初始化
     await this.initializePlugin();
 
@@ -94,7 +110,7 @@ class SSLConfigService {
     }
 
     try {
-      const result = await this.plugin.configurePermissiveSSL();
+      const result = await this.plugin.configurePermissiveSSL(url ? { url } : {});
       console.log('✅ [SSLConfig]', result.message);
       return result.success;
     } catch (error) {
@@ -128,7 +144,7 @@ class SSLConfigService {
   /**
    * 获取SSL配置状态
    */
-  async getSSLStatus(): Promise<{ isPermissive: boolean; message: string }> {
+  async getSSLStatus(): Promise<SSLStatus> {
     // 确保插件已初始化
     await this.initializePlugin();
 
@@ -176,4 +192,4 @@ class SSLConfigService {
 export const sslConfigService = new SSLConfigService();
 
 // 导出类型
-export type { SSLConfigPlugin };
\ No newline at end of file
+export type { SSLConfigPlugin, SSLStatus, TrustedHost };
\ No newline at end of file
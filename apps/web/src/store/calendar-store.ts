@@ -2,6 +2,7 @@
 
 import { create } from 'zustand';
 import { transactionService } from '@/lib/api-services';
+import { getLocalDailyStats, queryLocalTransactions } from '@/lib/local-ledger';
 import dayjs from 'dayjs';
 
 // 记账类型
@@ -110,6 +111,17 @@ const processTransactionsToStats = (transactions: any[]): DailyStats[] => {
   );
 };
 
+// 转换为日历视图的记账记录（服务器和本地账本的记录格式相同）
+const toCalendarTransaction = (tx: any): Transaction => ({
+  id: tx.id,
+  amount: tx.amount,
+  type: tx.type,
+  categoryName: tx.category?.name || '未分类',
+  categoryIcon: tx.category?.icon || 'other',
+  description: tx.description || '',
+  date: tx.date,
+});
+
 // 获取指定日期的记账记录
 const fetchDayTransactions = async (accountBookId: string, date: string) => {
   console.log('获取指定日期记账:', { accountBookId, date });
@@ -123,15 +135,7 @@ const fetchDayTransactions = async (accountBookId: string, date: string) => {
   console.log('指定日期记账响应:', response);
 
   if (response?.data && Array.isArray(response.data)) {
-    return response.data.map((tx: any) => ({
-      id: tx.id,
-      amount: tx.amount,
-      type: tx.type,
-      categoryName: tx.category?.name || '未分类',
-      categoryIcon: tx.category?.icon || 'other',
-      description: tx.description || '',
-      date: tx.date,
-    }));
+    return response.data.map(toCalendarTransaction);
   }
 
   return [];
@@ -161,9 +165,21 @@ export const useCalendarStore = create<CalendarState>((set, get) => ({
 
   // 获取月度统计数据
   fetchMonthlyStats: async (accountBookId: string, month: string) => {
+    let renderedFromLocal = false;
     try {
       set({ isLoading: true, error: null });
 
+      // 原生环境先用本地账本的按天汇总渲染，服务器数据返回后再替换
+      const localStats = await getLocalDailyStats(
+        accountBookId,
+        dayjs(month).startOf('month').format('YYYY-MM-DD'),
+        dayjs(month).endOf('month').format('YYYY-MM-DD'),
+      );
+      if (localStats) {
+        renderedFromLocal = true;
+        set({ dailyStats: localStats, isLoading: false });
+      }
+
       const response = await fetchMonthlyTransactions(accountBookId, month);
 
       if (response?.data && Array.isArray(response.data)) {
@@ -174,6 +190,10 @@ export const useCalendarStore = create<CalendarState>((set, get) => ({
       }
     } catch (error) {
       console.error('获取月度统计失败:', error);
+      if (renderedFromLocal) {
+        set({ isLoading: false });
+        return;
+      }
       set({
         isLoading: false,
         error: '获取月度统计失败',
@@ -192,6 +212,12 @@ export const useCalendarStore = create<CalendarState>((set, get) => ({
     try {
       set({ isLoadingTransactions: true });
 
+      // 原生环境先显示本地账本中当天的记录
+      const local = await queryLocalTransactions({ accountBookId, startDate: date, endDate: date, limit: 500 });
+      if (local && local.complete) {
+        set({ selectedTransactions: local.items.map(toCalendarTransaction), isLoadingTransactions: false });
+      }
+
       const transactions = await fetchDayTransactions(accountBookId, date);
 
       set({
@@ -4,6 +4,8 @@ import { create } from 'zustand';
 import { statisticsService, budgetService, transactionService } from '@/lib/api-services';
 import { formatDate } from '@/lib/utils';
 import { apiClient } from '@/lib/api-client';
+import { queryLocalTransactions, syncLocalLedger } from '@/lib/local-ledger';
+import { updateQuickEntrySession } from '@/lib/quick-entry';
 import dayjs from 'dayjs';
 
 // 仪表盘状态类型
@@ -103,6 +105,44 @@ const fetchBudgetStatistics = async (accountBookId: string) => {
   return { categories, totalBudget };
 };
 
+// 按日期分组并整理记账数据（服务器和本地账本的记录格式相同）
+const formatGroupedTransactions = (transactions: any[]) => {
+  const groupedByDate: Record<string, any[]> = {};
+
+  transactions.forEach((tx: any) => {
+    const dateKey = dayjs(tx.date).format('YYYY-MM-DD');
+    if (!groupedByDate[dateKey]) {
+      groupedByDate[dateKey] = [];
+    }
+    groupedByDate[dateKey].push(tx);
+  });
+
+  return Object.keys(groupedByDate)
+    .sort((a, b) => new Date(b).getTime() - new Date(a).getTime())
+    .map((dateKey) => {
+      return {
+        date: formatDate(dateKey, 'MM月DD日'),
+        transactions: groupedByDate[dateKey].map((tx: any) => ({
+          id: tx.id,
+          amount: tx.amount,
+          type: tx.type,
+          categoryId: tx.categoryId, // ✅ 添加categoryId，Modal需要
+          categoryName: tx.category?.name || '未分类',
+          categoryIcon: tx.category?.icon || 'other',
+          description: tx.description || '',
+          date: tx.date,
+          category: tx.category,
+          budgetId: tx.budgetId, // ✅ 添加budgetId，Modal需要
+          isMultiBudget: tx.isMultiBudget, // ✅ 添加多人预算标记
+          budgetAllocation: tx.budgetAllocation, // ✅ 添加预算分摊数据
+          tags: tx.tags || [], // ✅ 确保tags是数组
+          attachments: tx.attachments || [], // 保留附件信息
+          attachmentCount: tx.attachmentCount || 0, // 保留附件数量
+        })),
+      };
+    });
+};
+
 // 获取最近记账的辅助函数
 const fetchRecentTransactions = async (accountBookId: string, page: number = 1, limit: number = 20) => {
   console.log(`开始获取最近记账数据，页码: ${page}, 每页: ${limit}...`);
@@ -120,40 +160,7 @@ const fetchRecentTransactions = async (accountBookId: string, page: number = 1,
   console.log('最近记账数据响应:', transactionsResponse);
 
   if (transactionsResponse?.data && Array.isArray(transactionsResponse.data)) {
-    const groupedByDate: Record<string, any[]> = {};
-
-    transactionsResponse.data.forEach((tx: any) => {
-      const dateKey = dayjs(tx.date).format('YYYY-MM-DD');
-      if (!groupedByDate[dateKey]) {
-        groupedByDate[dateKey] = [];
-      }
-      groupedByDate[dateKey].push(tx);
-    });
-
-    const formattedTransactions = Object.keys(groupedByDate)
-      .sort((a, b) => new Date(b).getTime() - new Date(a).getTime())
-      .map((dateKey) => {
-        return {
-          date: formatDate(dateKey, 'MM月DD日'),
-          transactions: groupedByDate[dateKey].map((tx: any) => ({
-            id: tx.id,
-            amount: tx.amount,
-            type: tx.type,
-            categoryId: tx.categoryId, // ✅ 添加categoryId，Modal需要
-            categoryName: tx.category?.name || '未分类',
-            categoryIcon: tx.category?.icon || 'other',
-            description: tx.description || '',
-            date: tx.date,
-            category: tx.category,
-            budgetId: tx.budgetId, // ✅ 添加budgetId，Modal需要
-            isMultiBudget: tx.isMultiBudget, // ✅ 添加多人预算标记
-            budgetAllocation: tx.budgetAllocation, // ✅ 添加预算分摊数据
-            tags: tx.tags || [], // ✅ 确保tags是数组
-            attachments: tx.attachments || [], // 保留附件信息
-            attachmentCount: tx.attachmentCount || 0, // 保留附件数量
-          })),
-        };
-      });
+    const formattedTransactions = formatGroupedTransactions(transactionsResponse.data);
 
     console.log('格式化后的记账数据:', formattedTransactions);
 
@@ -205,9 +212,24 @@ export const useDashboardStore = create<DashboardState>((set, get) => {
 
     // 获取仪表盘数据
     fetchDashboardData: async (accountBookId: string) => {
+      let renderedFromLocal = false;
       try {
         set({ isLoading: true, error: null, currentPage: 1 });
 
+        // 原生环境先用本地账本渲染最近记账，服务器数据返回后再替换
+        const local = await queryLocalTransactions({ accountBookId, limit: 20, offset: 0 });
+        if (local && local.items.length > 0) {
+          renderedFromLocal = true;
+          set({
+            groupedTransactions: formatGroupedTransactions(local.items),
+            hasMoreTransactions: true,
+            totalTransactionsCount: local.total,
+            isLoading: false,
+          });
+        }
+        syncLocalLedger(accountBookId);
+        updateQuickEntrySession(accountBookId);
+
         // 并行请求数据
         const [monthlyStats, budgetData, transactionData] = await Promise.all([
           fetchMonthlyStatistics(accountBookId),
@@ -229,7 +251,8 @@ export const useDashboardStore = create<DashboardState>((set, get) => {
         console.error('获取仪表盘数据失败:', error);
         set({
           isLoading: false,
-          error: '获取仪表盘数据失败',
+          // 已显示本地数据时不覆盖为错误状态
+          error: renderedFromLocal ? null : '获取仪表盘数据失败',
         });
       }
     },
@@ -315,7 +338,17 @@ export const useDashboardStore = create<DashboardState>((set, get) => {
         set({ isLoadingMore: true });
 
         const nextPage = currentState.currentPage + 1;
-        const transactionData = await fetchRecentTransactions(accountBookId, nextPage, 20);
+        const transactionData = await fetchRecentTransactions(accountBookId, nextPage, 20).catch(async (error) => {
+          // 网络不可用时尝试从本地账本读取下一页
+          const local = await queryLocalTransactions({ accountBookId, limit: 20, offset: (nextPage - 1) * 20 });
+          if (!local || !local.complete) throw error;
+          return {
+            transactions: formatGroupedTransactions(local.items),
+            hasMore: nextPage * 20 < local.total,
+            total: local.total,
+            currentPage: nextPage,
+          };
+        });
 
         // 合并新旧交易记录
         const updatedTransactions = [...currentState.groupedTransactions, ...transactionData.transactions];
@@ -2,6 +2,7 @@
 
 import { create } from 'zustand';
 import { apiClient } from '@/lib/api-client';
+import { removeLocalTransactions } from '@/lib/local-ledger';
 import { toast } from 'sonner';
 import { CreateTransactionData, Transaction, TransactionType } from '@/types';
 
@@ -201,6 +202,7 @@ export const useTransactionStore = create<TransactionState>((set, get) => ({
       set({ isLoading: true, error: null });
 
       await apiClient.delete(`/transactions/${id}`);
+      removeLocalTransactions([id]);
 
       set({ isLoading: false });
 
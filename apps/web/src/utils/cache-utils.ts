@@ -1,5 +1,10 @@
 'use client';
 
+import { clearLocalLedger } from '@/lib/local-ledger';
+import { clearNativeImageCache } from '@/lib/native-image-cache';
+import { clearRecognitionCache } from '@/lib/recognition-cache';
+import { clearQuickEntrySession } from '@/lib/quick-entry';
+
 /**
  * 缓存清理工具函数
  * 用于在用户登出或认证失败时彻底清理所有缓存数据
@@ -94,6 +99,18 @@ export function clearAllCache(): void {
   // 清除API缓存
   clearApiCache();
 
+  // 清除原生本地账本
+  clearLocalLedger();
+
+  // 清除原生图片缓存
+  clearNativeImageCache();
+
+  // 清除图片识别结果缓存
+  clearRecognitionCache();
+
+  // 清除快速记账登录信息
+  clearQuickEntrySession();
+
   console.log('所有缓存清除完成');
 }
 
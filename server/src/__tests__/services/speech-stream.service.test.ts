@@ -0,0 +1,49 @@
+import { SpeechStreamService, MAX_SESSIONS_PER_USER, MAX_TOTAL_BYTES } from '../../services/speech-stream.service';
+import { AppError } from '../../errors/AppError';
+
+describe('SpeechStreamService - 资源限制', () => {
+  const service = SpeechStreamService.getInstance();
+  let sessionCounter = 0;
+  const nextSessionId = () => `session-${++sessionCounter}`;
+
+  it('同一用户的会话数超限时返回429', async () => {
+    const userId = 'user-sessions';
+    const sessionIds = Array.from({ length: MAX_SESSIONS_PER_USER }, nextSessionId);
+    sessionIds.forEach((id) => service.append(id, userId, 0, Buffer.alloc(1)));
+
+    let error: unknown;
+    try {
+      service.append(nextSessionId(), userId, 0, Buffer.alloc(1));
+    } catch (e) {
+      error = e;
+    }
+    expect(error).toBeInstanceOf(AppError);
+    expect((error as AppError).statusCode).toBe(429);
+
+    // 其他用户不受影响，提交后名额释放
+    expect(() => service.append(nextSessionId(), 'user-other', 0, Buffer.alloc(1))).not.toThrow();
+    await service.take(sessionIds[0], userId, 1, 0);
+    expect(() => service.append(nextSessionId(), userId, 0, Buffer.alloc(1))).not.toThrow();
+  });
+
+  it('缓存总量超限时返回429，提交后释放', async () => {
+    const chunk = Buffer.alloc(8 * 1024 * 1024);
+    const filled: Array<{ id: string; userId: string }> = [];
+    let error: unknown;
+    for (let i = 0; !error && i < MAX_TOTAL_BYTES / chunk.length + 1; i++) {
+      const entry = { id: nextSessionId(), userId: `user-bytes-${i}` };
+      try {
+        service.append(entry.id, entry.userId, 0, chunk);
+        filled.push(entry);
+      } catch (e) {
+        error = e;
+      }
+    }
+    expect((error as AppError).statusCode).toBe(429);
+
+    for (const entry of filled) {
+      await service.take(entry.id, entry.userId, chunk.length, 0);
+    }
+    expect(() => service.append(nextSessionId(), 'user-bytes-after', 0, chunk)).not.toThrow();
+  });
+});
@@ -0,0 +1,95 @@
+import { adtsToM4a, parseAdts } from '../../utils/adts-to-m4a';
+
+/**
+ * 构造一个ADTS帧：AAC LC，无CRC
+ */
+function adtsFrame(payload: Buffer, sampleRateIndex = 8, channels = 1): Buffer {
+  const frameLength = 7 + payload.length;
+  const header = Buffer.from([
+    0xff,
+    0xf1,
+    (1 << 6) | (sampleRateIndex << 2) | ((channels >> 2) & 0x01),
+    ((channels & 0x03) << 6) | ((frameLength >> 11) & 0x03),
+    (frameLength >> 3) & 0xff,
+    ((frameLength & 0x07) << 5) | 0x1f,
+    0xfc,
+  ]);
+  return Buffer.concat([header, payload]);
+}
+
+/**
+ * 在MP4数据中按路径查找box，返回box内容（不含头部）
+ */
+function findBox(data: Buffer, path: string[], start = 0, end = data.length): Buffer | null {
+  let offset = start;
+  while (offset + 8 <= end) {
+    const size = data.readUInt32BE(offset);
+    const type = data.toString('latin1', offset + 4, offset + 8);
+    if (size < 8) return null;
+    if (type === path[0]) {
+      if (path.length === 1) return data.subarray(offset + 8, offset + size);
+      return findBox(data, path.slice(1), offset + 8, offset + size);
+    }
+    offset += size;
+  }
+  return null;
+}
+
+describe('parseAdts', () => {
+  it('解析帧头信息并去掉ADTS头', () => {
+    const data = Buffer.concat([adtsFrame(Buffer.alloc(10, 1)), adtsFrame(Buffer.alloc(20, 2))]);
+
+    const stream = parseAdts(data);
+
+    expect(stream.objectType).toBe(2);
+    expect(stream.sampleRate).toBe(16000);
+    expect(stream.channels).toBe(1);
+    expect(stream.frames.map((frame) => frame.length)).toEqual([10, 20]);
+    expect(stream.frames[1].every((byte) => byte === 2)).toBe(true);
+  });
+
+  it('同步字错误时抛出错误', () => {
+    const data = adtsFrame(Buffer.alloc(10));
+    data[0] = 0x00;
+
+    expect(() => parseAdts(data)).toThrow('ADTS同步字错误');
+  });
+
+  it('帧长度超出数据时抛出错误', () => {
+    const data = adtsFrame(Buffer.alloc(10)).subarray(0, 12);
+
+    expect(() => parseAdts(data)).toThrow('ADTS帧长度错误');
+  });
+
+  it('没有完整帧时抛出错误', () => {
+    expect(() => parseAdts(Buffer.alloc(3))).toThrow('没有有效的ADTS帧');
+  });
+});
+
+describe('adtsToM4a', () => {
+  const payloads = [Buffer.alloc(12, 0xaa), Buffer.alloc(30, 0xbb), Buffer.alloc(7, 0xcc)];
+  const m4a = adtsToM4a(Buffer.concat(payloads.map((payload) => adtsFrame(payload))));
+
+  it('以ftyp开头，mdat包含全部帧数据', () => {
+    expect(m4a.toString('latin1', 4, 8)).toBe('ftyp');
+    const mdat = findBox(m4a, ['mdat']);
+    expect(mdat).toEqual(Buffer.concat(payloads));
+  });
+
+  it('stsz记录每帧大小，stco指向mdat数据区', () => {
+    const stbl = ['moov', 'trak', 'mdia', 'minf', 'stbl'];
+    const stsz = findBox(m4a, [...stbl, 'stsz'])!;
+    expect(stsz.readUInt32BE(8)).toBe(payloads.length);
+    expect([0, 1, 2].map((i) => stsz.readUInt32BE(12 + i * 4))).toEqual(payloads.map((p) => p.length));
+
+    const stco = findBox(m4a, [...stbl, 'stco'])!;
+    const chunkOffset = stco.readUInt32BE(8);
+    expect(m4a.subarray(chunkOffset, chunkOffset + payloads[0].length)).toEqual(payloads[0]);
+  });
+
+  it('mdhd时长按每帧1024个采样计算', () => {
+    const mdhd = findBox(m4a, ['moov', 'trak', 'mdia', 'mdhd'])!;
+    expect(mdhd.readUInt32BE(12)).toBe(16000);
+    expect(mdhd.readUInt32BE(16)).toBe(payloads.length * 1024);
+  });
+});
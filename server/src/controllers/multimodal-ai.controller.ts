@@ -15,6 +15,12 @@ import {
 import { BUCKET_CONFIG } from '../models/file-storage.model';
 import { SourceDetectionUtil } from '../utils/source-detection.util';
 import { MultimodalAILoggingService } from '../admin/middleware/multimodal-ai-logging.middleware';
+import { SpeechStreamService } from '../services/speech-stream.service';
+import { adtsToM4a } from '../utils/adts-to-m4a';
+import { AppError } from '../errors/AppError';
+
+/** 客户端确认上传完成后才提交，这里只需覆盖最后一批数据的到达 */
+const SPEECH_STREAM_FINALIZE_WAIT_MS = 10 * 1000;
 
 /**
  * 多模态AI控制器
@@ -405,6 +411,133 @@ export class MultimodalAIController {
     }
   }
 
+  /**
+   * 智能记账 - 语音流上传
+   * POST /api/ai/smart-accounting/speech/stream/:sessionId?offset=N
+   * 请求体为持续写入的ADTS AAC数据（分块传输），客户端断线后按GET返回的received续传
+   */
+  async speechStreamAppend(req: Request, res: Response): Promise<void> {
+    const userId = req.user?.id;
+    if (!userId) {
+      res.status(401).json({ success: false, error: '用户未认证' });
+      return;
+    }
+
+    const streamService = SpeechStreamService.getInstance();
+    const { sessionId } = req.params;
+    let position = Number(req.query.offset || 0);
+    if (!Number.isInteger(position) || position < 0) {
+      res.status(400).json({ success: false, error: '无效的偏移量' });
+      return;
+    }
+
+    try {
+      await new Promise<void>((resolve, reject) => {
+        req.on('data', (chunk: Buffer) => {
+          try {
+            const result = streamService.append(sessionId, userId, position, chunk);
+            if (result.conflict) {
+              req.pause();
+              res.status(409).json({ success: false, error: '偏移量不连续', received: result.received });
+              resolve();
+              return;
+            }
+            position += chunk.length;
+          } catch (error) {
+            req.pause();
+            reject(error);
+          }
+        });
+        req.on('end', () => resolve());
+        req.on('error', reject);
+        req.on('aborted', () => reject(new Error('客户端断开连接')));
+      });
+    } catch (error) {
+      const message = error instanceof Error ? error.message : '语音流上传失败';
+      logger.warn(`🎤 [语音流] ${sessionId} 中断: ${message}`);
+      if (!res.headersSent && !req.destroyed) {
+        // 会话数或缓存总量超限时返回429，客户端稍后重试
+        const status = error instanceof AppError ? error.statusCode : 400;
+        res.status(status).json({ success: false, error: message });
+      }
+      return;
+    }
+
+    if (!res.headersSent) {
+      res.json({ success: true, received: streamService.getReceived(sessionId, userId) ?? position });
+    }
+  }
+
+  /**
+   * 智能记账 - 查询语音流已接收字节数
+   * GET /api/ai/smart-accounting/speech/stream/:sessionId
+   */
+  async speechStreamStatus(req: Request, res: Response): Promise<void> {
+    const userId = req.user?.id;
+    if (!userId) {
+      res.status(401).json({ success: false, error: '用户未认证' });
+      return;
+    }
+
+    const received = SpeechStreamService.getInstance().getReceived(req.params.sessionId, userId);
+    if (received === null) {
+      res.status(404).json({ success: false, error: '语音流不存在' });
+      return;
+    }
+    res.json({ success: true, received });
+  }
+
+  /**
+   * 智能记账 - 提交语音流识别
+   * POST /api/ai/smart-accounting/speech/stream/:sessionId/finalize
+   * 数据到齐后转为m4a，按普通语音上传的流程识别，返回格式与 /smart-accounting/speech 相同
+   */
+  async speechStreamFinalize(req: Request, res: Response): Promise<void> {
+    const userId = req.user?.id;
+    if (!userId) {
+      res.status(401).json({ success: false, error: '用户未认证' });
+      return;
+    }
+
+    const { sessionId } = req.params;
+    const totalBytes = Number(req.body.totalBytes);
+    if (!Number.isInteger(totalBytes) || totalBytes <= 0) {
+      res.status(400).json({ success: false, error: '无效的数据长度' });
+      return;
+    }
+
+    const data = await SpeechStreamService.getInstance().take(sessionId, userId, totalBytes, SPEECH_STREAM_FINALIZE_WAIT_MS);
+    if (!data) {
+      res.status(409).json({
+        success: false,
+        error: '语音数据不完整',
+        received: SpeechStreamService.getInstance().getReceived(sessionId, userId) ?? 0,
+      });
+      return;
+    }
+
+    let audio: Buffer;
+    try {
+      audio = adtsToM4a(data);
+    } catch (error) {
+      logger.warn(`🎤 [语音流] ${sessionId} 数据无效:`, error);
+      res.status(400).json({ success: false, error: '语音数据格式无效' });
+      return;
+    }
+    logger.info(`🎤 [语音流] ${sessionId} 提交识别: ${totalBytes} 字节AAC, m4a ${audio.length} 字节`);
+
+    // 与multer上传的文件结构一致，复用普通语音识别流程
+    req.file = {
+      fieldname: 'audio',
+      originalname: 'recording.m4a',
+      encoding: '7bit',
+      mimetype: 'audio/mp4',
+      size: audio.length,
+      buffer: audio,
+    } as Express.Multer.File;
+    await this.smartAccountingSpeech(req, res);
+  }
+
   /**
    * 智能记账 - 图片识别
    * POST /api/ai/smart-accounting/vision
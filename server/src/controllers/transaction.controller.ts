@@ -106,6 +106,7 @@ export class TransactionController {
           ? (req.query.tagIds as string).split(',')
           : undefined,
         search: req.query.search as string | undefined, // 添加搜索参数解析
+        updatedSince: req.query.updatedSince ? new Date(req.query.updatedSince as string) : undefined,
         page: req.query.page ? parseInt(req.query.page as string, 10) : 1,
         limit: req.query.limit ? parseInt(req.query.limit as string, 10) : 20,
         sortBy: req.query.sortBy as string | undefined,
@@ -136,6 +137,42 @@ export class TransactionController {
     }
   }
 
+  /**
+   * 获取账本中记账记录的ID列表
+   * GET /transactions/ids?accountBookId=xxx&startDate=YYYY-MM-DD
+   * 服务器不保留删除记录，客户端用ID集合比对本地缓存的日期范围发现删除
+   */
+  async getTransactionIds(req: Request, res: Response): Promise<void> {
+    try {
+      const userId = req.user?.id;
+      if (!userId) {
+        res.status(401).json({ message: '未授权' });
+        return;
+      }
+
+      const accountBookId = req.query.accountBookId as string | undefined;
+      if (!accountBookId) {
+        res.status(400).json({ message: '缺少账本ID' });
+        return;
+      }
+
+      let startDate: Date | undefined;
+      if (req.query.startDate) {
+        startDate = new Date(req.query.startDate as string);
+        startDate.setHours(0, 0, 0, 0); // 设置为当天开始
+      }
+
+      const ids = await this.transactionService.getTransactionIds(userId, accountBookId, startDate);
+      res.status(200).json({ ids, total: ids.length });
+    } catch (error) {
+      if (error instanceof Error && error.message.includes('无权限')) {
+        res.status(403).json({ message: error.message });
+      } else {
+        res.status(500).json({ message: '获取记账记录ID时发生错误' });
+      }
+    }
+  }
+
   /**
    * 获取单个记账记录
    */
@@ -28,6 +28,8 @@ export interface CreateTransactionDto {
   budgetId?: string;
   isMultiBudget?: boolean;
   budgetAllocation?: BudgetAllocationItem[];
+  /** 客户端生成的记录ID，离线补发时用于去重 */
+  clientEntryId?: string;
 }
 
 /**
@@ -61,6 +63,7 @@ export interface TransactionQueryParams {
   budgetIds?: string[]; // 支持多个预算ID
   tagIds?: string[]; // 支持标签筛选
   search?: string; // 添加搜索参数，用于搜索记账描述
+  updatedSince?: Date; // 只返回该时间之后更新的记录，用于客户端增量同步
   page?: number;
   limit?: number;
   sortBy?: string;
@@ -75,6 +75,47 @@ export class TransactionRepository {
     });
   }
 
+  /**
+   * 查询账本中记账记录的ID，客户端据此比对本地缓存发现已删除的记录
+   * @param startDate 只返回该时间及之后的记录，不指定时返回全部
+   */
+  async findIds(userId: string, accountBookId: string, startDate?: Date): Promise<string[]> {
+    await this.assertAccountBookAccess(userId, accountBookId);
+    const rows = await prisma.transaction.findMany({
+      where: {
+        accountBookId,
+        ...(startDate && !isNaN(startDate.getTime()) && { date: { gte: startDate } }),
+      },
+      select: { id: true },
+    });
+    return rows.map((row) => row.id);
+  }
+
+  /**
+   * 验证用户可以查看账本（个人账本或所在家庭的账本）
+   */
+  private async assertAccountBookAccess(userId: string, accountBookId: string): Promise<void> {
+    const accountBook = await prisma.accountBook.findFirst({
+      where: {
+        id: accountBookId,
+        OR: [
+          { userId: userId }, // 个人账本
+          {
+            family: {
+              members: {
+                some: { userId: userId }, // 家庭账本成员
+              },
+            },
+          },
+        ],
+      },
+    });
+
+    if (!accountBook) {
+      throw new Error('无权限查看该账本的记账记录');
+    }
+  }
+
   /**
    * 查询记账记录列表
    */
@@ -94,6 +135,7 @@ export class TransactionRepository {
       budgetIds,
       tagIds,
       search, // 添加搜索参数
+      updatedSince,
       page = 1,
       limit = 20,
       sortBy = 'date',
@@ -153,6 +195,11 @@ export class TransactionRepository {
       }
     }
 
+    // 增量同步：只查询指定时间之后更新的记录
+    if (updatedSince && !isNaN(updatedSince.getTime())) {
+      where.updatedAt = { gt: updatedSince };
+    }
+
     // 添加搜索条件
     if (search && search.trim()) {
       where.description = {
@@ -166,25 +213,7 @@ export class TransactionRepository {
       where.accountBookId = params.accountBookId;
 
       // 验证用户是否有权限查看该账本
-      const accountBook = await prisma.accountBook.findFirst({
-        where: {
-          id: params.accountBookId,
-          OR: [
-            { userId: userId }, // 个人账本
-            {
-              family: {
-                members: {
-                  some: { userId: userId }, // 家庭账本成员
-                },
-              },
-            },
-          ],
-        },
-      });
-
-      if (!accountBook) {
-        throw new Error('无权限查看该账本的记账记录');
-      }
+      await this.assertAccountBookAccess(userId, params.accountBookId);
     } else {
       // 如果没有指定账本ID，则只查询用户自己的记账记录
       where.userId = userId;
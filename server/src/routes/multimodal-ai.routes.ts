@@ -59,6 +59,36 @@ router.post(
   multimodalAIController.smartAccountingSpeech.bind(multimodalAIController)
 );
 
+/**
+ * @route POST /api/ai/smart-accounting/speech/stream/:sessionId
+ * @desc 智能记账 - 录音过程中流式上传语音数据
+ * @access Private
+ */
+router.post(
+  '/smart-accounting/speech/stream/:sessionId',
+  multimodalAIController.speechStreamAppend.bind(multimodalAIController)
+);
+
+/**
+ * @route GET /api/ai/smart-accounting/speech/stream/:sessionId
+ * @desc 智能记账 - 查询语音流已接收字节数，用于断线续传
+ * @access Private
+ */
+router.get(
+  '/smart-accounting/speech/stream/:sessionId',
+  multimodalAIController.speechStreamStatus.bind(multimodalAIController)
+);
+
+/**
+ * @route POST /api/ai/smart-accounting/speech/stream/:sessionId/finalize
+ * @desc 智能记账 - 提交语音流识别
+ * @access Private
+ */
+router.post(
+  '/smart-accounting/speech/stream/:sessionId/finalize',
+  multimodalAIController.speechStreamFinalize.bind(multimodalAIController)
+);
+
 /**
  * @route POST /api/ai/smart-accounting/vision
  * @desc 智能记账 - 图片识别
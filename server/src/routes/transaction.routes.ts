@@ -30,6 +30,9 @@ router.post('/import', (req, res) => transactionController.importTransactions(re
 // 获取分组记账记录
 router.get('/grouped', (req, res) => transactionController.getGroupedTransactions(req, res));
 
+// 获取记账记录ID列表（客户端缓存比对删除）
+router.get('/ids', (req, res) => transactionController.getTransactionIds(req, res));
+
 // 获取记账记录列表
 router.get('/', (req, res) => transactionController.getTransactions(req, res));
 
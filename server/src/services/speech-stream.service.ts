@@ -0,0 +1,169 @@
+import { logger } from '../utils/logger';
+import { AppError } from '../errors/AppError';
+
+/**
+ * 语音流会话
+ * 客户端录音时持续上传AAC数据，停止后提交识别；同一会话可在断线后按偏移量续传
+ */
+interface SpeechStreamSession {
+  userId: string;
+  chunks: Buffer[];
+  received: number;
+  lastActivity: number;
+  /** 等待数据到齐的finalize请求 */
+  waiters: Array<() => void>;
+}
+
+export interface AppendResult {
+  /** 偏移量与已接收数据不连续 */
+  conflict: boolean;
+  received: number;
+}
+
+/** 单个会话的最大数据量，约等于AAC 24kbps下一小时的录音 */
+const MAX_SESSION_BYTES = 10 * 1024 * 1024;
+/** 每个用户同时存在的会话数上限，正常录音只有一个进行中的会话 */
+export const MAX_SESSIONS_PER_USER = 3;
+/** 全部会话缓存的数据总量上限 */
+export const MAX_TOTAL_BYTES = 64 * 1024 * 1024;
+/** 会话空闲超时 */
+const SESSION_IDLE_MS = 5 * 60 * 1000;
+const CLEANUP_INTERVAL_MS = 60 * 1000;
+
+/**
+ * 语音流式上传服务
+ * 会话保存在进程内存中，录音时长有限且提交后立即释放；
+ * 按用户限制会话数、按进程限制缓存总量，超出时抛出429错误
+ */
+export class SpeechStreamService {
+  private static instance: SpeechStreamService;
+  private sessions = new Map<string, SpeechStreamSession>();
+  private sessionsPerUser = new Map<string, number>();
+  private totalBytes = 0;
+  private cleanupTimer: NodeJS.Timeout;
+
+  private constructor() {
+    this.cleanupTimer = setInterval(() => this.cleanupIdleSessions(), CLEANUP_INTERVAL_MS);
+    this.cleanupTimer.unref();
+  }
+
+  public static getInstance(): SpeechStreamService {
+    if (!SpeechStreamService.instance) {
+      SpeechStreamService.instance = new SpeechStreamService();
+    }
+    return SpeechStreamService.instance;
+  }
+
+  /**
+   * 在指定偏移量追加数据，已收到的重叠部分会被跳过
+   * @returns offset之后的新位置；offset超过已接收字节数时返回conflict
+   */
+  append(sessionId: string, userId: string, offset: number, data: Buffer): AppendResult {
+    const session = this.getOrCreate(sessionId, userId);
+    if (offset > session.received) {
+      return { conflict: true, received: session.received };
+    }
+
+    const skip = session.received - offset;
+    if (skip < data.length) {
+      const fresh = skip > 0 ? data.subarray(skip) : data;
+      if (session.received + fresh.length > MAX_SESSION_BYTES) {
+        throw new AppError('语音数据超出长度限制', 413);
+      }
+      if (this.totalBytes + fresh.length > MAX_TOTAL_BYTES) {
+        throw new AppError('语音服务繁忙，请稍后重试', 429);
+      }
+      session.chunks.push(fresh);
+      session.received += fresh.length;
+      this.totalBytes += fresh.length;
+      this.notify(session);
+    }
+    session.lastActivity = Date.now();
+    return { conflict: false, received: session.received };
+  }
+
+  /**
+   * 已接收的字节数，会话不存在或不属于该用户时返回null
+   */
+  getReceived(sessionId: string, userId: string): number | null {
+    const session = this.sessions.get(sessionId);
+    if (!session || session.userId !== userId) {
+      return null;
+    }
+    return session.received;
+  }
+
+  /**
+   * 等待数据到齐后取出全部数据并结束会话
+   * @returns 超时或会话不存在时返回null
+   */
+  async take(sessionId: string, userId: string, totalBytes: number, timeoutMs: number): Promise<Buffer | null> {
+    const session = this.sessions.get(sessionId);
+    if (!session || session.userId !== userId) {
+      return null;
+    }
+
+    const deadline = Date.now() + timeoutMs;
+    while (session.received < totalBytes) {
+      const remaining = deadline - Date.now();
+      if (remaining <= 0 || this.sessions.get(sessionId) !== session) {
+        return null;
+      }
+      await new Promise<void>((resolve) => {
+        const timer = setTimeout(resolve, remaining);
+        session.waiters.push(() => {
+          clearTimeout(timer);
+          resolve();
+        });
+      });
+    }
+
+    this.remove(sessionId, session);
+    return Buffer.concat(session.chunks, session.received).subarray(0, totalBytes);
+  }
+
+  private getOrCreate(sessionId: string, userId: string): SpeechStreamSession {
+    let session = this.sessions.get(sessionId);
+    if (session && session.userId !== userId) {
+      throw new Error('语音流会话不属于当前用户');
+    }
+    if (!session) {
+      const userSessions = this.sessionsPerUser.get(userId) ?? 0;
+      if (userSessions >= MAX_SESSIONS_PER_USER) {
+        throw new AppError('进行中的语音会话过多，请稍后重试', 429);
+      }
+      session = { userId, chunks: [], received: 0, lastActivity: Date.now(), waiters: [] };
+      this.sessions.set(sessionId, session);
+      this.sessionsPerUser.set(userId, userSessions + 1);
+    }
+    return session;
+  }
+
+  private remove(sessionId: string, session: SpeechStreamSession) {
+    this.sessions.delete(sessionId);
+    this.totalBytes -= session.received;
+    const userSessions = (this.sessionsPerUser.get(session.userId) ?? 1) - 1;
+    if (userSessions > 0) {
+      this.sessionsPerUser.set(session.userId, userSessions);
+    } else {
+      this.sessionsPerUser.delete(session.userId);
+    }
+  }
+
+  private notify(session: SpeechStreamSession) {
+    const waiters = session.waiters;
+    session.waiters = [];
+    waiters.forEach((wake) => wake());
+  }
+
+  private cleanupIdleSessions() {
+    const now = Date.now();
+    for (const [sessionId, session] of this.sessions) {
+      if (now - session.lastActivity > SESSION_IDLE_MS) {
+        this.remove(sessionId, session);
+        this.notify(session);
+        logger.info(`🎤 [语音流] 清理空闲会话: ${sessionId}, ${session.received} 字节`);
+      }
+    }
+  }
+}
@@ -201,6 +201,23 @@ export class TransactionService {
       throw new Error('分类不存在');
     }
 
+    // 客户端离线补发的记录：同一clientEntryId已创建过时直接返回已有记录，避免网络超时重试造成重复
+    if (transactionData.clientEntryId) {
+      const existing = await prisma.transaction.findFirst({
+        where: {
+          userId,
+          metadata: { path: ['clientEntryId'], equals: transactionData.clientEntryId },
+        },
+      });
+      if (existing) {
+        logger.info('记账记录已存在，跳过重复创建:', {
+          clientEntryId: transactionData.clientEntryId,
+          transactionId: existing.id,
+        });
+        return toTransactionResponseDto(existing, toCategoryResponseDto(category));
+      }
+    }
+
     // 验证记账类型与分类类型是否匹配
     if (category.type !== transactionData.type) {
       logger.error('记账类型与分类类型不匹配:', {
@@ -283,13 +300,16 @@ export class TransactionService {
     );
 
     // 如果是历史记账，记录记账创建时间与消费日期的差异
-    const transactionMetadata = isHistorical
+    let transactionMetadata: Record<string, any> | undefined = isHistorical
       ? {
           isHistorical: true,
           createdAt: new Date(), // 当前时间作为创建时间
           consumptionDate: transactionData.date, // 原始消费日期
         }
       : undefined;
+    if (transactionData.clientEntryId) {
+      transactionMetadata = { ...transactionMetadata, clientEntryId: transactionData.clientEntryId };
+    }
 
     // 更新记账数据，确保包含正确的familyId和familyMemberId
     const finalTransactionData = {
@@ -412,6 +432,13 @@ export class TransactionService {
     };
   }
 
+  /**
+   * 获取账本中记账记录的ID列表，供客户端缓存比对删除
+   */
+  async getTransactionIds(userId: string, accountBookId: string, startDate?: Date): Promise<string[]> {
+    return this.transactionRepository.findIds(userId, accountBookId, startDate);
+  }
+
   /**
    * 获取单个记账记录
    */
@@ -0,0 +1,168 @@
+/**
+ * ADTS封装的AAC转为m4a
+ * 客户端流式上传的是带ADTS头的AAC帧，各语音识别服务只接受m4a等容器格式。
+ * 这里只做重新封装（不解码），把全部帧作为一个chunk写入mdat，生成最小可用的MP4文件
+ */
+
+const ADTS_SAMPLE_RATES = [96000, 88200, 64000, 48000, 44100, 32000, 24000, 22050, 16000, 12000, 11025, 8000, 7350];
+const SAMPLES_PER_FRAME = 1024;
+
+export interface AdtsStreamInfo {
+  /** AAC profile（audioObjectType），LC为2 */
+  objectType: number;
+  sampleRateIndex: number;
+  sampleRate: number;
+  channels: number;
+  frames: Buffer[];
+}
+
+/**
+ * 解析ADTS帧，遇到损坏的数据时抛出错误
+ */
+export function parseAdts(data: Buffer): AdtsStreamInfo {
+  const frames: Buffer[] = [];
+  let info: Omit<AdtsStreamInfo, 'frames'> | null = null;
+  let offset = 0;
+
+  while (offset + 7 <= data.length) {
+    if (data[offset] !== 0xff || (data[offset + 1] & 0xf0) !== 0xf0) {
+      throw new Error(`ADTS同步字错误，偏移 ${offset}`);
+    }
+    const protectionAbsent = data[offset + 1] & 0x01;
+    const headerLength = protectionAbsent ? 7 : 9;
+    const frameLength = ((data[offset + 3] & 0x03) << 11) | (data[offset + 4] << 3) | (data[offset + 5] >> 5);
+    if (frameLength < headerLength || offset + frameLength > data.length) {
+      throw new Error(`ADTS帧长度错误，偏移 ${offset}`);
+    }
+
+    if (!info) {
+      const sampleRateIndex = (data[offset + 2] >> 2) & 0x0f;
+      const sampleRate = ADTS_SAMPLE_RATES[sampleRateIndex];
+      if (!sampleRate) {
+        throw new Error(`不支持的采样率索引: ${sampleRateIndex}`);
+      }
+      info = {
+        objectType: ((data[offset + 2] >> 6) & 0x03) + 1,
+        sampleRateIndex,
+        sampleRate,
+        channels: ((data[offset + 2] & 0x01) << 2) | (data[offset + 3] >> 6),
+      };
+    }
+
+    frames.push(data.subarray(offset + headerLength, offset + frameLength));
+    offset += frameLength;
+  }
+
+  if (!info || frames.length === 0) {
+    throw new Error('没有有效的ADTS帧');
+  }
+  return { ...info, frames };
+}
+
+/**
+ * ADTS数据转为m4a文件内容
+ */
+export function adtsToM4a(data: Buffer): Buffer {
+  const stream = parseAdts(data);
+  const { frames, sampleRate, channels } = stream;
+  const durationSamples = frames.length * SAMPLES_PER_FRAME;
+  const durationMs = Math.round((durationSamples * 1000) / sampleRate);
+
+  const ftyp = box('ftyp', Buffer.from('M4A '), u32(0), Buffer.from('M4A mp42isom'));
+  const payload = Buffer.concat(frames);
+  const mdatHeaderSize = 8;
+  // mdat紧跟ftyp，唯一的chunk从mdat数据区开始
+  const chunkOffset = ftyp.length + mdatHeaderSize;
+
+  const moov = box(
+    'moov',
+    fullBox('mvhd', 0, 0,
+      u32(0), u32(0), u32(1000), u32(durationMs),
+      u32(0x00010000), u16(0x0100), Buffer.alloc(10),
+      MATRIX, Buffer.alloc(24), u32(2)),
+    box(
+      'trak',
+      fullBox('tkhd', 0, 0x000003,
+        u32(0), u32(0), u32(1), u32(0), u32(durationMs),
+        Buffer.alloc(8), u16(0), u16(0), u16(0x0100), u16(0),
+        MATRIX, u32(0), u32(0)),
+      box(
+        'mdia',
+        fullBox('mdhd', 0, 0, u32(0), u32(0), u32(sampleRate), u32(durationSamples), u16(0x55c4), u16(0)),
+        fullBox('hdlr', 0, 0, u32(0), Buffer.from('soun'), Buffer.alloc(12), Buffer.from('SoundHandler\0')),
+        box(
+          'minf',
+          fullBox('smhd', 0, 0, u16(0), u16(0)),
+          box('dinf', fullBox('dref', 0, 0, u32(1), fullBox('url ', 0, 1))),
+          box(
+            'stbl',
+            fullBox('stsd', 0, 0, u32(1), mp4a(stream)),
+            fullBox('stts', 0, 0, u32(1), u32(frames.length), u32(SAMPLES_PER_FRAME)),
+            fullBox('stsc', 0, 0, u32(1), u32(1), u32(frames.length), u32(1)),
+            fullBox('stsz', 0, 0, u32(0), u32(frames.length), ...frames.map((frame) => u32(frame.length))),
+            fullBox('stco', 0, 0, u32(1), u32(chunkOffset)),
+          ),
+        ),
+      ),
+    ),
+  );
+
+  return Buffer.concat([ftyp, u32(mdatHeaderSize + payload.length), Buffer.from('mdat'), payload, moov]);
+}
+
+const MATRIX = Buffer.concat([
+  u32(0x00010000), u32(0), u32(0),
+  u32(0), u32(0x00010000), u32(0),
+  u32(0), u32(0), u32(0x40000000),
+]);
+
+function mp4a(stream: AdtsStreamInfo): Buffer {
+  // AudioSpecificConfig: audioObjectType(5) samplingFrequencyIndex(4) channelConfiguration(4) 000
+  const audioSpecificConfig = u16((stream.objectType << 11) | (stream.sampleRateIndex << 7) | (stream.channels << 3));
+  const decoderSpecificInfo = descriptor(0x05, audioSpecificConfig);
+  const decoderConfig = descriptor(
+    0x04,
+    Buffer.from([0x40, 0x15]), // MPEG-4 Audio，音频流
+    Buffer.alloc(3), // bufferSizeDB
+    u32(0), // maxBitrate
+    u32(0), // avgBitrate
+    decoderSpecificInfo,
+  );
+  const esDescriptor = descriptor(0x03, u16(1), Buffer.from([0]), decoderConfig, descriptor(0x06, Buffer.from([0x02])));
+
+  return box(
+    'mp4a',
+    Buffer.alloc(6), u16(1),
+    Buffer.alloc(8), u16(stream.channels), u16(16), u16(0), u16(0), u32(stream.sampleRate << 16),
+    fullBox('esds', 0, 0, esDescriptor),
+  );
+}
+
+function descriptor(tag: number, ...parts: Buffer[]): Buffer {
+  const body = Buffer.concat(parts);
+  if (body.length > 0x7f) {
+    throw new Error('描述符过长');
+  }
+  return Buffer.concat([Buffer.from([tag, body.length]), body]);
+}
+
+function box(type: string, ...parts: Buffer[]): Buffer {
+  const body = Buffer.concat(parts);
+  return Buffer.concat([u32(8 + body.length), Buffer.from(type, 'latin1'), body]);
+}
+
+function fullBox(type: string, version: number, flags: number, ...parts: Buffer[]): Buffer {
+  return box(type, u32(((version & 0xff) << 24) | (flags & 0xffffff)), ...parts);
+}
+
+function u32(value: number): Buffer {
+  const buffer = Buffer.alloc(4);
+  buffer.writeUInt32BE(value >>> 0);
+  return buffer;
+}
+
+function u16(value: number): Buffer {
+  const buffer = Buffer.alloc(2);
+  buffer.writeUInt16BE(value & 0xffff);
+  return buffer;
+}